@@ -140,7 +140,7 @@ public class TestListener implements ITestListener {
             }
 
             //setting thrift ports and valve before starting statistics publishing tests
-            if (iTestContext.getName().equals("statistics-publishing-test")) {
+            if (iTestContext.getName().startsWith("statistics-publishing")) {
                 thriftPort = Constants.DEFAULT_THRIFT_PORT;
                 thriftSSLPort = Constants.DEFAULT_THRIFT_SSL_PORT;
 
@@ -157,6 +157,7 @@ public class TestListener implements ITestListener {
                 System.setProperty(Constants.THRIFT_SSL_PORT, String.valueOf(thriftSSLPort));
 
                 addValveToServerXML(TestConstants.HTTP_STATISTICS_PUBLISHING_VALVE);
+                setStatisticsPublisherEnabled(true);
             }
 
             log.info(processHandler.getOperatingSystem() + " operating system was detected");
@@ -223,11 +224,12 @@ public class TestListener implements ITestListener {
         isSuccessTermination = true;
 
         //revert thrift port changes made during the test
-        if (iTestContext.getName().equals("statistics-publishing-test")) {
+        if (iTestContext.getName().startsWith("statistics-publishing")) {
             try {
                 updateThriftPorts(Constants.ORIGINAL_THRIFT_SSL_PORT, Constants.ORIGINAL_THRIFT_PORT);
+                setStatisticsPublisherEnabled(false);
             } catch (Exception ex) {
-                String message = "Error while reverting thrift ports.";
+                String message = "Error while reverting thrift ports and statistics publisher configuration.";
                 log.error(message, ex);
                 throw new RuntimeException(message, ex);
             }
@@ -362,6 +364,30 @@ public class TestListener implements ITestListener {
 
     }
 
+    /**
+     * Enables or disables the statistics publisher for all web applications in the global wso2as-web.xml.
+     *
+     * @param enabled true to publish the statistics of the web applications, false otherwise
+     * @throws ParserConfigurationException if a DocumentBuilder cannot be created
+     * @throws SAXException                 if any parse errors occur
+     * @throws IOException                  if an I/O error occurs
+     * @throws TransformerException         if an error occurs during the transformation
+     */
+    private static void setStatisticsPublisherEnabled(boolean enabled)
+            throws ParserConfigurationException, IOException, SAXException, TransformerException {
+        Path webAppXML = Paths.get(System.getProperty(TestConstants.APPSERVER_HOME), "conf", "wso2",
+                "wso2as-web.xml");
+
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().
+                parse(new InputSource(webAppXML.toString()));
+
+        Node enableStatsPublisher = document.getElementsByTagName("enable-stats-publisher").item(0);
+        enableStatsPublisher.setTextContent(String.valueOf(enabled));
+
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new DOMSource(document), new StreamResult(webAppXML.toFile().getPath()));
+    }
+
     /**
      * Registers an Apache Tomcat Valve in the server.xml of the Application Server Catalina config base.
      *
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.appserver.test.integration.statisticspublishing;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.carbon.databridge.commons.Credentials;
+import org.wso2.carbon.databridge.commons.Event;
+import org.wso2.carbon.databridge.commons.StreamDefinition;
+import org.wso2.carbon.databridge.commons.exception.DifferentStreamDefinitionAlreadyDefinedException;
+import org.wso2.carbon.databridge.commons.exception.MalformedStreamDefinitionException;
+import org.wso2.carbon.databridge.commons.utils.EventDefinitionConverterUtils;
+import org.wso2.carbon.databridge.core.AgentCallback;
+import org.wso2.carbon.databridge.core.DataBridge;
+import org.wso2.carbon.databridge.core.definitionstore.InMemoryStreamDefinitionStore;
+import org.wso2.carbon.databridge.core.exception.DataBridgeException;
+import org.wso2.carbon.databridge.core.exception.StreamDefinitionStoreException;
+import org.wso2.carbon.databridge.core.internal.authentication.AuthenticationHandler;
+import org.wso2.carbon.databridge.receiver.thrift.internal.ThriftDataReceiver;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A local stand-in for WSO2 Data Analytics Server, which receives the events over Thrift like the
+ * {@link ThriftTestServer} and into which faults can be injected while it receives them: a processing latency, a
+ * maximum throughput, dropped connections, refused authentications and restarts.
+ * <p>
+ * The Thrift receiver listens on internal ports, behind {@link FaultInjectingProxy}s listening on the configured
+ * ports, so that the connections can be dropped and the receiver restarted on other ports without the publisher
+ * noticing anything but the failures. The number of received events and their end-to-end latencies, from the start
+ * of their request to their reception, are recorded.
+ *
+ * @since 6.0.0
+ */
+public class DasStandInServer {
+
+    private static Log log = LogFactory.getLog(DasStandInServer.class);
+
+    private final InMemoryStreamDefinitionStore streamDefinitionStore = new InMemoryStreamDefinitionStore();
+    private final FaultInjectingProxy proxy;
+    private final FaultInjectingProxy sslProxy;
+    private ThriftDataReceiver thriftDataReceiver;
+
+    private volatile long processingLatency;
+    private volatile int maxEventsPerSecond;
+    private volatile boolean authenticationRefused;
+    private final AtomicLong throttleTime = new AtomicLong();
+
+    private final AtomicLong numberOfEventsReceived = new AtomicLong();
+    private final List<Long> latencies = new ArrayList<>();
+    private volatile long lastReceivedTime;
+
+    /**
+     * Creates a stand-in server.
+     *
+     * @param thriftSSLPort the port of the Thrift authentication endpoint
+     * @param thriftPort    the port of the Thrift receiver endpoint
+     */
+    public DasStandInServer(int thriftSSLPort, int thriftPort) {
+        proxy = new FaultInjectingProxy(thriftPort, 0);
+        sslProxy = new FaultInjectingProxy(thriftSSLPort, 0);
+    }
+
+    /**
+     * Starts the server.
+     *
+     * @throws DataBridgeException if the Thrift receiver cannot be started
+     * @throws IOException         if the ports cannot be bound
+     */
+    public synchronized void start() throws DataBridgeException, IOException {
+        DataPublisherTestUtil.setKeyStoreParams();
+        startReceiver();
+        sslProxy.start();
+        proxy.start();
+        log.info("DAS stand-in server started");
+    }
+
+    /**
+     * Stops the server.
+     */
+    public synchronized void stop() {
+        proxy.shutdown();
+        sslProxy.shutdown();
+        thriftDataReceiver.stop();
+    }
+
+    /**
+     * Restarts the server: the connections are dropped, nothing is accepted during the downtime and the sessions of
+     * the publishers are lost, so that they have to authenticate again.
+     *
+     * @param downtime the time during which the server is down, in milliseconds
+     * @throws DataBridgeException  if the Thrift receiver cannot be started again
+     * @throws IOException          if the ports cannot be bound again
+     * @throws InterruptedException if the thread is interrupted during the downtime
+     */
+    public synchronized void restart(long downtime) throws DataBridgeException, IOException, InterruptedException {
+        log.info("Restarting the DAS stand-in server");
+        proxy.stop();
+        sslProxy.stop();
+        thriftDataReceiver.stop();
+        Thread.sleep(downtime);
+        startReceiver();
+        sslProxy.start();
+        proxy.start();
+        log.info("DAS stand-in server restarted");
+    }
+
+    /**
+     * Drops the open connections of the publishers.
+     */
+    public void dropConnections() {
+        log.info("Dropping the connections to the DAS stand-in server");
+        proxy.dropConnections();
+        sslProxy.dropConnections();
+    }
+
+    /**
+     * Sets the time spent processing each batch of received events, during which the receiver does not take more.
+     *
+     * @param processingLatency the latency in milliseconds, 0 for none
+     */
+    public void setProcessingLatency(long processingLatency) {
+        this.processingLatency = processingLatency;
+    }
+
+    /**
+     * Sets the maximum number of events received per second.
+     *
+     * @param maxEventsPerSecond the maximum rate, 0 for no limit
+     */
+    public void setMaxEventsPerSecond(int maxEventsPerSecond) {
+        this.maxEventsPerSecond = maxEventsPerSecond;
+    }
+
+    /**
+     * Sets whether the authentication of the publishers is refused, which only affects the publishers which connect
+     * afterwards.
+     *
+     * @param authenticationRefused true to refuse the authentications, false to accept them
+     */
+    public void setAuthenticationRefused(boolean authenticationRefused) {
+        this.authenticationRefused = authenticationRefused;
+    }
+
+    /**
+     * Removes the processing latency, throughput limit and refused authentication faults.
+     */
+    public void clearFaults() {
+        processingLatency = 0;
+        maxEventsPerSecond = 0;
+        authenticationRefused = false;
+    }
+
+    /**
+     * Returns the number of events received.
+     *
+     * @return number of events received.
+     */
+    public long getNumberOfEventsReceived() {
+        return numberOfEventsReceived.get();
+    }
+
+    /**
+     * Returns the end-to-end latencies of the events received, from the start of their request to their reception.
+     *
+     * @return the latencies in milliseconds, in the order the events were received
+     */
+    public List<Long> getLatencies() {
+        synchronized (latencies) {
+            return new ArrayList<>(latencies);
+        }
+    }
+
+    /**
+     * Returns the time at which the last events were received.
+     *
+     * @return the time in milliseconds, 0 if no event was received
+     */
+    public long getLastReceivedTime() {
+        return lastReceivedTime;
+    }
+
+    /**
+     * Resets the number of events received and their latencies.
+     */
+    public void resetStatistics() {
+        synchronized (latencies) {
+            numberOfEventsReceived.set(0);
+            latencies.clear();
+            lastReceivedTime = 0;
+        }
+    }
+
+    /**
+     * Adds a stream definition to in memory stream definition store.
+     *
+     * @param streamDefinition string representation of the stream definition.
+     * @throws MalformedStreamDefinitionException
+     * @throws DifferentStreamDefinitionAlreadyDefinedException
+     * @throws StreamDefinitionStoreException
+     */
+    public void addStreamDefinition(String streamDefinition) throws MalformedStreamDefinitionException,
+            DifferentStreamDefinitionAlreadyDefinedException, StreamDefinitionStoreException {
+        streamDefinitionStore.saveStreamDefinition(new Credentials("admin", "admin", "admin"),
+                EventDefinitionConverterUtils.convertFromJson(streamDefinition));
+    }
+
+    /**
+     * Starts a new Thrift receiver on free internal ports, and points the proxies to them.
+     *
+     * @throws DataBridgeException if the Thrift receiver cannot be started
+     * @throws IOException         if no free port is found
+     */
+    private void startReceiver() throws DataBridgeException, IOException {
+        DataBridge dataBridge = new DataBridge(new AuthenticationHandler() {
+            @Override
+            public boolean authenticate(String userName, String password) {
+                return !authenticationRefused;
+            }
+
+            @Override
+            public String getTenantDomain(String userName) {
+                return "admin";
+            }
+        }, streamDefinitionStore);
+
+        dataBridge.subscribe(new AgentCallback() {
+            @Override
+            public void definedStream(StreamDefinition streamDefinition, Credentials credentials) {
+                log.info("Stream definition added: " + streamDefinition);
+            }
+
+            @Override
+            public void removeStream(StreamDefinition streamDefinition, Credentials credentials) {
+                log.info("Stream removed: " + streamDefinition);
+            }
+
+            @Override
+            public void receive(List<Event> events, Credentials credentials) {
+                receiveEvents(events);
+            }
+        });
+
+        int port = getFreePort();
+        int sslPort = getFreePort();
+        thriftDataReceiver = new ThriftDataReceiver(sslPort, port, dataBridge);
+        thriftDataReceiver.start(Constants.HOST);
+        proxy.setTargetPort(port);
+        sslProxy.setTargetPort(sslPort);
+    }
+
+    /**
+     * Receives a batch of events, after the injected processing latency and throughput limit.
+     *
+     * @param events the events
+     */
+    private void receiveEvents(List<Event> events) {
+        throttle(events.size());
+        long latency = processingLatency;
+        if (latency > 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(latency));
+        }
+        long now = System.currentTimeMillis();
+        synchronized (latencies) {
+            for (Event event : events) {
+                latencies.add(now - event.getTimeStamp());
+            }
+            numberOfEventsReceived.addAndGet(events.size());
+            lastReceivedTime = now;
+        }
+    }
+
+    /**
+     * Waits until the specified number of events can be received without exceeding the maximum throughput.
+     *
+     * @param count the number of events
+     */
+    private void throttle(int count) {
+        int rate = maxEventsPerSecond;
+        if (rate <= 0) {
+            return;
+        }
+        long cost = TimeUnit.SECONDS.toNanos(count) / rate;
+        long now = System.nanoTime();
+        //  each batch reserves the time it takes at the maximum rate, after the batches before it
+        long end = throttleTime.updateAndGet(time -> Math.max(time, now) + cost);
+        LockSupport.parkNanos(end - now);
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
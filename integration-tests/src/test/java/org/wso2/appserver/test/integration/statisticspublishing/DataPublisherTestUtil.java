@@ -17,8 +17,14 @@
  */
 package org.wso2.appserver.test.integration.statisticspublishing;
 
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+import java.io.FileReader;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 
 /**
  * Util methods related to HTTP statistics publishing integration test.
@@ -37,14 +43,47 @@ public class DataPublisherTestUtil {
     }
 
     /**
-     * Returns the absolute path of the org.wso2.http.analytics.stream_1.0.0.json.
+     * Returns the absolute path of the org.wso2.http.analytics.stream_1.5.0.json.
      *
-     * @return absolute path of the org.wso2.http.analytics.stream_1.0.0.json
+     * @return absolute path of the org.wso2.http.analytics.stream_1.5.0.json
      */
     public static String getStreamDefinitionPath() {
-        Path streamDefinitionPath = Paths.get("src", "test", "resources", "org.wso2.http.analytics.stream_1.0.0.json")
+        Path streamDefinitionPath = Paths.get("src", "test", "resources", "org.wso2.http.analytics.stream_1.5.0.json")
                 .toAbsolutePath();
         return streamDefinitionPath.toString();
     }
 
+    /**
+     * Reads the org.wso2.http.analytics.stream_1.5.0.json stream definition.
+     *
+     * @return string representation of the stream definition
+     * @throws IOException if the stream definition cannot be read
+     */
+    public static String readStreamDefinition() throws IOException {
+        JSONParser parser = new JSONParser();
+        JSONObject jsonObject;
+        try {
+            Object obj = parser.parse(new FileReader(getStreamDefinitionPath()));
+            jsonObject = (JSONObject) obj;
+        } catch (Exception e) {
+            throw new IOException("Failed");
+        }
+        return jsonObject.toJSONString();
+    }
+
+    /**
+     * Returns the value below which the specified percentage of the sorted values are.
+     *
+     * @param sortedValues the values, in ascending order
+     * @param percentile   the percentage, between 0 and 100
+     * @return the percentile, 0 if there is no value
+     */
+    public static long getPercentile(List<Long> sortedValues, double percentile) {
+        if (sortedValues.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(sortedValues.size() * percentile / 100) - 1;
+        return sortedValues.get(Math.max(index, 0));
+    }
+
 }
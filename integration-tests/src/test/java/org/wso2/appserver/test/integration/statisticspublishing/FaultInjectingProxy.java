@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.appserver.test.integration.statisticspublishing;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A TCP proxy which forwards the connections made to a port to another local port, and which can drop all of its
+ * connections or stop accepting new ones, to simulate network failures between the publisher and the receiver.
+ *
+ * @since 6.0.0
+ */
+public class FaultInjectingProxy {
+
+    private static Log log = LogFactory.getLog(FaultInjectingProxy.class);
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int port;
+    private volatile int targetPort;
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor;
+    private ServerSocket serverSocket;
+
+    /**
+     * Creates a proxy.
+     *
+     * @param port       the port on which the connections are accepted
+     * @param targetPort the port to which the connections are forwarded
+     */
+    public FaultInjectingProxy(int port, int targetPort) {
+        this.port = port;
+        this.targetPort = targetPort;
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "FaultInjectingProxy-" + port);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts accepting connections.
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized void start() throws IOException {
+        if (serverSocket != null) {
+            return;
+        }
+        ServerSocket server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(new InetSocketAddress(Constants.HOST, port));
+        serverSocket = server;
+        executor.submit(() -> accept(server));
+    }
+
+    /**
+     * Stops accepting connections and drops the open ones, as if the receiver were down.
+     */
+    public synchronized void stop() {
+        if (serverSocket != null) {
+            close(serverSocket);
+            serverSocket = null;
+        }
+        dropConnections();
+    }
+
+    /**
+     * Stops the proxy and its threads.
+     */
+    public void shutdown() {
+        stop();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Abruptly closes the open connections, which are neither drained nor closed gracefully on the other side.
+     */
+    public void dropConnections() {
+        for (Socket socket : sockets) {
+            try {
+                //  a zero linger time resets the connection instead of closing it
+                socket.setSoLinger(true, 0);
+            } catch (IOException ignore) {
+            }
+            close(socket);
+        }
+        sockets.clear();
+    }
+
+    /**
+     * Sets the port to which the new connections are forwarded.
+     *
+     * @param targetPort the port
+     */
+    public void setTargetPort(int targetPort) {
+        this.targetPort = targetPort;
+    }
+
+    private void accept(ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                Socket client = server.accept();
+                Socket upstream;
+                try {
+                    upstream = new Socket(Constants.HOST, targetPort);
+                } catch (IOException e) {
+                    close(client);
+                    continue;
+                }
+                sockets.add(client);
+                sockets.add(upstream);
+                executor.submit(() -> forward(client, upstream));
+                executor.submit(() -> forward(upstream, client));
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    log.error("Error in accepting a connection on port " + port, e);
+                }
+            }
+        }
+    }
+
+    private void forward(Socket from, Socket to) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            InputStream input = from.getInputStream();
+            OutputStream output = to.getOutputStream();
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                output.write(buffer, 0, read);
+                output.flush();
+            }
+        } catch (IOException ignore) {
+            //  the connection was closed or dropped
+        } finally {
+            close(from);
+            close(to);
+            sockets.remove(from);
+            sockets.remove(to);
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignore) {
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.wso2.appserver.test.integration.statisticspublishing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.appserver.test.integration.TestBase;
+import org.wso2.appserver.test.integration.TestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class defines the throughput and resilience integration tests of the HTTP statistics publishing, against a
+ * {@link DasStandInServer}.
+ * <p>
+ * The throughput of the publishing and the end-to-end latency of the events are measured under a constant load with
+ * a healthy receiver. The same load is then applied while faults are injected into the receiver, and the latency of
+ * the requests must stay close to the one measured with the healthy receiver, as the request threads must never
+ * wait for the receiver. Once the faults are removed, the events must be received again.
+ *
+ * @since 6.0.0
+ */
+public class PublisherResilienceTestCase extends TestBase {
+
+    private static final Logger log = LoggerFactory.getLogger(PublisherResilienceTestCase.class);
+
+    private static final String ENDPOINT = "/examples/servlets/servlet/HelloWorldExample";
+    private static final int CLIENT_THREADS = 4;
+    private static final long LOAD_DURATION = TimeUnit.SECONDS.toMillis(10);
+    // timeout for receiving the events of the load, and for the publisher to reconnect once the faults are removed
+    private static final int TIMEOUT = 60;
+    // the share of the events of the load which must be received from a healthy receiver
+    private static final double MIN_DELIVERY_RATIO = 0.99;
+    // the 99th percentile of the request latency under a fault must be within this factor and margin of the baseline
+    private static final double LATENCY_TOLERANCE_FACTOR = 3;
+    private static final long LATENCY_TOLERANCE_MILLIS = 50;
+
+    private DasStandInServer server;
+    private long baselineLatency;
+
+    @BeforeClass
+    public static void init() {
+        DataPublisherTestUtil.setKeyStoreParams();
+    }
+
+    @Test(description = "tests whether the DAS stand-in server is started.")
+    public void testServerStart() throws Exception {
+        int thriftPort = Integer.parseInt(System.getProperty(Constants.THRIFT_PORT));
+        int thriftSSLPort = Integer.parseInt(System.getProperty(Constants.THRIFT_SSL_PORT));
+        server = new DasStandInServer(thriftSSLPort, thriftPort);
+        server.start();
+        server.addStreamDefinition(DataPublisherTestUtil.readStreamDefinition());
+        Assert.assertTrue(TestUtils.isServerListening(Constants.HOST, thriftPort), "DAS stand-in is not started.");
+    }
+
+    @Test(description = "measures the throughput and latency of the publishing with a healthy receiver.",
+            dependsOnMethods = {"testServerStart"})
+    public void testThroughput() throws Exception {
+        //  the events of the requests sent before, such as the first ones which open the connection, are not counted
+        generateLoad(TimeUnit.SECONDS.toMillis(2));
+        waitForEvents(1);
+        Thread.sleep(TimeUnit.SECONDS.toMillis(2));
+        server.resetStatistics();
+
+        long startTime = System.currentTimeMillis();
+        LoadResult load = generateLoad(LOAD_DURATION);
+        long numberOfEventsReceived = waitForEvents(load.getRequestCount());
+        double eventsPerSecond = numberOfEventsReceived * 1000.0 / (server.getLastReceivedTime() - startTime);
+        List<Long> eventLatencies = server.getLatencies();
+        Collections.sort(eventLatencies);
+        log.info("Sent {} requests at {} requests/s, request latency {}", load.getRequestCount(),
+                String.format("%.0f", load.getRequestsPerSecond()), load.formatLatencies());
+        log.info("Received {} events at {} events/s, end-to-end latency p50 {} ms, p99 {} ms, max {} ms",
+                numberOfEventsReceived, String.format("%.0f", eventsPerSecond),
+                DataPublisherTestUtil.getPercentile(eventLatencies, 50),
+                DataPublisherTestUtil.getPercentile(eventLatencies, 99),
+                DataPublisherTestUtil.getPercentile(eventLatencies, 100));
+
+        Assert.assertEquals(load.getErrorCount(), 0, "Requests failed with a healthy receiver");
+        Assert.assertTrue(numberOfEventsReceived >= load.getRequestCount() * MIN_DELIVERY_RATIO,
+                "Only " + numberOfEventsReceived + " events of " + load.getRequestCount() + " requests were " +
+                        "received from a healthy receiver");
+        baselineLatency = load.getLatencyPercentile(99);
+    }
+
+    @Test(description = "tests whether the requests are not slowed down by a slow receiver.",
+            dependsOnMethods = {"testThroughput"})
+    public void testSlowReceiver() throws Exception {
+        server.setProcessingLatency(500);
+        assertLatencyUnaffected(generateLoad(LOAD_DURATION), "a slow receiver");
+        server.clearFaults();
+        assertPublishingResumed("a slow receiver");
+    }
+
+    @Test(description = "tests whether the requests are not slowed down by a receiver with a low throughput.",
+            dependsOnMethods = {"testThroughput"})
+    public void testThrottledReceiver() throws Exception {
+        server.setMaxEventsPerSecond(50);
+        assertLatencyUnaffected(generateLoad(LOAD_DURATION), "a throttled receiver");
+        server.clearFaults();
+        assertPublishingResumed("a throttled receiver");
+    }
+
+    @Test(description = "tests whether the requests are not slowed down when the connections are dropped.",
+            dependsOnMethods = {"testThroughput"})
+    public void testDroppedConnections() throws Exception {
+        LoadResult load = generateLoad(LOAD_DURATION, () -> server.dropConnections(), TimeUnit.SECONDS.toMillis(2));
+        assertLatencyUnaffected(load, "dropped connections");
+        assertPublishingResumed("dropped connections");
+    }
+
+    @Test(description = "tests whether the requests are not slowed down when the authentication is refused.",
+            dependsOnMethods = {"testThroughput"})
+    public void testRefusedAuthentication() throws Exception {
+        server.setAuthenticationRefused(true);
+        //  the publisher has to authenticate again once its connections are dropped
+        server.dropConnections();
+        assertLatencyUnaffected(generateLoad(LOAD_DURATION), "a refused authentication");
+        server.clearFaults();
+        assertPublishingResumed("a refused authentication");
+    }
+
+    @Test(description = "tests whether the requests are not slowed down when the receiver restarts mid-stream.",
+            dependsOnMethods = {"testThroughput"})
+    public void testRestart() throws Exception {
+        LoadResult load = generateLoad(LOAD_DURATION, () -> {
+            try {
+                server.restart(TimeUnit.SECONDS.toMillis(3));
+            } catch (Exception e) {
+                throw new IllegalStateException("Restarting the DAS stand-in failed", e);
+            }
+        }, LOAD_DURATION / 3);
+        assertLatencyUnaffected(load, "a restart of the receiver");
+        assertPublishingResumed("a restart of the receiver");
+    }
+
+    @AfterMethod
+    public void clearFaults() {
+        if (server != null) {
+            server.clearFaults();
+        }
+    }
+
+    @AfterClass
+    public void destroy() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    private void assertLatencyUnaffected(LoadResult load, String fault) {
+        long latency = load.getLatencyPercentile(99);
+        log.info("Sent {} requests at {} requests/s with {}, request latency {}", load.getRequestCount(),
+                String.format("%.0f", load.getRequestsPerSecond()), fault, load.formatLatencies());
+        Assert.assertEquals(load.getErrorCount(), 0, "Requests failed with " + fault);
+        Assert.assertTrue(latency <= baselineLatency * LATENCY_TOLERANCE_FACTOR + LATENCY_TOLERANCE_MILLIS,
+                "The 99th percentile of the request latency rose from " + baselineLatency + " ms to " + latency +
+                        " ms with " + fault);
+    }
+
+    private void assertPublishingResumed(String fault) throws Exception {
+        server.resetStatistics();
+        int time = 0;
+        while (server.getNumberOfEventsReceived() == 0 && time < TIMEOUT) {
+            sendRequest();
+            Thread.sleep(1000);
+            time++;
+        }
+        Assert.assertTrue(server.getNumberOfEventsReceived() > 0, "The events are not received after " + fault);
+    }
+
+    /**
+     * Waits until the specified number of events are received, or until no event was received for a few seconds.
+     *
+     * @param count the number of events expected
+     * @return the number of events received
+     */
+    private long waitForEvents(long count) throws InterruptedException {
+        int time = 0;
+        int idleTime = 0;
+        long received = server.getNumberOfEventsReceived();
+        while (received < count && time < TIMEOUT && idleTime < 5) {
+            Thread.sleep(1000);
+            time++;
+            long previouslyReceived = received;
+            received = server.getNumberOfEventsReceived();
+            idleTime = (received == previouslyReceived) ? idleTime + 1 : 0;
+        }
+        return received;
+    }
+
+    private LoadResult generateLoad(long duration) throws InterruptedException, ExecutionException {
+        return generateLoad(duration, null, 0);
+    }
+
+    /**
+     * Sends requests from several threads for the specified duration, as fast as they are served.
+     *
+     * @param duration      the duration of the load in milliseconds
+     * @param fault         the fault injected periodically during the load, or null if none
+     * @param faultInterval the interval at which the fault is injected in milliseconds
+     * @return the result of the load
+     */
+    private LoadResult generateLoad(long duration, Runnable fault, long faultInterval)
+            throws InterruptedException, ExecutionException {
+        ScheduledExecutorService faultExecutor = Executors.newSingleThreadScheduledExecutor();
+        if (fault != null) {
+            faultExecutor.scheduleWithFixedDelay(fault, faultInterval, faultInterval, TimeUnit.MILLISECONDS);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENT_THREADS);
+        long startTime = System.nanoTime();
+        long endTime = startTime + TimeUnit.MILLISECONDS.toNanos(duration);
+        List<Future<LoadResult>> results = new ArrayList<>();
+        for (int thread = 0; thread < CLIENT_THREADS; thread++) {
+            results.add(executor.submit(() -> {
+                LoadResult result = new LoadResult();
+                while (System.nanoTime() < endTime) {
+                    long requestStartTime = System.nanoTime();
+                    boolean succeeded = sendRequest();
+                    result.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - requestStartTime), succeeded);
+                }
+                return result;
+            }));
+        }
+        LoadResult load = new LoadResult();
+        try {
+            for (Future<LoadResult> result : results) {
+                load.add(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+            faultExecutor.shutdownNow();
+            //  a fault being injected, such as a restart, is completed before the next load
+            faultExecutor.awaitTermination(TIMEOUT, TimeUnit.SECONDS);
+        }
+        load.setDuration(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        return load;
+    }
+
+    /**
+     * Sends a request and reads its response.
+     *
+     * @return true if the request succeeded, false otherwise
+     */
+    private boolean sendRequest() {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(getBaseUrl() + ENDPOINT).openConnection();
+            connection.setRequestMethod("GET");
+            int responseCode = connection.getResponseCode();
+            try (InputStream input = (responseCode < 400) ? connection.getInputStream() :
+                    connection.getErrorStream()) {
+                if (input != null) {
+                    byte[] buffer = new byte[4096];
+                    while (input.read(buffer) >= 0) {
+                        //  the response is read fully, so that the connection is reused
+                    }
+                }
+            }
+            return responseCode == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The number of requests sent and their latencies.
+     */
+    private static class LoadResult {
+        private final List<Long> latencies = new ArrayList<>();
+        private long errorCount;
+        private long duration;
+
+        private void record(long latency, boolean succeeded) {
+            latencies.add(latency);
+            if (!succeeded) {
+                errorCount++;
+            }
+        }
+
+        private void add(LoadResult result) {
+            latencies.addAll(result.latencies);
+            errorCount += result.errorCount;
+            Collections.sort(latencies);
+        }
+
+        private void setDuration(long duration) {
+            this.duration = duration;
+        }
+
+        private long getRequestCount() {
+            return latencies.size();
+        }
+
+        private long getErrorCount() {
+            return errorCount;
+        }
+
+        private double getRequestsPerSecond() {
+            return latencies.size() * 1000.0 / Math.max(duration, 1);
+        }
+
+        private long getLatencyPercentile(double percentile) {
+            return DataPublisherTestUtil.getPercentile(latencies, percentile);
+        }
+
+        private String formatLatencies() {
+            return String.format("p50 %d ms, p99 %d ms, max %d ms", getLatencyPercentile(50),
+                    getLatencyPercentile(99), getLatencyPercentile(100));
+        }
+    }
+}
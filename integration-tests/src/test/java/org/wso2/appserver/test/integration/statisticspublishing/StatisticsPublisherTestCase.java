@@ -17,9 +17,6 @@
  */
 package org.wso2.appserver.test.integration.statisticspublishing;
 
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -27,8 +24,6 @@ import org.testng.annotations.Test;
 import org.wso2.appserver.test.integration.TestBase;
 import org.wso2.appserver.test.integration.TestUtils;
 
-import java.io.FileReader;
-import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
 
@@ -57,7 +52,7 @@ public class StatisticsPublisherTestCase extends TestBase {
         thriftSSLPort = Integer.parseInt(System.getProperty(Constants.THRIFT_SSL_PORT));
         thriftTestServer = new ThriftTestServer(thriftSSLPort, thriftPort);
         thriftTestServer.start();
-        thriftTestServer.addStreamDefinition(convertJSONtoString());
+        thriftTestServer.addStreamDefinition(DataPublisherTestUtil.readStreamDefinition());
         Assert.assertTrue(TestUtils.isServerListening(Constants.HOST, thriftPort), "Thrift server is not started.");
     }
 
@@ -86,16 +81,4 @@ public class StatisticsPublisherTestCase extends TestBase {
     public void destroy() {
         thriftTestServer.stop();
     }
-
-    private String convertJSONtoString() throws IOException {
-        JSONParser parser = new JSONParser();
-        JSONObject jsonObject;
-        try {
-            Object obj = parser.parse(new FileReader(DataPublisherTestUtil.getStreamDefinitionPath()));
-            jsonObject = (JSONObject) obj;
-        } catch (Exception e) {
-            throw new IOException("Failed");
-        }
-        return jsonObject.toJSONString();
-    }
 }
@@ -17,6 +17,7 @@
  */
 package org.wso2.appserver.configuration.context;
 
+import java.util.List;
 import java.util.Optional;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -33,6 +34,14 @@ import javax.xml.bind.annotation.XmlRootElement;
 public class WebAppStatsPublishing {
     @XmlElement(name = "enable-stats-publisher")
     private Boolean enableStatsPublisher;
+    @XmlElement(name = "header-capture")
+    private HeaderCapture headerCapture;
+    @XmlElement(name = "sampling")
+    private Sampling sampling;
+    @XmlElement(name = "response-filter")
+    private ResponseFilter responseFilter;
+    @XmlElement(name = "uri-templates")
+    private UriTemplates uriTemplates;
 
     public Boolean isStatsPublisherEnabled() {
         return enableStatsPublisher;
@@ -42,6 +51,412 @@ public class WebAppStatsPublishing {
         this.enableStatsPublisher = enableStatsPublisher;
     }
 
+    public HeaderCapture getHeaderCapture() {
+        return headerCapture;
+    }
+
+    public void setHeaderCapture(HeaderCapture headerCapture) {
+        this.headerCapture = headerCapture;
+    }
+
+    public Sampling getSampling() {
+        return sampling;
+    }
+
+    public void setSampling(Sampling sampling) {
+        this.sampling = sampling;
+    }
+
+    public ResponseFilter getResponseFilter() {
+        return responseFilter;
+    }
+
+    public void setResponseFilter(ResponseFilter responseFilter) {
+        this.responseFilter = responseFilter;
+    }
+
+    public UriTemplates getUriTemplates() {
+        return uriTemplates;
+    }
+
+    public void setUriTemplates(UriTemplates uriTemplates) {
+        this.uriTemplates = uriTemplates;
+    }
+
+    /**
+     * A nested class which models the policy of capturing the request and response headers of a context.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class HeaderCapture {
+        @XmlElement(name = "capture-request-headers")
+        private Boolean captureRequestHeaders;
+        @XmlElement(name = "capture-response-headers")
+        private Boolean captureResponseHeaders;
+        @XmlElement(name = "max-header-bytes")
+        private Integer maxHeaderBytes;
+        @XmlElement(name = "include-headers")
+        private HeaderNames includeHeaders;
+        @XmlElement(name = "exclude-headers")
+        private HeaderNames excludeHeaders;
+        @XmlElement(name = "redact-headers")
+        private HeaderNames redactHeaders;
+
+        public Boolean isCaptureRequestHeaders() {
+            return captureRequestHeaders;
+        }
+
+        public void setCaptureRequestHeaders(Boolean captureRequestHeaders) {
+            this.captureRequestHeaders = captureRequestHeaders;
+        }
+
+        public Boolean isCaptureResponseHeaders() {
+            return captureResponseHeaders;
+        }
+
+        public void setCaptureResponseHeaders(Boolean captureResponseHeaders) {
+            this.captureResponseHeaders = captureResponseHeaders;
+        }
+
+        public Integer getMaxHeaderBytes() {
+            return maxHeaderBytes;
+        }
+
+        public void setMaxHeaderBytes(Integer maxHeaderBytes) {
+            this.maxHeaderBytes = maxHeaderBytes;
+        }
+
+        public HeaderNames getIncludeHeaders() {
+            return includeHeaders;
+        }
+
+        public void setIncludeHeaders(HeaderNames includeHeaders) {
+            this.includeHeaders = includeHeaders;
+        }
+
+        public HeaderNames getExcludeHeaders() {
+            return excludeHeaders;
+        }
+
+        public void setExcludeHeaders(HeaderNames excludeHeaders) {
+            this.excludeHeaders = excludeHeaders;
+        }
+
+        public HeaderNames getRedactHeaders() {
+            return redactHeaders;
+        }
+
+        public void setRedactHeaders(HeaderNames redactHeaders) {
+            this.redactHeaders = redactHeaders;
+        }
+
+        /**
+         * Merges the header capture policy defined globally and overridden at context level (if any).
+         *
+         * @param configuration the local, context level header capture policy to be merged with
+         */
+        void merge(HeaderCapture configuration) {
+            Optional.ofNullable(configuration)
+                    .ifPresent(mergeable -> {
+                        captureRequestHeaders = Optional.ofNullable(mergeable.captureRequestHeaders)
+                                .orElse(captureRequestHeaders);
+                        captureResponseHeaders = Optional.ofNullable(mergeable.captureResponseHeaders)
+                                .orElse(captureResponseHeaders);
+                        maxHeaderBytes = Optional.ofNullable(mergeable.maxHeaderBytes)
+                                .orElse(maxHeaderBytes);
+                        includeHeaders = Optional.ofNullable(mergeable.includeHeaders)
+                                .orElse(includeHeaders);
+                        excludeHeaders = Optional.ofNullable(mergeable.excludeHeaders)
+                                .orElse(excludeHeaders);
+                        redactHeaders = Optional.ofNullable(mergeable.redactHeaders)
+                                .orElse(redactHeaders);
+                    });
+        }
+    }
+
+    /**
+     * A nested class which models the sampling of the requests of a context. Undefined values fall back to the server
+     * level sampling configuration.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Sampling {
+        @XmlElement(name = "probability")
+        private Double probability;
+        @XmlElement(name = "max-events-per-second")
+        private Integer maxEventsPerSecond;
+        @XmlElement(name = "keep-errors")
+        private Boolean keepErrors;
+        @XmlElement(name = "slow-request-threshold")
+        private Long slowRequestThreshold;
+
+        public Double getProbability() {
+            return probability;
+        }
+
+        public void setProbability(Double probability) {
+            this.probability = probability;
+        }
+
+        public Integer getMaxEventsPerSecond() {
+            return maxEventsPerSecond;
+        }
+
+        public void setMaxEventsPerSecond(Integer maxEventsPerSecond) {
+            this.maxEventsPerSecond = maxEventsPerSecond;
+        }
+
+        public Boolean isKeepErrors() {
+            return keepErrors;
+        }
+
+        public void setKeepErrors(Boolean keepErrors) {
+            this.keepErrors = keepErrors;
+        }
+
+        public Long getSlowRequestThreshold() {
+            return slowRequestThreshold;
+        }
+
+        public void setSlowRequestThreshold(Long slowRequestThreshold) {
+            this.slowRequestThreshold = slowRequestThreshold;
+        }
+
+        /**
+         * Merges the sampling configuration defined globally and overridden at context level (if any).
+         *
+         * @param configuration the local, context level sampling configuration to be merged with
+         */
+        void merge(Sampling configuration) {
+            Optional.ofNullable(configuration)
+                    .ifPresent(mergeable -> {
+                        probability = Optional.ofNullable(mergeable.probability)
+                                .orElse(probability);
+                        maxEventsPerSecond = Optional.ofNullable(mergeable.maxEventsPerSecond)
+                                .orElse(maxEventsPerSecond);
+                        keepErrors = Optional.ofNullable(mergeable.keepErrors)
+                                .orElse(keepErrors);
+                        slowRequestThreshold = Optional.ofNullable(mergeable.slowRequestThreshold)
+                                .orElse(slowRequestThreshold);
+                    });
+        }
+    }
+
+    /**
+     * A nested class which models the filter deciding the requests of a context whose statistics are published.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class ResponseFilter {
+        @XmlElement(name = "media-types")
+        private MediaTypes mediaTypes;
+        @XmlElement(name = "excluded-path-prefixes")
+        private UrlPaths excludedPathPrefixes;
+        @XmlElement(name = "excluded-path-suffixes")
+        private UrlPaths excludedPathSuffixes;
+        @XmlElement(name = "methods")
+        private Methods methods;
+        @XmlElement(name = "status-classes")
+        private StatusClasses statusClasses;
+
+        public MediaTypes getMediaTypes() {
+            return mediaTypes;
+        }
+
+        public void setMediaTypes(MediaTypes mediaTypes) {
+            this.mediaTypes = mediaTypes;
+        }
+
+        public UrlPaths getExcludedPathPrefixes() {
+            return excludedPathPrefixes;
+        }
+
+        public void setExcludedPathPrefixes(UrlPaths excludedPathPrefixes) {
+            this.excludedPathPrefixes = excludedPathPrefixes;
+        }
+
+        public UrlPaths getExcludedPathSuffixes() {
+            return excludedPathSuffixes;
+        }
+
+        public void setExcludedPathSuffixes(UrlPaths excludedPathSuffixes) {
+            this.excludedPathSuffixes = excludedPathSuffixes;
+        }
+
+        public Methods getMethods() {
+            return methods;
+        }
+
+        public void setMethods(Methods methods) {
+            this.methods = methods;
+        }
+
+        public StatusClasses getStatusClasses() {
+            return statusClasses;
+        }
+
+        public void setStatusClasses(StatusClasses statusClasses) {
+            this.statusClasses = statusClasses;
+        }
+
+        /**
+         * Merges the response filter defined globally and overridden at context level (if any).
+         *
+         * @param configuration the local, context level response filter to be merged with
+         */
+        void merge(ResponseFilter configuration) {
+            Optional.ofNullable(configuration)
+                    .ifPresent(mergeable -> {
+                        mediaTypes = Optional.ofNullable(mergeable.mediaTypes)
+                                .orElse(mediaTypes);
+                        excludedPathPrefixes = Optional.ofNullable(mergeable.excludedPathPrefixes)
+                                .orElse(excludedPathPrefixes);
+                        excludedPathSuffixes = Optional.ofNullable(mergeable.excludedPathSuffixes)
+                                .orElse(excludedPathSuffixes);
+                        methods = Optional.ofNullable(mergeable.methods)
+                                .orElse(methods);
+                        statusClasses = Optional.ofNullable(mergeable.statusClasses)
+                                .orElse(statusClasses);
+                    });
+        }
+    }
+
+    /**
+     * A nested class which models the normalization of the request URIs of a context into URI templates.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class UriTemplates {
+        @XmlElement(name = "max-learned-segments")
+        private Integer maxLearnedSegments;
+        @XmlElement(name = "max-segment-values")
+        private Integer maxSegmentValues;
+        @XmlElement(name = "template")
+        private List<String> templates;
+
+        public Integer getMaxLearnedSegments() {
+            return maxLearnedSegments;
+        }
+
+        public void setMaxLearnedSegments(Integer maxLearnedSegments) {
+            this.maxLearnedSegments = maxLearnedSegments;
+        }
+
+        public Integer getMaxSegmentValues() {
+            return maxSegmentValues;
+        }
+
+        public void setMaxSegmentValues(Integer maxSegmentValues) {
+            this.maxSegmentValues = maxSegmentValues;
+        }
+
+        public List<String> getTemplates() {
+            return templates;
+        }
+
+        public void setTemplates(List<String> templates) {
+            this.templates = templates;
+        }
+
+        /**
+         * Merges the URI template configuration defined globally and overridden at context level (if any).
+         *
+         * @param configuration the local, context level URI template configuration to be merged with
+         */
+        void merge(UriTemplates configuration) {
+            Optional.ofNullable(configuration)
+                    .ifPresent(mergeable -> {
+                        maxLearnedSegments = Optional.ofNullable(mergeable.maxLearnedSegments)
+                                .orElse(maxLearnedSegments);
+                        maxSegmentValues = Optional.ofNullable(mergeable.maxSegmentValues)
+                                .orElse(maxSegmentValues);
+                        templates = Optional.ofNullable(mergeable.templates)
+                                .orElse(templates);
+                    });
+        }
+    }
+
+    /**
+     * A nested class which models a collection of media types.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class MediaTypes {
+        @XmlElement(name = "media-type")
+        private List<String> mediaTypes;
+
+        public List<String> getMediaTypes() {
+            return mediaTypes;
+        }
+
+        public void setMediaTypes(List<String> mediaTypes) {
+            this.mediaTypes = mediaTypes;
+        }
+    }
+
+    /**
+     * A nested class which models a collection of URL paths.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class UrlPaths {
+        @XmlElement(name = "path")
+        private List<String> paths;
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+    }
+
+    /**
+     * A nested class which models a collection of HTTP methods.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Methods {
+        @XmlElement(name = "method")
+        private List<String> methods;
+
+        public List<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(List<String> methods) {
+            this.methods = methods;
+        }
+    }
+
+    /**
+     * A nested class which models a collection of HTTP status classes, such as 2xx.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class StatusClasses {
+        @XmlElement(name = "status-class")
+        private List<String> statusClasses;
+
+        public List<String> getStatusClasses() {
+            return statusClasses;
+        }
+
+        public void setStatusClasses(List<String> statusClasses) {
+            this.statusClasses = statusClasses;
+        }
+    }
+
+    /**
+     * A nested class which models a collection of HTTP header names.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class HeaderNames {
+        @XmlElement(name = "header")
+        private List<String> headers;
+
+        public List<String> getHeaders() {
+            return headers;
+        }
+
+        public void setHeaders(List<String> headers) {
+            this.headers = headers;
+        }
+    }
+
     /**
      * Merges the context level stats-publishing configuration defined globally and overridden at
      * context level (if any).
@@ -50,8 +465,29 @@ public class WebAppStatsPublishing {
      */
     void merge(WebAppStatsPublishing configuration) {
         Optional.ofNullable(configuration)
-                .ifPresent(mergeable ->
-                        enableStatsPublisher = Optional.ofNullable(mergeable.enableStatsPublisher)
-                                .orElse(enableStatsPublisher));
+                .ifPresent(mergeable -> {
+                    enableStatsPublisher = Optional.ofNullable(mergeable.enableStatsPublisher)
+                            .orElse(enableStatsPublisher);
+
+                    Optional.ofNullable(headerCapture)
+                            .ifPresent(headerCaptureConfig -> headerCaptureConfig.merge(mergeable.headerCapture));
+                    headerCapture = Optional.ofNullable(headerCapture)
+                            .orElse(mergeable.headerCapture);
+
+                    Optional.ofNullable(sampling)
+                            .ifPresent(samplingConfig -> samplingConfig.merge(mergeable.sampling));
+                    sampling = Optional.ofNullable(sampling)
+                            .orElse(mergeable.sampling);
+
+                    Optional.ofNullable(responseFilter)
+                            .ifPresent(responseFilterConfig -> responseFilterConfig.merge(mergeable.responseFilter));
+                    responseFilter = Optional.ofNullable(responseFilter)
+                            .orElse(mergeable.responseFilter);
+
+                    Optional.ofNullable(uriTemplates)
+                            .ifPresent(uriTemplatesConfig -> uriTemplatesConfig.merge(mergeable.uriTemplates));
+                    uriTemplates = Optional.ofNullable(uriTemplates)
+                            .orElse(mergeable.uriTemplates);
+                });
     }
 }
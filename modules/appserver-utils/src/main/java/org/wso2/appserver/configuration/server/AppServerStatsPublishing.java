@@ -15,6 +15,7 @@
  */
 package org.wso2.appserver.configuration.server;
 
+import java.util.List;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -40,6 +41,38 @@ public class AppServerStatsPublishing {
     private String publisherURL;
     @XmlElement(name = "StreamId")
     private String streamId;
+    @XmlElement(name = "BufferSize")
+    private Integer bufferSize;
+    @XmlElement(name = "OverflowPolicy")
+    private String overflowPolicy;
+    @XmlElement(name = "BatchSize")
+    private Integer batchSize;
+    @XmlElement(name = "Sampling")
+    private Sampling sampling;
+    @XmlElement(name = "AdaptiveSampling")
+    private AdaptiveSampling adaptiveSampling;
+    @XmlElement(name = "PublishingMode")
+    private String publishingMode;
+    @XmlElement(name = "Aggregation")
+    private Aggregation aggregation;
+    @XmlElement(name = "Spool")
+    private Spool spool;
+    @XmlElement(name = "Receivers")
+    private Receivers receivers;
+    @XmlElement(name = "Metrics")
+    private Metrics metrics;
+    @XmlElement(name = "TrustedProxies")
+    private TrustedProxies trustedProxies;
+    @XmlElement(name = "UserAgentClassification")
+    private UserAgentClassification userAgentClassification;
+    @XmlElement(name = "GeoIp")
+    private GeoIp geoIp;
+    @XmlElement(name = "FileSink")
+    private FileSink fileSink;
+    @XmlElement(name = "Watchdog")
+    private Watchdog watchdog;
+    @XmlElement(name = "HeavyHitters")
+    private HeavyHitters heavyHitters;
 
     public String getUsername() {
         return username;
@@ -88,4 +121,813 @@ public class AppServerStatsPublishing {
     public void setStreamId(String streamId) {
         this.streamId = streamId;
     }
+
+    public Integer getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(Integer bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public String getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(String overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Sampling getSampling() {
+        return sampling;
+    }
+
+    public void setSampling(Sampling sampling) {
+        this.sampling = sampling;
+    }
+
+    public AdaptiveSampling getAdaptiveSampling() {
+        return adaptiveSampling;
+    }
+
+    public void setAdaptiveSampling(AdaptiveSampling adaptiveSampling) {
+        this.adaptiveSampling = adaptiveSampling;
+    }
+
+    public String getPublishingMode() {
+        return publishingMode;
+    }
+
+    public void setPublishingMode(String publishingMode) {
+        this.publishingMode = publishingMode;
+    }
+
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    public void setAggregation(Aggregation aggregation) {
+        this.aggregation = aggregation;
+    }
+
+    public Spool getSpool() {
+        return spool;
+    }
+
+    public void setSpool(Spool spool) {
+        this.spool = spool;
+    }
+
+    public Receivers getReceivers() {
+        return receivers;
+    }
+
+    public void setReceivers(Receivers receivers) {
+        this.receivers = receivers;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public TrustedProxies getTrustedProxies() {
+        return trustedProxies;
+    }
+
+    public void setTrustedProxies(TrustedProxies trustedProxies) {
+        this.trustedProxies = trustedProxies;
+    }
+
+    public UserAgentClassification getUserAgentClassification() {
+        return userAgentClassification;
+    }
+
+    public void setUserAgentClassification(UserAgentClassification userAgentClassification) {
+        this.userAgentClassification = userAgentClassification;
+    }
+
+    public GeoIp getGeoIp() {
+        return geoIp;
+    }
+
+    public void setGeoIp(GeoIp geoIp) {
+        this.geoIp = geoIp;
+    }
+
+    public FileSink getFileSink() {
+        return fileSink;
+    }
+
+    public void setFileSink(FileSink fileSink) {
+        this.fileSink = fileSink;
+    }
+
+    public Watchdog getWatchdog() {
+        return watchdog;
+    }
+
+    public void setWatchdog(Watchdog watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    public HeavyHitters getHeavyHitters() {
+        return heavyHitters;
+    }
+
+    public void setHeavyHitters(HeavyHitters heavyHitters) {
+        this.heavyHitters = heavyHitters;
+    }
+
+    /**
+     * A nested class which defines the server level sampling of the requests to be published, which applies to
+     * every context that does not override it.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Sampling {
+        @XmlElement(name = "Probability")
+        private Double probability;
+        @XmlElement(name = "MaxEventsPerSecond")
+        private Integer maxEventsPerSecond;
+        @XmlElement(name = "KeepErrors")
+        private Boolean keepErrors;
+        @XmlElement(name = "SlowRequestThreshold")
+        private Long slowRequestThreshold;
+
+        public Double getProbability() {
+            return probability;
+        }
+
+        public void setProbability(Double probability) {
+            this.probability = probability;
+        }
+
+        public Integer getMaxEventsPerSecond() {
+            return maxEventsPerSecond;
+        }
+
+        public void setMaxEventsPerSecond(Integer maxEventsPerSecond) {
+            this.maxEventsPerSecond = maxEventsPerSecond;
+        }
+
+        public Boolean isKeepErrors() {
+            return keepErrors;
+        }
+
+        public void setKeepErrors(Boolean keepErrors) {
+            this.keepErrors = keepErrors;
+        }
+
+        public Long getSlowRequestThreshold() {
+            return slowRequestThreshold;
+        }
+
+        public void setSlowRequestThreshold(Long slowRequestThreshold) {
+            this.slowRequestThreshold = slowRequestThreshold;
+        }
+    }
+
+    /**
+     * A nested class which defines how the sampling rate of the requests is lowered while the statistics publishing
+     * pipeline is under pressure, and restored once the pressure is relieved.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class AdaptiveSampling {
+        @XmlElement(name = "Enabled")
+        private Boolean enabled;
+        @XmlElement(name = "HighWatermark")
+        private Double highWatermark;
+        @XmlElement(name = "LowWatermark")
+        private Double lowWatermark;
+        @XmlElement(name = "MaxPublishLatency")
+        private Integer maxPublishLatency;
+        @XmlElement(name = "MinRate")
+        private Double minRate;
+        @XmlElement(name = "AdjustmentInterval")
+        private Integer adjustmentInterval;
+
+        public Boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Double getHighWatermark() {
+            return highWatermark;
+        }
+
+        public void setHighWatermark(Double highWatermark) {
+            this.highWatermark = highWatermark;
+        }
+
+        public Double getLowWatermark() {
+            return lowWatermark;
+        }
+
+        public void setLowWatermark(Double lowWatermark) {
+            this.lowWatermark = lowWatermark;
+        }
+
+        public Integer getMaxPublishLatency() {
+            return maxPublishLatency;
+        }
+
+        public void setMaxPublishLatency(Integer maxPublishLatency) {
+            this.maxPublishLatency = maxPublishLatency;
+        }
+
+        public Double getMinRate() {
+            return minRate;
+        }
+
+        public void setMinRate(Double minRate) {
+            this.minRate = minRate;
+        }
+
+        public Integer getAdjustmentInterval() {
+            return adjustmentInterval;
+        }
+
+        public void setAdjustmentInterval(Integer adjustmentInterval) {
+            this.adjustmentInterval = adjustmentInterval;
+        }
+    }
+
+    /**
+     * A nested class which defines the in-process aggregation of the response times of the requests into periodic
+     * summaries.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Aggregation {
+        @XmlElement(name = "StreamId")
+        private String streamId;
+        @XmlElement(name = "FlushInterval")
+        private Integer flushInterval;
+        @XmlElement(name = "MaxKeys")
+        private Integer maxKeys;
+
+        public String getStreamId() {
+            return streamId;
+        }
+
+        public void setStreamId(String streamId) {
+            this.streamId = streamId;
+        }
+
+        public Integer getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Integer flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public Integer getMaxKeys() {
+            return maxKeys;
+        }
+
+        public void setMaxKeys(Integer maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+    }
+
+    /**
+     * A nested class which defines the local disk spool of the events which could not be handed over to the data
+     * publisher, and the rate at which they are replayed once it accepts events again.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Spool {
+        @XmlElement(name = "Enabled")
+        private Boolean enabled;
+        @XmlElement(name = "Directory")
+        private String directory;
+        @XmlElement(name = "SegmentSize")
+        private Integer segmentSize;
+        @XmlElement(name = "MaxSize")
+        private Integer maxSize;
+        @XmlElement(name = "RetentionPeriod")
+        private Integer retentionPeriod;
+        @XmlElement(name = "ReplayRate")
+        private Integer replayRate;
+
+        public Boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public Integer getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(Integer segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public Integer getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(Integer maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Integer getRetentionPeriod() {
+            return retentionPeriod;
+        }
+
+        public void setRetentionPeriod(Integer retentionPeriod) {
+            this.retentionPeriod = retentionPeriod;
+        }
+
+        public Integer getReplayRate() {
+            return replayRate;
+        }
+
+        public void setReplayRate(Integer replayRate) {
+            this.replayRate = replayRate;
+        }
+    }
+
+    /**
+     * A nested class which defines a group of WSO2 Data Analytics Server (DAS) receivers the events are distributed
+     * among, in place of the single PublisherURL and AuthenticationURL pair, and how an unavailable receiver is
+     * failed over.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Receivers {
+        @XmlElement(name = "LoadBalancing")
+        private String loadBalancing;
+        @XmlElement(name = "FailureThreshold")
+        private Integer failureThreshold;
+        @XmlElement(name = "RetryInterval")
+        private Integer retryInterval;
+        @XmlElement(name = "Receiver")
+        private List<Receiver> receivers;
+
+        public String getLoadBalancing() {
+            return loadBalancing;
+        }
+
+        public void setLoadBalancing(String loadBalancing) {
+            this.loadBalancing = loadBalancing;
+        }
+
+        public Integer getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(Integer failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public Integer getRetryInterval() {
+            return retryInterval;
+        }
+
+        public void setRetryInterval(Integer retryInterval) {
+            this.retryInterval = retryInterval;
+        }
+
+        public List<Receiver> getReceivers() {
+            return receivers;
+        }
+
+        public void setReceivers(List<Receiver> receivers) {
+            this.receivers = receivers;
+        }
+    }
+
+    /**
+     * A nested class which defines the URLs of a single WSO2 Data Analytics Server (DAS) receiver.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Receiver {
+        @XmlElement(name = "AuthenticationURL")
+        private String authenticationURL;
+        @XmlElement(name = "PublisherURL")
+        private String publisherURL;
+
+        public String getAuthenticationURL() {
+            return authenticationURL;
+        }
+
+        public void setAuthenticationURL(String authenticationURL) {
+            this.authenticationURL = authenticationURL;
+        }
+
+        public String getPublisherURL() {
+            return publisherURL;
+        }
+
+        public void setPublisherURL(String publisherURL) {
+            this.publisherURL = publisherURL;
+        }
+    }
+
+    /**
+     * A nested class which defines the in-process registry of the request metrics, the path at which they are
+     * exposed in the OpenMetrics text format and the client addresses they are exposed to.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Metrics {
+        @XmlElement(name = "Enabled")
+        private Boolean enabled;
+        @XmlElement(name = "Path")
+        private String path;
+        @XmlElement(name = "AllowedAddresses")
+        private AllowedAddresses allowedAddresses;
+
+        public Boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public AllowedAddresses getAllowedAddresses() {
+            return allowedAddresses;
+        }
+
+        public void setAllowedAddresses(AllowedAddresses allowedAddresses) {
+            this.allowedAddresses = allowedAddresses;
+        }
+    }
+
+    /**
+     * A nested class which defines the address ranges, in CIDR notation, of the clients the request metrics are
+     * served to.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class AllowedAddresses {
+        @XmlElement(name = "Address")
+        private List<String> addresses;
+
+        public List<String> getAddresses() {
+            return addresses;
+        }
+
+        public void setAddresses(List<String> addresses) {
+            this.addresses = addresses;
+        }
+    }
+
+    /**
+     * A nested class which defines the address ranges, in CIDR notation, of the proxies and load balancers whose
+     * forwarding headers are trusted to identify the client.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class TrustedProxies {
+        @XmlElement(name = "Proxy")
+        private List<String> proxies;
+
+        public List<String> getProxies() {
+            return proxies;
+        }
+
+        public void setProxies(List<String> proxies) {
+            this.proxies = proxies;
+        }
+    }
+
+    /**
+     * A nested class which defines the classification of the user agents of the requests into their browser
+     * family, operating system and device class before they are published.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class UserAgentClassification {
+        @XmlElement(name = "Enabled")
+        private Boolean enabled;
+        @XmlElement(name = "CacheSize")
+        private Integer cacheSize;
+        @XmlElement(name = "PublishRawUserAgent")
+        private Boolean publishRawUserAgent;
+
+        public Boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(Integer cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+
+        public Boolean isPublishRawUserAgent() {
+            return publishRawUserAgent;
+        }
+
+        public void setPublishRawUserAgent(Boolean publishRawUserAgent) {
+            this.publishRawUserAgent = publishRawUserAgent;
+        }
+    }
+
+    /**
+     * A nested class which defines the local GeoIP database the client addresses of the requests are located in.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class GeoIp {
+        @XmlElement(name = "Enabled")
+        private Boolean enabled;
+        @XmlElement(name = "Database")
+        private String database;
+        @XmlElement(name = "ReloadInterval")
+        private Integer reloadInterval;
+
+        public Boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDatabase() {
+            return database;
+        }
+
+        public void setDatabase(String database) {
+            this.database = database;
+        }
+
+        public Integer getReloadInterval() {
+            return reloadInterval;
+        }
+
+        public void setReloadInterval(Integer reloadInterval) {
+            this.reloadInterval = reloadInterval;
+        }
+    }
+
+    /**
+     * A nested class which defines the local sink writing the events into rolling, compressed columnar files, in
+     * addition to or in place of publishing them to the data publisher.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class FileSink {
+        @XmlElement(name = "Enabled")
+        private Boolean enabled;
+        @XmlElement(name = "PublishToDas")
+        private Boolean publishToDas;
+        @XmlElement(name = "Directory")
+        private String directory;
+        @XmlElement(name = "BlockSize")
+        private Integer blockSize;
+        @XmlElement(name = "RotationInterval")
+        private Integer rotationInterval;
+        @XmlElement(name = "MaxFileSize")
+        private Integer maxFileSize;
+
+        public Boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Boolean isPublishToDas() {
+            return publishToDas;
+        }
+
+        public void setPublishToDas(Boolean publishToDas) {
+            this.publishToDas = publishToDas;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public Integer getBlockSize() {
+            return blockSize;
+        }
+
+        public void setBlockSize(Integer blockSize) {
+            this.blockSize = blockSize;
+        }
+
+        public Integer getRotationInterval() {
+            return rotationInterval;
+        }
+
+        public void setRotationInterval(Integer rotationInterval) {
+            this.rotationInterval = rotationInterval;
+        }
+
+        public Integer getMaxFileSize() {
+            return maxFileSize;
+        }
+
+        public void setMaxFileSize(Integer maxFileSize) {
+            this.maxFileSize = maxFileSize;
+        }
+    }
+
+    /**
+     * A nested class which defines the watchdog of the in-flight requests, which samples the stack traces of the
+     * slow requests and reports the stuck ones.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Watchdog {
+        @XmlElement(name = "Enabled")
+        private Boolean enabled;
+        @XmlElement(name = "SlowRequestThreshold")
+        private Long slowRequestThreshold;
+        @XmlElement(name = "StuckRequestThreshold")
+        private Long stuckRequestThreshold;
+        @XmlElement(name = "SampleInterval")
+        private Integer sampleInterval;
+        @XmlElement(name = "MaxSamplesPerInterval")
+        private Integer maxSamplesPerInterval;
+        @XmlElement(name = "MaxStackDepth")
+        private Integer maxStackDepth;
+        @XmlElement(name = "ReportInterval")
+        private Integer reportInterval;
+        @XmlElement(name = "MaxReportedFrames")
+        private Integer maxReportedFrames;
+
+        public Boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Long getSlowRequestThreshold() {
+            return slowRequestThreshold;
+        }
+
+        public void setSlowRequestThreshold(Long slowRequestThreshold) {
+            this.slowRequestThreshold = slowRequestThreshold;
+        }
+
+        public Long getStuckRequestThreshold() {
+            return stuckRequestThreshold;
+        }
+
+        public void setStuckRequestThreshold(Long stuckRequestThreshold) {
+            this.stuckRequestThreshold = stuckRequestThreshold;
+        }
+
+        public Integer getSampleInterval() {
+            return sampleInterval;
+        }
+
+        public void setSampleInterval(Integer sampleInterval) {
+            this.sampleInterval = sampleInterval;
+        }
+
+        public Integer getMaxSamplesPerInterval() {
+            return maxSamplesPerInterval;
+        }
+
+        public void setMaxSamplesPerInterval(Integer maxSamplesPerInterval) {
+            this.maxSamplesPerInterval = maxSamplesPerInterval;
+        }
+
+        public Integer getMaxStackDepth() {
+            return maxStackDepth;
+        }
+
+        public void setMaxStackDepth(Integer maxStackDepth) {
+            this.maxStackDepth = maxStackDepth;
+        }
+
+        public Integer getReportInterval() {
+            return reportInterval;
+        }
+
+        public void setReportInterval(Integer reportInterval) {
+            this.reportInterval = reportInterval;
+        }
+
+        public Integer getMaxReportedFrames() {
+            return maxReportedFrames;
+        }
+
+        public void setMaxReportedFrames(Integer maxReportedFrames) {
+            this.maxReportedFrames = maxReportedFrames;
+        }
+    }
+
+    /**
+     * A nested class which defines the tracking of the clients, users, request URIs and user agents which account
+     * for the most requests over a sliding window.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class HeavyHitters {
+        @XmlElement(name = "Enabled")
+        private Boolean enabled;
+        @XmlElement(name = "Window")
+        private Integer window;
+        @XmlElement(name = "WindowSlices")
+        private Integer windowSlices;
+        @XmlElement(name = "Capacity")
+        private Integer capacity;
+        @XmlElement(name = "SketchWidth")
+        private Integer sketchWidth;
+        @XmlElement(name = "SketchDepth")
+        private Integer sketchDepth;
+        @XmlElement(name = "TopCount")
+        private Integer topCount;
+
+        public Boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getWindow() {
+            return window;
+        }
+
+        public void setWindow(Integer window) {
+            this.window = window;
+        }
+
+        public Integer getWindowSlices() {
+            return windowSlices;
+        }
+
+        public void setWindowSlices(Integer windowSlices) {
+            this.windowSlices = windowSlices;
+        }
+
+        public Integer getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(Integer capacity) {
+            this.capacity = capacity;
+        }
+
+        public Integer getSketchWidth() {
+            return sketchWidth;
+        }
+
+        public void setSketchWidth(Integer sketchWidth) {
+            this.sketchWidth = sketchWidth;
+        }
+
+        public Integer getSketchDepth() {
+            return sketchDepth;
+        }
+
+        public void setSketchDepth(Integer sketchDepth) {
+            this.sketchDepth = sketchDepth;
+        }
+
+        public Integer getTopCount() {
+            return topCount;
+        }
+
+        public void setTopCount(Integer topCount) {
+            this.topCount = topCount;
+        }
+    }
 }
@@ -17,6 +17,7 @@ package org.wso2.appserver.configuration.server;
 
 import org.apache.commons.lang3.text.StrSubstitutor;
 
+import java.util.Optional;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -90,6 +91,8 @@ public class ApplicationServerConfiguration {
                 setLocation(strSubstitutor.replace(securityConfiguration.getKeystore().getLocation()));
         securityConfiguration.getTruststore().
                 setLocation(strSubstitutor.replace(securityConfiguration.getTruststore().getLocation()));
+        Optional.ofNullable(statsPublisherConfiguration).map(AppServerStatsPublishing::getSpool).
+                ifPresent(spool -> spool.setDirectory(strSubstitutor.replace(spool.getDirectory())));
     }
 
     /**
@@ -102,5 +105,7 @@ public class ApplicationServerConfiguration {
                 setLocation(StrSubstitutor.replaceSystemProperties(securityConfiguration.getKeystore().getLocation()));
         securityConfiguration.getTruststore().setLocation(
                 StrSubstitutor.replaceSystemProperties(securityConfiguration.getTruststore().getLocation()));
+        Optional.ofNullable(statsPublisherConfiguration).map(AppServerStatsPublishing::getSpool).
+                ifPresent(spool -> spool.setDirectory(StrSubstitutor.replaceSystemProperties(spool.getDirectory())));
     }
 }
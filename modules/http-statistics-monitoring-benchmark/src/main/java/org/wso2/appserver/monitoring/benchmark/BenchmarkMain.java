@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.benchmark;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks with the JMH command line, adding the {@code gc} profiler unless a profiler is specified, so
+ * that the allocated bytes per operation ({@code gc.alloc.rate.norm}) are reported along with the time per
+ * operation.
+ *
+ * @since 6.0.0
+ */
+public class BenchmarkMain {
+    private static final String PROFILER_OPTION = "-prof";
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        if (Arrays.asList(args).contains(PROFILER_OPTION)) {
+            Main.main(args);
+            return;
+        }
+        String[] arguments = Arrays.copyOf(args, args.length + 2);
+        arguments[args.length] = PROFILER_OPTION;
+        arguments[args.length + 1] = "gc";
+        Main.main(arguments);
+    }
+}
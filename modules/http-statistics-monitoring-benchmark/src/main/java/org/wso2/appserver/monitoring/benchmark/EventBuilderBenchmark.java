@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.benchmark;
+
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.catalina.core.StandardContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+import org.wso2.appserver.monitoring.exceptions.StatPublisherException;
+import org.wso2.appserver.monitoring.profile.StatsProfile;
+import org.wso2.appserver.monitoring.profile.StatsProfiles;
+import org.wso2.appserver.monitoring.utils.EventBuilder;
+import org.wso2.appserver.monitoring.utils.RequestCapture;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link LegacyEventBuilder} with capturing the request into a reusable {@link RequestCapture} and
+ * building the Event with the template based {@link EventBuilder}, for anonymous and authenticated clients.
+ *
+ * @since 6.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class EventBuilderBenchmark {
+    private static final String STREAM_ID = "org.wso2.http.analytics.stream:1.5.0";
+
+    @Param({ "2", "8", "32" })
+    private int headerCount;
+
+    @Param({ "ANONYMOUS", "AUTHENTICATED" })
+    private MockRequests.Client client;
+
+    private Request request;
+    private Response response;
+    private StatsProfile profile;
+    private RequestCapture capture;
+    private long startTime;
+
+    @Setup
+    public void setUp() {
+        StandardContext context = MockRequests.createContext();
+        request = MockRequests.createRequest(context, "/benchmark/orders/1234", headerCount, client);
+        response = MockRequests.createResponse();
+        profile = new StatsProfiles(new AppServerStatsPublishing(), null).create(context);
+        capture = new RequestCapture();
+        startTime = System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public Event legacyBuildEvent() throws StatPublisherException {
+        return LegacyEventBuilder.buildEvent(STREAM_ID, request, response, startTime, 12);
+    }
+
+    @Benchmark
+    public Event templateBuildEvent() throws StatPublisherException {
+        capture.capture(request, response, profile, startTime, 12, 1.0);
+        return EventBuilder.buildEvent(STREAM_ID, capture);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.benchmark;
+
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.valves.ValveBase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+import org.wso2.appserver.monitoring.HttpStatValve;
+import org.wso2.appserver.monitoring.profile.ContextStatsValve;
+import org.wso2.appserver.monitoring.profile.StatsProfiles;
+import org.wso2.appserver.monitoring.publisher.EventPublisher;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletException;
+
+/**
+ * Measures the cost added to a request thread by the {@link HttpStatValve}, from the request reaching the valve to
+ * it being recorded once its response is complete, with a context whose statistics are published.
+ * <p>
+ * The Events are handed over to an {@link EventPublisher} which discards them, so that only the monitoring cost is
+ * measured and not the DAS client. With the {@code NONE} publishing mode, the requests are only timed.
+ *
+ * @since 6.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class HttpStatValveBenchmark {
+    @Param({ "2", "8", "32" })
+    private int headerCount;
+
+    @Param({ "ANONYMOUS", "SESSION", "AUTHENTICATED" })
+    private MockRequests.Client client;
+
+    @Param({ "NONE", "EVENTS" })
+    private String publishingMode;
+
+    private HttpStatValve valve;
+    private Request request;
+    private Response response;
+
+    @Setup
+    public void setUp() throws LifecycleException {
+        AppServerStatsPublishing configuration = new AppServerStatsPublishing();
+        configuration.setPublishingMode(publishingMode);
+
+        StandardContext context = MockRequests.createContext();
+        context.getPipeline().addValve(new ContextStatsValve(new StatsProfiles(configuration, null).create(context)));
+        context.getPipeline().addValve(new ApplicationValve());
+        request = MockRequests.createRequest(context, "/benchmark/orders/1234", headerCount, client);
+        response = MockRequests.createResponse();
+
+        valve = new HttpStatValve(configuration, new DiscardingEventPublisher());
+        valve.setNext(new HostValve());
+        valve.init();
+        valve.start();
+    }
+
+    @TearDown
+    public void tearDown() throws LifecycleException {
+        valve.stop();
+        valve.destroy();
+    }
+
+    @Benchmark
+    public void invoke() throws IOException, ServletException {
+        valve.invoke(request, response);
+        //  Tomcat logs the request once its response is complete, which is when the valve records it
+        valve.log(request, response, 0);
+    }
+
+    /**
+     * Passes the requests on to the pipeline of their context, as the {@code StandardHostValve} does.
+     */
+    private static class HostValve extends ValveBase {
+        @Override
+        public void invoke(Request request, Response response) throws IOException, ServletException {
+            request.getContext().getPipeline().getFirst().invoke(request, response);
+        }
+    }
+
+    /**
+     * Stands in for the servlet of the requests, which does nothing.
+     */
+    private static class ApplicationValve extends ValveBase {
+        @Override
+        public void invoke(Request request, Response response) {
+        }
+    }
+
+    /**
+     * Accepts the Events and discards them.
+     */
+    private static class DiscardingEventPublisher implements EventPublisher {
+        @Override
+        public void publish(Event event) {
+        }
+
+        @Override
+        public boolean tryPublish(Event event) {
+            return true;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.benchmark;
+
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.catalina.core.StandardContext;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import javax.servlet.http.HttpSession;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Creates mocked Request and Response objects resembling a typical browser request, for use in the benchmarks.
+ *
+ * @since 6.0.0
+ */
+public class MockRequests {
+    private static final String[] COMMON_HEADERS = { "host", "user-agent", "accept", "accept-language",
+            "accept-encoding", "referer", "cookie", "connection" };
+
+    /**
+     * The kinds of clients the mocked requests are sent by.
+     */
+    public enum Client {
+        /**
+         * A client without a session.
+         */
+        ANONYMOUS,
+
+        /**
+         * A client with a session, which is not authenticated.
+         */
+        SESSION,
+
+        /**
+         * An authenticated client with a session.
+         */
+        AUTHENTICATED
+    }
+
+    /**
+     * Creates a context of a web application.
+     *
+     * @return the context
+     */
+    public static StandardContext createContext() {
+        StandardContext context = new StandardContext();
+        context.setDisplayName("Benchmark Application");
+        context.setEffectiveMajorVersion(3);
+        context.setEffectiveMinorVersion(1);
+        return context;
+    }
+
+    /**
+     * Creates a mocked GET request to the specified URI of the context, by an anonymous client.
+     *
+     * @param context     the context of the request
+     * @param requestURI  the request URI
+     * @param headerCount the number of request headers
+     * @return the mocked request
+     */
+    public static Request createRequest(StandardContext context, String requestURI, int headerCount) {
+        return createRequest(context, requestURI, headerCount, Client.ANONYMOUS);
+    }
+
+    /**
+     * Creates a mocked GET request to the specified URI of the context, by the specified kind of client.
+     *
+     * @param context     the context of the request
+     * @param requestURI  the request URI
+     * @param headerCount the number of request headers
+     * @param client      the kind of client sending the request
+     * @return the mocked request
+     */
+    public static Request createRequest(StandardContext context, String requestURI, int headerCount, Client client) {
+        Request request = mock(Request.class);
+        List<String> headerNames = new ArrayList<>(headerCount);
+        for (int index = 0; index < headerCount; index++) {
+            String name = (index < COMMON_HEADERS.length) ? COMMON_HEADERS[index] : "x-custom-header-" + index;
+            headerNames.add(name);
+            String value = "value-of-" + name;
+            when(request.getHeader(name)).thenReturn(value);
+            when(request.getHeaders(name)).thenAnswer(invocation ->
+                    Collections.enumeration(Collections.singletonList(value)));
+        }
+        // every call must return a fresh enumeration, as the previous one is already consumed
+        when(request.getHeaderNames()).thenAnswer(invocation -> Collections.enumeration(headerNames));
+        when(request.getHeader("Referer")).thenReturn("http://localhost:8080/benchmark/index.html");
+        when(request.getHeader("User-Agent")).thenReturn("Mozilla/5.0 (X11; Linux x86_64; rv:46.0) " +
+                "Gecko/20100101 Firefox/46.0");
+        when(request.getHeader("Host")).thenReturn("localhost:8080");
+        when(request.getRemoteAddr()).thenReturn("127.0.0.1");
+        when(request.getRequestURI()).thenReturn(requestURI);
+        when(request.getContext()).thenReturn(context);
+        when(request.getPathInfo()).thenReturn("/");
+        when(request.getLocale()).thenReturn(Locale.US);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getContentLength()).thenReturn(-1);
+        when(request.getCoyoteRequest()).thenReturn(new org.apache.coyote.Request());
+        when(request.getServerName()).thenReturn("localhost");
+        when(request.getLocalName()).thenReturn("localhost.localdomain");
+        if (client != Client.ANONYMOUS) {
+            HttpSession session = mock(HttpSession.class);
+            when(session.getId()).thenReturn("5F1D6E4B0C9A2E7D3B8F1A6C4E2D9B07");
+            when(request.getSession(false)).thenReturn(session);
+        }
+        if (client == Client.AUTHENTICATED) {
+            Principal principal = () -> "benchmark-user";
+            when(request.getUserPrincipal()).thenReturn(principal);
+            when(request.getRemoteUser()).thenReturn("benchmark-user");
+            when(request.getAuthType()).thenReturn("FORM");
+        }
+        return request;
+    }
+
+    /**
+     * Creates a mocked successful HTML response.
+     *
+     * @return the mocked response
+     */
+    public static Response createResponse() {
+        Response response = mock(Response.class);
+        List<String> headerNames = new ArrayList<>();
+        headerNames.add("Content-Type");
+        headerNames.add("Content-Length");
+        when(response.getHeaderNames()).thenReturn(headerNames);
+        when(response.getHeader("Content-Type")).thenReturn("text/html;charset=utf-8");
+        when(response.getHeader("Content-Length")).thenReturn("1046");
+        when(response.getHeaders("Content-Type")).thenReturn(Collections.singletonList("text/html;charset=utf-8"));
+        when(response.getHeaders("Content-Length")).thenReturn(Collections.singletonList("1046"));
+        when(response.getContentType()).thenReturn("text/html;charset=utf-8");
+        when(response.getStatus()).thenReturn(200);
+        when(response.getContentLength()).thenReturn(1046);
+        when(response.getCoyoteResponse()).thenReturn(new org.apache.coyote.Response());
+        when(response.getBytesWritten(false)).thenReturn(1046L);
+        return response;
+    }
+}
@@ -83,4 +83,280 @@ public class Constants {
      * Any system variable with this prefix is published as an arbitrary data in the statistics publisher.
      */
     public static final String ARBITRARY_FIELD_PREFIX = "WSO2_";
+
+    /**
+     * The default number of request records that can wait in the capture buffer to be published.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * The default maximum number of events built by the publisher thread before they are published.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 200;
+
+    /**
+     * The default maximum size of the encoded request headers or response headers of a single request.
+     */
+    public static final int DEFAULT_MAX_HEADER_BYTES = 4096;
+
+    /**
+     * The headers whose values are masked unless the redacted headers are configured explicitly.
+     */
+    public static final String[] DEFAULT_REDACTED_HEADERS = { "Cookie", "Set-Cookie", "Authorization",
+            "Proxy-Authorization" };
+
+    /**
+     * The value published in place of the value of a redacted header.
+     */
+    public static final String REDACTED_VALUE = "*****";
+
+    /**
+     * The media types of the responses whose statistics are published unless the media types are configured
+     * explicitly.
+     */
+    public static final String[] DEFAULT_PUBLISHED_MEDIA_TYPES = { "text/html" };
+
+    /**
+     * The name of the thread which builds and publishes the events.
+     */
+    public static final String PUBLISHER_THREAD_NAME = "HttpStatPublisher";
+
+    /**
+     * The name of the thread which publishes the summaries of the aggregated requests.
+     */
+    public static final String SUMMARY_PUBLISHER_THREAD_NAME = "HttpStatSummaryPublisher";
+
+    /**
+     * The event stream which receives the summaries of the aggregated requests unless it is configured explicitly.
+     */
+    public static final String DEFAULT_SUMMARY_STREAM_ID = "org.wso2.http.analytics.summary.stream:1.0.0";
+
+    /**
+     * The default interval between two summaries of the aggregated requests, in seconds.
+     */
+    public static final int DEFAULT_FLUSH_INTERVAL = 60;
+
+    /**
+     * The default maximum number of (web application, request URI, method, status class) keys aggregated separately.
+     */
+    public static final int DEFAULT_MAX_AGGREGATION_KEYS = 1000;
+
+    /**
+     * The name of the thread which replays the spooled events.
+     */
+    public static final String SPOOL_REPLAYER_THREAD_NAME = "HttpStatSpoolReplayer";
+
+    /**
+     * The directory of the spool, relative to the Catalina base, unless it is configured explicitly.
+     */
+    public static final String DEFAULT_SPOOL_DIRECTORY = "work/http-statistics-spool";
+
+    /**
+     * The default size of a segment file of the spool, in megabytes.
+     */
+    public static final int DEFAULT_SPOOL_SEGMENT_SIZE = 16;
+
+    /**
+     * The default maximum total size of the segment files of the spool, in megabytes.
+     */
+    public static final int DEFAULT_SPOOL_MAX_SIZE = 512;
+
+    /**
+     * The default period after which a segment of the spool is discarded, in hours.
+     */
+    public static final int DEFAULT_SPOOL_RETENTION_PERIOD = 24;
+
+    /**
+     * The default maximum number of spooled events replayed per second.
+     */
+    public static final int DEFAULT_SPOOL_REPLAY_RATE = 500;
+
+    /**
+     * The default number of consecutive events not accepted by a receiver after which it is failed over.
+     */
+    public static final int DEFAULT_RECEIVER_FAILURE_THRESHOLD = 5;
+
+    /**
+     * The default time after which a receiver which was failed over is tried again, in seconds.
+     */
+    public static final int DEFAULT_RECEIVER_RETRY_INTERVAL = 30;
+
+    /**
+     * The request URI at which the request metrics are served unless it is configured explicitly.
+     */
+    public static final String DEFAULT_METRICS_PATH = "/http-metrics";
+
+    /**
+     * The client addresses the request metrics are served to unless they are configured explicitly: the loopback
+     * addresses.
+     */
+    public static final String[] DEFAULT_METRICS_ALLOWED_ADDRESSES = { "127.0.0.0/8", "::1/128" };
+
+    /**
+     * The JMX object name of the monitor of the statistics publishing pipeline, followed by the name of the host.
+     */
+    public static final String MONITOR_OBJECT_NAME = "org.wso2.appserver:type=HttpStatistics,host=";
+
+    /**
+     * The proxies trusted to set the forwarding headers unless they are configured explicitly: the loopback
+     * addresses only, as any other host of a private network could forge the client address.
+     */
+    public static final String[] DEFAULT_TRUSTED_PROXIES = { "127.0.0.0/8", "::1/128" };
+
+    /**
+     * The default maximum number of user agent classifications kept in the cache.
+     */
+    public static final int DEFAULT_USER_AGENT_CACHE_SIZE = 10000;
+
+    /**
+     * The GeoIP database file, relative to the Application Server configuration base, unless it is configured
+     * explicitly.
+     */
+    public static final String DEFAULT_GEOIP_DATABASE = "geoip.csv";
+
+    /**
+     * The default interval between two checks of the GeoIP database file for changes, in seconds.
+     */
+    public static final int DEFAULT_GEOIP_RELOAD_INTERVAL = 300;
+
+    /**
+     * The name of the thread which reloads the GeoIP database when its file changes.
+     */
+    public static final String GEOIP_RELOADER_THREAD_NAME = "HttpStatGeoIpReloader";
+
+    /**
+     * The default maximum number of path segments learned by the URI template normalizer of a context.
+     */
+    public static final int DEFAULT_URI_TEMPLATE_MAX_SEGMENTS = 1000;
+
+    /**
+     * The default maximum number of distinct values learned at a segment position of the URI templates.
+     */
+    public static final int DEFAULT_URI_TEMPLATE_MAX_SEGMENT_VALUES = 50;
+
+    /**
+     * The directory of the columnar statistics files, relative to the Catalina base, unless it is configured
+     * explicitly.
+     */
+    public static final String DEFAULT_FILE_SINK_DIRECTORY = "logs/http-statistics";
+
+    /**
+     * The default number of events written to the columnar statistics files as a single block.
+     */
+    public static final int DEFAULT_FILE_SINK_BLOCK_SIZE = 8192;
+
+    /**
+     * The default interval after which a columnar statistics file is rotated, in minutes.
+     */
+    public static final int DEFAULT_FILE_SINK_ROTATION_INTERVAL = 60;
+
+    /**
+     * The default size at which a columnar statistics file is rotated, in megabytes.
+     */
+    public static final int DEFAULT_FILE_SINK_MAX_FILE_SIZE = 64;
+
+    /**
+     * The name of the thread which flushes the idle blocks and rotates the columnar statistics files.
+     */
+    public static final String FILE_SINK_THREAD_NAME = "HttpStatFileSink";
+
+    /**
+     * The default occupancy of the capture buffer from which the adaptive sampling rate is lowered.
+     */
+    public static final double DEFAULT_ADAPTIVE_SAMPLING_HIGH_WATERMARK = 0.5;
+
+    /**
+     * The default occupancy of the capture buffer below which the adaptive sampling rate is raised back.
+     */
+    public static final double DEFAULT_ADAPTIVE_SAMPLING_LOW_WATERMARK = 0.1;
+
+    /**
+     * The default mean time to hand over an event, in milliseconds, above which the adaptive sampling rate is lowered.
+     */
+    public static final int DEFAULT_ADAPTIVE_SAMPLING_MAX_PUBLISH_LATENCY = 20;
+
+    /**
+     * The default minimum adaptive sampling rate.
+     */
+    public static final double DEFAULT_ADAPTIVE_SAMPLING_MIN_RATE = 0.01;
+
+    /**
+     * The default interval between two adjustments of the adaptive sampling rate, in milliseconds.
+     */
+    public static final int DEFAULT_ADAPTIVE_SAMPLING_ADJUSTMENT_INTERVAL = 1000;
+
+    /**
+     * The default time in milliseconds from which the watchdog samples the stack of a request.
+     */
+    public static final long DEFAULT_WATCHDOG_SLOW_REQUEST_THRESHOLD = 5000;
+
+    /**
+     * The default time in milliseconds from which the watchdog reports a request as stuck.
+     */
+    public static final long DEFAULT_WATCHDOG_STUCK_REQUEST_THRESHOLD = 60000;
+
+    /**
+     * The default interval between two samplings of the watchdog, in milliseconds.
+     */
+    public static final int DEFAULT_WATCHDOG_SAMPLE_INTERVAL = 1000;
+
+    /**
+     * The default maximum number of stacks sampled by the watchdog per interval.
+     */
+    public static final int DEFAULT_WATCHDOG_MAX_SAMPLES_PER_INTERVAL = 8;
+
+    /**
+     * The default maximum number of frames sampled by the watchdog per stack.
+     */
+    public static final int DEFAULT_WATCHDOG_MAX_STACK_DEPTH = 32;
+
+    /**
+     * The default interval between two reports of the hottest frames, in seconds.
+     */
+    public static final int DEFAULT_WATCHDOG_REPORT_INTERVAL = 60;
+
+    /**
+     * The default maximum number of frames reported by the watchdog.
+     */
+    public static final int DEFAULT_WATCHDOG_MAX_REPORTED_FRAMES = 20;
+
+    /**
+     * The name of the thread sampling the stacks of the slow requests.
+     */
+    public static final String WATCHDOG_THREAD_NAME = "HttpStatWatchdog";
+
+    /**
+     * The default length of the sliding window of the heavy hitters, in seconds.
+     */
+    public static final int DEFAULT_HEAVY_HITTERS_WINDOW = 60;
+
+    /**
+     * The default number of slices by which the window of the heavy hitters slides.
+     */
+    public static final int DEFAULT_HEAVY_HITTERS_WINDOW_SLICES = 6;
+
+    /**
+     * The default number of keys counted by each slice of the window of the heavy hitters.
+     */
+    public static final int DEFAULT_HEAVY_HITTERS_CAPACITY = 100;
+
+    /**
+     * The default number of cells per row of the count-min sketches of the heavy hitters.
+     */
+    public static final int DEFAULT_HEAVY_HITTERS_SKETCH_WIDTH = 1024;
+
+    /**
+     * The default number of rows of the count-min sketches of the heavy hitters.
+     */
+    public static final int DEFAULT_HEAVY_HITTERS_SKETCH_DEPTH = 4;
+
+    /**
+     * The default number of heavy hitters of each dimension exposed by the monitor.
+     */
+    public static final int DEFAULT_HEAVY_HITTERS_TOP_COUNT = 10;
+
+    /**
+     * The JMX object name of the monitor of the heavy hitters, followed by the name of the host.
+     */
+    public static final String HEAVY_HITTERS_OBJECT_NAME = "org.wso2.appserver:type=HttpHeavyHitters,host=";
 }
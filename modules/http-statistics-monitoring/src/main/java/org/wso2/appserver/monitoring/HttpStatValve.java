@@ -17,6 +17,8 @@
  */
 package org.wso2.appserver.monitoring;
 
+import org.apache.catalina.AccessLog;
+import org.apache.catalina.Context;
 import org.apache.catalina.LifecycleException;
 import org.apache.catalina.connector.Request;
 import org.apache.catalina.connector.Response;
@@ -25,8 +27,38 @@ import org.apache.juli.logging.Log;
 import org.apache.juli.logging.LogFactory;
 import org.wso2.appserver.configuration.listeners.ServerConfigurationLoader;
 import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+import org.wso2.appserver.monitoring.aggregation.LatencyAggregator;
+import org.wso2.appserver.monitoring.endpoint.DasReceiver;
+import org.wso2.appserver.monitoring.endpoint.LoadBalancingPolicy;
+import org.wso2.appserver.monitoring.endpoint.ReceiverGroup;
 import org.wso2.appserver.monitoring.exceptions.StatPublisherException;
-import org.wso2.appserver.monitoring.utils.EventBuilder;
+import org.wso2.appserver.monitoring.filter.ResponseFilter;
+import org.wso2.appserver.monitoring.geoip.GeoIpDatabase;
+import org.wso2.appserver.monitoring.heavyhitters.HeavyHitterTracker;
+import org.wso2.appserver.monitoring.management.HeavyHittersMonitor;
+import org.wso2.appserver.monitoring.management.HttpStatisticsMonitor;
+import org.wso2.appserver.monitoring.management.PipelineStatistics;
+import org.wso2.appserver.monitoring.metrics.ContextMetrics;
+import org.wso2.appserver.monitoring.metrics.MetricsEndpoint;
+import org.wso2.appserver.monitoring.metrics.MetricsRegistry;
+import org.wso2.appserver.monitoring.profile.ContextStatsInstaller;
+import org.wso2.appserver.monitoring.profile.ContextStatsValve;
+import org.wso2.appserver.monitoring.profile.StatsProfile;
+import org.wso2.appserver.monitoring.publisher.AsyncStatPublisher;
+import org.wso2.appserver.monitoring.publisher.CaptureRingBuffer;
+import org.wso2.appserver.monitoring.publisher.EventPublisher;
+import org.wso2.appserver.monitoring.publisher.OverflowPolicy;
+import org.wso2.appserver.monitoring.publisher.PublishingMode;
+import org.wso2.appserver.monitoring.publisher.SummaryPublisher;
+import org.wso2.appserver.monitoring.publisher.TeeEventPublisher;
+import org.wso2.appserver.monitoring.sampling.BackpressureController;
+import org.wso2.appserver.monitoring.sampling.Sampler;
+import org.wso2.appserver.monitoring.sink.ColumnarFileSink;
+import org.wso2.appserver.monitoring.spool.EventSpool;
+import org.wso2.appserver.monitoring.spool.SpoolReplayer;
+import org.wso2.appserver.monitoring.template.UriTemplateNormalizer;
+import org.wso2.appserver.monitoring.timing.RequestTimer;
+import org.wso2.appserver.monitoring.watchdog.RequestWatchdog;
 import org.wso2.appserver.utils.PathUtils;
 import org.wso2.carbon.databridge.agent.AgentHolder;
 import org.wso2.carbon.databridge.agent.DataPublisher;
@@ -34,58 +66,633 @@ import org.wso2.carbon.databridge.agent.exception.DataEndpointAgentConfiguration
 import org.wso2.carbon.databridge.agent.exception.DataEndpointAuthenticationException;
 import org.wso2.carbon.databridge.agent.exception.DataEndpointConfigurationException;
 import org.wso2.carbon.databridge.agent.exception.DataEndpointException;
-import org.wso2.carbon.databridge.commons.Event;
 import org.wso2.carbon.databridge.commons.exception.TransportException;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
 import javax.servlet.ServletException;
 
 /**
  * An implementation of {@code ValveBase} that publishes HTTP statistics of the requests to WSO2 Data Analytics Server.
+ * <p>
+ * The statistics of a context are published only if the statistics publisher is enabled for it. If the metrics are
+ * enabled, the response times of the requests of every context are also counted in a {@link MetricsRegistry}, which
+ * the valve serves itself at the metrics path to the allowed client addresses through a {@link MetricsEndpoint}, so
+ * the metrics are available even when nothing is published to DAS. The {@link StatsProfile} of a context is
+ * resolved when the context starts and held by a {@link ContextStatsValve} added to the context, so the requests to
+ * the other contexts are passed on without any further work. The profile is looked up once per request, when the
+ * valve is invoked, and carried by the {@link RequestTimer} of the request until it is recorded.
+ * <p>
+ * The valve is also an {@code AccessLog}, so that a request is recorded once Tomcat has committed and flushed its
+ * response. The phases of the response time are measured by a {@link RequestTimer}, with the help of the
+ * {@link ContextStatsValve}. An asynchronous request is recorded by an {@code AsyncListener} once it completes, so
+ * that its response time spans its asynchronous processing and its final status is recorded.
+ * <p>
+ * The request threads only record the request data into a pre-allocated slot of a {@link CaptureRingBuffer}. The
+ * Events are built and published by a dedicated {@link AsyncStatPublisher} thread. Requests which are rejected by
+ * the {@link ResponseFilter} or not kept by the {@link Sampler} of their context are not recorded at all. If the
+ * adaptive sampling is enabled, a {@link BackpressureController} lowers the sampling rates while the pipeline falls
+ * behind.
+ * <p>
+ * Depending on the {@link PublishingMode}, the response times of the requests are also, or instead, aggregated
+ * in-process by a {@link LatencyAggregator} and published as periodic summaries by a {@link SummaryPublisher}.
+ * <p>
+ * The Events are published to a {@link ReceiverGroup} of one or more DAS receivers, which distributes them among
+ * the receivers and fails over the receivers which do not accept them. If the spool is enabled, the Events which
+ * cannot be handed over to any receiver are kept in an {@link EventSpool} on disk and replayed by a
+ * {@link SpoolReplayer} once they are accepted again. If a {@link GeoIpDatabase} is enabled, the client addresses
+ * are looked up in it as the Events are built. If the file sink is enabled, the Events are also, or instead, written
+ * to local columnar files by a {@link ColumnarFileSink}.
+ * <p>
+ * The state of the pipeline, counted in its {@link PipelineStatistics}, is exposed over JMX by a
+ * {@link HttpStatisticsMonitor} registered while the valve is started, as are the heavy hitters of the published
+ * requests if they are tracked by a {@link HeavyHitterTracker}. If the watchdog is enabled, the requests are
+ * registered in a {@link RequestWatchdog} while they are processed, which samples the stacks of the slow ones and
+ * reports the stuck ones.
  *
  * @since 6.0.0
  */
-public class HttpStatValve extends ValveBase {
+public class HttpStatValve extends ValveBase implements AccessLog {
     private static final Log LOG = LogFactory.getLog(HttpStatValve.class);
-    private DataPublisher dataPublisher;
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+    private ReceiverGroup receiverGroup;
+    private PipelineStatistics pipelineStatistics;
+    private ObjectName monitorName;
     private AppServerStatsPublishing statsPublisherConfiguration;
+    private CaptureRingBuffer captureBuffer;
+    private BackpressureController backpressure;
+    private HeavyHitterTracker heavyHitters;
+    private ObjectName heavyHittersName;
+    private AsyncStatPublisher asyncPublisher;
+    private LatencyAggregator aggregator;
+    private SummaryPublisher summaryPublisher;
+    private EventSpool spool;
+    private SpoolReplayer spoolReplayer;
+    private GeoIpDatabase geoIpDatabase;
+    private ColumnarFileSink fileSink;
+    private ContextStatsInstaller contextStatsInstaller;
+    private MetricsRegistry metricsRegistry;
+    private MetricsEndpoint metricsEndpoint;
+    private RequestWatchdog watchdog;
+    private boolean requestAttributesEnabled;
+    private final AppServerStatsPublishing providedConfiguration;
+    private final EventPublisher providedEventPublisher;
+
+    /**
+     * Creates a valve configured by the server level statistics publishing configuration.
+     */
+    public HttpStatValve() {
+        this(null, null);
+    }
+
+    /**
+     * Creates a valve configured by the specified statistics publishing configuration instead of the server level
+     * one, which hands the Events over to the specified publisher instead of the DAS receivers, as in benchmarks.
+     *
+     * @param configuration  the statistics publishing configuration, or null to use the server level one
+     * @param eventPublisher the publisher of the Events, or null to publish them to the configured DAS receivers
+     */
+    public HttpStatValve(AppServerStatsPublishing configuration, EventPublisher eventPublisher) {
+        this.providedConfiguration = configuration;
+        this.providedEventPublisher = eventPublisher;
+    }
 
     @Override
     protected void initInternal() throws LifecycleException {
         super.initInternal();
         LOG.debug("The HttpStatValve initialized.");
-        setTrustStorePath();
 
-        statsPublisherConfiguration = ServerConfigurationLoader.getServerConfiguration().
-                getStatsPublisherConfiguration();
+        AppServerStatsPublishing configuration = (providedConfiguration != null) ? providedConfiguration :
+                ServerConfigurationLoader.getServerConfiguration().getStatsPublisherConfiguration();
+        statsPublisherConfiguration = Optional.ofNullable(configuration).orElseGet(AppServerStatsPublishing::new);
 
+        PublishingMode publishingMode;
         try {
-            dataPublisher = getDataPublisher();
-        } catch (StatPublisherException e) {
-            LOG.error("Initializing DataPublisher failed:", e);
-            throw new LifecycleException("Initializing DataPublisher failed: " + e);
+            //  without a statistics publisher configuration, nothing is published
+            publishingMode = (configuration != null) ?
+                    PublishingMode.fromString(statsPublisherConfiguration.getPublishingMode()) : PublishingMode.NONE;
+        } catch (IllegalArgumentException e) {
+            LOG.error("Invalid publishing mode: " + statsPublisherConfiguration.getPublishingMode(), e);
+            throw new LifecycleException("Invalid publishing mode: " + statsPublisherConfiguration.
+                    getPublishingMode(), e);
+        }
+        pipelineStatistics = new PipelineStatistics();
+        initMetrics();
+        initWatchdog();
+        if (publishingMode == PublishingMode.NONE) {
+            return;
+        }
+
+        if (publishingMode.isPublishingEvents()) {
+            initFileSink();
+        }
+        boolean publishingToDas = providedEventPublisher == null && (fileSink == null || Optional
+                .ofNullable(statsPublisherConfiguration.getFileSink())
+                .map(AppServerStatsPublishing.FileSink::isPublishToDas)
+                .orElse(true));
+        if (publishingToDas) {
+            setTrustStorePath();
+            try {
+                receiverGroup = getReceiverGroup();
+            } catch (StatPublisherException e) {
+                LOG.error("Initializing DataPublisher failed:", e);
+                throw new LifecycleException("Initializing DataPublisher failed: " + e);
+            }
+            initSpool();
+        }
+        if (publishingMode.isPublishingEvents()) {
+            initEventPublishing();
+        }
+        if (publishingMode.isPublishingSummaries()) {
+            if (receiverGroup != null) {
+                initSummaryPublishing();
+            } else {
+                LOG.warn("The HTTP statistics summaries are not published, as nothing is published to DAS.");
+            }
         }
     }
 
+    @Override
+    protected synchronized void startInternal() throws LifecycleException {
+        if (getContainer() != null) {
+            contextStatsInstaller = new ContextStatsInstaller(getContainer(), statsPublisherConfiguration,
+                    metricsRegistry);
+            contextStatsInstaller.install();
+        }
+        if (asyncPublisher != null) {
+            asyncPublisher.start();
+        }
+        if (summaryPublisher != null) {
+            summaryPublisher.start();
+        }
+        if (spoolReplayer != null) {
+            spoolReplayer.start();
+        }
+        if (geoIpDatabase != null) {
+            geoIpDatabase.start();
+        }
+        if (fileSink != null) {
+            fileSink.start();
+        }
+        if (watchdog != null) {
+            watchdog.start();
+        }
+        registerMonitor();
+        super.startInternal();
+    }
+
+    @Override
+    protected synchronized void stopInternal() throws LifecycleException {
+        super.stopInternal();
+        unregisterMonitor();
+        if (contextStatsInstaller != null) {
+            contextStatsInstaller.uninstall();
+            contextStatsInstaller = null;
+        }
+        if (summaryPublisher != null) {
+            summaryPublisher.stop();
+        }
+        if (asyncPublisher != null) {
+            asyncPublisher.stop();
+            if (captureBuffer.getDroppedCount() > 0) {
+                LOG.warn(captureBuffer.getDroppedCount() + " HTTP statistics records were dropped as the buffer " +
+                        "was full.");
+            }
+        }
+        if (spoolReplayer != null) {
+            spoolReplayer.stop();
+            if (spool.getDroppedCount() > 0) {
+                LOG.warn(spool.getDroppedCount() + " HTTP statistics events were dropped by the spool.");
+            }
+        }
+        if (geoIpDatabase != null) {
+            geoIpDatabase.stop();
+        }
+        if (fileSink != null) {
+            fileSink.stop();
+        }
+        if (watchdog != null) {
+            watchdog.stop();
+        }
+    }
+
+    @Override
+    protected void destroyInternal() throws LifecycleException {
+        if (spool != null) {
+            spool.close();
+        }
+        if (receiverGroup != null) {
+            receiverGroup.shutdown();
+        }
+        if (fileSink != null) {
+            fileSink.shutdown();
+        }
+        super.destroyInternal();
+    }
+
     @Override
     public void invoke(Request request, Response response) throws IOException, ServletException {
-        Long startTime = System.currentTimeMillis();
-        getNext().invoke(request, response);
-        long responseTime = System.currentTimeMillis() - startTime;
+        if (metricsEndpoint != null && metricsEndpoint.matches(request)) {
+            metricsEndpoint.serve(request, response);
+            return;
+        }
+        StatsProfile profile = getProfile(request);
+        //  an asynchronous dispatch belongs to a request whose timing started when it was first dispatched
+        if (profile == null || request.getDispatcherType() == DispatcherType.ASYNC) {
+            getNext().invoke(request, response);
+            return;
+        }
+        RequestTimer timer = RequestTimer.get();
+        timer.start(request, profile);
+        if (watchdog != null) {
+            watchdog.requestStarted(request.getMethod(), request.getRequestURI());
+        }
+        try {
+            getNext().invoke(request, response);
+        } finally {
+            timer.valveEnded();
+            if (watchdog != null) {
+                watchdog.requestEnded();
+            }
+        }
+        if (request.isAsync()) {
+            AsyncCompletionListener listener = new AsyncCompletionListener(request, response, timer.detach());
+            try {
+                request.getAsyncContext().addListener(listener);
+            } catch (IllegalStateException e) {
+                //  the asynchronous processing already completed while the valves were returning
+                listener.complete();
+            }
+        }
+    }
+
+    @Override
+    public void log(Request request, Response response, long time) {
+        //  the profile was resolved when the valve started timing the request, which it did not for a disabled context
+        RequestTimer timer = RequestTimer.get();
+        if (!timer.isTiming(request)) {
+            //  a request whose timing was started but which was never logged is not kept by the thread
+            timer.clear();
+            return;
+        }
+        StatsProfile profile = timer.getProfile();
+        timer.stop();
+        record(request, response, timer, profile);
+    }
 
-        if (filterResponse(response)) {
-            Event event;
+    @Override
+    public void setRequestAttributesEnabled(boolean requestAttributesEnabled) {
+        this.requestAttributesEnabled = requestAttributesEnabled;
+    }
+
+    @Override
+    public boolean getRequestAttributesEnabled() {
+        return requestAttributesEnabled;
+    }
+
+    /**
+     * Returns the statistics publishing profile of the context of the request.
+     *
+     * @param request the Request object of client
+     * @return the profile of the context, or null if the statistics of the context are not published
+     */
+    private static StatsProfile getProfile(Request request) {
+        Context context = request.getContext();
+        return (context != null) ? ContextStatsValve.getProfile(context) : null;
+    }
+
+    /**
+     * Records the statistics of a completed request.
+     *
+     * @param request  the Request object of client
+     * @param response the Response object of client
+     * @param timer    the stopped timer of the request
+     * @param profile  the statistics publishing profile of the request context
+     */
+    private void record(Request request, Response response, RequestTimer timer, StatsProfile profile) {
+        long startTime = System.nanoTime();
+        try {
+            recordStatistics(request, response, timer, profile);
+        } finally {
+            pipelineStatistics.recordRequestThreadTime(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Records the statistics of a completed request into the metrics, the aggregator and the capture buffer.
+     *
+     * @param request  the Request object of client
+     * @param response the Response object of client
+     * @param timer    the stopped timer of the request
+     * @param profile  the statistics publishing profile of the request context
+     */
+    private void recordStatistics(Request request, Response response, RequestTimer timer, StatsProfile profile) {
+        long responseTime = timer.getResponseTime();
+        ContextMetrics metrics = profile.getMetrics();
+        if (metrics != null) {
+            //  the metrics count every request, including those whose statistics are filtered out of the publishing
+            metrics.record(response.getStatus(), responseTime);
+        }
+        if (!profile.isEnabled() || !profile.getResponseFilter().accept(request, response)) {
+            return;
+        }
+        if (aggregator != null) {
+            String requestURI = request.getRequestURI();
+            UriTemplateNormalizer normalizer = profile.getUriTemplateNormalizer();
+            String uriTemplate = (normalizer != null) ? normalizer.normalize(requestURI) : null;
+            aggregator.record(profile.getTemplate().getAppName(requestURI), uriTemplate, request.getMethod(),
+                    response.getStatus(), TimeUnit.NANOSECONDS.toMicros(responseTime));
+        }
+        if (captureBuffer == null) {
+            return;
+        }
+        //  sampled out requests are neither recorded nor built into Events
+        long responseTimeMillis = TimeUnit.NANOSECONDS.toMillis(responseTime);
+        long now = timer.getStartTime() + responseTimeMillis;
+        double rate = (backpressure != null) ? backpressure.getRate(now) : 1.0;
+        double samplingWeight = profile.getSampler().sample(response.getStatus(), responseTimeMillis, now, rate);
+        if (samplingWeight == Sampler.NOT_SAMPLED) {
+            return;
+        }
+        int slot = captureBuffer.claim();
+        if (slot >= 0) {
+            pipelineStatistics.recordCaptured();
             try {
-                event = EventBuilder.buildEvent(statsPublisherConfiguration.getStreamId(), request, response, startTime,
-                        responseTime);
-            } catch (StatPublisherException e) {
-                LOG.error("Creating the Event failed: " + e);
-                throw new IOException("Creating the Event failed: " + e);
+                captureBuffer.get(slot).capture(request, response, profile, timer, samplingWeight);
+            } finally {
+                captureBuffer.publish(slot);
             }
-            dataPublisher.publish(event);
+        }
+    }
+
+    /**
+     * Creates the registry of the request metrics and the endpoint which serves them, if the metrics are enabled.
+     */
+    private void initMetrics() {
+        Optional<AppServerStatsPublishing.Metrics> configuration = Optional
+                .ofNullable(statsPublisherConfiguration.getMetrics());
+        if (!configuration.map(AppServerStatsPublishing.Metrics::isEnabled).orElse(false)) {
+            return;
+        }
+        metricsRegistry = new MetricsRegistry();
+        String path = configuration.map(AppServerStatsPublishing.Metrics::getPath)
+                .orElse(Constants.DEFAULT_METRICS_PATH).trim();
+        if (!path.isEmpty()) {
+            //  only the loopback clients are allowed unless the allowed addresses are configured explicitly
+            Collection<String> allowedAddresses = configuration
+                    .map(AppServerStatsPublishing.Metrics::getAllowedAddresses)
+                    .map(addresses -> Optional.ofNullable(addresses.getAddresses()).orElse(Collections.emptyList()))
+                    .orElse(Arrays.asList(Constants.DEFAULT_METRICS_ALLOWED_ADDRESSES));
+            metricsEndpoint = new MetricsEndpoint(metricsRegistry, path, allowedAddresses);
+        }
+    }
+
+    /**
+     * Creates the watchdog of the in-flight requests, if it is enabled.
+     *
+     * @throws LifecycleException if the watchdog configuration is invalid
+     */
+    private void initWatchdog() throws LifecycleException {
+        try {
+            watchdog = RequestWatchdog.fromConfiguration(statsPublisherConfiguration.getWatchdog());
+        } catch (IllegalArgumentException e) {
+            LOG.error("Invalid watchdog configuration: " + e.getMessage(), e);
+            throw new LifecycleException("Invalid watchdog configuration: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates the buffer of the request records and the thread which publishes an Event for each of them.
+     *
+     * @throws LifecycleException if the overflow policy, the adaptive sampling or the heavy hitters configuration
+     *                            is invalid
+     */
+    private void initEventPublishing() throws LifecycleException {
+        OverflowPolicy overflowPolicy;
+        try {
+            overflowPolicy = OverflowPolicy.fromString(statsPublisherConfiguration.getOverflowPolicy());
+        } catch (IllegalArgumentException e) {
+            LOG.error("Invalid overflow policy: " + statsPublisherConfiguration.getOverflowPolicy(), e);
+            throw new LifecycleException("Invalid overflow policy: " + statsPublisherConfiguration.
+                    getOverflowPolicy(), e);
+        }
+        int bufferSize = Optional.ofNullable(statsPublisherConfiguration.getBufferSize())
+                .orElse(Constants.DEFAULT_BUFFER_SIZE);
+        int batchSize = Optional.ofNullable(statsPublisherConfiguration.getBatchSize())
+                .orElse(Constants.DEFAULT_BATCH_SIZE);
+        initGeoIp();
+        EventPublisher eventPublisher = (providedEventPublisher != null) ? providedEventPublisher : receiverGroup;
+        if (fileSink != null) {
+            eventPublisher = (eventPublisher != null) ? new TeeEventPublisher(eventPublisher, fileSink) : fileSink;
+        }
+        captureBuffer = new CaptureRingBuffer(bufferSize, overflowPolicy);
+        try {
+            backpressure = BackpressureController.fromConfiguration(statsPublisherConfiguration.getAdaptiveSampling(),
+                    captureBuffer, pipelineStatistics);
+        } catch (IllegalArgumentException e) {
+            LOG.error("Invalid adaptive sampling configuration: " + e.getMessage(), e);
+            throw new LifecycleException("Invalid adaptive sampling configuration: " + e.getMessage(), e);
+        }
+        try {
+            heavyHitters = HeavyHitterTracker.fromConfiguration(statsPublisherConfiguration.getHeavyHitters());
+        } catch (IllegalArgumentException e) {
+            LOG.error("Invalid heavy hitters configuration: " + e.getMessage(), e);
+            throw new LifecycleException("Invalid heavy hitters configuration: " + e.getMessage(), e);
+        }
+        asyncPublisher = new AsyncStatPublisher(captureBuffer, eventPublisher, batchSize, spool,
+                pipelineStatistics, geoIpDatabase, heavyHitters);
+    }
+
+    /**
+     * Opens the sink writing the Events to local columnar files, if it is enabled.
+     *
+     * @throws LifecycleException if the directory of the files cannot be created
+     */
+    private void initFileSink() throws LifecycleException {
+        Optional<AppServerStatsPublishing.FileSink> configuration = Optional
+                .ofNullable(statsPublisherConfiguration.getFileSink());
+        if (!configuration.map(AppServerStatsPublishing.FileSink::isEnabled).orElse(false)) {
+            return;
+        }
+        Path directory = configuration.map(AppServerStatsPublishing.FileSink::getDirectory).map(Paths::get)
+                .orElse(PathUtils.getCatalinaBase().resolve(Constants.DEFAULT_FILE_SINK_DIRECTORY));
+        int blockSize = configuration.map(AppServerStatsPublishing.FileSink::getBlockSize)
+                .orElse(Constants.DEFAULT_FILE_SINK_BLOCK_SIZE);
+        int rotationInterval = configuration.map(AppServerStatsPublishing.FileSink::getRotationInterval)
+                .orElse(Constants.DEFAULT_FILE_SINK_ROTATION_INTERVAL);
+        long maxFileSize = configuration.map(AppServerStatsPublishing.FileSink::getMaxFileSize)
+                .orElse(Constants.DEFAULT_FILE_SINK_MAX_FILE_SIZE);
+        try {
+            fileSink = new ColumnarFileSink(directory, blockSize, TimeUnit.MINUTES.toMillis(rotationInterval),
+                    maxFileSize * BYTES_PER_MEGABYTE);
+        } catch (IllegalArgumentException e) {
+            LOG.error("Invalid HTTP statistics file sink configuration: ", e);
+            throw new LifecycleException("Invalid HTTP statistics file sink configuration: ", e);
+        }
+        try {
+            fileSink.open();
+        } catch (IOException e) {
+            LOG.error("Opening the HTTP statistics file sink at " + directory + " failed: ", e);
+            throw new LifecycleException("Opening the HTTP statistics file sink at " + directory + " failed: ", e);
+        }
+    }
+
+    /**
+     * Loads the GeoIP database the client addresses are located in, if it is enabled.
+     *
+     * @throws LifecycleException if the database cannot be loaded
+     */
+    private void initGeoIp() throws LifecycleException {
+        Optional<AppServerStatsPublishing.GeoIp> configuration = Optional
+                .ofNullable(statsPublisherConfiguration.getGeoIp());
+        if (!configuration.map(AppServerStatsPublishing.GeoIp::isEnabled).orElse(false)) {
+            return;
+        }
+        Path database = configuration.map(AppServerStatsPublishing.GeoIp::getDatabase).map(Paths::get)
+                .orElse(PathUtils.getAppServerConfigurationBase().resolve(Constants.DEFAULT_GEOIP_DATABASE));
+        int reloadInterval = configuration.map(AppServerStatsPublishing.GeoIp::getReloadInterval)
+                .orElse(Constants.DEFAULT_GEOIP_RELOAD_INTERVAL);
+        geoIpDatabase = new GeoIpDatabase(database, TimeUnit.SECONDS.toMillis(reloadInterval));
+        try {
+            geoIpDatabase.open();
+        } catch (IOException e) {
+            LOG.error("Loading the GeoIP database " + database + " failed: ", e);
+            throw new LifecycleException("Loading the GeoIP database " + database + " failed: ", e);
+        }
+    }
+
+    /**
+     * Creates the aggregator of the response times and the thread which periodically publishes their summaries.
+     */
+    private void initSummaryPublishing() {
+        Optional<AppServerStatsPublishing.Aggregation> configuration = Optional
+                .ofNullable(statsPublisherConfiguration.getAggregation());
+        String streamId = configuration.map(AppServerStatsPublishing.Aggregation::getStreamId)
+                .orElse(Constants.DEFAULT_SUMMARY_STREAM_ID);
+        int flushInterval = configuration.map(AppServerStatsPublishing.Aggregation::getFlushInterval)
+                .orElse(Constants.DEFAULT_FLUSH_INTERVAL);
+        int maxKeys = configuration.map(AppServerStatsPublishing.Aggregation::getMaxKeys)
+                .orElse(Constants.DEFAULT_MAX_AGGREGATION_KEYS);
+        aggregator = new LatencyAggregator(maxKeys);
+        summaryPublisher = new SummaryPublisher(aggregator, receiverGroup, streamId,
+                TimeUnit.SECONDS.toMillis(flushInterval), spool, pipelineStatistics);
+    }
+
+    /**
+     * Opens the spool of the Events which cannot be published and creates the thread which replays them, if the
+     * spool is enabled.
+     *
+     * @throws LifecycleException if the spool cannot be opened
+     */
+    private void initSpool() throws LifecycleException {
+        Optional<AppServerStatsPublishing.Spool> configuration = Optional
+                .ofNullable(statsPublisherConfiguration.getSpool());
+        if (!configuration.map(AppServerStatsPublishing.Spool::isEnabled).orElse(false)) {
+            return;
+        }
+        Path directory = configuration.map(AppServerStatsPublishing.Spool::getDirectory).map(Paths::get)
+                .orElse(PathUtils.getCatalinaBase().resolve(Constants.DEFAULT_SPOOL_DIRECTORY));
+        long segmentSize = configuration.map(AppServerStatsPublishing.Spool::getSegmentSize)
+                .orElse(Constants.DEFAULT_SPOOL_SEGMENT_SIZE);
+        long maxSize = configuration.map(AppServerStatsPublishing.Spool::getMaxSize)
+                .orElse(Constants.DEFAULT_SPOOL_MAX_SIZE);
+        int retentionPeriod = configuration.map(AppServerStatsPublishing.Spool::getRetentionPeriod)
+                .orElse(Constants.DEFAULT_SPOOL_RETENTION_PERIOD);
+        int replayRate = configuration.map(AppServerStatsPublishing.Spool::getReplayRate)
+                .orElse(Constants.DEFAULT_SPOOL_REPLAY_RATE);
+        if (segmentSize > Integer.MAX_VALUE / BYTES_PER_MEGABYTE) {
+            throw new LifecycleException("The spool segment size is too large: " + segmentSize + " MB");
+        }
+        spool = new EventSpool(directory, (int) (segmentSize * BYTES_PER_MEGABYTE), maxSize * BYTES_PER_MEGABYTE,
+                TimeUnit.HOURS.toMillis(retentionPeriod));
+        try {
+            spool.open();
+        } catch (IOException e) {
+            LOG.error("Opening the HTTP statistics spool at " + directory + " failed: ", e);
+            throw new LifecycleException("Opening the HTTP statistics spool at " + directory + " failed: ", e);
+        }
+        spoolReplayer = new SpoolReplayer(spool, receiverGroup, replayRate);
+    }
+
+    /**
+     * Registers the JMX monitors of the statistics publishing pipeline and of the heavy hitters. The statistics are
+     * still published if they cannot be registered.
+     */
+    private void registerMonitor() {
+        String host = ObjectName.quote((getContainer() != null) ? getContainer().getName() : "");
+        monitorName = registerMBean(Constants.MONITOR_OBJECT_NAME + host, new HttpStatisticsMonitor(
+                pipelineStatistics, captureBuffer, spool, receiverGroup, backpressure), "HTTP statistics monitor");
+        if (heavyHitters != null) {
+            int topCount = Optional.ofNullable(statsPublisherConfiguration.getHeavyHitters())
+                    .map(AppServerStatsPublishing.HeavyHitters::getTopCount)
+                    .orElse(Constants.DEFAULT_HEAVY_HITTERS_TOP_COUNT);
+            heavyHittersName = registerMBean(Constants.HEAVY_HITTERS_OBJECT_NAME + host,
+                    new HeavyHittersMonitor(heavyHitters, topCount), "HTTP heavy hitters monitor");
+        }
+    }
+
+    /**
+     * Unregisters the JMX monitors of the statistics publishing pipeline and of the heavy hitters, if they were
+     * registered.
+     */
+    private void unregisterMonitor() {
+        unregisterMBean(monitorName, "HTTP statistics monitor");
+        monitorName = null;
+        unregisterMBean(heavyHittersName, "HTTP heavy hitters monitor");
+        heavyHittersName = null;
+    }
+
+    /**
+     * Registers an MBean.
+     *
+     * @param name        the object name of the MBean
+     * @param mbean       the MBean
+     * @param description the description of the MBean, for the log
+     * @return the object name of the registered MBean, or null if it could not be registered
+     */
+    private static ObjectName registerMBean(String name, Object mbean, String description) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(name);
+            server.registerMBean(mbean, objectName);
+            return objectName;
+        } catch (JMException e) {
+            LOG.warn("Registering the " + description + " failed: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Unregisters an MBean, if it was registered.
+     *
+     * @param name        the object name of the MBean, or null if it was not registered
+     * @param description the description of the MBean, for the log
+     */
+    private static void unregisterMBean(ObjectName name, String description) {
+        if (name == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            LOG.warn("Unregistering the " + description + " failed: " + e);
         }
     }
 
@@ -100,23 +707,81 @@ public class HttpStatValve extends ValveBase {
     }
 
     /**
-     * Instantiates a data publisher to be used to publish data to DAS.
+     * Instantiates the group of DAS receivers the data is published to, which is made of the configured receivers,
+     * or of the single receiver defined by the PublisherURL and AuthenticationURL if no receivers are configured.
      *
+     * @return the receiver group initialized with configurations
+     * @throws StatPublisherException if a receiver or the group configuration is invalid
+     */
+    private ReceiverGroup getReceiverGroup() throws StatPublisherException {
+        Optional<AppServerStatsPublishing.Receivers> configuration = Optional
+                .ofNullable(statsPublisherConfiguration.getReceivers());
+        List<AppServerStatsPublishing.Receiver> receiverConfigurations = configuration
+                .map(AppServerStatsPublishing.Receivers::getReceivers)
+                .filter(receivers -> !receivers.isEmpty())
+                .orElseGet(() -> {
+                    AppServerStatsPublishing.Receiver receiver = new AppServerStatsPublishing.Receiver();
+                    receiver.setPublisherURL(statsPublisherConfiguration.getPublisherURL());
+                    receiver.setAuthenticationURL(statsPublisherConfiguration.getAuthenticationURL());
+                    return Collections.singletonList(receiver);
+                });
+        LoadBalancingPolicy policy;
+        try {
+            policy = LoadBalancingPolicy.fromString(configuration
+                    .map(AppServerStatsPublishing.Receivers::getLoadBalancing).orElse(null));
+        } catch (IllegalArgumentException e) {
+            LOG.error("Invalid load balancing policy: " + e);
+            throw new StatPublisherException("Invalid load balancing policy: ", e);
+        }
+        int failureThreshold = configuration.map(AppServerStatsPublishing.Receivers::getFailureThreshold)
+                .orElse(Constants.DEFAULT_RECEIVER_FAILURE_THRESHOLD);
+        int retryInterval = configuration.map(AppServerStatsPublishing.Receivers::getRetryInterval)
+                .orElse(Constants.DEFAULT_RECEIVER_RETRY_INTERVAL);
+
+        AgentHolder.setConfigPath(getDataAgentConfigPath());
+        Map<String, DasReceiver> receivers = new LinkedHashMap<>();
+        try {
+            for (AppServerStatsPublishing.Receiver receiver : receiverConfigurations) {
+                String publisherURL = Optional.ofNullable(receiver.getPublisherURL())
+                        .orElseThrow(() -> new StatPublisherException("No PublisherURL is configured for a receiver"));
+                if (receivers.containsKey(publisherURL)) {
+                    throw new StatPublisherException("The receiver " + publisherURL + " is configured twice");
+                }
+                receivers.put(publisherURL, new DasReceiver(publisherURL,
+                        getDataPublisher(publisherURL, receiver.getAuthenticationURL())));
+            }
+            try {
+                return new ReceiverGroup(receivers, policy, failureThreshold,
+                        TimeUnit.SECONDS.toMillis(retryInterval));
+            } catch (IllegalArgumentException e) {
+                throw new StatPublisherException("Invalid receivers configuration: ", e);
+            }
+        } catch (StatPublisherException e) {
+            //  the receivers which were already connected are not used
+            receivers.values().forEach(DasReceiver::shutdown);
+            throw e;
+        }
+    }
+
+    /**
+     * Instantiates a data publisher to be used to publish data to a DAS receiver.
+     *
+     * @param publisherURL      the URL the data is published to
+     * @param authenticationURL the URL used to authenticate, or null to derive it from the publisher URL
      * @return DataPublisher object initialized with configurations
      * @throws StatPublisherException
      */
-    private DataPublisher getDataPublisher() throws StatPublisherException {
-        AgentHolder.setConfigPath(getDataAgentConfigPath());
+    private DataPublisher getDataPublisher(String publisherURL, String authenticationURL)
+            throws StatPublisherException {
         DataPublisher dataPublisher;
 
         try {
-            if (!Optional.ofNullable(statsPublisherConfiguration.getAuthenticationURL()).isPresent()) {
-                dataPublisher = new DataPublisher(statsPublisherConfiguration.getPublisherURL(),
-                        statsPublisherConfiguration.getUsername(), statsPublisherConfiguration.getPassword());
+            if (!Optional.ofNullable(authenticationURL).isPresent()) {
+                dataPublisher = new DataPublisher(publisherURL, statsPublisherConfiguration.getUsername(),
+                        statsPublisherConfiguration.getPassword());
             } else {
-                dataPublisher = new DataPublisher(statsPublisherConfiguration.getDataAgentType(),
-                        statsPublisherConfiguration.getPublisherURL(),
-                        statsPublisherConfiguration.getAuthenticationURL(), statsPublisherConfiguration.getUsername(),
+                dataPublisher = new DataPublisher(statsPublisherConfiguration.getDataAgentType(), publisherURL,
+                        authenticationURL, statsPublisherConfiguration.getUsername(),
                         statsPublisherConfiguration.getPassword());
             }
         } catch (DataEndpointAgentConfigurationException e) {
@@ -139,18 +804,6 @@ public class HttpStatValve extends ValveBase {
         return dataPublisher;
     }
 
-    /**
-     * Filters to process only requests of text/html type.
-     *
-     * @param response the Response object of client
-     * @return true if request is of text/html type and false if not
-     */
-    private boolean filterResponse(Response response) {
-        String responseContentType = response.getContentType();
-        //  if the response content is not null and is of type text/html, allow to publish stats
-        return ((responseContentType != null) && (responseContentType.contains("text/html")));
-    }
-
     /**
      * Setting the system property for the trust store.
      */
@@ -158,4 +811,54 @@ public class HttpStatValve extends ValveBase {
         String pathToBeReplaced = System.getProperty("javax.net.ssl.trustStore");
         System.setProperty("javax.net.ssl.trustStore", pathToBeReplaced);
     }
+
+    /**
+     * Records an asynchronous request once it completes. A request which timed out or failed is completed by the
+     * container after the listeners are notified, with an error status unless one of them handled it, so the
+     * request is only recorded on completion, when its status is final.
+     */
+    private final class AsyncCompletionListener implements AsyncListener {
+        private final Request request;
+        private final Response response;
+        private final RequestTimer timer;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        private AsyncCompletionListener(Request request, Response response, RequestTimer timer) {
+            this.request = request;
+            this.response = response;
+            this.timer = timer;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            complete();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            //  the request is recorded once the container completes it
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            //  the request is recorded once the container completes it
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            //  the listeners are removed when the asynchronous processing is restarted by a dispatched servlet
+            event.getAsyncContext().addListener(this);
+        }
+
+        /**
+         * Stops the timer and records the request, unless it was already recorded.
+         */
+        private void complete() {
+            if (recorded.compareAndSet(false, true)) {
+                StatsProfile profile = timer.getProfile();
+                timer.stop();
+                record(request, response, timer, profile);
+            }
+        }
+    }
 }
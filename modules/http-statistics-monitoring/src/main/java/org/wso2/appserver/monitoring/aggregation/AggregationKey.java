@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.aggregation;
+
+import java.util.Objects;
+
+/**
+ * The key under which the requests are aggregated: the web application, the normalized request URI, the HTTP
+ * method and the status class of the response.
+ *
+ * @since 6.0.0
+ */
+public class AggregationKey {
+    private final String appName;
+    private final String requestURI;
+    private final String method;
+    private final int statusClass;
+    private final int hashCode;
+
+    /**
+     * Creates an aggregation key.
+     *
+     * @param appName     the name of the web application
+     * @param requestURI  the URI template of the request URI
+     * @param method      the HTTP method of the request
+     * @param statusClass the first digit of the HTTP status code of the response
+     */
+    public AggregationKey(String appName, String requestURI, String method, int statusClass) {
+        this.appName = appName;
+        this.requestURI = requestURI;
+        this.method = method;
+        this.statusClass = statusClass;
+        this.hashCode = Objects.hash(appName, requestURI, method, statusClass);
+    }
+
+    public String getAppName() {
+        return appName;
+    }
+
+    public String getRequestURI() {
+        return requestURI;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public int getStatusClass() {
+        return statusClass;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof AggregationKey)) {
+            return false;
+        }
+        AggregationKey key = (AggregationKey) object;
+        return hashCode == key.hashCode && statusClass == key.statusClass && Objects.equals(appName, key.appName)
+                && Objects.equals(requestURI, key.requestURI) && Objects.equals(method, key.method);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return appName + " " + method + " " + requestURI + " " + statusClass + "xx";
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.aggregation;
+
+/**
+ * The values recorded in a {@link LatencyHistogram} during an interval.
+ * <p>
+ * Snapshots are mergeable: the snapshots of different keys, intervals or servers can be added up into one which
+ * yields the same percentiles as if all values were recorded in a single histogram.
+ *
+ * @since 6.0.0
+ */
+public class HistogramSnapshot {
+    private final long[] counts;
+    private long count;
+    private long sum;
+    private long max;
+
+    /**
+     * Creates an empty snapshot.
+     */
+    public HistogramSnapshot() {
+        this(new long[LatencyHistogram.BUCKET_COUNT], 0, 0, 0);
+    }
+
+    HistogramSnapshot(long[] counts, long count, long sum, long max) {
+        this.counts = counts;
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+    }
+
+    /**
+     * Adds the values of another snapshot to this snapshot.
+     *
+     * @param snapshot the snapshot to be merged into this snapshot
+     */
+    public void merge(HistogramSnapshot snapshot) {
+        for (int index = 0; index < counts.length; index++) {
+            counts[index] += snapshot.counts[index];
+        }
+        count += snapshot.count;
+        sum += snapshot.sum;
+        max = Math.max(max, snapshot.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the mean, or zero if no value was recorded
+     */
+    public double getMean() {
+        return (count == 0) ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns the value at the given percentile, that is the smallest value which is greater than or equal to the
+     * given percentage of the recorded values, within the precision of the histogram.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the value at the percentile, or zero if no value was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+        long seen = 0;
+        for (int index = 0; index < counts.length; index++) {
+            seen += counts[index];
+            if (seen >= rank) {
+                //  the last bucket also counts the values above the highest trackable value
+                return (index == counts.length - 1) ? max : Math.min(LatencyHistogram.highestValue(index), max);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.aggregation;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Aggregates the response times of the requests into a {@link LatencyHistogram} per {@link AggregationKey}.
+ * <p>
+ * The requests are keyed by the URI templates of their request URIs, as normalized by the
+ * {@code UriTemplateNormalizer} of their context, so that the summaries group the requests the same way as the
+ * events do. The number of keys is bounded: once the bound is reached, the requests of new keys are aggregated
+ * under a single key per status class, whose web application, request URI and method are all {@value #OTHER}, as
+ * all of them can be chosen by the clients. Keys which receive no request during an interval are discarded when the
+ * interval is drained.
+ *
+ * @since 6.0.0
+ */
+public class LatencyAggregator {
+    static final String OTHER = "*";
+
+    private final Map<AggregationKey, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final int maxKeys;
+
+    /**
+     * Creates an aggregator.
+     *
+     * @param maxKeys the maximum number of keys aggregated separately
+     */
+    public LatencyAggregator(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Records the response time of a request.
+     *
+     * @param appName      the name of the web application
+     * @param uriTemplate  the URI template of the request URI, or null if there is none
+     * @param method       the HTTP method of the request
+     * @param status       the HTTP status code of the response
+     * @param responseTime the response time in microseconds
+     */
+    public void record(String appName, String uriTemplate, String method, int status, long responseTime) {
+        AggregationKey key = new AggregationKey(appName, (uriTemplate != null) ? uriTemplate : OTHER, method,
+                status / 100);
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            if (histograms.size() >= maxKeys) {
+                key = new AggregationKey(OTHER, OTHER, OTHER, key.getStatusClass());
+            }
+            histogram = histograms.computeIfAbsent(key, newKey -> new LatencyHistogram());
+        }
+        histogram.record(responseTime);
+    }
+
+    /**
+     * Hands over the response times recorded since the last call for each key, and starts a new interval.
+     *
+     * @param consumer the consumer of the keys and the response times recorded for them
+     */
+    public void drain(BiConsumer<AggregationKey, HistogramSnapshot> consumer) {
+        Iterator<Map.Entry<AggregationKey, LatencyHistogram>> entries = histograms.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<AggregationKey, LatencyHistogram> entry = entries.next();
+            HistogramSnapshot snapshot = entry.getValue().snapshotAndReset();
+            if (snapshot.getCount() == 0) {
+                entries.remove();
+                //  collect what was recorded by the requests which looked up the histogram before it was removed
+                snapshot = entry.getValue().snapshotAndReset();
+                if (snapshot.getCount() == 0) {
+                    continue;
+                }
+            }
+            consumer.accept(entry.getKey(), snapshot);
+        }
+    }
+
+    /**
+     * Returns the number of keys aggregated separately.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return histograms.size();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.aggregation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram which can be recorded into concurrently by the request threads without locking.
+ * <p>
+ * The buckets are laid out the HdrHistogram way: values below {@value #SUB_BUCKET_COUNT} have a bucket of their
+ * own, and each further power of two range is split into {@value #HALF_SUB_BUCKET_COUNT} equal buckets, so that the
+ * value reported for a bucket differs from the values recorded in it by less than 1/64 of them. Values above
+ * {@link #HIGHEST_TRACKABLE_VALUE} are counted in the last bucket, while the maximum value is kept exactly.
+ *
+ * @since 6.0.0
+ */
+public class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 7;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+    static final long HIGHEST_TRACKABLE_VALUE = (1L << 32) - 1;
+    static final int BUCKET_COUNT = bucketIndex(HIGHEST_TRACKABLE_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value.
+     *
+     * @param value the value, negative values are recorded as zero
+     */
+    public void record(long value) {
+        long recorded = Math.max(value, 0);
+        counts.incrementAndGet(bucketIndex(Math.min(recorded, HIGHEST_TRACKABLE_VALUE)));
+        sum.add(recorded);
+        if (recorded > max.get()) {
+            max.accumulateAndGet(recorded, Math::max);
+        }
+    }
+
+    /**
+     * Returns the values recorded since the last call and starts a new interval.
+     * <p>
+     * Each bucket is read and cleared atomically, so a value recorded concurrently is counted either in the returned
+     * snapshot or in the next one. The sum and the maximum of such a value may be attributed to the other interval.
+     *
+     * @return the values recorded in the interval
+     */
+    public HistogramSnapshot snapshotAndReset() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            if (counts.get(index) != 0) {
+                snapshot[index] = counts.getAndSet(index, 0);
+                count += snapshot[index];
+            }
+        }
+        return new HistogramSnapshot(snapshot, count, sum.sumThenReset(), max.getAndSet(0));
+    }
+
+    /**
+     * Returns the index of the bucket of a value.
+     *
+     * @param value the value, between zero and {@link #HIGHEST_TRACKABLE_VALUE}
+     * @return the index of the bucket
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        return shift * HALF_SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the highest value counted in a bucket.
+     *
+     * @param index the index of the bucket
+     * @return the highest value of the bucket
+     */
+    static long highestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / HALF_SUB_BUCKET_COUNT - 1;
+        long subBucket = index - shift * HALF_SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.endpoint;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the health of a receiver from the outcome of the Events offered to it.
+ * <p>
+ * The circuit opens once the receiver does not accept a given number of consecutive Events, and the receiver is not
+ * offered any Event while it is open. After the retry interval the circuit is half-open: a single Event, the one of
+ * the caller which claims the probe by moving the opening time on, is offered again, closing the circuit if it is
+ * accepted and opening it for another interval if it is not. The other callers keep skipping the receiver meanwhile.
+ * <p>
+ * While the receiver accepts the Events, the breaker only reads two volatile flags per Event.
+ * <p>
+ * The health is only as good as the outcome reported for an Event. For a {@link DasReceiver}, that is whether the
+ * queue of its data agent had room for the Event, not whether the receiver got it, so an unreachable receiver is
+ * only detected once the queue of the agent is full.
+ *
+ * @since 6.0.0
+ */
+public class CircuitBreaker {
+    /**
+     * The states of the circuit.
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long retryIntervalNanos;
+    private final LongSupplier nanoClock;
+    private volatile boolean failing;
+    private volatile boolean open;
+    private final AtomicLong openedAt = new AtomicLong();
+    private int consecutiveFailures;
+    private long tripCount;
+    private long recoveryCount;
+
+    /**
+     * Creates a closed circuit breaker.
+     *
+     * @param failureThreshold   the number of consecutive failures which opens the circuit
+     * @param retryIntervalNanos the time after which an open circuit is half-open, in nanoseconds
+     * @param nanoClock          the source of the current time, in nanoseconds
+     */
+    CircuitBreaker(int failureThreshold, long retryIntervalNanos, LongSupplier nanoClock) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("The failure threshold must be positive: " + failureThreshold);
+        }
+        this.failureThreshold = failureThreshold;
+        this.retryIntervalNanos = retryIntervalNanos;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns whether an Event may be offered to the receiver.
+     *
+     * @return true if the circuit is closed, or half-open and the caller claimed the probe, false otherwise
+     */
+    boolean allowRequest() {
+        if (!open) {
+            return true;
+        }
+        long opened = openedAt.get();
+        long now = nanoClock.getAsLong();
+        return now - opened >= retryIntervalNanos && openedAt.compareAndSet(opened, now);
+    }
+
+    /**
+     * Records that the receiver accepted an Event.
+     *
+     * @return true if this closed the circuit, false if it was already closed
+     */
+    boolean onSuccess() {
+        if (!failing) {
+            return false;
+        }
+        synchronized (this) {
+            boolean closed = open;
+            open = false;
+            failing = false;
+            consecutiveFailures = 0;
+            if (closed) {
+                recoveryCount++;
+            }
+            return closed;
+        }
+    }
+
+    /**
+     * Records that the receiver did not accept an Event.
+     *
+     * @return true if this opened the circuit, false if it was already open or the threshold was not reached
+     */
+    synchronized boolean onFailure() {
+        failing = true;
+        if (open) {
+            //  the Event offered while half-open was not accepted either
+            openedAt.set(nanoClock.getAsLong());
+            return false;
+        }
+        if (++consecutiveFailures < failureThreshold) {
+            return false;
+        }
+        openedAt.set(nanoClock.getAsLong());
+        open = true;
+        tripCount++;
+        return true;
+    }
+
+    public State getState() {
+        if (!open) {
+            return State.CLOSED;
+        }
+        return nanoClock.getAsLong() - openedAt.get() >= retryIntervalNanos ? State.HALF_OPEN : State.OPEN;
+    }
+
+    /**
+     * Returns the number of times the circuit opened.
+     *
+     * @return the number of times the receiver became unavailable
+     */
+    public synchronized long getTripCount() {
+        return tripCount;
+    }
+
+    /**
+     * Returns the number of times the circuit closed again.
+     *
+     * @return the number of times the receiver became available again
+     */
+    public synchronized long getRecoveryCount() {
+        return recoveryCount;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.endpoint;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.appserver.monitoring.publisher.EventPublisher;
+import org.wso2.carbon.databridge.agent.DataPublisher;
+import org.wso2.carbon.databridge.agent.exception.DataEndpointException;
+import org.wso2.carbon.databridge.commons.Event;
+
+/**
+ * An {@link EventPublisher} which publishes the Events to a single WSO2 Data Analytics Server receiver, using a
+ * {@code DataPublisher} of its own.
+ *
+ * @since 6.0.0
+ */
+public class DasReceiver implements EventPublisher {
+    private static final Log LOG = LogFactory.getLog(DasReceiver.class);
+
+    private final String publisherURL;
+    private final DataPublisher dataPublisher;
+
+    public DasReceiver(String publisherURL, DataPublisher dataPublisher) {
+        this.publisherURL = publisherURL;
+        this.dataPublisher = dataPublisher;
+    }
+
+    @Override
+    public void publish(Event event) {
+        dataPublisher.publish(event);
+    }
+
+    @Override
+    public boolean tryPublish(Event event) {
+        return dataPublisher.tryPublish(event);
+    }
+
+    @Override
+    public void shutdown() {
+        try {
+            dataPublisher.shutdown();
+        } catch (DataEndpointException e) {
+            LOG.error("Shutting down the DataPublisher of " + publisherURL + " failed: " + e);
+        }
+    }
+
+    public String getPublisherURL() {
+        return publisherURL;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.endpoint;
+
+import java.util.Locale;
+
+/**
+ * The ways the Events are distributed among the receivers of a {@link ReceiverGroup}.
+ *
+ * @since 6.0.0
+ */
+public enum LoadBalancingPolicy {
+    /**
+     * Publishes every Event to the next receiver in turn.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Publishes the Events of a web application to the receiver it is mapped to on a consistent hash ring, so that
+     * only the web applications of an unavailable receiver move to the other receivers.
+     */
+    CONSISTENT_HASH;
+
+    /**
+     * Returns the {@code LoadBalancingPolicy} matching the specified configuration value.
+     *
+     * @param value the configured policy name, such as round-robin, case insensitive
+     * @return the matching {@code LoadBalancingPolicy} or {@link #ROUND_ROBIN} if no value is specified
+     * @throws IllegalArgumentException if the value does not name a policy
+     */
+    public static LoadBalancingPolicy fromString(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return ROUND_ROBIN;
+        }
+        return LoadBalancingPolicy.valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ENGLISH));
+    }
+}
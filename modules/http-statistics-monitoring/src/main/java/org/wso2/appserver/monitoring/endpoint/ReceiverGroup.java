@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.endpoint;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.appserver.monitoring.publisher.EventPublisher;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * An {@link EventPublisher} which distributes the Events among a group of receivers and fails over an unavailable
+ * receiver to the others.
+ * <p>
+ * The receiver an Event is offered to first is chosen by the {@link LoadBalancingPolicy}. With consistent hashing,
+ * the web application name, the first payload attribute of the statistics streams, is mapped to a ring of virtual
+ * nodes of the receivers. If the receiver does not accept the Event, it is offered to the next receivers in turn,
+ * or the next receivers on the ring, so that the web applications of a failed receiver are spread over the others.
+ * <p>
+ * The health of every receiver is tracked by a {@link CircuitBreaker}, so a receiver which keeps rejecting the
+ * Events is skipped without being offered any Event until its retry interval elapses.
+ * <p>
+ * The {@code DataPublisher} of a {@link DasReceiver} accepts an Event as long as the queue of its data agent has
+ * room for it, whether or not the receiver is reachable, and does not expose the state of its connection. An
+ * unreachable receiver is therefore only failed over once the agent queue is full, and the Events queued until then
+ * are lost when the agent discards them. The QueueSize of the agent in data-agent-conf.xml bounds both, so it is
+ * kept small: the Events are buffered ahead of the group by the statistics publisher and the spool instead.
+ *
+ * @since 6.0.0
+ */
+public class ReceiverGroup implements EventPublisher {
+    private static final Log LOG = LogFactory.getLog(ReceiverGroup.class);
+    private static final int VIRTUAL_NODES = 128;
+    static final int MAX_RECEIVERS = Long.SIZE;
+
+    private final String[] names;
+    private final EventPublisher[] receivers;
+    private final CircuitBreaker[] circuitBreakers;
+    private final LoadBalancingPolicy policy;
+    private final long retryIntervalMillis;
+    private final AtomicInteger nextReceiver = new AtomicInteger();
+    private final int[] ringHashes;
+    private final int[] ringReceivers;
+
+    /**
+     * Creates a group of the specified receivers.
+     *
+     * @param receivers           the receivers, by unique name in their configured order
+     * @param policy              the distribution of the Events among the receivers
+     * @param failureThreshold    the number of consecutive Events not accepted which makes a receiver unavailable
+     * @param retryIntervalMillis the time after which an unavailable receiver is tried again, in milliseconds
+     */
+    public ReceiverGroup(Map<String, ? extends EventPublisher> receivers, LoadBalancingPolicy policy,
+            int failureThreshold, long retryIntervalMillis) {
+        this(receivers, policy, failureThreshold, retryIntervalMillis, System::nanoTime);
+    }
+
+    ReceiverGroup(Map<String, ? extends EventPublisher> receivers, LoadBalancingPolicy policy, int failureThreshold,
+            long retryIntervalMillis, LongSupplier nanoClock) {
+        if (receivers.isEmpty() || receivers.size() > MAX_RECEIVERS) {
+            throw new IllegalArgumentException("The number of receivers must be between 1 and " + MAX_RECEIVERS +
+                    ": " + receivers.size());
+        }
+        this.names = receivers.keySet().toArray(new String[receivers.size()]);
+        this.receivers = receivers.values().toArray(new EventPublisher[receivers.size()]);
+        this.circuitBreakers = new CircuitBreaker[this.receivers.length];
+        for (int index = 0; index < circuitBreakers.length; index++) {
+            circuitBreakers[index] = new CircuitBreaker(failureThreshold,
+                    TimeUnit.MILLISECONDS.toNanos(retryIntervalMillis), nanoClock);
+        }
+        this.policy = policy;
+        this.retryIntervalMillis = retryIntervalMillis;
+
+        if (policy == LoadBalancingPolicy.CONSISTENT_HASH) {
+            //  the hash of a virtual node in the high half and its receiver in the low half sort the ring by hash
+            long[] ring = new long[names.length * VIRTUAL_NODES];
+            for (int index = 0; index < names.length; index++) {
+                for (int node = 0; node < VIRTUAL_NODES; node++) {
+                    ring[index * VIRTUAL_NODES + node] = (long) hash(names[index] + "#" + node) << 32 | index;
+                }
+            }
+            Arrays.sort(ring);
+            ringHashes = new int[ring.length];
+            ringReceivers = new int[ring.length];
+            for (int position = 0; position < ring.length; position++) {
+                ringHashes[position] = (int) (ring[position] >> 32);
+                ringReceivers[position] = (int) ring[position];
+            }
+        } else {
+            ringHashes = null;
+            ringReceivers = null;
+        }
+    }
+
+    /**
+     * Offers the Event to the available receivers in turn and, if none of them accepts it, waits for a receiver
+     * whose circuit is closed, or the first choice if every receiver is unavailable.
+     *
+     * @param event the Event to be published
+     */
+    @Override
+    public void publish(Event event) {
+        if (tryPublish(event)) {
+            return;
+        }
+        int first = policy == LoadBalancingPolicy.CONSISTENT_HASH ? ringReceivers[ringPosition(event)]
+                : Math.floorMod(nextReceiver.get(), receivers.length);
+        for (int attempt = 0; attempt < receivers.length; attempt++) {
+            int index = (first + attempt) % receivers.length;
+            if (circuitBreakers[index].getState() == CircuitBreaker.State.CLOSED) {
+                receivers[index].publish(event);
+                return;
+            }
+        }
+        receivers[first].publish(event);
+    }
+
+    @Override
+    public boolean tryPublish(Event event) {
+        if (policy == LoadBalancingPolicy.CONSISTENT_HASH) {
+            return tryPublishOnRing(event);
+        }
+        int first = Math.floorMod(nextReceiver.getAndIncrement(), receivers.length);
+        for (int attempt = 0; attempt < receivers.length; attempt++) {
+            int index = first + attempt;
+            if (tryPublish(index < receivers.length ? index : index - receivers.length, event)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void shutdown() {
+        for (EventPublisher receiver : receivers) {
+            receiver.shutdown();
+        }
+    }
+
+    /**
+     * Returns the number of times a receiver of the group became unavailable and was failed over.
+     *
+     * @return the number of times the circuits of the receivers opened
+     */
+    public long getTripCount() {
+        long count = 0;
+        for (CircuitBreaker circuitBreaker : circuitBreakers) {
+            count += circuitBreaker.getTripCount();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times a receiver of the group became available again.
+     *
+     * @return the number of times the circuits of the receivers closed again
+     */
+    public long getRecoveryCount() {
+        long count = 0;
+        for (CircuitBreaker circuitBreaker : circuitBreakers) {
+            count += circuitBreaker.getRecoveryCount();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of receivers which are currently skipped.
+     *
+     * @return the number of receivers whose circuit is open
+     */
+    public int getUnavailableCount() {
+        int count = 0;
+        for (CircuitBreaker circuitBreaker : circuitBreakers) {
+            if (circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the health of the specified receiver.
+     *
+     * @param name the name of the receiver
+     * @return the state of the circuit breaker of the receiver
+     * @throws IllegalArgumentException if there is no receiver with the specified name
+     */
+    public CircuitBreaker getCircuitBreaker(String name) {
+        for (int index = 0; index < names.length; index++) {
+            if (names[index].equals(name)) {
+                return circuitBreakers[index];
+            }
+        }
+        throw new IllegalArgumentException("No receiver named " + name);
+    }
+
+    /**
+     * Offers the Event to the receiver its web application is mapped to, then to the next distinct receivers found
+     * on the ring.
+     *
+     * @param event the Event to be published
+     * @return true if a receiver accepted the Event, false otherwise
+     */
+    private boolean tryPublishOnRing(Event event) {
+        int position = ringPosition(event);
+        long tried = 0;
+        int remaining = receivers.length;
+        for (int step = 0; step < ringReceivers.length && remaining > 0; step++) {
+            int index = ringReceivers[(position + step) % ringReceivers.length];
+            if ((tried & (1L << index)) != 0) {
+                continue;
+            }
+            if (tryPublish(index, event)) {
+                return true;
+            }
+            tried |= 1L << index;
+            remaining--;
+        }
+        return false;
+    }
+
+    /**
+     * Offers the Event to the specified receiver, unless its circuit is open, and records the outcome.
+     *
+     * @param index the index of the receiver
+     * @param event the Event to be published
+     * @return true if the receiver accepted the Event, false otherwise
+     */
+    private boolean tryPublish(int index, Event event) {
+        CircuitBreaker circuitBreaker = circuitBreakers[index];
+        if (!circuitBreaker.allowRequest()) {
+            return false;
+        }
+        boolean accepted;
+        try {
+            accepted = receivers[index].tryPublish(event);
+        } catch (RuntimeException e) {
+            LOG.debug("Publishing an event to the receiver " + names[index] + " failed: ", e);
+            accepted = false;
+        }
+        if (accepted) {
+            if (circuitBreaker.onSuccess()) {
+                LOG.info("The HTTP statistics receiver " + names[index] + " accepts events again.");
+            }
+        } else if (circuitBreaker.onFailure()) {
+            LOG.warn("The HTTP statistics receiver " + names[index] + " does not accept events, failing over to the " +
+                    "other receivers for " + retryIntervalMillis + " ms.");
+        }
+        return accepted;
+    }
+
+    private int ringPosition(Event event) {
+        Object[] payload = event.getPayloadData();
+        int hash = hash(Objects.toString(payload != null && payload.length > 0 ? payload[0] : null, ""));
+        int position = Arrays.binarySearch(ringHashes, hash);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        return position < ringHashes.length ? position : 0;
+    }
+
+    /**
+     * Spreads the bits of the String hash code with the MurmurHash3 finalizer, as the hash codes of similar names,
+     * such as the virtual nodes of a receiver, only differ in their low bits.
+     */
+    private static int hash(String value) {
+        int hash = value.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.filter;
+
+import java.util.Arrays;
+
+/**
+ * A character trie used to match a region of a string against a fixed set of keys without creating any objects.
+ * <p>
+ * A key is either an exact key, which matches the whole region, or a prefix key, which matches any region starting
+ * with it. A reversed trie stores its keys backwards and matches the region from its end, so that its prefix keys
+ * act as suffixes. The children of a node are kept sorted, so a lookup costs one binary search per character of the
+ * region regardless of the number of keys.
+ *
+ * @since 6.0.0
+ */
+class CharTrie {
+    private final Node root = new Node();
+    private final boolean ignoreCase;
+    private final boolean reversed;
+    private boolean empty = true;
+
+    /**
+     * Creates an empty trie.
+     *
+     * @param ignoreCase true if the keys are matched case-insensitively
+     * @param reversed   true if the keys are matched from the end of the region
+     */
+    CharTrie(boolean ignoreCase, boolean reversed) {
+        this.ignoreCase = ignoreCase;
+        this.reversed = reversed;
+    }
+
+    /**
+     * Adds a key to the trie.
+     *
+     * @param key    the key
+     * @param prefix true if the key matches any region starting with it (or ending with it, if reversed)
+     */
+    void add(String key, boolean prefix) {
+        Node node = root;
+        int length = key.length();
+        for (int index = 0; index < length; index++) {
+            node = node.getOrAddChild(normalize(key.charAt(reversed ? length - 1 - index : index)));
+        }
+        if (prefix) {
+            node.prefixKey = true;
+        } else {
+            node.exactKey = true;
+        }
+        empty = false;
+    }
+
+    /**
+     * Returns whether the trie has no keys.
+     *
+     * @return true if no key was added, false otherwise
+     */
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Returns whether a key matches the given region of the value.
+     *
+     * @param value the value
+     * @param from  the start index of the region, inclusive
+     * @param to    the end index of the region, exclusive
+     * @return true if the region equals an exact key or starts with a prefix key (ends with, if reversed)
+     */
+    boolean matches(String value, int from, int to) {
+        Node node = root;
+        int length = to - from;
+        for (int index = 0; index < length; index++) {
+            if (node.prefixKey) {
+                return true;
+            }
+            node = node.getChild(normalize(value.charAt(reversed ? to - 1 - index : from + index)));
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.prefixKey || node.exactKey;
+    }
+
+    private char normalize(char character) {
+        return ignoreCase ? Character.toLowerCase(character) : character;
+    }
+
+    /**
+     * A node of the trie, holding its children sorted by their character.
+     */
+    private static class Node {
+        private char[] characters = new char[0];
+        private Node[] children = new Node[0];
+        private boolean exactKey;
+        private boolean prefixKey;
+
+        Node getChild(char character) {
+            int index = Arrays.binarySearch(characters, character);
+            return (index >= 0) ? children[index] : null;
+        }
+
+        Node getOrAddChild(char character) {
+            int index = Arrays.binarySearch(characters, character);
+            if (index >= 0) {
+                return children[index];
+            }
+            int position = -index - 1;
+            char[] newCharacters = new char[characters.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(characters, 0, newCharacters, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            System.arraycopy(characters, position, newCharacters, position + 1, characters.length - position);
+            System.arraycopy(children, position, newChildren, position + 1, children.length - position);
+            newCharacters[position] = character;
+            newChildren[position] = new Node();
+            characters = newCharacters;
+            children = newChildren;
+            return newChildren[position];
+        }
+    }
+}
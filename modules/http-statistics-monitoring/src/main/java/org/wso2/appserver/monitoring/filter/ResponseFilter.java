@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.filter;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.appserver.configuration.context.WebAppStatsPublishing;
+import org.wso2.appserver.monitoring.Constants;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * The compiled response filter of a context, which decides the requests whose statistics are published.
+ * <p>
+ * A request is published if its response status class and method are allowed, its response media type is one of the
+ * published media types and its path, relative to the context path, neither starts with an excluded prefix nor ends
+ * with an excluded suffix. The rules are compiled into lookup tables and tries, so a decision takes a single pass over
+ * the method, media type and path whatever the number of rules, and creates no objects.
+ *
+ * @since 6.0.0
+ */
+public class ResponseFilter {
+    private static final Log LOG = LogFactory.getLog(ResponseFilter.class);
+    private static final String ANY_MEDIA_TYPE = "*/*";
+    private static final String ANY_SUBTYPE = "/*";
+    private static final int STATUS_CLASSES = 10;
+
+    /**
+     * The filter of the contexts which do not define a response filter, publishing every text/html response.
+     */
+    public static final ResponseFilter DEFAULT = new ResponseFilter(
+            Arrays.asList(Constants.DEFAULT_PUBLISHED_MEDIA_TYPES), Collections.emptyList(), Collections.emptyList(),
+            Collections.emptyList(), Collections.emptyList());
+
+    private final boolean anyMediaType;
+    private final CharTrie mediaTypes = new CharTrie(true, false);
+    private final CharTrie excludedPathPrefixes = new CharTrie(false, false);
+    private final CharTrie excludedPathSuffixes = new CharTrie(false, true);
+    private final CharTrie methods = new CharTrie(false, false);
+    private final boolean[] statusClasses;
+
+    /**
+     * Compiles a response filter.
+     *
+     * @param mediaTypes           the published media types, such as application/json, text/* or *&#47;*
+     * @param excludedPathPrefixes the prefixes of the paths which are not published
+     * @param excludedPathSuffixes the suffixes of the paths which are not published, such as .css
+     * @param methods              the published HTTP methods, or an empty list to publish all methods
+     * @param statusClasses        the published status classes, such as 2xx, or an empty list to publish all
+     */
+    public ResponseFilter(List<String> mediaTypes, List<String> excludedPathPrefixes, List<String> excludedPathSuffixes,
+            List<String> methods, List<String> statusClasses) {
+        boolean anyMediaType = false;
+        for (String mediaType : mediaTypes) {
+            String trimmed = mediaType.trim();
+            if (ANY_MEDIA_TYPE.equals(trimmed)) {
+                anyMediaType = true;
+            } else if (trimmed.endsWith(ANY_SUBTYPE)) {
+                this.mediaTypes.add(trimmed.substring(0, trimmed.length() - 1), true);
+            } else {
+                this.mediaTypes.add(trimmed, false);
+            }
+        }
+        this.anyMediaType = anyMediaType;
+        excludedPathPrefixes.forEach(prefix -> this.excludedPathPrefixes.add(prefix.trim(), true));
+        excludedPathSuffixes.forEach(suffix -> this.excludedPathSuffixes.add(suffix.trim(), true));
+        methods.forEach(method -> this.methods.add(method.trim(), false));
+        this.statusClasses = compileStatusClasses(statusClasses);
+    }
+
+    /**
+     * Compiles the response filter defined in the context level configuration.
+     *
+     * @param configuration the response filter configuration of the context, may be null
+     * @return the response filter
+     */
+    public static ResponseFilter fromConfiguration(WebAppStatsPublishing.ResponseFilter configuration) {
+        if (configuration == null) {
+            return DEFAULT;
+        }
+        List<String> mediaTypes = Optional.ofNullable(configuration.getMediaTypes())
+                .map(WebAppStatsPublishing.MediaTypes::getMediaTypes)
+                .orElse(Arrays.asList(Constants.DEFAULT_PUBLISHED_MEDIA_TYPES));
+        return new ResponseFilter(mediaTypes,
+                toList(configuration.getExcludedPathPrefixes(), WebAppStatsPublishing.UrlPaths::getPaths),
+                toList(configuration.getExcludedPathSuffixes(), WebAppStatsPublishing.UrlPaths::getPaths),
+                toList(configuration.getMethods(), WebAppStatsPublishing.Methods::getMethods),
+                toList(configuration.getStatusClasses(), WebAppStatsPublishing.StatusClasses::getStatusClasses));
+    }
+
+    /**
+     * Returns whether the statistics of the given request are published.
+     *
+     * @param request  the Request object of client
+     * @param response the Response object of client
+     * @return true if the statistics of the request are published, false otherwise
+     */
+    public boolean accept(Request request, Response response) {
+        Context context = request.getContext();
+        int pathStart = (context != null) ? context.getPath().length() : 0;
+        return accept(request.getMethod(), request.getRequestURI(), pathStart, response.getContentType(),
+                response.getStatus());
+    }
+
+    /**
+     * Returns whether the statistics of a request with the given properties are published.
+     *
+     * @param method      the HTTP method of the request
+     * @param requestURI  the request URI
+     * @param pathStart   the index of the request URI at which the path relative to the context starts
+     * @param contentType the content type of the response, may be null
+     * @param status      the HTTP status code of the response
+     * @return true if the statistics of the request are published, false otherwise
+     */
+    public boolean accept(String method, String requestURI, int pathStart, String contentType, int status) {
+        if (statusClasses != null) {
+            int statusClass = status / 100;
+            if (statusClass < 0 || statusClass >= STATUS_CLASSES || !statusClasses[statusClass]) {
+                return false;
+            }
+        }
+        if (!methods.isEmpty() && (method == null || !methods.matches(method, 0, method.length()))) {
+            return false;
+        }
+        if (!anyMediaType && (contentType == null || !matchesMediaType(contentType))) {
+            return false;
+        }
+        return requestURI == null || !isExcludedPath(requestURI, pathStart);
+    }
+
+    /**
+     * Matches the media type of a content type, ignoring its parameters such as the charset.
+     *
+     * @param contentType the content type of the response
+     * @return true if the media type is published, false otherwise
+     */
+    private boolean matchesMediaType(String contentType) {
+        int end = contentType.indexOf(';');
+        if (end < 0) {
+            end = contentType.length();
+        }
+        int start = 0;
+        while (start < end && contentType.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && contentType.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return mediaTypes.matches(contentType, start, end);
+    }
+
+    /**
+     * Matches the path of a request URI, ignoring the path parameters of its last segment such as the session ID.
+     *
+     * @param requestURI the request URI
+     * @param pathStart  the index of the request URI at which the path relative to the context starts
+     * @return true if the path is excluded, false otherwise
+     */
+    private boolean isExcludedPath(String requestURI, int pathStart) {
+        int start = Math.min(pathStart, requestURI.length());
+        if (!excludedPathPrefixes.isEmpty() && excludedPathPrefixes.matches(requestURI, start, requestURI.length())) {
+            return true;
+        }
+        if (excludedPathSuffixes.isEmpty()) {
+            return false;
+        }
+        int end = requestURI.indexOf(';', start);
+        if (end < 0) {
+            end = requestURI.length();
+        }
+        return excludedPathSuffixes.matches(requestURI, start, end);
+    }
+
+    /**
+     * Compiles the status classes into a lookup table indexed by the first digit of the status code.
+     *
+     * @param statusClasses the status classes, such as 2xx
+     * @return the lookup table, or null if every status class is published
+     */
+    private static boolean[] compileStatusClasses(List<String> statusClasses) {
+        if (statusClasses.isEmpty()) {
+            return null;
+        }
+        boolean[] table = new boolean[STATUS_CLASSES];
+        for (String statusClass : statusClasses) {
+            String trimmed = statusClass.trim();
+            if (trimmed.isEmpty() || trimmed.charAt(0) < '0' || trimmed.charAt(0) > '9'
+                    || (trimmed.length() > 1 && !trimmed.substring(1).equalsIgnoreCase("xx"))) {
+                LOG.warn("Ignoring the invalid status class " + statusClass + " of the response filter.");
+                continue;
+            }
+            table[trimmed.charAt(0) - '0'] = true;
+        }
+        return table;
+    }
+
+    private static <T> List<String> toList(T holder, Function<T, List<String>> values) {
+        return Optional.ofNullable(holder)
+                .map(values)
+                .orElse(Collections.emptyList());
+    }
+}
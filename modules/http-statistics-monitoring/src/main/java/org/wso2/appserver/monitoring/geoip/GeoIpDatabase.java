@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.geoip;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.appserver.monitoring.Constants;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A GeoIP database shared by all of the contexts, reloaded when its file changes.
+ * <p>
+ * The file is checked periodically on a dedicated thread. A new {@link GeoIpIndex} is loaded from it on that thread
+ * and replaces the previous one at once, so the lookups are never paused by a reload: they keep using the previous
+ * index until the new one is loaded. If the new file cannot be loaded, the previous index is kept.
+ *
+ * @since 6.0.0
+ */
+public class GeoIpDatabase implements Runnable {
+    private static final Log LOG = LogFactory.getLog(GeoIpDatabase.class);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final Path path;
+    private final long reloadIntervalMillis;
+    private volatile GeoIpIndex index;
+    private FileTime loadedTime;
+    private ScheduledExecutorService executor;
+
+    /**
+     * Creates a database, which is empty until it is opened.
+     *
+     * @param path                 the path to the CSV file of the database
+     * @param reloadIntervalMillis the interval between two checks of the file for changes, in milliseconds
+     */
+    public GeoIpDatabase(Path path, long reloadIntervalMillis) {
+        this.path = path;
+        this.reloadIntervalMillis = reloadIntervalMillis;
+    }
+
+    /**
+     * Loads the database.
+     *
+     * @throws IOException if the database cannot be loaded
+     */
+    public synchronized void open() throws IOException {
+        FileTime modifiedTime = Files.getLastModifiedTime(path);
+        index = GeoIpIndex.load(path);
+        loadedTime = modifiedTime;
+        LOG.info("Loaded " + index.size() + " IP address ranges from the GeoIP database " + path);
+    }
+
+    /**
+     * Starts checking the file of the database for changes.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, Constants.GEOIP_RELOADER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this, reloadIntervalMillis, reloadIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops checking the file of the database for changes.
+     */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                LOG.warn("The GeoIP database reloader thread did not stop within " + SHUTDOWN_TIMEOUT_MILLIS +
+                        " ms.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    @Override
+    public void run() {
+        try {
+            reloadIfModified();
+        } catch (RuntimeException e) {
+            //  an exception would cancel the subsequent executions of this task
+            LOG.error("Reloading the GeoIP database " + path + " failed: ", e);
+        }
+    }
+
+    /**
+     * Reloads the database if its file was modified since it was loaded.
+     *
+     * @return true if the database was reloaded, false otherwise
+     */
+    synchronized boolean reloadIfModified() {
+        try {
+            FileTime modifiedTime = Files.getLastModifiedTime(path);
+            if (modifiedTime.equals(loadedTime)) {
+                return false;
+            }
+            GeoIpIndex reloaded = GeoIpIndex.load(path);
+            index = reloaded;
+            loadedTime = modifiedTime;
+            LOG.info("Reloaded " + reloaded.size() + " IP address ranges from the GeoIP database " + path);
+            return true;
+        } catch (IOException e) {
+            LOG.error("Reloading the GeoIP database " + path + " failed, keeping the previous one: " + e);
+            return false;
+        }
+    }
+
+    /**
+     * Looks up the location of an IP address.
+     *
+     * @param address the IP address, may be null
+     * @return the location of the address, or null if it is not known
+     */
+    public GeoLocation lookup(String address) {
+        GeoIpIndex current = index;
+        return (current != null) ? current.lookup(address) : null;
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.geoip;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.appserver.monitoring.proxy.AddressParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable index of the IP address ranges of a GeoIP database, held off-heap in a memory-mapped sorted array.
+ * <p>
+ * The database is a CSV file whose lines are either {@code start,end,country,region}, where the start and the end
+ * of a range are IP addresses or their decimal values, or {@code network,country,region}, where the network is in
+ * CIDR notation. The region is optional, the fields may be quoted and the lines starting with # are ignored. The
+ * ranges must not overlap: a range which overlaps a range starting before it is ignored.
+ * <p>
+ * The ranges are sorted and written to a file which is mapped into memory, as records of the first and the last
+ * address, both as 128-bit values (the IPv4 addresses as their IPv4-mapped IPv6 addresses), and the index of their
+ * {@link GeoLocation}. The locations, which are few, are kept on the heap. An address is looked up by a binary
+ * search of the records, parsing it in place, so a lookup does not allocate.
+ *
+ * @since 6.0.0
+ */
+public class GeoIpIndex {
+    private static final Log LOG = LogFactory.getLog(GeoIpIndex.class);
+    private static final int RECORD_SIZE = 36;
+    private static final int START_HIGH = 0;
+    private static final int START_LOW = 8;
+    private static final int END_HIGH = 16;
+    private static final int END_LOW = 24;
+    private static final int LOCATION = 32;
+    private static final int IPV4_MAPPED_PREFIX_LENGTH = 96;
+    private static final long IPV4_MAPPED_PREFIX = 0xFFFF00000000L;
+    private static final BigInteger IPV4_LIMIT = BigInteger.ONE.shiftLeft(32);
+    private static final ThreadLocal<AddressKey> KEYS = ThreadLocal.withInitial(AddressKey::new);
+
+    private final ByteBuffer records;
+    private final int size;
+    private final GeoLocation[] locations;
+
+    private GeoIpIndex(ByteBuffer records, int size, GeoLocation[] locations) {
+        this.records = records;
+        this.size = size;
+        this.locations = locations;
+    }
+
+    /**
+     * Loads a GeoIP database into a new index.
+     *
+     * @param database the path to the CSV file of the database
+     * @return the index
+     * @throws IOException if the database cannot be read or the index cannot be written
+     */
+    public static GeoIpIndex load(Path database) throws IOException {
+        List<Range> ranges = new ArrayList<>();
+        Map<GeoLocation, Integer> locationIndexes = new HashMap<>();
+        List<GeoLocation> locations = new ArrayList<>();
+        AddressKey key = new AddressKey();
+        int invalidLines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(database, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                Range range = parseRange(splitFields(line), key);
+                if (range == null) {
+                    invalidLines++;
+                    continue;
+                }
+                Integer location = locationIndexes.get(range.location);
+                if (location == null) {
+                    location = locations.size();
+                    locations.add(range.location);
+                    locationIndexes.put(range.location, location);
+                }
+                range.locationIndex = location;
+                ranges.add(range);
+            }
+        }
+        if (invalidLines > 0) {
+            //  the header line of the file, if any, is counted
+            LOG.warn("Ignored " + invalidLines + " invalid lines of the GeoIP database " + database);
+        }
+        ranges.sort(Comparator.comparing((Range range) -> range.startHigh, Long::compareUnsigned)
+                .thenComparing(range -> range.startLow, Long::compareUnsigned));
+
+        Path file = Files.createTempFile("http-statistics-geoip", ".idx");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) ranges.size() * RECORD_SIZE);
+            int size = 0;
+            Range previous = null;
+            for (Range range : ranges) {
+                if (previous != null && compare(range.startHigh, range.startLow, previous.endHigh,
+                        previous.endLow) <= 0) {
+                    continue;
+                }
+                buffer.putLong(range.startHigh).putLong(range.startLow).putLong(range.endHigh).putLong(range.endLow)
+                        .putInt(range.locationIndex);
+                previous = range;
+                size++;
+            }
+            if (size < ranges.size()) {
+                LOG.warn("Ignored " + (ranges.size() - size) + " overlapping ranges of the GeoIP database " +
+                        database);
+            }
+            return new GeoIpIndex(buffer.asReadOnlyBuffer(), size, locations.toArray(new GeoLocation[0]));
+        } finally {
+            //  the mapping stays valid once the file is deleted, on the platforms which allow to delete it
+            if (!file.toFile().delete()) {
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Looks up the location of an IP address.
+     *
+     * @param address the IP address
+     * @return the location of the address, or null if it is not within any range or is not an IP address
+     */
+    public GeoLocation lookup(CharSequence address) {
+        if (address == null) {
+            return null;
+        }
+        AddressKey key = KEYS.get();
+        if (!key.parse(address)) {
+            return null;
+        }
+        //  the last range starting at or before the address
+        int low = 0;
+        int high = size - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = middle * RECORD_SIZE;
+            if (compare(records.getLong(offset + START_HIGH), records.getLong(offset + START_LOW), key.high,
+                    key.low) <= 0) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        if (found < 0) {
+            return null;
+        }
+        int offset = found * RECORD_SIZE;
+        if (compare(key.high, key.low, records.getLong(offset + END_HIGH), records.getLong(offset + END_LOW)) > 0) {
+            return null;
+        }
+        return locations[records.getInt(offset + LOCATION)];
+    }
+
+    /**
+     * Returns the number of ranges of the index.
+     *
+     * @return the number of ranges
+     */
+    public int size() {
+        return size;
+    }
+
+    private static int compare(long firstHigh, long firstLow, long secondHigh, long secondLow) {
+        int result = Long.compareUnsigned(firstHigh, secondHigh);
+        return (result != 0) ? result : Long.compareUnsigned(firstLow, secondLow);
+    }
+
+    /**
+     * Parses a line of the database into a range.
+     *
+     * @return the range, or null if the line is not valid
+     */
+    private static Range parseRange(List<String> fields, AddressKey key) {
+        Range range = new Range();
+        int index;
+        if (fields.size() >= 2 && fields.get(0).indexOf('/') >= 0) {
+            if (!parseNetwork(fields.get(0), key, range)) {
+                return null;
+            }
+            index = 1;
+        } else if (fields.size() >= 3) {
+            if (!parseAddress(fields.get(0), key)) {
+                return null;
+            }
+            range.startHigh = key.high;
+            range.startLow = key.low;
+            if (!parseAddress(fields.get(1), key)) {
+                return null;
+            }
+            range.endHigh = key.high;
+            range.endLow = key.low;
+            index = 2;
+        } else {
+            return null;
+        }
+        if (compare(range.startHigh, range.startLow, range.endHigh, range.endLow) > 0 || fields.get(index)
+                .isEmpty()) {
+            return null;
+        }
+        String region = (fields.size() > index + 1 && !fields.get(index + 1).isEmpty()) ? fields.get(index + 1) :
+                null;
+        range.location = new GeoLocation(fields.get(index), region);
+        return range;
+    }
+
+    private static boolean parseNetwork(String network, AddressKey key, Range range) {
+        int slash = network.indexOf('/');
+        String address = network.substring(0, slash);
+        if (!key.parse(address)) {
+            return false;
+        }
+        int prefixLength;
+        try {
+            prefixLength = Integer.parseInt(network.substring(slash + 1));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        boolean ipv6 = address.indexOf(':') >= 0;
+        if (prefixLength < 0 || prefixLength > (ipv6 ? 128 : 32)) {
+            return false;
+        }
+        if (!ipv6) {
+            prefixLength += IPV4_MAPPED_PREFIX_LENGTH;
+        }
+        long highMask = (prefixLength >= 64) ? -1L : (prefixLength == 0) ? 0 : -1L << (64 - prefixLength);
+        long lowMask = (prefixLength <= 64) ? 0 : -1L << (128 - prefixLength);
+        range.startHigh = key.high & highMask;
+        range.startLow = key.low & lowMask;
+        range.endHigh = key.high | ~highMask;
+        range.endLow = key.low | ~lowMask;
+        return true;
+    }
+
+    private static boolean parseAddress(String address, AddressKey key) {
+        if (!address.isEmpty() && address.chars().allMatch(Character::isDigit)) {
+            BigInteger value = new BigInteger(address);
+            if (value.bitLength() > 128) {
+                return false;
+            }
+            if (value.compareTo(IPV4_LIMIT) < 0) {
+                key.high = 0;
+                key.low = IPV4_MAPPED_PREFIX | value.longValue();
+            } else {
+                key.high = value.shiftRight(64).longValue();
+                key.low = value.longValue();
+            }
+            return true;
+        }
+        return key.parse(address);
+    }
+
+    /**
+     * Splits a CSV line into its fields, removing the quotes around them.
+     */
+    private static List<String> splitFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int index = 0; index < line.length(); index++) {
+            char character = line.charAt(index);
+            if (character == '"') {
+                quoted = !quoted;
+            } else if (character == ',' && !quoted) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(character);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    /**
+     * A range of the database being loaded.
+     */
+    private static class Range {
+        private long startHigh;
+        private long startLow;
+        private long endHigh;
+        private long endLow;
+        private GeoLocation location;
+        private int locationIndex;
+    }
+
+    /**
+     * Parses an IP address into its 128-bit value, held in the parser, which is reused.
+     */
+    private static class AddressKey extends AddressParser {
+        private long high;
+        private long low;
+
+        boolean parse(CharSequence address) {
+            high = 0;
+            low = 0;
+            return parse(address, 0, address.length(), 0) != MALFORMED;
+        }
+
+        @Override
+        protected int walk(int state, int bits, int count) {
+            high = (high << count) | (low >>> (64 - count));
+            low = (low << count) | ((long) bits & ((1L << count) - 1));
+            return state;
+        }
+    }
+}
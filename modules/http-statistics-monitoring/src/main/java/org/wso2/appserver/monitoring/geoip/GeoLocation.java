@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.geoip;
+
+/**
+ * The location of a range of IP addresses in a GeoIP database.
+ *
+ * @since 6.0.0
+ */
+public class GeoLocation {
+    private final String country;
+    private final String region;
+
+    /**
+     * Creates a location.
+     *
+     * @param country the country, usually its ISO 3166-1 code
+     * @param region  the region within the country, or null if it is not known
+     */
+    public GeoLocation(String country, String region) {
+        this.country = country;
+        this.region = region;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof GeoLocation)) {
+            return false;
+        }
+        GeoLocation location = (GeoLocation) object;
+        return equals(country, location.country) && equals(region, location.region);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * ((country != null) ? country.hashCode() : 0) + ((region != null) ? region.hashCode() : 0);
+    }
+
+    @Override
+    public String toString() {
+        return (region != null) ? country + "/" + region : country;
+    }
+
+    private static boolean equals(String first, String second) {
+        return (first == null) ? second == null : first.equals(second);
+    }
+}
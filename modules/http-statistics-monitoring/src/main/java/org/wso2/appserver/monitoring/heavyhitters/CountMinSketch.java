@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.heavyhitters;
+
+import java.util.Arrays;
+
+/**
+ * A count-min sketch, which estimates the total weight of any key of a stream in a fixed amount of memory.
+ * <p>
+ * Each occurrence is added to one cell of each row, selected by a hash of the key, and the estimate of a key is the
+ * lowest of its cells. An estimate is never below the actual weight, and exceeds it by no more than the total
+ * weight times e divided by the width, with a probability of 1 - exp(-depth). The row hashes are derived from a
+ * single 64-bit hash of the key, which is computed once and passed in, so that it is not computed again for each
+ * sketch of a sliding window. The sketch is not thread safe.
+ *
+ * @since 6.0.0
+ */
+final class CountMinSketch {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int width;
+    private final int depth;
+    private final int mask;
+    private final double[] cells;
+
+    /**
+     * Creates a sketch.
+     *
+     * @param width the number of cells per row, rounded up to a power of two
+     * @param depth the number of rows
+     */
+    CountMinSketch(int width, int depth) {
+        this.width = Integer.highestOneBit(Math.max(width, 2) - 1) << 1;
+        this.depth = depth;
+        this.mask = this.width - 1;
+        this.cells = new double[this.width * depth];
+    }
+
+    /**
+     * Returns the 64-bit hash of a key, by which it is added to and looked up in the sketches.
+     *
+     * @param key the key
+     * @return the hash of the key
+     */
+    static long hash(String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int index = 0; index < key.length(); index++) {
+            hash = (hash ^ key.charAt(index)) * FNV_PRIME;
+        }
+        //  the finalizer of SplitMix64, so that both halves of the hash are well mixed
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    /**
+     * Adds an occurrence of a key.
+     *
+     * @param hash   the hash of the key
+     * @param weight the weight of the occurrence
+     */
+    void add(long hash, double weight) {
+        int first = (int) hash;
+        int second = (int) (hash >>> 32) | 1;
+        for (int row = 0; row < depth; row++) {
+            cells[row * width + ((first + row * second) & mask)] += weight;
+        }
+    }
+
+    /**
+     * Estimates the total weight of a key.
+     *
+     * @param hash the hash of the key
+     * @return the estimated weight, which is never below the actual weight
+     */
+    double estimate(long hash) {
+        int first = (int) hash;
+        int second = (int) (hash >>> 32) | 1;
+        double estimate = Double.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, cells[row * width + ((first + row * second) & mask)]);
+        }
+        return estimate;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    /**
+     * Resets every cell.
+     */
+    void clear() {
+        Arrays.fill(cells, 0);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.heavyhitters;
+
+/**
+ * A key among the heaviest of a window, with its estimated count.
+ *
+ * @since 6.0.0
+ */
+public final class HeavyHitter implements Comparable<HeavyHitter> {
+    private final String key;
+    private final double count;
+    private final double error;
+
+    /**
+     * Creates a heavy hitter.
+     *
+     * @param key   the key
+     * @param count the estimated count of the key, which is never below its actual count
+     * @param error the maximum amount by which the count is overestimated
+     */
+    public HeavyHitter(String key, double count, double error) {
+        this.key = key;
+        this.count = count;
+        this.error = error;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public double getCount() {
+        return count;
+    }
+
+    public double getError() {
+        return error;
+    }
+
+    @Override
+    public int compareTo(HeavyHitter other) {
+        int order = Double.compare(other.count, count);
+        return (order != 0) ? order : key.compareTo(other.key);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof HeavyHitter)) {
+            return false;
+        }
+        HeavyHitter heavyHitter = (HeavyHitter) other;
+        return key.equals(heavyHitter.key) && count == heavyHitter.count && error == heavyHitter.error;
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode() * 31 + Double.hashCode(count);
+    }
+
+    @Override
+    public String toString() {
+        return key + ": " + count + " (error " + error + ")";
+    }
+}
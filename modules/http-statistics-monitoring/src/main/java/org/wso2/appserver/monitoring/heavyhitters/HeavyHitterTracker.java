@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.heavyhitters;
+
+import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+import org.wso2.appserver.monitoring.Constants;
+import org.wso2.appserver.monitoring.utils.RequestCapture;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the clients, users, request URIs and user agents which account for the most requests over a sliding
+ * window, so that the sources of a traffic spike can be found on the node itself.
+ * <p>
+ * The requests are counted by the {@code AsyncStatPublisher} thread from the records it builds the Events from,
+ * weighted by their sampling weight, so the request threads do no further work. Each dimension is tracked by a
+ * {@link SlidingHeavyHitters}, whose memory is bounded by the number of slices, the capacity of their summaries
+ * and the size of their sketches, however many distinct keys there are. The anonymous user is not tracked. The
+ * tracker is queried over JMX, so its methods are synchronized, which leaves the publisher thread uncontended
+ * unless a query is running.
+ *
+ * @since 6.0.0
+ */
+public class HeavyHitterTracker {
+    /**
+     * The dimensions of the requests tracked.
+     */
+    public enum Dimension {
+        CLIENT_ADDRESS, USER, REQUEST_URI, USER_AGENT
+    }
+
+    private final long windowMillis;
+    private final Map<Dimension, SlidingHeavyHitters> windows = new EnumMap<>(Dimension.class);
+
+    /**
+     * Creates a tracker.
+     *
+     * @param window      the length of the sliding window in seconds
+     * @param sliceCount  the number of slices by which the window slides
+     * @param capacity    the number of keys counted by each slice of each dimension
+     * @param sketchWidth the number of cells per row of the count-min sketch of each slice of each dimension
+     * @param sketchDepth the number of rows of the count-min sketch of each slice of each dimension
+     */
+    public HeavyHitterTracker(int window, int sliceCount, int capacity, int sketchWidth, int sketchDepth) {
+        if (window <= 0 || sliceCount <= 0 || capacity <= 0 || sketchWidth <= 0 || sketchDepth <= 0) {
+            throw new IllegalArgumentException("The window and the sizes of the heavy hitter structures must be " +
+                    "positive.");
+        }
+        this.windowMillis = TimeUnit.SECONDS.toMillis(window);
+        for (Dimension dimension : Dimension.values()) {
+            windows.put(dimension, new SlidingHeavyHitters(windowMillis, sliceCount, capacity, sketchWidth,
+                    sketchDepth));
+        }
+    }
+
+    /**
+     * Creates the tracker defined in the server level configuration.
+     *
+     * @param configuration the heavy hitters configuration, may be null
+     * @return the tracker, or null if the heavy hitters are not tracked
+     * @throws IllegalArgumentException if the configuration is invalid
+     */
+    public static HeavyHitterTracker fromConfiguration(AppServerStatsPublishing.HeavyHitters configuration) {
+        Optional<AppServerStatsPublishing.HeavyHitters> heavyHitters = Optional.ofNullable(configuration);
+        if (!heavyHitters.map(AppServerStatsPublishing.HeavyHitters::isEnabled).orElse(false)) {
+            return null;
+        }
+        return new HeavyHitterTracker(heavyHitters
+                .map(AppServerStatsPublishing.HeavyHitters::getWindow)
+                .orElse(Constants.DEFAULT_HEAVY_HITTERS_WINDOW), heavyHitters
+                .map(AppServerStatsPublishing.HeavyHitters::getWindowSlices)
+                .orElse(Constants.DEFAULT_HEAVY_HITTERS_WINDOW_SLICES), heavyHitters
+                .map(AppServerStatsPublishing.HeavyHitters::getCapacity)
+                .orElse(Constants.DEFAULT_HEAVY_HITTERS_CAPACITY), heavyHitters
+                .map(AppServerStatsPublishing.HeavyHitters::getSketchWidth)
+                .orElse(Constants.DEFAULT_HEAVY_HITTERS_SKETCH_WIDTH), heavyHitters
+                .map(AppServerStatsPublishing.HeavyHitters::getSketchDepth)
+                .orElse(Constants.DEFAULT_HEAVY_HITTERS_SKETCH_DEPTH));
+    }
+
+    /**
+     * Counts a recorded request, at the time it completed.
+     *
+     * @param capture the record of the request
+     */
+    public void record(RequestCapture capture) {
+        record(capture.getClientIpAddress(), capture.getUsername(), capture.getRequestURI(),
+                capture.getUserAgent(), capture.getSamplingWeight(),
+                capture.getStartTime() + capture.getResponseTime());
+    }
+
+    /**
+     * Counts a request.
+     *
+     * @param clientAddress the address of the client
+     * @param username      the name of the authenticated user
+     * @param requestURI    the request URI
+     * @param userAgent     the user agent of the client
+     * @param weight        the number of requests represented by the request
+     * @param time          the time at which the request completed, in milliseconds
+     */
+    synchronized void record(String clientAddress, String username, String requestURI, String userAgent,
+            double weight, long time) {
+        windows.get(Dimension.CLIENT_ADDRESS).record(clientAddress, weight, time);
+        if (!Constants.ANONYMOUS_USER.equals(username)) {
+            windows.get(Dimension.USER).record(username, weight, time);
+        }
+        windows.get(Dimension.REQUEST_URI).record(requestURI, weight, time);
+        windows.get(Dimension.USER_AGENT).record(userAgent, weight, time);
+    }
+
+    /**
+     * Returns the keys of a dimension which account for the most requests over the window.
+     *
+     * @param dimension the dimension
+     * @param limit     the maximum number of keys returned
+     * @param now       the current time in milliseconds
+     * @return the keys, the heaviest first
+     */
+    public synchronized List<HeavyHitter> getTop(Dimension dimension, int limit, long now) {
+        return windows.get(dimension).getTop(limit, now);
+    }
+
+    /**
+     * Estimates the number of requests of a key of a dimension over the window.
+     *
+     * @param dimension the dimension
+     * @param key       the key
+     * @param now       the current time in milliseconds
+     * @return the estimated number of requests, which is never below the actual number
+     */
+    public synchronized double estimate(Dimension dimension, String key, long now) {
+        return windows.get(dimension).estimate(key, now);
+    }
+
+    /**
+     * Returns the number of requests counted over the window.
+     *
+     * @param now the current time in milliseconds
+     * @return the number of requests
+     */
+    public synchronized double getTotal(long now) {
+        return windows.get(Dimension.REQUEST_URI).getTotal(now);
+    }
+
+    /**
+     * Returns the length of the sliding window.
+     *
+     * @return the length of the window in milliseconds
+     */
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+}
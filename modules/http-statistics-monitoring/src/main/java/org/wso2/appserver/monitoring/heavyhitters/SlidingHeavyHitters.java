@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.heavyhitters;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the heaviest keys of a stream over a sliding window, in a fixed amount of memory.
+ * <p>
+ * The window is made of a ring of slices, each counting the keys of its period in a {@link SpaceSavingSummary} and
+ * a {@link CountMinSketch}. A slice is cleared and reused once its period leaves the window, so the window slides
+ * by one slice at a time. The summaries of the slices are merged when the heaviest keys are queried: a key which is
+ * not counted by a full summary may have occurred up to its lowest count, which is added to both the count and the
+ * error of the key, so that the merged counts keep the guarantees of the Space-Saving counts. An occurrence which is
+ * older than the window is ignored. The window is not thread safe.
+ *
+ * @since 6.0.0
+ */
+final class SlidingHeavyHitters {
+    private final long sliceMillis;
+    private final Slice[] slices;
+
+    /**
+     * Creates a window.
+     *
+     * @param windowMillis the length of the window in milliseconds
+     * @param sliceCount   the number of slices of the window
+     * @param capacity     the number of keys counted by each slice
+     * @param sketchWidth  the number of cells per row of the sketch of each slice
+     * @param sketchDepth  the number of rows of the sketch of each slice
+     */
+    SlidingHeavyHitters(long windowMillis, int sliceCount, int capacity, int sketchWidth, int sketchDepth) {
+        this.sliceMillis = Math.max(windowMillis / sliceCount, 1);
+        this.slices = new Slice[sliceCount];
+        for (int index = 0; index < sliceCount; index++) {
+            slices[index] = new Slice(capacity, sketchWidth, sketchDepth);
+        }
+    }
+
+    /**
+     * Counts an occurrence of a key.
+     *
+     * @param key    the key, ignored if null
+     * @param weight the weight of the occurrence
+     * @param time   the time of the occurrence in milliseconds
+     */
+    void record(String key, double weight, long time) {
+        if (key == null) {
+            return;
+        }
+        long period = time / sliceMillis;
+        Slice slice = slices[(int) (period % slices.length)];
+        if (slice.period > period) {
+            //  the slice of the occurrence already left the window
+            return;
+        }
+        if (slice.period < period) {
+            slice.clear(period);
+        }
+        slice.summary.offer(key, weight);
+        slice.sketch.add(CountMinSketch.hash(key), weight);
+        slice.total += weight;
+    }
+
+    /**
+     * Returns the heaviest keys of the window.
+     *
+     * @param limit the maximum number of keys returned
+     * @param now   the current time in milliseconds
+     * @return the keys, the heaviest first
+     */
+    List<HeavyHitter> getTop(int limit, long now) {
+        Map<String, double[]> merged = new HashMap<>();
+        double minCountSum = 0;
+        for (Slice slice : slices) {
+            if (!isInWindow(slice, now)) {
+                continue;
+            }
+            double minCount = slice.summary.getMinCount();
+            minCountSum += minCount;
+            slice.summary.forEach(counter -> {
+                double[] value = merged.computeIfAbsent(counter.getKey(), key -> new double[3]);
+                value[0] += counter.getCount();
+                value[1] += counter.getError();
+                value[2] += minCount;
+            });
+        }
+        List<HeavyHitter> heavyHitters = new ArrayList<>(merged.size());
+        for (Map.Entry<String, double[]> entry : merged.entrySet()) {
+            double[] value = entry.getValue();
+            double absent = minCountSum - value[2];
+            heavyHitters.add(new HeavyHitter(entry.getKey(), value[0] + absent, value[1] + absent));
+        }
+        heavyHitters.sort(null);
+        return (heavyHitters.size() > limit) ? new ArrayList<>(heavyHitters.subList(0, limit)) : heavyHitters;
+    }
+
+    /**
+     * Estimates the total weight of a key over the window.
+     *
+     * @param key the key
+     * @param now the current time in milliseconds
+     * @return the estimated weight, which is never below the actual weight
+     */
+    double estimate(String key, long now) {
+        long hash = CountMinSketch.hash(key);
+        double estimate = 0;
+        for (Slice slice : slices) {
+            if (isInWindow(slice, now)) {
+                estimate += slice.sketch.estimate(hash);
+            }
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the total weight of the occurrences of the window.
+     *
+     * @param now the current time in milliseconds
+     * @return the total weight
+     */
+    double getTotal(long now) {
+        double total = 0;
+        for (Slice slice : slices) {
+            if (isInWindow(slice, now)) {
+                total += slice.total;
+            }
+        }
+        return total;
+    }
+
+    private boolean isInWindow(Slice slice, long now) {
+        long period = now / sliceMillis;
+        return slice.period <= period && slice.period > period - slices.length;
+    }
+
+    /**
+     * The keys counted during one period of the window.
+     */
+    private static final class Slice {
+        private final SpaceSavingSummary summary;
+        private final CountMinSketch sketch;
+        private long period = -1;
+        private double total;
+
+        private Slice(int capacity, int sketchWidth, int sketchDepth) {
+            summary = new SpaceSavingSummary(capacity);
+            sketch = new CountMinSketch(sketchWidth, sketchDepth);
+        }
+
+        private void clear(long period) {
+            summary.clear();
+            sketch.clear();
+            total = 0;
+            this.period = period;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.heavyhitters;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A Space-Saving summary of a stream of weighted keys, which keeps the counts of at most a fixed number of keys.
+ * <p>
+ * A key which is not counted yet takes over the counter of the key with the lowest count once the summary is full,
+ * inheriting its count as the error of the new count. The count of a key is therefore never underestimated and
+ * overestimated by no more than its error, and every key whose actual count exceeds the total weight divided by the
+ * capacity is counted. The counters are kept in a binary min-heap, so that an update takes a hash lookup and at
+ * most a logarithmic number of swaps, and the summary allocates nothing once it is full. The summary is not
+ * thread safe.
+ *
+ * @since 6.0.0
+ */
+final class SpaceSavingSummary {
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private final Counter[] heap;
+    private int size;
+
+    SpaceSavingSummary(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        this.heap = new Counter[capacity];
+    }
+
+    /**
+     * Counts an occurrence of a key.
+     *
+     * @param key    the key
+     * @param weight the weight of the occurrence
+     */
+    void offer(String key, double weight) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count += weight;
+            siftDown(counter.index);
+        } else if (size < capacity) {
+            counter = new Counter(key, weight, 0, size);
+            counters.put(key, counter);
+            heap[size] = counter;
+            siftUp(size++);
+        } else {
+            counter = heap[0];
+            counters.remove(counter.key);
+            counter.key = key;
+            counter.error = counter.count;
+            counter.count += weight;
+            counters.put(key, counter);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Returns the lowest count, which bounds the count of any key which is not counted.
+     *
+     * @return the lowest count, or zero if the summary is not full
+     */
+    double getMinCount() {
+        return (size < capacity) ? 0 : heap[0].count;
+    }
+
+    /**
+     * Passes each counter to the given consumer, in no particular order.
+     *
+     * @param consumer the consumer of the counters
+     */
+    void forEach(Consumer<Counter> consumer) {
+        for (int index = 0; index < size; index++) {
+            consumer.accept(heap[index]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Discards every counter.
+     */
+    void clear() {
+        counters.clear();
+        for (int index = 0; index < size; index++) {
+            heap[index] = null;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int index) {
+        Counter counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(counter, index);
+    }
+
+    private void siftDown(int index) {
+        Counter counter = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].count < heap[child].count) {
+                child = right;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(counter, index);
+    }
+
+    private void place(Counter counter, int index) {
+        heap[index] = counter;
+        counter.index = index;
+    }
+
+    /**
+     * The count of a key, and the maximum amount by which it is overestimated.
+     */
+    static final class Counter {
+        private String key;
+        private double count;
+        private double error;
+        private int index;
+
+        private Counter(String key, double count, double error, int index) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+            this.index = index;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        double getCount() {
+            return count;
+        }
+
+        double getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.management;
+
+import org.wso2.appserver.monitoring.heavyhitters.HeavyHitter;
+import org.wso2.appserver.monitoring.heavyhitters.HeavyHitterTracker;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes the heavy hitters of a {@link HeavyHitterTracker} over JMX.
+ *
+ * @since 6.0.0
+ */
+public class HeavyHittersMonitor implements HeavyHittersMonitorMBean {
+    private final HeavyHitterTracker tracker;
+    private final int topCount;
+
+    /**
+     * Creates the monitor of a tracker.
+     *
+     * @param tracker  the tracker of the heavy hitters
+     * @param topCount the number of heavy hitters of each dimension listed by the attributes
+     */
+    public HeavyHittersMonitor(HeavyHitterTracker tracker, int topCount) {
+        this.tracker = tracker;
+        this.topCount = topCount;
+    }
+
+    @Override
+    public long getWindow() {
+        return TimeUnit.MILLISECONDS.toSeconds(tracker.getWindowMillis());
+    }
+
+    @Override
+    public double getRequestCount() {
+        return tracker.getTotal(System.currentTimeMillis());
+    }
+
+    @Override
+    public String[] getTopClientAddresses() {
+        return getTop(HeavyHitterTracker.Dimension.CLIENT_ADDRESS, topCount);
+    }
+
+    @Override
+    public String[] getTopUsers() {
+        return getTop(HeavyHitterTracker.Dimension.USER, topCount);
+    }
+
+    @Override
+    public String[] getTopRequestURIs() {
+        return getTop(HeavyHitterTracker.Dimension.REQUEST_URI, topCount);
+    }
+
+    @Override
+    public String[] getTopUserAgents() {
+        return getTop(HeavyHitterTracker.Dimension.USER_AGENT, topCount);
+    }
+
+    @Override
+    public String[] getTop(String dimension, int limit) {
+        return getTop(toDimension(dimension), limit);
+    }
+
+    @Override
+    public double estimateRequestCount(String dimension, String key) {
+        return tracker.estimate(toDimension(dimension), key, System.currentTimeMillis());
+    }
+
+    private String[] getTop(HeavyHitterTracker.Dimension dimension, int limit) {
+        long now = System.currentTimeMillis();
+        double total = tracker.getTotal(now);
+        List<HeavyHitter> heavyHitters = tracker.getTop(dimension, limit, now);
+        String[] top = new String[heavyHitters.size()];
+        for (int index = 0; index < top.length; index++) {
+            HeavyHitter heavyHitter = heavyHitters.get(index);
+            double share = (total > 0) ? Math.min(heavyHitter.getCount() / total, 1) * 100 : 0;
+            top[index] = String.format(Locale.ROOT, "%.0f (%.1f%%, error %.0f) %s", heavyHitter.getCount(), share,
+                    heavyHitter.getError(), heavyHitter.getKey());
+        }
+        return top;
+    }
+
+    private static HeavyHitterTracker.Dimension toDimension(String dimension) {
+        try {
+            return HeavyHitterTracker.Dimension.valueOf(dimension.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unknown heavy hitter dimension: " + dimension);
+        }
+    }
+}
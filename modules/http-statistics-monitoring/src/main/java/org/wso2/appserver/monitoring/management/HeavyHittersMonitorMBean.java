@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.management;
+
+/**
+ * The JMX management interface of the heavy hitters tracked by an {@code HttpStatValve}.
+ * <p>
+ * A heavy hitter is listed as its estimated request count, its share of the requests of the window and the maximum
+ * amount by which its count is overestimated, followed by its key. The dimensions are {@code CLIENT_ADDRESS},
+ * {@code USER}, {@code REQUEST_URI} and {@code USER_AGENT}.
+ *
+ * @since 6.0.0
+ */
+public interface HeavyHittersMonitorMBean {
+    /**
+     * Returns the length of the sliding window the requests are counted over.
+     *
+     * @return the length of the window in seconds
+     */
+    long getWindow();
+
+    /**
+     * Returns the number of requests counted over the window.
+     *
+     * @return the number of requests
+     */
+    double getRequestCount();
+
+    /**
+     * Returns the client addresses which sent the most requests over the window.
+     *
+     * @return the heaviest client addresses, the heaviest first
+     */
+    String[] getTopClientAddresses();
+
+    /**
+     * Returns the authenticated users who sent the most requests over the window.
+     *
+     * @return the heaviest users, the heaviest first
+     */
+    String[] getTopUsers();
+
+    /**
+     * Returns the request URIs which received the most requests over the window.
+     *
+     * @return the heaviest request URIs, the heaviest first
+     */
+    String[] getTopRequestURIs();
+
+    /**
+     * Returns the user agents which sent the most requests over the window.
+     *
+     * @return the heaviest user agents, the heaviest first
+     */
+    String[] getTopUserAgents();
+
+    /**
+     * Returns the heaviest keys of a dimension over the window.
+     *
+     * @param dimension the name of the dimension
+     * @param limit     the maximum number of keys returned
+     * @return the heaviest keys, the heaviest first
+     */
+    String[] getTop(String dimension, int limit);
+
+    /**
+     * Estimates the number of requests of any key of a dimension over the window, whether it is among the heaviest
+     * or not.
+     *
+     * @param dimension the name of the dimension
+     * @param key       the key
+     * @return the estimated number of requests, which is never below the actual number
+     */
+    double estimateRequestCount(String dimension, String key);
+}
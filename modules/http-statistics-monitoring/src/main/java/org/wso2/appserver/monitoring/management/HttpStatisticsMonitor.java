@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.management;
+
+import org.wso2.appserver.monitoring.endpoint.ReceiverGroup;
+import org.wso2.appserver.monitoring.publisher.CaptureRingBuffer;
+import org.wso2.appserver.monitoring.sampling.BackpressureController;
+import org.wso2.appserver.monitoring.spool.EventSpool;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Exposes the state of the statistics publishing pipeline over JMX: the {@link PipelineStatistics} and the counters
+ * of the capture buffer, the spool and the receivers.
+ * <p>
+ * The counters of the pipeline are only ever incremented, as they are also logged when the valve stops. Resetting
+ * the statistics records their current values as a baseline which the attributes are counted from. The buffer, the
+ * spool and the receivers are optional, as they are only created by the publishing modes which use them.
+ *
+ * @since 6.0.0
+ */
+public class HttpStatisticsMonitor implements HttpStatisticsMonitorMBean {
+    private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private final PipelineStatistics statistics;
+    private final CaptureRingBuffer buffer;
+    private final Counter capturedCount;
+    private final Counter droppedCount;
+    private final Counter failedCount;
+    private final Counter publishedCount;
+    private final Counter rejectedCount;
+    private final Counter publishTime;
+    private final Counter spooledCount;
+    private final Counter replayedCount;
+    private final Counter spoolDroppedCount;
+    private final Counter failoverCount;
+    private final Counter reconnectCount;
+    private final Counter requestCount;
+    private final Counter requestThreadTime;
+    private final List<Counter> counters;
+    private final ReceiverGroup receivers;
+    private final BackpressureController backpressure;
+
+    /**
+     * Creates the monitor of a pipeline.
+     *
+     * @param statistics the counters of the pipeline
+     * @param buffer     the capture buffer, or null if no Event is published for every request
+     * @param spool      the spool, or null if it is not enabled
+     * @param receivers  the DAS receivers, or null if nothing is published
+     */
+    public HttpStatisticsMonitor(PipelineStatistics statistics, CaptureRingBuffer buffer, EventSpool spool,
+            ReceiverGroup receivers) {
+        this(statistics, buffer, spool, receivers, null);
+    }
+
+    /**
+     * Creates the monitor of a pipeline whose sampling rate is adapted to its backpressure.
+     *
+     * @param statistics   the counters of the pipeline
+     * @param buffer       the capture buffer, or null if no Event is published for every request
+     * @param spool        the spool, or null if it is not enabled
+     * @param receivers    the DAS receivers, or null if nothing is published
+     * @param backpressure the controller of the adaptive sampling rate, or null if the sampling is not adapted
+     */
+    public HttpStatisticsMonitor(PipelineStatistics statistics, CaptureRingBuffer buffer, EventSpool spool,
+            ReceiverGroup receivers, BackpressureController backpressure) {
+        this.statistics = statistics;
+        this.buffer = buffer;
+        this.receivers = receivers;
+        this.backpressure = backpressure;
+        capturedCount = new Counter(statistics::getCapturedCount);
+        droppedCount = new Counter(() -> (buffer != null) ? buffer.getDroppedCount() : 0);
+        failedCount = new Counter(statistics::getFailedCount);
+        publishedCount = new Counter(statistics::getPublishedCount);
+        rejectedCount = new Counter(statistics::getRejectedCount);
+        publishTime = new Counter(statistics::getPublishTime);
+        spooledCount = new Counter(() -> (spool != null) ? spool.getSpooledCount() : 0);
+        replayedCount = new Counter(() -> (spool != null) ? spool.getReplayedCount() : 0);
+        spoolDroppedCount = new Counter(() -> (spool != null) ? spool.getDroppedCount() : 0);
+        failoverCount = new Counter(() -> (receivers != null) ? receivers.getTripCount() : 0);
+        reconnectCount = new Counter(() -> (receivers != null) ? receivers.getRecoveryCount() : 0);
+        requestCount = new Counter(statistics::getRequestCount);
+        requestThreadTime = new Counter(statistics::getRequestThreadTime);
+        counters = Arrays.asList(capturedCount, droppedCount, failedCount, publishedCount, rejectedCount, publishTime,
+                spooledCount, replayedCount, spoolDroppedCount, failoverCount, reconnectCount, requestCount,
+                requestThreadTime);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return (buffer != null) ? buffer.size() : 0;
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return (buffer != null) ? buffer.getCapacity() : 0;
+    }
+
+    @Override
+    public long getCapturedCount() {
+        return capturedCount.get();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    @Override
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @Override
+    public double getPublishTimeMean() {
+        long count = publishedCount.get() + rejectedCount.get();
+        return (count > 0) ? publishTime.get() / NANOS_PER_MICRO / count : 0;
+    }
+
+    @Override
+    public long getPublishTimeMax() {
+        return TimeUnit.NANOSECONDS.toMicros(statistics.getMaxPublishTime());
+    }
+
+    @Override
+    public long getPublishTimeTotal() {
+        return TimeUnit.NANOSECONDS.toMillis(publishTime.get());
+    }
+
+    @Override
+    public long getSpooledCount() {
+        return spooledCount.get();
+    }
+
+    @Override
+    public long getReplayedCount() {
+        return replayedCount.get();
+    }
+
+    @Override
+    public long getSpoolDroppedCount() {
+        return spoolDroppedCount.get();
+    }
+
+    @Override
+    public long getFailoverCount() {
+        return failoverCount.get();
+    }
+
+    @Override
+    public long getReconnectCount() {
+        return reconnectCount.get();
+    }
+
+    @Override
+    public int getUnavailableReceiverCount() {
+        return (receivers != null) ? receivers.getUnavailableCount() : 0;
+    }
+
+    @Override
+    public double getSamplingRate() {
+        return (backpressure != null) ? backpressure.getRate() : 1.0;
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public double getRequestThreadTimeMean() {
+        long count = requestCount.get();
+        return (count > 0) ? requestThreadTime.get() / NANOS_PER_MICRO / count : 0;
+    }
+
+    @Override
+    public long getRequestThreadTimeTotal() {
+        return TimeUnit.NANOSECONDS.toMillis(requestThreadTime.get());
+    }
+
+    @Override
+    public synchronized void resetStatistics() {
+        counters.forEach(Counter::reset);
+        statistics.resetMaxPublishTime();
+    }
+
+    /**
+     * A monotonic counter of the pipeline, read relative to the value it had when the statistics were last reset.
+     */
+    private static class Counter {
+        private final LongSupplier source;
+        private volatile long baseline;
+
+        Counter(LongSupplier source) {
+            this.source = source;
+        }
+
+        long get() {
+            return Math.max(source.getAsLong() - baseline, 0);
+        }
+
+        void reset() {
+            baseline = source.getAsLong();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.management;
+
+/**
+ * The JMX management interface of the statistics publishing pipeline of an {@code HttpStatValve}.
+ * <p>
+ * The counts are counted since the valve started, or since the statistics were last reset.
+ *
+ * @since 6.0.0
+ */
+public interface HttpStatisticsMonitorMBean {
+    /**
+     * Returns the number of request records waiting in the capture buffer to be published.
+     *
+     * @return the number of waiting records
+     */
+    int getQueueDepth();
+
+    /**
+     * Returns the number of request records the capture buffer can hold.
+     *
+     * @return the capacity of the capture buffer
+     */
+    int getQueueCapacity();
+
+    /**
+     * Returns the number of request records placed in the capture buffer by the request threads.
+     *
+     * @return the number of captured records
+     */
+    long getCapturedCount();
+
+    /**
+     * Returns the number of request records discarded as the capture buffer was full.
+     *
+     * @return the number of dropped records
+     */
+    long getDroppedCount();
+
+    /**
+     * Returns the number of request records of which no Event could be built or published.
+     *
+     * @return the number of failed records
+     */
+    long getFailedCount();
+
+    /**
+     * Returns the number of Events and summaries accepted for publishing.
+     *
+     * @return the number of published Events
+     */
+    long getPublishedCount();
+
+    /**
+     * Returns the number of Events and summaries which were not accepted for publishing and spooled instead.
+     *
+     * @return the number of rejected Events
+     */
+    long getRejectedCount();
+
+    /**
+     * Returns the mean time taken to hand over an Event for publishing.
+     *
+     * @return the mean time, in microseconds
+     */
+    double getPublishTimeMean();
+
+    /**
+     * Returns the longest time taken to hand over an Event for publishing.
+     *
+     * @return the longest time, in microseconds
+     */
+    long getPublishTimeMax();
+
+    /**
+     * Returns the total time the publisher threads spent handing over the Events for publishing.
+     *
+     * @return the total time, in milliseconds
+     */
+    long getPublishTimeTotal();
+
+    /**
+     * Returns the number of Events appended to the spool.
+     *
+     * @return the number of spooled Events
+     */
+    long getSpooledCount();
+
+    /**
+     * Returns the number of spooled Events which were replayed.
+     *
+     * @return the number of replayed Events
+     */
+    long getReplayedCount();
+
+    /**
+     * Returns the number of spooled Events which were discarded without being replayed.
+     *
+     * @return the number of Events dropped by the spool
+     */
+    long getSpoolDroppedCount();
+
+    /**
+     * Returns the number of times a DAS receiver became unavailable and was failed over.
+     *
+     * @return the number of failovers
+     */
+    long getFailoverCount();
+
+    /**
+     * Returns the number of times a DAS receiver which was failed over accepted Events again.
+     *
+     * @return the number of reconnections
+     */
+    long getReconnectCount();
+
+    /**
+     * Returns the number of DAS receivers which are currently failed over.
+     *
+     * @return the number of unavailable receivers
+     */
+    int getUnavailableReceiverCount();
+
+    /**
+     * Returns the rate by which the sampling probabilities are currently multiplied to relieve the backpressure of
+     * the pipeline.
+     *
+     * @return the adaptive sampling rate, 1 if the sampling is not adapted
+     */
+    double getSamplingRate();
+
+    /**
+     * Returns the number of requests whose statistics were recorded by the request threads.
+     *
+     * @return the number of requests
+     */
+    long getRequestCount();
+
+    /**
+     * Returns the mean time a request thread spends recording the statistics of its request, once the response is
+     * complete.
+     *
+     * @return the mean time, in microseconds
+     */
+    double getRequestThreadTimeMean();
+
+    /**
+     * Returns the total time the request threads spent recording the statistics of their requests.
+     *
+     * @return the total time, in milliseconds
+     */
+    long getRequestThreadTimeTotal();
+
+    /**
+     * Restarts the counts from zero.
+     */
+    void resetStatistics();
+}
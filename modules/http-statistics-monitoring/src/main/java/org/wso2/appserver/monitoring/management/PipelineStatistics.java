@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.management;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters of the statistics publishing pipeline itself, updated by the request threads and the publisher
+ * threads without contention and read by the {@link HttpStatisticsMonitor}.
+ *
+ * @since 6.0.0
+ */
+public class PipelineStatistics {
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder requestThreadTime = new LongAdder();
+    private final LongAdder capturedCount = new LongAdder();
+    private final LongAdder publishedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder publishTime = new LongAdder();
+    private final AtomicLong maxPublishTime = new AtomicLong();
+
+    /**
+     * Records the time a request thread spent recording the statistics of its request.
+     *
+     * @param time the time, in nanoseconds
+     */
+    public void recordRequestThreadTime(long time) {
+        requestCount.increment();
+        requestThreadTime.add(time);
+    }
+
+    /**
+     * Records a request whose data was placed in the capture buffer.
+     */
+    public void recordCaptured() {
+        capturedCount.increment();
+    }
+
+    /**
+     * Records an Event handed over to the event publisher.
+     *
+     * @param time     the time taken by the event publisher to take the Event, in nanoseconds
+     * @param accepted true if the event publisher accepted the Event, false if it was spooled instead
+     */
+    public void recordPublished(long time, boolean accepted) {
+        if (accepted) {
+            publishedCount.increment();
+        } else {
+            rejectedCount.increment();
+        }
+        publishTime.add(time);
+        if (time > maxPublishTime.get()) {
+            maxPublishTime.accumulateAndGet(time, Math::max);
+        }
+    }
+
+    /**
+     * Records a request record of which no Event could be built or published.
+     */
+    public void recordFailed() {
+        failedCount.increment();
+    }
+
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    public long getRequestThreadTime() {
+        return requestThreadTime.sum();
+    }
+
+    public long getCapturedCount() {
+        return capturedCount.sum();
+    }
+
+    public long getPublishedCount() {
+        return publishedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public long getPublishTime() {
+        return publishTime.sum();
+    }
+
+    public long getMaxPublishTime() {
+        return maxPublishTime.get();
+    }
+
+    /**
+     * Starts tracking the longest time taken to hand over an Event anew.
+     */
+    public void resetMaxPublishTime() {
+        maxPublishTime.set(0);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.metrics;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The request metrics of a context: a {@link DurationHistogram} of the response times per response status class.
+ * <p>
+ * The histogram of a status class is created by the first request which gets a response of that class, so the
+ * classes which never occur add no series to the exposition.
+ *
+ * @since 6.0.0
+ */
+public class ContextMetrics {
+    private static final int STATUS_CLASS_COUNT = 10;
+
+    //  the versions of the context using the metrics, only changed by the registry under the lock of its entry
+    final Set<String> owners = new HashSet<>();
+    private final String contextName;
+    private final AtomicReferenceArray<DurationHistogram> histograms =
+            new AtomicReferenceArray<>(STATUS_CLASS_COUNT);
+
+    ContextMetrics(String contextName) {
+        this.contextName = contextName;
+    }
+
+    /**
+     * Records a completed request.
+     *
+     * @param status       the HTTP status code of the response
+     * @param responseTime the response time, in nanoseconds
+     */
+    public void record(int status, long responseTime) {
+        int statusClass = Math.min(Math.max(status / 100, 0), STATUS_CLASS_COUNT - 1);
+        DurationHistogram histogram = histograms.get(statusClass);
+        if (histogram == null) {
+            histogram = new DurationHistogram("context=\"" + escape(contextName) + "\",status_class=\"" +
+                    statusClass + "xx\"");
+            if (!histograms.compareAndSet(statusClass, null, histogram)) {
+                histogram = histograms.get(statusClass);
+            }
+        }
+        histogram.record(responseTime);
+    }
+
+    /**
+     * Returns the number of requests recorded with a response of the given status class.
+     *
+     * @param statusClass the first digit of the HTTP status code
+     * @return the number of requests
+     */
+    public long getCount(int statusClass) {
+        DurationHistogram histogram = histograms.get(statusClass);
+        return (histogram != null) ? histogram.getCount() : 0;
+    }
+
+    public String getContextName() {
+        return contextName;
+    }
+
+    void write(String name, StringBuilder out) {
+        for (int statusClass = 0; statusClass < STATUS_CLASS_COUNT; statusClass++) {
+            DurationHistogram histogram = histograms.get(statusClass);
+            if (histogram != null) {
+                histogram.write(name, out);
+            }
+        }
+    }
+
+    /**
+     * Escapes a label value as required by the OpenMetrics text format.
+     */
+    private static String escape(String value) {
+        StringBuilder escaped = null;
+        for (int index = 0; index < value.length(); index++) {
+            char character = value.charAt(index);
+            if (character == '\\' || character == '"' || character == '\n') {
+                if (escaped == null) {
+                    escaped = new StringBuilder(value.length() + 8).append(value, 0, index);
+                }
+                escaped.append('\\').append(character == '\n' ? 'n' : character);
+            } else if (escaped != null) {
+                escaped.append(character);
+            }
+        }
+        return (escaped != null) ? escaped.toString() : value;
+    }
+}
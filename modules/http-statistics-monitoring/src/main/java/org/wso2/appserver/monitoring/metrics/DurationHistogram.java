@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of the response times of the requests with fixed bucket bounds, which the request threads record into
+ * without contention, as each bucket is a striped {@code LongAdder}.
+ * <p>
+ * A response time is only counted in the bucket it falls into, the cumulative counts of the OpenMetrics buckets
+ * being added up when the histogram is written. The label pairs of the histogram are escaped once, when it is
+ * created, so that writing thousands of histograms only appends strings and numbers.
+ *
+ * @since 6.0.0
+ */
+class DurationHistogram {
+    /**
+     * The upper bounds of the buckets, in seconds, the last bucket counting every larger value.
+     */
+    static final String[] BUCKET_LABELS = { "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1", "0.25",
+            "0.5", "1.0", "2.5", "5.0", "10.0", "+Inf" };
+    static final long[] BUCKET_BOUNDS = new long[BUCKET_LABELS.length - 1];
+
+    static {
+        for (int index = 0; index < BUCKET_BOUNDS.length; index++) {
+            BUCKET_BOUNDS[index] = (long) (Double.parseDouble(BUCKET_LABELS[index]) * TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    private final String labels;
+    private final LongAdder[] counts = new LongAdder[BUCKET_LABELS.length];
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Creates a histogram.
+     *
+     * @param labels the escaped label pairs of the histogram, separated by commas
+     */
+    DurationHistogram(String labels) {
+        this.labels = labels;
+        for (int index = 0; index < counts.length; index++) {
+            counts[index] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a response time.
+     *
+     * @param responseTime the response time, in nanoseconds
+     */
+    void record(long responseTime) {
+        int index = 0;
+        while (index < BUCKET_BOUNDS.length && responseTime > BUCKET_BOUNDS[index]) {
+            index++;
+        }
+        counts[index].increment();
+        sum.add(Math.max(responseTime, 0));
+    }
+
+    /**
+     * Appends the samples of the histogram to the exposition.
+     *
+     * @param name the name of the metric family
+     * @param out  the exposition being written
+     */
+    void write(String name, StringBuilder out) {
+        long count = 0;
+        for (int index = 0; index < counts.length; index++) {
+            count += counts[index].sum();
+            out.append(name).append("_bucket{").append(labels).append(",le=\"").append(BUCKET_LABELS[index])
+                    .append("\"} ").append(count).append('\n');
+        }
+        out.append(name).append("_count{").append(labels).append("} ").append(count).append('\n');
+        out.append(name).append("_sum{").append(labels).append("} ")
+                .append((double) sum.sum() / TimeUnit.SECONDS.toNanos(1)).append('\n');
+    }
+
+    long getCount() {
+        long count = 0;
+        for (LongAdder bucket : counts) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.metrics;
+
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.appserver.monitoring.proxy.CidrTree;
+
+import java.io.IOException;
+import java.util.Collection;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Serves the metrics of a {@link MetricsRegistry} at a fixed path, in the OpenMetrics text format if the client
+ * accepts it, such as Prometheus 2.5 and later do, or in the Prometheus text format 0.0.4 otherwise.
+ * <p>
+ * The endpoint is answered ahead of the authentication of the web applications, so the metrics are only served to
+ * the allowed client addresses. The address is that of the connection, since the forwarding headers may be set by
+ * the client itself. A request from any other address is not a request for the metrics and is passed on to the web
+ * application which owns the path, if any.
+ *
+ * @since 6.0.0
+ */
+public class MetricsEndpoint {
+    private static final Log LOG = LogFactory.getLog(MetricsEndpoint.class);
+    static final String OPENMETRICS_MEDIA_TYPE = "application/openmetrics-text";
+    static final String OPENMETRICS_CONTENT_TYPE = OPENMETRICS_MEDIA_TYPE + "; version=1.0.0; charset=utf-8";
+    static final String TEXT_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private final MetricsRegistry registry;
+    private final String path;
+    private final CidrTree allowedAddresses;
+    private volatile int lastLength = INITIAL_CAPACITY;
+
+    /**
+     * Creates an endpoint.
+     *
+     * @param registry         the registry of the metrics
+     * @param path             the request URI at which the metrics are served
+     * @param allowedAddresses the IP addresses or CIDR ranges of the clients the metrics are served to, the invalid
+     *                         ranges are ignored
+     */
+    public MetricsEndpoint(MetricsRegistry registry, String path, Collection<String> allowedAddresses) {
+        this.registry = registry;
+        this.path = path;
+        CidrTree tree = new CidrTree();
+        for (String address : allowedAddresses) {
+            try {
+                tree.add(address);
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Ignoring the invalid allowed metrics client address " + address + ": " + e.getMessage());
+            }
+        }
+        this.allowedAddresses = tree;
+    }
+
+    /**
+     * Returns whether the request is a request for the metrics.
+     *
+     * @param request the Request object of client
+     * @return true if the request URI is the path of the endpoint and the client address is allowed, false otherwise
+     */
+    public boolean matches(Request request) {
+        return path.equals(request.getDecodedRequestURI()) && allowedAddresses.contains(request.getRemoteAddr());
+    }
+
+    /**
+     * Writes the metrics as the response to the request.
+     *
+     * @param request  the Request object of client
+     * @param response the Response object of client
+     * @throws IOException if writing the response fails
+     */
+    public void serve(Request request, Response response) throws IOException {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            response.setHeader("Allow", "GET, HEAD");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        String accept = request.getHeader("Accept");
+        boolean openMetrics = accept != null && accept.contains(OPENMETRICS_MEDIA_TYPE);
+        //  sized after the previous exposition, so that a large exposition is not copied while it grows
+        StringBuilder out = new StringBuilder(lastLength + lastLength / 8);
+        registry.write(out, openMetrics);
+        lastLength = out.length();
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(openMetrics ? OPENMETRICS_CONTENT_TYPE : TEXT_CONTENT_TYPE);
+        response.getWriter().append(out);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The in-process registry of the request metrics of the contexts, written in the OpenMetrics text format.
+ * <p>
+ * The {@link ContextMetrics} of a context are registered when the context starts and kept across its reloads, so
+ * its counters are not reset by a redeployment. They are looked up only then, never while serving the requests.
+ * The versions of a web application deployed in parallel share their metrics, which are only removed once every
+ * version which registered them is undeployed.
+ *
+ * @since 6.0.0
+ */
+public class MetricsRegistry {
+    static final String DURATION_METRIC = "http_server_request_duration_seconds";
+
+    private final ConcurrentMap<String, ContextMetrics> contexts = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the metrics of a context, registering them if the context has none.
+     *
+     * @param contextName the name of the context
+     * @param owner       the name of the version of the context which uses the metrics
+     * @return the metrics of the context
+     */
+    public ContextMetrics register(String contextName, String owner) {
+        return contexts.compute(contextName, (name, metrics) -> {
+            ContextMetrics registered = (metrics != null) ? metrics : new ContextMetrics(name);
+            registered.owners.add(owner);
+            return registered;
+        });
+    }
+
+    /**
+     * Releases the metrics of a context used by the given version, once it is undeployed, and removes them once
+     * no version uses them.
+     *
+     * @param contextName the name of the context
+     * @param owner       the name of the version of the context which used the metrics
+     */
+    public void unregister(String contextName, String owner) {
+        contexts.computeIfPresent(contextName, (name, metrics) -> {
+            metrics.owners.remove(owner);
+            return metrics.owners.isEmpty() ? null : metrics;
+        });
+    }
+
+    /**
+     * Appends the metrics of every context to the exposition.
+     *
+     * @param out         the exposition being written
+     * @param openMetrics true for the OpenMetrics text format, false for the Prometheus text format 0.0.4
+     */
+    public void write(StringBuilder out, boolean openMetrics) {
+        out.append("# TYPE ").append(DURATION_METRIC).append(" histogram\n");
+        if (openMetrics) {
+            out.append("# UNIT ").append(DURATION_METRIC).append(" seconds\n");
+        }
+        out.append("# HELP ").append(DURATION_METRIC)
+                .append(" The response times of the requests, by web application and response status class.\n");
+        for (ContextMetrics metrics : contexts.values()) {
+            metrics.write(DURATION_METRIC, out);
+        }
+        if (openMetrics) {
+            out.append("# EOF\n");
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.profile;
+
+import org.apache.catalina.Container;
+import org.apache.catalina.ContainerEvent;
+import org.apache.catalina.ContainerListener;
+import org.apache.catalina.Context;
+import org.apache.catalina.Lifecycle;
+import org.apache.catalina.LifecycleEvent;
+import org.apache.catalina.LifecycleListener;
+import org.apache.catalina.Pipeline;
+import org.apache.catalina.Valve;
+import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+import org.wso2.appserver.monitoring.metrics.MetricsRegistry;
+
+/**
+ * Resolves the {@link StatsProfile} of every context of a container when the context starts, including the contexts
+ * deployed later on, and adds a {@link ContextStatsValve} holding it to the contexts whose statistics are published
+ * or counted. The valves are removed, and the metrics of the contexts unregistered, when uninstalled.
+ *
+ * @since 6.0.0
+ */
+public class ContextStatsInstaller implements ContainerListener, LifecycleListener {
+    private final Container container;
+    private final StatsProfiles profiles;
+
+    /**
+     * Creates an installer for the contexts of the given container.
+     *
+     * @param container       the host, or the engine, of the contexts
+     * @param configuration   the statistics publishing configuration of the valve, or null to use the defaults
+     * @param metricsRegistry the registry of the request metrics, or null if the requests are not counted
+     */
+    public ContextStatsInstaller(Container container, AppServerStatsPublishing configuration,
+            MetricsRegistry metricsRegistry) {
+        this.container = container;
+        this.profiles = new StatsProfiles(configuration, metricsRegistry);
+    }
+
+    /**
+     * Adds the valve to the existing contexts and starts listening for new ones.
+     */
+    public void install() {
+        install(container);
+    }
+
+    /**
+     * Removes the valve from the contexts and stops listening for new ones.
+     */
+    public void uninstall() {
+        uninstall(container);
+    }
+
+    @Override
+    public void containerEvent(ContainerEvent event) {
+        if (Container.ADD_CHILD_EVENT.equals(event.getType()) && event.getData() instanceof Container) {
+            install((Container) event.getData());
+        } else if (Container.REMOVE_CHILD_EVENT.equals(event.getType()) && event.getData() instanceof Container) {
+            uninstall((Container) event.getData());
+        }
+    }
+
+    @Override
+    public void lifecycleEvent(LifecycleEvent event) {
+        //  a reloaded context gets the profile of its current configuration
+        if (Lifecycle.AFTER_START_EVENT.equals(event.getType()) && event.getLifecycle() instanceof Context) {
+            Context context = (Context) event.getLifecycle();
+            removeValve(context);
+            addValve(context);
+        }
+    }
+
+    private void install(Container parent) {
+        if (parent instanceof Context) {
+            parent.addLifecycleListener(this);
+            if (parent.getState().isAvailable() && findValve(parent.getPipeline()) == null) {
+                addValve((Context) parent);
+            }
+            return;
+        }
+        parent.addContainerListener(this);
+        for (Container child : parent.findChildren()) {
+            install(child);
+        }
+    }
+
+    private void uninstall(Container parent) {
+        if (parent instanceof Context) {
+            parent.removeLifecycleListener(this);
+            removeValve((Context) parent);
+            profiles.unregister((Context) parent);
+            return;
+        }
+        parent.removeContainerListener(this);
+        for (Container child : parent.findChildren()) {
+            uninstall(child);
+        }
+    }
+
+    private void addValve(Context context) {
+        StatsProfile profile = profiles.resolve(context);
+        if (profile != StatsProfile.DISABLED) {
+            context.getPipeline().addValve(new ContextStatsValve(profile));
+        }
+    }
+
+    private static void removeValve(Context context) {
+        Valve valve = findValve(context.getPipeline());
+        if (valve != null) {
+            context.getPipeline().removeValve(valve);
+        }
+    }
+
+    private static Valve findValve(Pipeline pipeline) {
+        for (Valve valve : pipeline.getValves()) {
+            if (valve instanceof ContextStatsValve) {
+                return valve;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.profile;
+
+import org.apache.catalina.Container;
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.catalina.valves.ValveBase;
+import org.wso2.appserver.monitoring.timing.RequestTimer;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.servlet.ServletException;
+
+/**
+ * A valve added to the end of the pipeline of each context whose statistics are published or counted, which holds
+ * the {@link StatsProfile} of the context and marks the start and the end of the servlet phase of the requests timed
+ * by the {@link RequestTimer} of the current thread.
+ * <p>
+ * The contexts without this valve are the ones whose statistics are neither published nor counted. The profile is
+ * registered against the context when the valve is added to its pipeline, and unregistered when the valve is removed,
+ * so finding the profile of a request is a single map lookup rather than a walk of the pipeline of its context.
+ *
+ * @since 6.0.0
+ */
+public class ContextStatsValve extends ValveBase {
+    private static final Map<Context, StatsProfile> PROFILES = new ConcurrentHashMap<>();
+
+    private final StatsProfile profile;
+
+    /**
+     * Creates the valve of a context whose statistics are published or counted.
+     *
+     * @param profile the statistics publishing profile of the context
+     */
+    public ContextStatsValve(StatsProfile profile) {
+        super(true);
+        this.profile = profile;
+    }
+
+    /**
+     * Returns the statistics publishing profile of the given context.
+     *
+     * @param context the context of the request
+     * @return the profile of the context, or null if the statistics of the context are neither published nor counted
+     */
+    public static StatsProfile getProfile(Context context) {
+        return PROFILES.get(context);
+    }
+
+    public StatsProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Registers the profile against the context whose pipeline the valve is added to, or unregisters it when the
+     * valve is removed from the pipeline.
+     *
+     * @param container the context of the pipeline, or null if the valve is removed
+     */
+    @Override
+    public void setContainer(Container container) {
+        Container previous = getContainer();
+        if (previous instanceof Context) {
+            PROFILES.remove(previous, profile);
+        }
+        super.setContainer(container);
+        if (container instanceof Context) {
+            PROFILES.put((Context) container, profile);
+        }
+    }
+
+    @Override
+    public void invoke(Request request, Response response) throws IOException, ServletException {
+        RequestTimer timer = RequestTimer.get();
+        if (!timer.isTiming(request)) {
+            getNext().invoke(request, response);
+            return;
+        }
+        timer.servletStarted();
+        try {
+            getNext().invoke(request, response);
+        } finally {
+            timer.servletEnded();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.profile;
+
+import org.wso2.appserver.monitoring.filter.ResponseFilter;
+import org.wso2.appserver.monitoring.metrics.ContextMetrics;
+import org.wso2.appserver.monitoring.proxy.ClientAddressResolver;
+import org.wso2.appserver.monitoring.sampling.Sampler;
+import org.wso2.appserver.monitoring.template.UriTemplateNormalizer;
+import org.wso2.appserver.monitoring.useragent.UserAgentClassifier;
+import org.wso2.appserver.monitoring.utils.EventTemplate;
+import org.wso2.appserver.monitoring.utils.HeaderCapturePolicy;
+
+/**
+ * The statistics publishing settings of a context, resolved once from its configuration when the context starts,
+ * and the {@link ContextMetrics} its requests are counted in.
+ * <p>
+ * The contexts whose statistics are neither published nor counted share the {@link #DISABLED} profile, which holds
+ * no settings. The contexts whose statistics are only counted have a profile holding their metrics alone.
+ *
+ * @since 6.0.0
+ */
+public class StatsProfile {
+    /**
+     * The profile of the contexts whose statistics are neither published nor counted.
+     */
+    public static final StatsProfile DISABLED = new StatsProfile();
+
+    private final boolean enabled;
+    private final String streamId;
+    private final EventTemplate template;
+    private final HeaderCapturePolicy headerPolicy;
+    private final Sampler sampler;
+    private final ResponseFilter responseFilter;
+    private final ClientAddressResolver clientAddressResolver;
+    private final UserAgentClassifier userAgentClassifier;
+    private final UriTemplateNormalizer uriTemplateNormalizer;
+    private final ContextMetrics metrics;
+
+    private StatsProfile() {
+        this(null);
+    }
+
+    /**
+     * Creates the profile of a context whose statistics are not published, but only counted in its metrics.
+     *
+     * @param metrics the metrics of the context, or null if they are not counted
+     */
+    public StatsProfile(ContextMetrics metrics) {
+        this.enabled = false;
+        this.streamId = null;
+        this.template = null;
+        this.headerPolicy = null;
+        this.sampler = null;
+        this.responseFilter = null;
+        this.clientAddressResolver = null;
+        this.userAgentClassifier = null;
+        this.uriTemplateNormalizer = null;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Creates the statistics publishing profile of a context whose statistics are published.
+     *
+     * @param streamId              unique ID of the event stream definition deployed in DAS
+     * @param template              the Event template of the context
+     * @param headerPolicy          the header capture policy of the context
+     * @param sampler               the sampler of the requests of the context
+     * @param responseFilter        the filter of the requests of the context whose statistics are published
+     * @param clientAddressResolver the resolver of the client addresses of the requests
+     * @param userAgentClassifier   the classifier of the user agents of the requests, or null if they are not
+     *                              classified
+     * @param uriTemplateNormalizer the normalizer of the request URIs into URI templates, or null if they are not
+     *                              normalized
+     * @param metrics               the metrics of the context, or null if they are not counted
+     */
+    public StatsProfile(String streamId, EventTemplate template, HeaderCapturePolicy headerPolicy, Sampler sampler,
+            ResponseFilter responseFilter, ClientAddressResolver clientAddressResolver,
+            UserAgentClassifier userAgentClassifier, UriTemplateNormalizer uriTemplateNormalizer,
+            ContextMetrics metrics) {
+        this.enabled = true;
+        this.streamId = streamId;
+        this.template = template;
+        this.headerPolicy = headerPolicy;
+        this.sampler = sampler;
+        this.responseFilter = responseFilter;
+        this.clientAddressResolver = clientAddressResolver;
+        this.userAgentClassifier = userAgentClassifier;
+        this.uriTemplateNormalizer = uriTemplateNormalizer;
+        this.metrics = metrics;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getStreamId() {
+        return streamId;
+    }
+
+    public EventTemplate getTemplate() {
+        return template;
+    }
+
+    public HeaderCapturePolicy getHeaderPolicy() {
+        return headerPolicy;
+    }
+
+    public Sampler getSampler() {
+        return sampler;
+    }
+
+    public ResponseFilter getResponseFilter() {
+        return responseFilter;
+    }
+
+    public ClientAddressResolver getClientAddressResolver() {
+        return clientAddressResolver;
+    }
+
+    public UserAgentClassifier getUserAgentClassifier() {
+        return userAgentClassifier;
+    }
+
+    public UriTemplateNormalizer getUriTemplateNormalizer() {
+        return uriTemplateNormalizer;
+    }
+
+    public ContextMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.profile;
+
+import org.apache.catalina.Context;
+import org.wso2.appserver.configuration.context.AppServerWebAppConfiguration;
+import org.wso2.appserver.configuration.context.WebAppStatsPublishing;
+import org.wso2.appserver.configuration.listeners.ContextConfigurationLoader;
+import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+import org.wso2.appserver.monitoring.filter.ResponseFilter;
+import org.wso2.appserver.monitoring.metrics.ContextMetrics;
+import org.wso2.appserver.monitoring.metrics.MetricsRegistry;
+import org.wso2.appserver.monitoring.proxy.ClientAddressResolver;
+import org.wso2.appserver.monitoring.sampling.Sampler;
+import org.wso2.appserver.monitoring.template.UriTemplateNormalizer;
+import org.wso2.appserver.monitoring.useragent.UserAgentClassifier;
+import org.wso2.appserver.monitoring.utils.EventBuilder;
+import org.wso2.appserver.monitoring.utils.HeaderCapturePolicy;
+
+import java.util.Optional;
+
+/**
+ * Resolves the {@link StatsProfile} of a context from the statistics publishing configuration of the valve and the
+ * context level configuration.
+ * <p>
+ * The profiles are resolved when a context starts, and held by the {@link ContextStatsValve} added to the contexts
+ * whose statistics are published or counted, so that nothing is resolved or looked up while serving the requests.
+ * The server level settings, such as the client address resolver and the user agent classifier, are created once
+ * and shared by all of the profiles, so that the classification of a user agent is cached once.
+ *
+ * @since 6.0.0
+ */
+public class StatsProfiles {
+    private final AppServerStatsPublishing serverConfiguration;
+    private final MetricsRegistry metricsRegistry;
+    private final ClientAddressResolver clientAddressResolver;
+    private final UserAgentClassifier userAgentClassifier;
+
+    /**
+     * Creates the resolver of the profiles.
+     *
+     * @param serverConfiguration the statistics publishing configuration of the valve, or null to use the defaults
+     * @param metricsRegistry     the registry of the request metrics, or null if the requests are not counted
+     */
+    public StatsProfiles(AppServerStatsPublishing serverConfiguration, MetricsRegistry metricsRegistry) {
+        this.serverConfiguration = Optional.ofNullable(serverConfiguration).orElseGet(AppServerStatsPublishing::new);
+        this.metricsRegistry = metricsRegistry;
+        this.clientAddressResolver = ClientAddressResolver.fromConfiguration(this.serverConfiguration
+                .getTrustedProxies());
+        this.userAgentClassifier = UserAgentClassifier.fromConfiguration(this.serverConfiguration
+                .getUserAgentClassification());
+    }
+
+    /**
+     * Resolves the statistics publishing profile of the given context, registering its metrics.
+     *
+     * @param context the context
+     * @return the profile of the context, or {@link StatsProfile#DISABLED} if the statistics publisher is not enabled
+     * for the context and the requests are not counted
+     */
+    public StatsProfile resolve(Context context) {
+        boolean enabled = ContextConfigurationLoader.getContextConfiguration(context)
+                .map(AppServerWebAppConfiguration::getStatsPublisherConfiguration)
+                .map(WebAppStatsPublishing::isStatsPublisherEnabled)
+                .orElse(false);
+        ContextMetrics metrics = (metricsRegistry != null) ?
+                metricsRegistry.register(getMetricsName(context), context.getName()) : null;
+        if (enabled) {
+            return create(context, metrics);
+        }
+        return (metrics != null) ? new StatsProfile(metrics) : StatsProfile.DISABLED;
+    }
+
+    /**
+     * Unregisters the metrics of the given context, if the requests are counted. The metrics are kept as long as
+     * another version of the web application uses them.
+     *
+     * @param context the context
+     */
+    public void unregister(Context context) {
+        if (metricsRegistry != null) {
+            metricsRegistry.unregister(getMetricsName(context), context.getName());
+        }
+    }
+
+    /**
+     * Returns the name under which the metrics of a context are registered, its context path, so that the versions
+     * of a web application share their metrics.
+     *
+     * @param context the context
+     * @return the context path, or / for the root context
+     */
+    public static String getMetricsName(Context context) {
+        String path = context.getPath();
+        return (path == null || path.isEmpty()) ? "/" : path;
+    }
+
+    /**
+     * Creates the statistics publishing profile of a context from the statistics publishing configuration of the
+     * valve and the context level configuration, regardless of whether the statistics publisher is enabled for the
+     * context.
+     *
+     * @param context the context
+     * @return the profile of the context
+     */
+    public StatsProfile create(Context context) {
+        return create(context, null);
+    }
+
+    private StatsProfile create(Context context, ContextMetrics metrics) {
+        Optional<WebAppStatsPublishing> contextConfiguration = ContextConfigurationLoader
+                .getContextConfiguration(context)
+                .map(AppServerWebAppConfiguration::getStatsPublisherConfiguration);
+
+        HeaderCapturePolicy headerPolicy = HeaderCapturePolicy.fromConfiguration(contextConfiguration
+                .map(WebAppStatsPublishing::getHeaderCapture)
+                .orElse(null));
+        Sampler sampler = Sampler.create(serverConfiguration.getSampling(),
+                contextConfiguration.map(WebAppStatsPublishing::getSampling).orElse(null));
+        ResponseFilter responseFilter = ResponseFilter.fromConfiguration(contextConfiguration
+                .map(WebAppStatsPublishing::getResponseFilter)
+                .orElse(null));
+        UriTemplateNormalizer uriTemplateNormalizer = UriTemplateNormalizer.fromConfiguration(context.getPath(),
+                contextConfiguration.map(WebAppStatsPublishing::getUriTemplates).orElse(null));
+
+        return new StatsProfile(serverConfiguration.getStreamId(), EventBuilder.createTemplate(context), headerPolicy,
+                sampler, responseFilter, clientAddressResolver, userAgentClassifier, uriTemplateNormalizer, metrics);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.proxy;
+
+/**
+ * Parses the textual form of an IPv4 or IPv6 address, feeding its 128 bits to {@link #walk(int, int, int)} from the
+ * most significant one, without allocating.
+ * <p>
+ * An IPv4 address is fed as its IPv4-mapped IPv6 address ({@code ::ffff:a.b.c.d}), so that both forms of an IPv4
+ * address are handled alike. The state threaded through the calls to {@link #walk(int, int, int)} is up to the
+ * subclass.
+ *
+ * @since 6.0.0
+ */
+public abstract class AddressParser {
+    /**
+     * The state returned by {@link #parse(CharSequence, int, int, int)} if the text is not an IP address.
+     */
+    public static final int MALFORMED = Integer.MIN_VALUE;
+
+    private static final int IPV6_GROUPS = 8;
+    private static final int IPV4_MAPPED_GROUPS = 6;
+
+    /**
+     * Consumes the next bits of the address.
+     *
+     * @param state the state returned by the previous call
+     * @param bits  the bits, in the lowest bits of the value
+     * @param count the number of bits, at most 32
+     * @return the new state
+     */
+    protected abstract int walk(int state, int bits, int count);
+
+    /**
+     * Parses the address found in the given range of characters.
+     *
+     * @param address the characters
+     * @param start   the index of the first character of the address
+     * @param end     the index following the last character of the address
+     * @param state   the initial state
+     * @return the state returned by the last call to {@link #walk(int, int, int)}, or {@link #MALFORMED} if the
+     * characters are not an IP address
+     */
+    public int parse(CharSequence address, int start, int end, int state) {
+        for (int index = start; index < end; index++) {
+            if (address.charAt(index) == ':') {
+                return parseIpv6(address, start, end, state);
+            }
+        }
+        for (int group = 0; group < IPV4_MAPPED_GROUPS - 1; group++) {
+            state = walk(state, 0, 16);
+        }
+        return parseIpv4(address, start, end, walk(state, 0xFFFF, 16));
+    }
+
+    /**
+     * Parses a dotted-decimal IPv4 address.
+     */
+    private int parseIpv4(CharSequence address, int start, int end, int state) {
+        int index = start;
+        for (int octet = 0; octet < 4; octet++) {
+            if (octet > 0) {
+                if (index >= end || address.charAt(index) != '.') {
+                    return MALFORMED;
+                }
+                index++;
+            }
+            int value = 0;
+            int digits = 0;
+            while (index < end && digits < 4) {
+                char character = address.charAt(index);
+                if (character < '0' || character > '9') {
+                    break;
+                }
+                value = value * 10 + (character - '0');
+                digits++;
+                index++;
+            }
+            if (digits == 0 || digits > 3 || value > 255) {
+                return MALFORMED;
+            }
+            state = walk(state, value, 8);
+        }
+        return (index == end) ? state : MALFORMED;
+    }
+
+    /**
+     * Parses an IPv6 address, which may end with a dotted-decimal IPv4 address or a zone index.
+     */
+    private int parseIpv6(CharSequence address, int start, int end, int state) {
+        end = stripZone(address, start, end);
+        //  the number of groups is counted first, to know how many zero groups a "::" stands for
+        int groups = countGroups(address, start, end);
+        if (groups > IPV6_GROUPS) {
+            return MALFORMED;
+        }
+        boolean compressed = false;
+        int parsed = 0;
+        int index = start;
+        if (end - start >= 2 && address.charAt(start) == ':' && address.charAt(start + 1) == ':') {
+            compressed = true;
+            state = walkZeroGroups(state, IPV6_GROUPS - groups);
+            index += 2;
+        }
+        while (index < end) {
+            int groupEnd = index;
+            boolean dotted = false;
+            while (groupEnd < end && address.charAt(groupEnd) != ':') {
+                dotted |= address.charAt(groupEnd) == '.';
+                groupEnd++;
+            }
+            if (dotted) {
+                if (groupEnd != end || parsed > IPV4_MAPPED_GROUPS) {
+                    return MALFORMED;
+                }
+                state = parseIpv4(address, index, end, state);
+                if (state == MALFORMED) {
+                    return MALFORMED;
+                }
+                parsed += 2;
+                break;
+            }
+            int value = parseGroup(address, index, groupEnd);
+            if (value < 0) {
+                return MALFORMED;
+            }
+            state = walk(state, value, 16);
+            parsed++;
+            index = groupEnd;
+            if (index < end) {
+                index++;
+                if (index == end) {
+                    return MALFORMED;
+                }
+                if (address.charAt(index) == ':') {
+                    if (compressed) {
+                        return MALFORMED;
+                    }
+                    compressed = true;
+                    state = walkZeroGroups(state, IPV6_GROUPS - groups);
+                    index++;
+                }
+            }
+        }
+        boolean complete = compressed ? parsed < IPV6_GROUPS : parsed == IPV6_GROUPS;
+        return complete ? state : MALFORMED;
+    }
+
+    private int walkZeroGroups(int state, int count) {
+        for (int group = 0; group < count; group++) {
+            state = walk(state, 0, 16);
+        }
+        return state;
+    }
+
+    /**
+     * Returns the end of an IPv6 address without its zone index, such as {@code %eth0}.
+     */
+    private static int stripZone(CharSequence address, int start, int end) {
+        for (int index = start; index < end; index++) {
+            if (address.charAt(index) == '%') {
+                return index;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Counts the groups of an IPv6 address, a trailing IPv4 address counting as two groups.
+     */
+    private static int countGroups(CharSequence address, int start, int end) {
+        int groups = 0;
+        int groupLength = 0;
+        boolean dotted = false;
+        for (int index = start; index <= end; index++) {
+            char character = (index < end) ? address.charAt(index) : ':';
+            if (character == ':') {
+                if (groupLength > 0) {
+                    groups += dotted ? 2 : 1;
+                }
+                groupLength = 0;
+                dotted = false;
+            } else {
+                groupLength++;
+                dotted |= character == '.';
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Parses a group of one to four hexadecimal digits.
+     *
+     * @return the value of the group, or -1 if it is not valid
+     */
+    private static int parseGroup(CharSequence address, int start, int end) {
+        if (start == end || end - start > 4) {
+            return -1;
+        }
+        int value = 0;
+        for (int index = start; index < end; index++) {
+            int digit = Character.digit(address.charAt(index), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.proxy;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of IPv4 and IPv6 address ranges in CIDR notation, held in a binary radix tree of the address
+ * bits.
+ * <p>
+ * The IPv4 ranges are held as IPv4-mapped IPv6 ranges, so a single tree of depth 128 holds both. The nodes are
+ * kept in arrays of child indexes, and an address is looked up while it is parsed from its text, one bit per level,
+ * stopping at the first node which ends a range. Looking up an address does not allocate.
+ *
+ * @since 6.0.0
+ */
+public class CidrTree {
+    /**
+     * The result of a lookup of an address within one of the ranges.
+     */
+    public static final int MATCH = 1;
+
+    /**
+     * The result of a lookup of an address outside of all ranges.
+     */
+    public static final int NO_MATCH = 0;
+
+    /**
+     * The result of a lookup of a text which is not an IP address.
+     */
+    public static final int MALFORMED = -1;
+
+    private static final int ABSENT = -1;
+    private static final int ROOT = 0;
+    private static final int IPV4_MAPPED_PREFIX_LENGTH = 96;
+    private static final int IPV4_LENGTH = 32;
+    private static final int IPV6_LENGTH = 128;
+
+    private int[] zeros;
+    private int[] ones;
+    private boolean[] ends;
+    private int size;
+    private final AddressParser matcher = new AddressParser() {
+        @Override
+        protected int walk(int node, int bits, int count) {
+            while (count > 0 && node != ABSENT && !ends[node]) {
+                count--;
+                node = (((bits >>> count) & 1) == 0) ? zeros[node] : ones[node];
+            }
+            return node;
+        }
+    };
+
+    /**
+     * Creates an empty tree, to which the ranges are added by {@link #add(String)}.
+     */
+    public CidrTree() {
+        zeros = new int[16];
+        ones = new int[16];
+        ends = new boolean[16];
+        Arrays.fill(zeros, ABSENT);
+        Arrays.fill(ones, ABSENT);
+        size = 1;
+    }
+
+    /**
+     * Adds a range to the tree. The tree must not be looked up while ranges are added.
+     *
+     * @param range an IP address or a range in CIDR notation, such as {@code 10.0.0.0/8} or {@code fd00::/8}
+     * @throws IllegalArgumentException if the range is not valid
+     */
+    public void add(String range) {
+        String value = range.trim();
+        int slash = value.indexOf('/');
+        String address = (slash < 0) ? value : value.substring(0, slash);
+        boolean ipv6 = address.indexOf(':') >= 0;
+        int prefixLength = ipv6 ? IPV6_LENGTH : IPV4_LENGTH;
+        if (slash >= 0) {
+            try {
+                prefixLength = Integer.parseInt(value.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid prefix length in the address range: " + range, e);
+            }
+            if (prefixLength < 0 || prefixLength > (ipv6 ? IPV6_LENGTH : IPV4_LENGTH)) {
+                throw new IllegalArgumentException("Invalid prefix length in the address range: " + range);
+            }
+        }
+        Inserter inserter = new Inserter(ipv6 ? prefixLength : IPV4_MAPPED_PREFIX_LENGTH + prefixLength);
+        int node = inserter.parse(address, 0, address.length(), ROOT);
+        if (node == AddressParser.MALFORMED) {
+            throw new IllegalArgumentException("Invalid address in the address range: " + range);
+        }
+        ends[node] = true;
+    }
+
+    /**
+     * Looks up the address found in the given range of characters.
+     *
+     * @param address the characters
+     * @param start   the index of the first character of the address
+     * @param end     the index following the last character of the address
+     * @return {@link #MATCH} if the address is within one of the ranges, {@link #NO_MATCH} if it is not, or
+     * {@link #MALFORMED} if the characters are not an IP address
+     */
+    public int lookup(CharSequence address, int start, int end) {
+        int node = matcher.parse(address, start, end, ROOT);
+        if (node == AddressParser.MALFORMED) {
+            return MALFORMED;
+        }
+        return (node != ABSENT && ends[node]) ? MATCH : NO_MATCH;
+    }
+
+    /**
+     * Returns whether the given address is within one of the ranges.
+     *
+     * @param address the IP address
+     * @return true if the address is within one of the ranges, false if it is not or is not an IP address
+     */
+    public boolean contains(String address) {
+        return address != null && lookup(address, 0, address.length()) == MATCH;
+    }
+
+    private int getChild(int node, int bit) {
+        int[] children = (bit == 0) ? zeros : ones;
+        if (children[node] == ABSENT) {
+            if (size == zeros.length) {
+                int capacity = size * 2;
+                zeros = Arrays.copyOf(zeros, capacity);
+                ones = Arrays.copyOf(ones, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                Arrays.fill(zeros, size, capacity, ABSENT);
+                Arrays.fill(ones, size, capacity, ABSENT);
+                children = (bit == 0) ? zeros : ones;
+            }
+            children[node] = size++;
+        }
+        return children[node];
+    }
+
+    /**
+     * Walks down the tree along the first bits of a range, adding the missing nodes.
+     */
+    private class Inserter extends AddressParser {
+        private int remaining;
+
+        Inserter(int prefixLength) {
+            this.remaining = prefixLength;
+        }
+
+        @Override
+        protected int walk(int node, int bits, int count) {
+            while (count > 0 && remaining > 0) {
+                count--;
+                remaining--;
+                node = getChild(node, (bits >>> count) & 1);
+            }
+            return node;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.proxy;
+
+import org.apache.catalina.connector.Request;
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+import org.wso2.appserver.monitoring.Constants;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+
+/**
+ * Resolves the address of the client of a request, trusting the forwarding headers only when they are set by one
+ * of the trusted proxies.
+ * <p>
+ * The forwarding headers of a connection which is not made by a trusted proxy, including the non-standard ones
+ * such as {@code HTTP_CLIENT_IP}, are ignored and the client is the peer of the connection. If the connection is
+ * made by a trusted proxy, the forwarding headers are consulted in turn and the first one present is walked from
+ * right to left: each address appended by a trusted proxy is skipped, and the first address which is not that of a
+ * trusted proxy is the client. The addresses to the left of it may have been set by the client itself, so they are
+ * not trusted. If every address of the chain is that of a trusted proxy, the leftmost one is the client. The
+ * addresses are looked up in a {@link CidrTree} directly within the header value, so that only the resolved address
+ * is allocated.
+ *
+ * @since 6.0.0
+ */
+public class ClientAddressResolver {
+    private static final Log LOG = LogFactory.getLog(ClientAddressResolver.class);
+    private static final String[] FORWARDING_HEADERS = { Constants.X_FORWARDED_FOR, Constants.PROXY_CLIENT_IP,
+            Constants.WL_PROXY_CLIENT_IP, Constants.HTTP_CLIENT_IP, Constants.HTTP_X_FORWARDED_FOR };
+
+    /**
+     * The resolver which trusts the loopback addresses only.
+     */
+    public static final ClientAddressResolver DEFAULT = new ClientAddressResolver(
+            Arrays.asList(Constants.DEFAULT_TRUSTED_PROXIES));
+
+    private final CidrTree trustedProxies;
+
+    /**
+     * Creates a resolver which trusts the given proxies. The invalid ranges are ignored.
+     *
+     * @param trustedProxies the IP addresses or CIDR ranges of the trusted proxies
+     */
+    public ClientAddressResolver(Collection<String> trustedProxies) {
+        CidrTree tree = new CidrTree();
+        for (String proxy : trustedProxies) {
+            try {
+                tree.add(proxy);
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Ignoring the invalid trusted proxy " + proxy + ": " + e.getMessage());
+            }
+        }
+        this.trustedProxies = tree;
+    }
+
+    /**
+     * Creates the resolver defined in the server level configuration.
+     *
+     * @param configuration the trusted proxies configuration, may be null
+     * @return the resolver, which trusts the default proxies if none are configured
+     */
+    public static ClientAddressResolver fromConfiguration(AppServerStatsPublishing.TrustedProxies configuration) {
+        if (configuration == null) {
+            return DEFAULT;
+        }
+        return new ClientAddressResolver(Optional.ofNullable(configuration.getProxies())
+                .orElse(Collections.emptyList()));
+    }
+
+    /**
+     * Resolves the address of the client of the request.
+     *
+     * @param request the Request object of client
+     * @return the address of the client
+     */
+    public String resolve(Request request) {
+        String remoteAddress = request.getRemoteAddr();
+        if (!trustedProxies.contains(remoteAddress)) {
+            return remoteAddress;
+        }
+        for (String header : FORWARDING_HEADERS) {
+            String client = resolve(request.getHeader(header));
+            if (client != null) {
+                return client;
+            }
+        }
+        return remoteAddress;
+    }
+
+    /**
+     * Walks the addresses of a forwarding header from right to left, up to the first one which is not that of a
+     * trusted proxy.
+     *
+     * @param chain the comma separated addresses of the header, may be null
+     * @return the address of the client, or null if the rightmost entry of the header is not an IP address
+     */
+    String resolve(String chain) {
+        if (chain == null) {
+            return null;
+        }
+        int lastStart = -1;
+        int lastEnd = -1;
+        int end = chain.length();
+        while (end >= 0) {
+            int separator = chain.lastIndexOf(',', end - 1);
+            int start = separator + 1;
+            int entryEnd = end;
+            while (start < entryEnd && Character.isWhitespace(chain.charAt(start))) {
+                start++;
+            }
+            while (entryEnd > start && Character.isWhitespace(chain.charAt(entryEnd - 1))) {
+                entryEnd--;
+            }
+            if (start < entryEnd) {
+                int addressStart = start;
+                int addressEnd = entryEnd;
+                //  an address may carry a port, in which case an IPv6 address is enclosed in brackets
+                if (chain.charAt(start) == '[') {
+                    int bracket = chain.indexOf(']', start);
+                    if (bracket > start && bracket < entryEnd) {
+                        addressStart = start + 1;
+                        addressEnd = bracket;
+                    }
+                } else {
+                    int colon = indexOf(chain, ':', start, entryEnd);
+                    if (colon >= 0 && indexOf(chain, ':', colon + 1, entryEnd) < 0) {
+                        //  a single colon separates the port of an IPv4 address
+                        addressEnd = colon;
+                    }
+                }
+                int match = trustedProxies.lookup(chain, addressStart, addressEnd);
+                if (match == CidrTree.MALFORMED) {
+                    //  the address set by the previous hop is the last one which can be trusted
+                    return (lastStart >= 0) ? chain.substring(lastStart, lastEnd) : null;
+                }
+                if (match == CidrTree.NO_MATCH) {
+                    return chain.substring(addressStart, addressEnd);
+                }
+                lastStart = addressStart;
+                lastEnd = addressEnd;
+            }
+            end = separator;
+        }
+        return (lastStart >= 0) ? chain.substring(lastStart, lastEnd) : null;
+    }
+
+    private static int indexOf(String value, char character, int start, int end) {
+        for (int index = start; index < end; index++) {
+            if (value.charAt(index) == character) {
+                return index;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.publisher;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.appserver.monitoring.Constants;
+import org.wso2.appserver.monitoring.exceptions.StatPublisherException;
+import org.wso2.appserver.monitoring.geoip.GeoIpDatabase;
+import org.wso2.appserver.monitoring.heavyhitters.HeavyHitterTracker;
+import org.wso2.appserver.monitoring.management.PipelineStatistics;
+import org.wso2.appserver.monitoring.spool.EventSpool;
+import org.wso2.appserver.monitoring.utils.EventBuilder;
+import org.wso2.appserver.monitoring.utils.RequestCapture;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drains the request records deposited in a {@link CaptureRingBuffer} by the request threads, builds the Events
+ * and publishes them using the {@link EventPublisher}, on a dedicated thread.
+ * <p>
+ * Records are drained in batches: the Events of a batch are built and the slots released first, before handing
+ * the batch over to the {@link EventPublisher}, so that a slow publisher does not keep the slots occupied. If the
+ * {@link EventPublisher} fails, the Events of the batch which were not handed over yet are counted as failed and
+ * dropped, so that no Event is published twice.
+ * <p>
+ * If an {@link EventSpool} is given, the Events are offered to the {@link EventPublisher} without blocking and
+ * those it does not accept, because the endpoints are unreachable or too slow, are appended to the spool instead.
+ * If a {@link HeavyHitterTracker} is given, the records are also counted in it as the Events are built.
+ *
+ * @since 6.0.0
+ */
+public class AsyncStatPublisher implements Runnable {
+    private static final Log LOG = LogFactory.getLog(AsyncStatPublisher.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final CaptureRingBuffer buffer;
+    private final EventPublisher eventPublisher;
+    private final int batchSize;
+    private final EventSpool spool;
+    private final PipelineStatistics statistics;
+    private final GeoIpDatabase geoIp;
+    private final HeavyHitterTracker heavyHitters;
+    private final List<Event> batch;
+    private volatile boolean running;
+    private Thread publisherThread;
+
+    /**
+     * Creates a publisher which drains the specified buffer.
+     *
+     * @param buffer         the buffer to which the request threads deposit the request records
+     * @param eventPublisher the event publisher used to publish the Events
+     * @param batchSize      the maximum number of Events built before they are published
+     */
+    public AsyncStatPublisher(CaptureRingBuffer buffer, EventPublisher eventPublisher, int batchSize) {
+        this(buffer, eventPublisher, batchSize, null);
+    }
+
+    /**
+     * Creates a publisher which drains the specified buffer and spools the Events which cannot be published.
+     *
+     * @param buffer         the buffer to which the request threads deposit the request records
+     * @param eventPublisher the event publisher used to publish the Events
+     * @param batchSize      the maximum number of Events built before they are published
+     * @param spool          the spool of the Events which are not accepted by the event publisher, or null to
+     *                       block until they are accepted
+     */
+    public AsyncStatPublisher(CaptureRingBuffer buffer, EventPublisher eventPublisher, int batchSize,
+            EventSpool spool) {
+        this(buffer, eventPublisher, batchSize, spool, new PipelineStatistics());
+    }
+
+    /**
+     * Creates a publisher which drains the specified buffer, spools the Events which cannot be published and
+     * counts them in the specified statistics.
+     *
+     * @param buffer         the buffer to which the request threads deposit the request records
+     * @param eventPublisher the event publisher used to publish the Events
+     * @param batchSize      the maximum number of Events built before they are published
+     * @param spool          the spool of the Events which are not accepted by the event publisher, or null to
+     *                       block until they are accepted
+     * @param statistics     the statistics of the publishing pipeline
+     */
+    public AsyncStatPublisher(CaptureRingBuffer buffer, EventPublisher eventPublisher, int batchSize,
+            EventSpool spool, PipelineStatistics statistics) {
+        this(buffer, eventPublisher, batchSize, spool, statistics, null);
+    }
+
+    /**
+     * Creates a publisher which drains the specified buffer, spools the Events which cannot be published, counts
+     * them in the specified statistics and locates the clients in the specified GeoIP database.
+     *
+     * @param buffer         the buffer to which the request threads deposit the request records
+     * @param eventPublisher the event publisher used to publish the Events
+     * @param batchSize      the maximum number of Events built before they are published
+     * @param spool          the spool of the Events which are not accepted by the event publisher, or null to
+     *                       block until they are accepted
+     * @param statistics     the statistics of the publishing pipeline
+     * @param geoIp          the GeoIP database the client addresses are looked up in, or null if they are not
+     *                       located
+     */
+    public AsyncStatPublisher(CaptureRingBuffer buffer, EventPublisher eventPublisher, int batchSize,
+            EventSpool spool, PipelineStatistics statistics, GeoIpDatabase geoIp) {
+        this(buffer, eventPublisher, batchSize, spool, statistics, geoIp, null);
+    }
+
+    /**
+     * Creates a publisher which drains the specified buffer, spools the Events which cannot be published, counts
+     * them in the specified statistics, locates the clients in the specified GeoIP database and counts the
+     * heaviest keys of the records in the specified tracker.
+     *
+     * @param buffer         the buffer to which the request threads deposit the request records
+     * @param eventPublisher the event publisher used to publish the Events
+     * @param batchSize      the maximum number of Events built before they are published
+     * @param spool          the spool of the Events which are not accepted by the event publisher, or null to
+     *                       block until they are accepted
+     * @param statistics     the statistics of the publishing pipeline
+     * @param geoIp          the GeoIP database the client addresses are looked up in, or null if they are not
+     *                       located
+     * @param heavyHitters   the tracker of the heavy hitters, or null if they are not tracked
+     */
+    public AsyncStatPublisher(CaptureRingBuffer buffer, EventPublisher eventPublisher, int batchSize,
+            EventSpool spool, PipelineStatistics statistics, GeoIpDatabase geoIp, HeavyHitterTracker heavyHitters) {
+        this.buffer = buffer;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.spool = spool;
+        this.statistics = statistics;
+        this.geoIp = geoIp;
+        this.heavyHitters = heavyHitters;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * Starts the publisher thread.
+     */
+    public synchronized void start() {
+        if (publisherThread != null) {
+            return;
+        }
+        running = true;
+        publisherThread = new Thread(this, Constants.PUBLISHER_THREAD_NAME);
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+    }
+
+    /**
+     * Stops the publisher thread, after publishing the records which are already in the buffer.
+     */
+    public synchronized void stop() {
+        if (publisherThread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(publisherThread);
+        try {
+            publisherThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (publisherThread.isAlive()) {
+            LOG.warn("The statistics publisher thread did not stop within " + SHUTDOWN_TIMEOUT_MILLIS + " ms.");
+        }
+        publisherThread = null;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                if (publishBatch() == 0) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            } catch (RuntimeException e) {
+                LOG.error("Publishing the HTTP statistics failed: ", e);
+            }
+        }
+        //  publish what is left in the buffer before the thread exits
+        while (publishBatch() > 0) {
+            LOG.debug("Published the remaining HTTP statistics.");
+        }
+    }
+
+    /**
+     * Drains up to a batch of records from the buffer and publishes the Events built from them.
+     *
+     * @return the number of records drained
+     */
+    int publishBatch() {
+        int drained = 0;
+        while (drained < batchSize) {
+            int slot = buffer.poll();
+            if (slot < 0) {
+                break;
+            }
+            drained++;
+            RequestCapture capture = buffer.get(slot);
+            try {
+                if (capture.isValid()) {
+                    if (heavyHitters != null) {
+                        heavyHitters.record(capture);
+                    }
+                    batch.add(EventBuilder.buildEvent(capture.getProfile().getStreamId(), capture, geoIp));
+                }
+            } catch (StatPublisherException | RuntimeException e) {
+                statistics.recordFailed();
+                LOG.error("Creating the Event failed: " + e);
+            } finally {
+                buffer.release(slot);
+            }
+        }
+        int handedOver = 0;
+        try {
+            for (Event event : batch) {
+                long startTime = System.nanoTime();
+                boolean accepted = true;
+                if (spool == null) {
+                    eventPublisher.publish(event);
+                } else {
+                    accepted = eventPublisher.tryPublish(event);
+                }
+                statistics.recordPublished(System.nanoTime() - startTime, accepted);
+                handedOver++;
+                if (!accepted) {
+                    spool.append(event);
+                }
+            }
+        } finally {
+            //  the Events left over by a failed publishing are dropped, as publishing them again would duplicate
+            //  the Events which were already handed over
+            for (int index = handedOver; index < batch.size(); index++) {
+                statistics.recordFailed();
+            }
+            batch.clear();
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.publisher;
+
+import org.wso2.appserver.monitoring.utils.RequestCapture;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, lock-free, multi-producer/single-consumer ring of reusable {@link RequestCapture} slots.
+ * <p>
+ * Request threads claim a slot, fill the pre-allocated record and publish it. The publisher thread polls the
+ * published slots in order and releases them once the record has been consumed. Every slot carries a sequence
+ * number which tells whether it is free, being written, readable or being read for a given position of the ring,
+ * so producers only contend on a single compare-and-set of the claim position.
+ * <p>
+ * When the ring is full the configured {@link OverflowPolicy} decides whether the arriving record or the oldest
+ * waiting record is discarded. Request threads never block.
+ *
+ * @since 6.0.0
+ */
+public class CaptureRingBuffer {
+    private final RequestCapture[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final OverflowPolicy overflowPolicy;
+    private final AtomicLong producerPosition = new AtomicLong();
+    private final AtomicLong consumerPosition = new AtomicLong();
+    private final LongAdder droppedCount = new LongAdder();
+
+    /**
+     * Creates a ring buffer with at least the specified number of slots.
+     *
+     * @param capacity       the minimum number of slots, rounded up to the next power of two
+     * @param overflowPolicy the action taken when a record arrives at a full buffer
+     */
+    public CaptureRingBuffer(int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of the buffer must be positive: " + capacity);
+        }
+        int size = (capacity == 1) ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        if (size <= 0) {
+            throw new IllegalArgumentException("The capacity of the buffer is too large: " + capacity);
+        }
+        this.slots = new RequestCapture[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.overflowPolicy = overflowPolicy;
+        for (int index = 0; index < size; index++) {
+            slots[index] = new RequestCapture();
+            sequences.set(index, index);
+        }
+    }
+
+    /**
+     * Claims a free slot for writing. The caller must fill the record returned by {@link #get(int)} and then call
+     * {@link #publish(int)}, even if filling the record failed.
+     *
+     * @return the index of the claimed slot or -1 if the record was discarded because the buffer is full
+     */
+    public int claim() {
+        while (true) {
+            long position = producerPosition.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (producerPosition.compareAndSet(position, position + 1)) {
+                    return index;
+                }
+            } else if (difference < 0) {
+                if (overflowPolicy == OverflowPolicy.OVERWRITE && discardOldest()) {
+                    continue;
+                }
+                droppedCount.increment();
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Returns the record held in the specified slot.
+     *
+     * @param index the index of a slot returned by {@link #claim()} or {@link #poll()}
+     * @return the record held in the slot
+     */
+    public RequestCapture get(int index) {
+        return slots[index];
+    }
+
+    /**
+     * Makes a claimed slot visible to the consumer.
+     *
+     * @param index the index of a slot returned by {@link #claim()}
+     */
+    public void publish(int index) {
+        sequences.lazySet(index, sequences.get(index) + 1);
+    }
+
+    /**
+     * Takes the oldest published slot for reading. Must only be called by the single consumer thread, which has to
+     * call {@link #release(int)} once it is done with the record.
+     *
+     * @return the index of the slot or -1 if no published record is available
+     */
+    public int poll() {
+        while (true) {
+            long position = consumerPosition.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (consumerPosition.compareAndSet(position, position + 1)) {
+                    return index;
+                }
+            } else if (difference < 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Returns a slot taken by {@link #poll()} to the producers.
+     *
+     * @param index the index of a slot returned by {@link #poll()}
+     */
+    public void release(int index) {
+        slots[index].clear();
+        sequences.lazySet(index, sequences.get(index) + mask);
+    }
+
+    /**
+     * Returns the number of slots of this buffer.
+     *
+     * @return the number of slots
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Returns an estimate of the number of records waiting to be consumed.
+     *
+     * @return the approximate number of claimed or published slots
+     */
+    public int size() {
+        long size = producerPosition.get() - consumerPosition.get();
+        return (int) Math.max(0, Math.min(size, slots.length));
+    }
+
+    /**
+     * Returns the number of records discarded due to the buffer being full.
+     *
+     * @return the number of discarded records
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Discards the oldest published record on behalf of a producer which found the buffer full.
+     *
+     * @return true if a slot may have been freed and the claim should be retried, false if the oldest record
+     * cannot be discarded since it is still being written
+     */
+    private boolean discardOldest() {
+        long position = consumerPosition.get();
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            //  the consumer has moved on (retry) or the oldest slot is still being written (give up)
+            return consumerPosition.get() != position;
+        }
+        if (consumerPosition.compareAndSet(position, position + 1)) {
+            droppedCount.increment();
+            sequences.lazySet(index, position + mask + 1);
+        }
+        return true;
+    }
+}
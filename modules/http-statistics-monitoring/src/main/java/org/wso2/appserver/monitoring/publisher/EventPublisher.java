@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.publisher;
+
+import org.wso2.carbon.databridge.commons.Event;
+
+/**
+ * A destination of the statistics Events, such as a WSO2 Data Analytics Server receiver or a group of them.
+ *
+ * @since 6.0.0
+ */
+public interface EventPublisher {
+    /**
+     * Publishes the Event, blocking until it is accepted.
+     *
+     * @param event the Event to be published
+     */
+    void publish(Event event);
+
+    /**
+     * Offers the Event to be published, without blocking.
+     *
+     * @param event the Event to be published
+     * @return true if the Event was accepted, false otherwise
+     */
+    boolean tryPublish(Event event);
+
+    /**
+     * Releases the resources held by the publisher.
+     */
+    void shutdown();
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.publisher;
+
+import java.util.Locale;
+
+/**
+ * The actions which can be taken when a request record arrives at a full {@link CaptureRingBuffer}.
+ *
+ * @since 6.0.0
+ */
+public enum OverflowPolicy {
+    /**
+     * Discards the record of the arriving request.
+     */
+    DROP,
+
+    /**
+     * Discards the oldest record waiting in the buffer to make room for the arriving request.
+     */
+    OVERWRITE;
+
+    /**
+     * Returns the {@code OverflowPolicy} matching the specified configuration value.
+     *
+     * @param value the configured policy name, case insensitive
+     * @return the matching {@code OverflowPolicy} or {@link #DROP} if no value is specified
+     * @throws IllegalArgumentException if the value does not name a policy
+     */
+    public static OverflowPolicy fromString(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return DROP;
+        }
+        return OverflowPolicy.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.publisher;
+
+import java.util.Locale;
+
+/**
+ * The kinds of statistics published to WSO2 Data Analytics Server.
+ *
+ * @since 6.0.0
+ */
+public enum PublishingMode {
+    /**
+     * Publishes an Event for every request.
+     */
+    EVENTS(true, false),
+
+    /**
+     * Publishes periodic summaries of the response times of the requests, aggregated in-process.
+     */
+    SUMMARIES(false, true),
+
+    /**
+     * Publishes both an Event for every request and the periodic summaries.
+     */
+    BOTH(true, true),
+
+    /**
+     * Publishes nothing, the requests are only counted by the in-process metrics, if they are enabled.
+     */
+    NONE(false, false);
+
+    private final boolean publishingEvents;
+    private final boolean publishingSummaries;
+
+    PublishingMode(boolean publishingEvents, boolean publishingSummaries) {
+        this.publishingEvents = publishingEvents;
+        this.publishingSummaries = publishingSummaries;
+    }
+
+    public boolean isPublishingEvents() {
+        return publishingEvents;
+    }
+
+    public boolean isPublishingSummaries() {
+        return publishingSummaries;
+    }
+
+    /**
+     * Returns the {@code PublishingMode} matching the specified configuration value.
+     *
+     * @param value the configured mode name, case insensitive
+     * @return the matching {@code PublishingMode} or {@link #EVENTS} if no value is specified
+     * @throws IllegalArgumentException if the value does not name a mode
+     */
+    public static PublishingMode fromString(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return EVENTS;
+        }
+        return PublishingMode.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
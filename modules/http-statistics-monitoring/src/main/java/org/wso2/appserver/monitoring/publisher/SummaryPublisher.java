@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.publisher;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.appserver.monitoring.Constants;
+import org.wso2.appserver.monitoring.aggregation.AggregationKey;
+import org.wso2.appserver.monitoring.aggregation.HistogramSnapshot;
+import org.wso2.appserver.monitoring.aggregation.LatencyAggregator;
+import org.wso2.appserver.monitoring.management.PipelineStatistics;
+import org.wso2.appserver.monitoring.spool.EventSpool;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically publishes a summary Event for each key of a {@link LatencyAggregator}, holding the number of requests
+ * and the response time percentiles of the interval, on a dedicated thread.
+ * <p>
+ * If an {@link EventSpool} is given, the summaries which are not accepted by the {@link EventPublisher} are
+ * appended to the spool instead.
+ *
+ * @since 6.0.0
+ */
+public class SummaryPublisher implements Runnable {
+    private static final Log LOG = LogFactory.getLog(SummaryPublisher.class);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+    private static final int PAYLOAD_SIZE = 13;
+    private static final String[] STATUS_CLASSES = { "0xx", "1xx", "2xx", "3xx", "4xx", "5xx", "6xx", "7xx", "8xx",
+            "9xx" };
+
+    private final LatencyAggregator aggregator;
+    private final EventPublisher eventPublisher;
+    private final String streamId;
+    private final long flushIntervalMillis;
+    private final EventSpool spool;
+    private final PipelineStatistics statistics;
+    private final Object[] metaData;
+    private final Object flushLock = new Object();
+    private ScheduledExecutorService executor;
+    private long intervalStart;
+
+    /**
+     * Creates a publisher which periodically drains the specified aggregator.
+     *
+     * @param aggregator          the aggregator of the response times of the requests
+     * @param eventPublisher      the event publisher used to publish the summary Events
+     * @param streamId            unique ID of the summary event stream definition deployed in DAS
+     * @param flushIntervalMillis the interval between two summaries of a key, in milliseconds
+     */
+    public SummaryPublisher(LatencyAggregator aggregator, EventPublisher eventPublisher, String streamId,
+            long flushIntervalMillis) {
+        this(aggregator, eventPublisher, streamId, flushIntervalMillis, null);
+    }
+
+    /**
+     * Creates a publisher which periodically drains the specified aggregator and spools the summaries which cannot
+     * be published.
+     *
+     * @param aggregator          the aggregator of the response times of the requests
+     * @param eventPublisher      the event publisher used to publish the summary Events
+     * @param streamId            unique ID of the summary event stream definition deployed in DAS
+     * @param flushIntervalMillis the interval between two summaries of a key, in milliseconds
+     * @param spool               the spool of the summary Events which are not accepted by the event publisher, or
+     *                            null to block until they are accepted
+     */
+    public SummaryPublisher(LatencyAggregator aggregator, EventPublisher eventPublisher, String streamId,
+            long flushIntervalMillis, EventSpool spool) {
+        this(aggregator, eventPublisher, streamId, flushIntervalMillis, spool, new PipelineStatistics());
+    }
+
+    /**
+     * Creates a publisher which periodically drains the specified aggregator, spools the summaries which cannot be
+     * published and counts them in the specified statistics.
+     *
+     * @param aggregator          the aggregator of the response times of the requests
+     * @param eventPublisher      the event publisher used to publish the summary Events
+     * @param streamId            unique ID of the summary event stream definition deployed in DAS
+     * @param flushIntervalMillis the interval between two summaries of a key, in milliseconds
+     * @param spool               the spool of the summary Events which are not accepted by the event publisher, or
+     *                            null to block until they are accepted
+     * @param statistics          the statistics of the publishing pipeline
+     */
+    public SummaryPublisher(LatencyAggregator aggregator, EventPublisher eventPublisher, String streamId,
+            long flushIntervalMillis, EventSpool spool, PipelineStatistics statistics) {
+        this.aggregator = aggregator;
+        this.eventPublisher = eventPublisher;
+        this.streamId = streamId;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.spool = spool;
+        this.statistics = statistics;
+        this.metaData = new Object[] { getHostName() };
+    }
+
+    /**
+     * Starts publishing the summaries periodically.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        synchronized (flushLock) {
+            intervalStart = System.currentTimeMillis();
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, Constants.SUMMARY_PUBLISHER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops publishing the summaries, after publishing the summary of the current interval.
+     */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                LOG.warn("The statistics summary publisher thread did not stop within " + SHUTDOWN_TIMEOUT_MILLIS +
+                        " ms.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+        run();
+    }
+
+    @Override
+    public void run() {
+        try {
+            flush(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            //  an exception would cancel the subsequent executions of this task
+            LOG.error("Publishing the HTTP statistics summaries failed: ", e);
+        }
+    }
+
+    /**
+     * Publishes the summaries of the interval ending at the given time.
+     *
+     * @param intervalEnd the end of the interval
+     */
+    void flush(long intervalEnd) {
+        synchronized (flushLock) {
+            long start = intervalStart;
+            aggregator.drain((key, snapshot) -> publish(buildEvent(key, snapshot, start, intervalEnd)));
+            intervalStart = intervalEnd;
+        }
+    }
+
+    /**
+     * Publishes the summary Event, or appends it to the spool if the event publisher does not accept it.
+     *
+     * @param event the summary Event
+     */
+    private void publish(Event event) {
+        long startTime = System.nanoTime();
+        boolean accepted = true;
+        if (spool == null) {
+            eventPublisher.publish(event);
+        } else {
+            accepted = eventPublisher.tryPublish(event);
+        }
+        statistics.recordPublished(System.nanoTime() - startTime, accepted);
+        if (!accepted) {
+            spool.append(event);
+        }
+    }
+
+    /**
+     * Creates the summary Event of a key.
+     *
+     * @param key           the aggregation key
+     * @param snapshot      the response times of the requests of the key during the interval
+     * @param intervalStart the start of the interval
+     * @param intervalEnd   the end of the interval
+     * @return the summary Event
+     */
+    private Event buildEvent(AggregationKey key, HistogramSnapshot snapshot, long intervalStart, long intervalEnd) {
+        Object[] payload = new Object[PAYLOAD_SIZE];
+        int index = 0;
+
+        payload[index++] = key.getAppName();
+        payload[index++] = key.getRequestURI();
+        payload[index++] = key.getMethod();
+        payload[index++] = STATUS_CLASSES[Math.min(Math.max(key.getStatusClass(), 0), STATUS_CLASSES.length - 1)];
+        payload[index++] = intervalStart;
+        payload[index++] = intervalEnd;
+        payload[index++] = snapshot.getCount();
+        payload[index++] = snapshot.getMean();
+        payload[index++] = snapshot.getMax();
+        payload[index++] = snapshot.getValueAtPercentile(50);
+        payload[index++] = snapshot.getValueAtPercentile(90);
+        payload[index++] = snapshot.getValueAtPercentile(99);
+        payload[index] = snapshot.getValueAtPercentile(99.9);
+
+        return new Event(streamId, intervalEnd, metaData, null, payload);
+    }
+
+    private static String getHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            LOG.warn("Resolving the host name failed, the summaries are published without it: " + e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.publisher;
+
+import org.wso2.carbon.databridge.commons.Event;
+
+/**
+ * An {@link EventPublisher} which hands every Event over to a local sink, which always accepts it, before publishing
+ * it to the primary publisher.
+ * <p>
+ * Only the primary publisher decides whether an Event is accepted, so the Events it rejects are spooled and replayed
+ * to it alone, without being written to the sink twice.
+ *
+ * @since 6.0.0
+ */
+public class TeeEventPublisher implements EventPublisher {
+    private final EventPublisher primary;
+    private final EventPublisher sink;
+
+    /**
+     * Creates a publisher of the Events to both of the specified publishers.
+     *
+     * @param primary the publisher which decides whether an Event is accepted
+     * @param sink    the local sink every Event is handed over to
+     */
+    public TeeEventPublisher(EventPublisher primary, EventPublisher sink) {
+        this.primary = primary;
+        this.sink = sink;
+    }
+
+    @Override
+    public void publish(Event event) {
+        sink.publish(event);
+        primary.publish(event);
+    }
+
+    @Override
+    public boolean tryPublish(Event event) {
+        sink.publish(event);
+        return primary.tryPublish(event);
+    }
+
+    @Override
+    public void shutdown() {
+        primary.shutdown();
+        sink.shutdown();
+    }
+}
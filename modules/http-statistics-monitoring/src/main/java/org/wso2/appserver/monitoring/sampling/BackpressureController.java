@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.sampling;
+
+import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+import org.wso2.appserver.monitoring.Constants;
+import org.wso2.appserver.monitoring.management.PipelineStatistics;
+import org.wso2.appserver.monitoring.publisher.CaptureRingBuffer;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adapts the sampling rate of the requests to the pressure on the statistics publishing pipeline, so that a slow
+ * endpoint neither blocks the request threads nor has the records dropped at random by the {@link CaptureRingBuffer}.
+ * <p>
+ * The pressure is measured once per adjustment interval, by the first request thread which samples a request after
+ * it elapses: the occupancy of the capture buffer, the mean time taken to hand over an Event to the publisher since
+ * the previous adjustment, and whether any Event was rejected and spooled since then. Under pressure, the rate is
+ * halved, down to its minimum; once the buffer is drained below the low watermark without further pressure, it is
+ * raised back by {@value #RECOVERY_FACTOR} times per interval, up to 1. The rate multiplies the probability of the
+ * {@link Sampler} of each context, whose tail rules still keep every error and slow request, and is reflected in the
+ * sampling weight of the kept requests.
+ *
+ * @since 6.0.0
+ */
+public class BackpressureController {
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double RECOVERY_FACTOR = 1.25;
+
+    private final CaptureRingBuffer buffer;
+    private final PipelineStatistics statistics;
+    private final double highWatermark;
+    private final double lowWatermark;
+    private final long maxPublishLatencyNanos;
+    private final double minRate;
+    private final long adjustmentIntervalMillis;
+
+    private final AtomicLong nextAdjustmentTime = new AtomicLong();
+    private volatile double rate = 1.0;
+    //  only updated by the thread adjusting the rate, after winning the next adjustment time
+    private long lastPublishedCount;
+    private long lastRejectedCount;
+    private long lastPublishTime;
+
+    /**
+     * Creates a controller.
+     *
+     * @param buffer                   the capture buffer of the request records
+     * @param statistics               the statistics of the publishing pipeline
+     * @param highWatermark            the occupancy of the buffer, in the range (0, 1], from which the rate is lowered
+     * @param lowWatermark             the occupancy of the buffer, in the range [0, 1), below which the rate is raised
+     * @param maxPublishLatencyMillis  the mean time to hand over an Event, in milliseconds, above which the rate is
+     *                                 lowered
+     * @param minRate                  the minimum rate, in the range (0, 1]
+     * @param adjustmentIntervalMillis the interval between two adjustments of the rate, in milliseconds
+     */
+    public BackpressureController(CaptureRingBuffer buffer, PipelineStatistics statistics, double highWatermark,
+            double lowWatermark, long maxPublishLatencyMillis, double minRate, long adjustmentIntervalMillis) {
+        if (highWatermark <= 0 || highWatermark > 1 || lowWatermark < 0 || lowWatermark >= highWatermark) {
+            throw new IllegalArgumentException("The watermarks must satisfy 0 <= low < high <= 1: " + lowWatermark +
+                    ", " + highWatermark);
+        }
+        if (minRate <= 0 || minRate > 1) {
+            throw new IllegalArgumentException("The minimum sampling rate must be in the range (0, 1]: " + minRate);
+        }
+        this.buffer = buffer;
+        this.statistics = statistics;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.maxPublishLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxPublishLatencyMillis);
+        this.minRate = minRate;
+        this.adjustmentIntervalMillis = adjustmentIntervalMillis;
+    }
+
+    /**
+     * Creates the controller defined in the server level configuration.
+     *
+     * @param configuration the adaptive sampling configuration, may be null
+     * @param buffer        the capture buffer of the request records
+     * @param statistics    the statistics of the publishing pipeline
+     * @return the controller, or null if the sampling rate is not adapted
+     * @throws IllegalArgumentException if the configuration is invalid
+     */
+    public static BackpressureController fromConfiguration(AppServerStatsPublishing.AdaptiveSampling configuration,
+            CaptureRingBuffer buffer, PipelineStatistics statistics) {
+        Optional<AppServerStatsPublishing.AdaptiveSampling> adaptiveSampling = Optional.ofNullable(configuration);
+        if (!adaptiveSampling.map(AppServerStatsPublishing.AdaptiveSampling::isEnabled).orElse(false)) {
+            return null;
+        }
+        return new BackpressureController(buffer, statistics, adaptiveSampling
+                .map(AppServerStatsPublishing.AdaptiveSampling::getHighWatermark)
+                .orElse(Constants.DEFAULT_ADAPTIVE_SAMPLING_HIGH_WATERMARK), adaptiveSampling
+                .map(AppServerStatsPublishing.AdaptiveSampling::getLowWatermark)
+                .orElse(Constants.DEFAULT_ADAPTIVE_SAMPLING_LOW_WATERMARK), adaptiveSampling
+                .map(AppServerStatsPublishing.AdaptiveSampling::getMaxPublishLatency)
+                .orElse(Constants.DEFAULT_ADAPTIVE_SAMPLING_MAX_PUBLISH_LATENCY), adaptiveSampling
+                .map(AppServerStatsPublishing.AdaptiveSampling::getMinRate)
+                .orElse(Constants.DEFAULT_ADAPTIVE_SAMPLING_MIN_RATE), adaptiveSampling
+                .map(AppServerStatsPublishing.AdaptiveSampling::getAdjustmentInterval)
+                .orElse(Constants.DEFAULT_ADAPTIVE_SAMPLING_ADJUSTMENT_INTERVAL));
+    }
+
+    /**
+     * Returns the current sampling rate, adjusting it first if the adjustment interval elapsed.
+     *
+     * @param now the current time in milliseconds
+     * @return the rate by which the sampling probabilities are multiplied, in the range [minimum rate, 1]
+     */
+    public double getRate(long now) {
+        long next = nextAdjustmentTime.get();
+        if (now >= next && nextAdjustmentTime.compareAndSet(next, now + adjustmentIntervalMillis)) {
+            adjust();
+        }
+        return rate;
+    }
+
+    /**
+     * Returns the current sampling rate, without adjusting it.
+     *
+     * @return the rate by which the sampling probabilities are multiplied
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * Measures the pressure on the pipeline since the previous adjustment and adjusts the rate accordingly.
+     */
+    void adjust() {
+        double occupancy = (double) buffer.size() / buffer.getCapacity();
+        long rejectedCount = statistics.getRejectedCount();
+        long publishedCount = statistics.getPublishedCount() + rejectedCount;
+        long publishTime = statistics.getPublishTime();
+        long handedOver = publishedCount - lastPublishedCount;
+        long meanPublishLatency = (handedOver > 0) ? (publishTime - lastPublishTime) / handedOver : 0;
+        boolean spooled = rejectedCount > lastRejectedCount;
+        lastPublishedCount = publishedCount;
+        lastRejectedCount = rejectedCount;
+        lastPublishTime = publishTime;
+
+        if (occupancy >= highWatermark || meanPublishLatency > maxPublishLatencyNanos || spooled) {
+            rate = Math.max(minRate, rate * DECREASE_FACTOR);
+        } else if (occupancy <= lowWatermark && rate < 1.0) {
+            rate = Math.min(1.0, rate * RECOVERY_FACTOR);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.sampling;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.appserver.configuration.context.WebAppStatsPublishing;
+import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether the statistics of a request of a context are published.
+ * <p>
+ * Error responses and slow requests are always kept when the tail rules are enabled. Other requests are kept with
+ * a fixed probability which, when a per-second cap is defined, is lowered every second to the cap divided by the
+ * number of requests seen in the previous second; a token bucket refilled every second enforces the cap during
+ * bursts. The probability may further be multiplied by the rate of a {@link BackpressureController}. A kept request
+ * carries its sampling weight, the inverse of the probability with which it was kept.
+ *
+ * @since 6.0.0
+ */
+public class Sampler {
+    private static final Log LOG = LogFactory.getLog(Sampler.class);
+
+    /**
+     * The weight returned for a request which is not sampled.
+     */
+    public static final double NOT_SAMPLED = 0;
+
+    /**
+     * A sampler which keeps every request.
+     */
+    public static final Sampler KEEP_ALL = new Sampler(1.0, 0, true, 0);
+
+    private final double probability;
+    private final int maxEventsPerSecond;
+    private final boolean keepErrors;
+    private final long slowRequestThreshold;
+
+    private final AtomicLong currentSecond = new AtomicLong(-1);
+    private final LongAdder requestsInSecond = new LongAdder();
+    private final AtomicLong tokens = new AtomicLong();
+    private volatile double cappedProbability;
+
+    /**
+     * Creates a sampler.
+     *
+     * @param probability          the probability with which a request is kept, in the range (0, 1]
+     * @param maxEventsPerSecond   the maximum number of requests kept in a second, or zero for no limit
+     * @param keepErrors           true if the responses with status 500 and above are always kept
+     * @param slowRequestThreshold the response time in milliseconds from which requests are always kept, or zero
+     */
+    public Sampler(double probability, int maxEventsPerSecond, boolean keepErrors, long slowRequestThreshold) {
+        this.probability = probability;
+        this.maxEventsPerSecond = maxEventsPerSecond;
+        this.keepErrors = keepErrors;
+        this.slowRequestThreshold = slowRequestThreshold;
+        this.cappedProbability = probability;
+    }
+
+    /**
+     * Creates the sampler of a context from the server level sampling configuration and the context level overrides.
+     *
+     * @param serverConfiguration  the server level sampling configuration, may be null
+     * @param contextConfiguration the context level sampling configuration, may be null
+     * @return the sampler of the context
+     */
+    public static Sampler create(AppServerStatsPublishing.Sampling serverConfiguration,
+            WebAppStatsPublishing.Sampling contextConfiguration) {
+        Optional<AppServerStatsPublishing.Sampling> server = Optional.ofNullable(serverConfiguration);
+        Optional<WebAppStatsPublishing.Sampling> context = Optional.ofNullable(contextConfiguration);
+
+        double probability = context.map(WebAppStatsPublishing.Sampling::getProbability)
+                .orElse(server.map(AppServerStatsPublishing.Sampling::getProbability).orElse(1.0));
+        int maxEventsPerSecond = context.map(WebAppStatsPublishing.Sampling::getMaxEventsPerSecond)
+                .orElse(server.map(AppServerStatsPublishing.Sampling::getMaxEventsPerSecond).orElse(0));
+        boolean keepErrors = context.map(WebAppStatsPublishing.Sampling::isKeepErrors)
+                .orElse(server.map(AppServerStatsPublishing.Sampling::isKeepErrors).orElse(true));
+        long slowRequestThreshold = context.map(WebAppStatsPublishing.Sampling::getSlowRequestThreshold)
+                .orElse(server.map(AppServerStatsPublishing.Sampling::getSlowRequestThreshold).orElse(0L));
+
+        if (probability <= 0 || probability > 1) {
+            LOG.warn("Invalid sampling probability " + probability + ", every request will be sampled.");
+            probability = 1.0;
+        }
+        return new Sampler(probability, Math.max(maxEventsPerSecond, 0), keepErrors, slowRequestThreshold);
+    }
+
+    /**
+     * Decides whether the request is published.
+     *
+     * @param status       the HTTP status code of the response
+     * @param responseTime the response time in milliseconds
+     * @param now          the current time in milliseconds
+     * @return the sampling weight of the request, or {@link #NOT_SAMPLED} if the request is not published
+     */
+    public double sample(int status, long responseTime, long now) {
+        return sample(status, responseTime, now, 1.0);
+    }
+
+    /**
+     * Decides whether the request is published, with the probability multiplied by the given rate.
+     *
+     * @param status       the HTTP status code of the response
+     * @param responseTime the response time in milliseconds
+     * @param now          the current time in milliseconds
+     * @param rate         the rate by which the probability is multiplied, in the range (0, 1]
+     * @return the sampling weight of the request, or {@link #NOT_SAMPLED} if the request is not published
+     */
+    public double sample(int status, long responseTime, long now, double rate) {
+        if ((keepErrors && status >= 500) || (slowRequestThreshold > 0 && responseTime >= slowRequestThreshold)) {
+            return 1.0;
+        }
+
+        double effectiveProbability = probability;
+        if (maxEventsPerSecond > 0) {
+            advance(now / 1000);
+            requestsInSecond.increment();
+            effectiveProbability = cappedProbability;
+        }
+        effectiveProbability *= rate;
+        if (effectiveProbability < 1.0 && ThreadLocalRandom.current().nextDouble() >= effectiveProbability) {
+            return NOT_SAMPLED;
+        }
+        if (maxEventsPerSecond > 0 && tokens.getAndDecrement() <= 0) {
+            return NOT_SAMPLED;
+        }
+        return 1.0 / effectiveProbability;
+    }
+
+    public double getProbability() {
+        return probability;
+    }
+
+    public int getMaxEventsPerSecond() {
+        return maxEventsPerSecond;
+    }
+
+    public boolean isKeepErrors() {
+        return keepErrors;
+    }
+
+    public long getSlowRequestThreshold() {
+        return slowRequestThreshold;
+    }
+
+    /**
+     * Starts a new one second window if the given second is past the current window: refills the token bucket and
+     * recomputes the probability from the number of requests seen in the previous window.
+     *
+     * @param second the current time in seconds
+     */
+    private void advance(long second) {
+        long current = currentSecond.get();
+        if (second > current && currentSecond.compareAndSet(current, second)) {
+            long requests = requestsInSecond.sumThenReset();
+            if (second == current + 1 && requests > maxEventsPerSecond) {
+                cappedProbability = Math.min(probability, (double) maxEventsPerSecond / requests);
+            } else {
+                cappedProbability = probability;
+            }
+            tokens.set(maxEventsPerSecond);
+        }
+    }
+}
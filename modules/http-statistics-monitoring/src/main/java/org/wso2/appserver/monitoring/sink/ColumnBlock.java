@@ -0,0 +1,442 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.sink;
+
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A block of Events held column by column, which is encoded into the body of a block of a columnar statistics file,
+ * and decoded back into rows.
+ * <p>
+ * The columns of an Event are its timestamp, followed by its meta data and payload data attributes. Each column is
+ * encoded on its own, preceded by a single byte tag of its encoding and, if some of its values are null, by a bitmap
+ * of the null rows, so that only the present values are written:
+ * <ul>
+ * <li>integral values are delta encoded from the previous value of the column, as zigzag variable-length integers,
+ * so that the timestamps and the other slowly changing values take a byte or two</li>
+ * <li>floating point values are XORed with the previous value of the column, so that repeated values take a
+ * single byte</li>
+ * <li>boolean values are packed into a bitmap</li>
+ * <li>strings are dictionary encoded, as the index of the value in the dictionary of the column written before the
+ * indices, unless more than half of the values are distinct, in which case they are written as UTF-8 bytes</li>
+ * </ul>
+ * A column whose values are of different types is written as the strings of its values.
+ *
+ * @since 6.0.0
+ */
+final class ColumnBlock {
+    static final byte NULL = 0;
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte BOOLEAN = 3;
+    static final byte DICTIONARY = 4;
+    static final byte STRING = 5;
+    static final int NULLABLE = 0x80;
+    static final int MAX_CAPACITY = 1 << 20;
+    private static final int MIN_DICTIONARY_ROWS = 16;
+
+    private final int capacity;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final int[] indices;
+    private Object[][] columns;
+    private int columnCount = -1;
+    private int rowCount;
+    private byte[] buffer = new byte[1024];
+    private int position;
+
+    /**
+     * Creates an empty block.
+     *
+     * @param capacity the maximum number of Events of the block
+     */
+    ColumnBlock(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("The block size must be between 1 and " + MAX_CAPACITY + ": " +
+                    capacity);
+        }
+        this.capacity = capacity;
+        this.indices = new int[capacity];
+    }
+
+    /**
+     * Adds an Event to the block, as a row.
+     *
+     * @param event the Event
+     * @return true if the Event was added, false if the block is full or its Events have a different number of
+     * attributes, in which case the block has to be written and cleared first
+     */
+    boolean add(Event event) {
+        Object[] metaData = event.getMetaData();
+        Object[] payloadData = event.getPayloadData();
+        int metaCount = (metaData != null) ? metaData.length : 0;
+        int count = 1 + metaCount + ((payloadData != null) ? payloadData.length : 0);
+        if (rowCount == 0 && count != columnCount) {
+            columnCount = count;
+            columns = new Object[count][capacity];
+        } else if (rowCount == capacity || count != columnCount) {
+            return false;
+        }
+        columns[0][rowCount] = event.getTimeStamp();
+        for (int index = 1; index < count; index++) {
+            columns[index][rowCount] = (index <= metaCount) ? metaData[index - 1] : payloadData[index - 1 - metaCount];
+        }
+        rowCount++;
+        return true;
+    }
+
+    boolean isEmpty() {
+        return rowCount == 0;
+    }
+
+    boolean isFull() {
+        return rowCount == capacity;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Removes the Events of the block, releasing the attribute values.
+     */
+    void clear() {
+        for (int index = 0; index < columnCount; index++) {
+            Arrays.fill(columns[index], 0, rowCount, null);
+        }
+        rowCount = 0;
+    }
+
+    /**
+     * Encodes the Events of the block. The encoded bytes are valid until the block is encoded again.
+     *
+     * @return the number of bytes written to the buffer of the block
+     */
+    int encode() {
+        position = 0;
+        putVarLong(rowCount);
+        putVarLong(Math.max(columnCount, 0));
+        for (int index = 0; index < columnCount; index++) {
+            encodeColumn(columns[index]);
+        }
+        return position;
+    }
+
+    byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Decodes the body of a block into its rows.
+     *
+     * @param body the bytes of the body
+     * @return the rows of the block, each holding the values of its columns
+     * @throws IllegalArgumentException if the bytes are not a valid block
+     */
+    static Object[][] decode(ByteBuffer body) {
+        try {
+            int rows = getLength(body, MAX_CAPACITY);
+            int columnCount = getLength(body, body.remaining());
+            Object[][] values = new Object[rows][columnCount];
+            for (int column = 0; column < columnCount; column++) {
+                decodeColumn(body, values, column);
+            }
+            return values;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("The block is truncated.", e);
+        }
+    }
+
+    private void encodeColumn(Object[] values) {
+        byte type = NULL;
+        boolean nullable = false;
+        for (int row = 0; row < rowCount; row++) {
+            Object value = values[row];
+            if (value == null) {
+                nullable = true;
+                continue;
+            }
+            byte valueType = getType(value);
+            type = (type == NULL || type == valueType) ? valueType : STRING;
+        }
+        if (type == NULL) {
+            putByte(NULL);
+            return;
+        }
+        if (type == DICTIONARY && !buildDictionary(values)) {
+            type = STRING;
+        }
+        putByte(nullable ? type | NULLABLE : type);
+        if (nullable) {
+            ensureCapacity((rowCount + 7) / 8);
+            for (int row = 0; row < rowCount; row += 8) {
+                int bits = 0;
+                for (int bit = 0; bit < 8 && row + bit < rowCount; bit++) {
+                    if (values[row + bit] == null) {
+                        bits |= 1 << bit;
+                    }
+                }
+                buffer[position++] = (byte) bits;
+            }
+        }
+        switch (type) {
+            case LONG:
+                long previous = 0;
+                for (int row = 0; row < rowCount; row++) {
+                    if (values[row] != null) {
+                        long value = ((Number) values[row]).longValue();
+                        putVarLong(zigzag(value - previous));
+                        previous = value;
+                    }
+                }
+                break;
+            case DOUBLE:
+                long previousBits = 0;
+                for (int row = 0; row < rowCount; row++) {
+                    if (values[row] != null) {
+                        long bits = Double.doubleToLongBits(((Number) values[row]).doubleValue());
+                        putVarLong(Long.reverse(bits ^ previousBits));
+                        previousBits = bits;
+                    }
+                }
+                break;
+            case BOOLEAN:
+                int bits = 0;
+                int count = 0;
+                for (int row = 0; row < rowCount; row++) {
+                    if (values[row] != null) {
+                        bits |= ((Boolean) values[row] ? 1 : 0) << count;
+                        if (++count == 8) {
+                            putByte(bits);
+                            bits = 0;
+                            count = 0;
+                        }
+                    }
+                }
+                if (count > 0) {
+                    putByte(bits);
+                }
+                break;
+            case DICTIONARY:
+                putVarLong(dictionary.size());
+                String[] entries = new String[dictionary.size()];
+                dictionary.forEach((value, index) -> entries[index] = value);
+                for (String entry : entries) {
+                    putString(entry);
+                }
+                for (int row = 0; row < rowCount; row++) {
+                    if (values[row] != null) {
+                        putVarLong(indices[row]);
+                    }
+                }
+                dictionary.clear();
+                break;
+            default:
+                for (int row = 0; row < rowCount; row++) {
+                    if (values[row] != null) {
+                        putString(String.valueOf(values[row]));
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * Builds the dictionary of a string column and the index of the value of each row in it.
+     *
+     * @param values the values of the column
+     * @return true if the column is dictionary encoded, false if too many of its values are distinct
+     */
+    private boolean buildDictionary(Object[] values) {
+        int maxSize = Math.max(rowCount / 2, MIN_DICTIONARY_ROWS);
+        for (int row = 0; row < rowCount; row++) {
+            if (values[row] != null) {
+                Integer index = dictionary.get(values[row]);
+                if (index == null) {
+                    if (dictionary.size() == maxSize) {
+                        dictionary.clear();
+                        return false;
+                    }
+                    index = dictionary.size();
+                    dictionary.put((String) values[row], index);
+                }
+                indices[row] = index;
+            }
+        }
+        return true;
+    }
+
+    private static byte getType(Object value) {
+        if (value instanceof String) {
+            return DICTIONARY;
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+                || value instanceof Byte) {
+            return LONG;
+        } else if (value instanceof Double || value instanceof Float) {
+            return DOUBLE;
+        } else if (value instanceof Boolean) {
+            return BOOLEAN;
+        }
+        return STRING;
+    }
+
+    private static void decodeColumn(ByteBuffer body, Object[][] values, int column) {
+        int tag = body.get() & 0xFF;
+        int type = tag & ~NULLABLE;
+        if (type == NULL) {
+            return;
+        }
+        int rows = values.length;
+        boolean[] nulls = new boolean[rows];
+        if ((tag & NULLABLE) != 0) {
+            for (int row = 0; row < rows; row += 8) {
+                int bits = body.get();
+                for (int bit = 0; bit < 8 && row + bit < rows; bit++) {
+                    nulls[row + bit] = (bits & (1 << bit)) != 0;
+                }
+            }
+        }
+        switch (type) {
+            case LONG:
+                long previous = 0;
+                for (int row = 0; row < rows; row++) {
+                    if (!nulls[row]) {
+                        previous += unzigzag(getVarLong(body));
+                        values[row][column] = previous;
+                    }
+                }
+                break;
+            case DOUBLE:
+                long previousBits = 0;
+                for (int row = 0; row < rows; row++) {
+                    if (!nulls[row]) {
+                        previousBits ^= Long.reverse(getVarLong(body));
+                        values[row][column] = Double.longBitsToDouble(previousBits);
+                    }
+                }
+                break;
+            case BOOLEAN:
+                int bits = 0;
+                int count = 0;
+                for (int row = 0; row < rows; row++) {
+                    if (!nulls[row]) {
+                        if (count % 8 == 0) {
+                            bits = body.get();
+                        }
+                        values[row][column] = (bits & (1 << (count++ % 8))) != 0;
+                    }
+                }
+                break;
+            case DICTIONARY:
+                String[] entries = new String[getLength(body, body.remaining())];
+                for (int index = 0; index < entries.length; index++) {
+                    entries[index] = getString(body);
+                }
+                for (int row = 0; row < rows; row++) {
+                    if (!nulls[row]) {
+                        values[row][column] = entries[getLength(body, entries.length - 1)];
+                    }
+                }
+                break;
+            case STRING:
+                for (int row = 0; row < rows; row++) {
+                    if (!nulls[row]) {
+                        values[row][column] = getString(body);
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown column encoding: " + type);
+        }
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarLong(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private static String getString(ByteBuffer body) {
+        byte[] bytes = new byte[getLength(body, body.remaining())];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void putByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    private void putVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void ensureCapacity(int length) {
+        if (position + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+        }
+    }
+
+    /**
+     * Reads a length or an index.
+     *
+     * @param body    the body of the block
+     * @param maximum the maximum valid value
+     * @return the length or index
+     */
+    private static int getLength(ByteBuffer body, int maximum) {
+        long length = getVarLong(body);
+        if (length < 0 || length > maximum) {
+            throw new IllegalArgumentException("Invalid length: " + length);
+        }
+        return (int) length;
+    }
+
+    private static long getVarLong(ByteBuffer body) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte current = body.get();
+            value |= (long) (current & 0x7F) << shift;
+            if (current >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable-length integer.");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.sink;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the blocks of a columnar statistics file written by a {@link ColumnarFileSink}.
+ * <p>
+ * Each row of a block holds the columns of an Event: its timestamp, followed by its meta data and payload data
+ * attributes. The integral values are read as {@code Long}s and the floating point values as {@code Double}s. A
+ * file which was left partially written is read up to its last complete block.
+ *
+ * @since 6.0.0
+ */
+public class ColumnarFileReader implements Closeable {
+    private final DataInputStream input;
+    private final String streamId;
+    private final Inflater inflater = new Inflater();
+
+    /**
+     * Opens a columnar statistics file and reads its header.
+     *
+     * @param file the file
+     * @throws IOException if the file cannot be read or is not a columnar statistics file
+     */
+    public ColumnarFileReader(Path file) throws IOException {
+        input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        try {
+            if (input.readInt() != ColumnarFileSink.MAGIC) {
+                throw new IOException(file + " is not a columnar statistics file.");
+            }
+            byte version = input.readByte();
+            if (version != ColumnarFileSink.VERSION) {
+                throw new IOException("Unsupported version " + version + " of the columnar statistics file " + file);
+            }
+            streamId = input.readUTF();
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the ID of the event stream of the Events of the file.
+     *
+     * @return the stream ID
+     */
+    public String getStreamId() {
+        return streamId;
+    }
+
+    /**
+     * Reads the next block of the file.
+     *
+     * @return the rows of the block, each holding the values of its columns, or null if there is no further complete
+     * block
+     * @throws IOException if the file cannot be read or the block is corrupt
+     */
+    public Object[][] readBlock() throws IOException {
+        byte[] body;
+        try {
+            int length = input.readInt();
+            int deflatedLength = input.readInt();
+            if (length < 0 || deflatedLength < 0) {
+                throw new IOException("Invalid block length: " + length + ", " + deflatedLength);
+            }
+            byte[] deflated = new byte[deflatedLength];
+            input.readFully(deflated);
+            body = inflate(deflated, length);
+        } catch (EOFException e) {
+            return null;
+        }
+        try {
+            return ColumnBlock.decode(ByteBuffer.wrap(body));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("The block is corrupt: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        input.close();
+    }
+
+    private byte[] inflate(byte[] deflated, int length) throws IOException {
+        byte[] body = new byte[length];
+        inflater.reset();
+        inflater.setInput(deflated);
+        try {
+            int inflatedLength = 0;
+            while (inflatedLength < length && !inflater.finished()) {
+                int inflated = inflater.inflate(body, inflatedLength, length - inflatedLength);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflatedLength += inflated;
+            }
+            if (inflatedLength != length) {
+                throw new IOException("The block is truncated: " + inflatedLength + " of " + length + " bytes.");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("The block is corrupt: " + e.getMessage(), e);
+        }
+        return body;
+    }
+}
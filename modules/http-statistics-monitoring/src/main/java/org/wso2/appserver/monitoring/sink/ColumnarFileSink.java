@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.sink;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.appserver.monitoring.Constants;
+import org.wso2.appserver.monitoring.publisher.EventPublisher;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * An {@link EventPublisher} which writes the Events into rolling, compressed columnar files on the local disk, for
+ * the offline analysis of the statistics without WSO2 Data Analytics Server.
+ * <p>
+ * The Events are gathered in a {@link ColumnBlock}, which is encoded column by column and deflated once it is full,
+ * so that the dictionary and delta encoded columns compress an order of magnitude better than the rows of a text
+ * log. A file is made of a header, holding {@value #MAGIC} as an int, the format version as a byte and the stream
+ * ID of its Events as a modified UTF-8 string, followed by the blocks, each preceded by the int lengths of its
+ * encoded body and of its deflated bytes. The files are read by a {@link ColumnarFileReader}.
+ * <p>
+ * A file is written with the {@value #PART_EXTENSION} extension, which is removed once it is rotated: after the
+ * rotation interval, once it reaches the maximum file size, or when the stream ID of the Events changes. A block
+ * which is not full is written anyway after {@value #FLUSH_INTERVAL_MILLIS} ms, by a dedicated thread which also
+ * rotates the idle files, so the Events are not held back when the requests are few.
+ *
+ * @since 6.0.0
+ */
+public class ColumnarFileSink implements EventPublisher, Runnable {
+    private static final Log LOG = LogFactory.getLog(ColumnarFileSink.class);
+    static final int MAGIC = 0x48534346;
+    static final byte VERSION = 1;
+    static final String FILE_PREFIX = "http-statistics-";
+    static final String FILE_EXTENSION = ".hsc";
+    static final String PART_EXTENSION = ".part";
+    private static final long FLUSH_INTERVAL_MILLIS = 5000;
+    private static final long FLUSH_CHECK_MILLIS = 1000;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long rotationIntervalMillis;
+    private final long maxFileSize;
+    private final ColumnBlock block;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private byte[] deflated = new byte[OUTPUT_BUFFER_SIZE];
+    private DataOutputStream output;
+    private Path file;
+    private String streamId;
+    private long fileSize;
+    private long fileOpenedTime;
+    private long blockStartedTime;
+    private int fileSequence;
+    private long writtenCount;
+    private long droppedCount;
+    private boolean closed;
+    private ScheduledExecutorService executor;
+
+    /**
+     * Creates a sink writing the files to the specified directory.
+     *
+     * @param directory              the directory of the files
+     * @param blockSize              the number of Events encoded and compressed as a block
+     * @param rotationIntervalMillis the time after which a file is rotated, in milliseconds
+     * @param maxFileSize            the size in bytes at which a file is rotated
+     */
+    public ColumnarFileSink(Path directory, int blockSize, long rotationIntervalMillis, long maxFileSize) {
+        if (rotationIntervalMillis <= 0 || maxFileSize <= 0) {
+            throw new IllegalArgumentException("The rotation interval and the maximum file size must be positive: " +
+                    rotationIntervalMillis + ", " + maxFileSize);
+        }
+        this.directory = directory;
+        this.block = new ColumnBlock(blockSize);
+        this.rotationIntervalMillis = rotationIntervalMillis;
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * Creates the directory of the files, if it does not exist, and completes the files which were left partially
+     * written by a previous run, whose blocks are readable up to the last one fully written.
+     *
+     * @throws IOException if the directory cannot be created or read
+     */
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(directory,
+                FILE_PREFIX + "*" + FILE_EXTENSION + PART_EXTENSION)) {
+            for (Path part : parts) {
+                complete(part);
+            }
+        }
+    }
+
+    /**
+     * Starts the thread which writes the idle blocks and rotates the idle files.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, Constants.FILE_SINK_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this, FLUSH_CHECK_MILLIS, FLUSH_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the thread which writes the idle blocks and rotates the idle files.
+     */
+    public void stop() {
+        ScheduledExecutorService stopped;
+        synchronized (this) {
+            if (executor == null) {
+                return;
+            }
+            stopped = executor;
+            executor = null;
+        }
+        //  neither interrupted nor awaited holding the lock, so that a block being written completes
+        stopped.shutdown();
+        try {
+            if (!stopped.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                LOG.warn("The statistics file sink thread did not stop within " + SHUTDOWN_TIMEOUT_MILLIS + " ms.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            flush(false);
+        } catch (RuntimeException e) {
+            LOG.error("Flushing the HTTP statistics file failed: ", e);
+        }
+    }
+
+    @Override
+    public synchronized void publish(Event event) {
+        if (closed) {
+            droppedCount++;
+            return;
+        }
+        if (streamId != null && !streamId.equals(event.getStreamId())) {
+            writeBlock();
+            closeFile();
+        }
+        streamId = event.getStreamId();
+        if (block.isEmpty()) {
+            blockStartedTime = System.currentTimeMillis();
+        }
+        if (!block.add(event)) {
+            writeBlock();
+            blockStartedTime = System.currentTimeMillis();
+            block.add(event);
+        }
+        if (block.isFull()) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Writes the Event to the current block. The Events are never rejected, as they do not wait for a remote
+     * endpoint.
+     *
+     * @param event the Event to be published
+     * @return true
+     */
+    @Override
+    public boolean tryPublish(Event event) {
+        publish(event);
+        return true;
+    }
+
+    /**
+     * Writes the current block and completes the current file. The Events published afterwards are dropped.
+     */
+    @Override
+    public void shutdown() {
+        stop();
+        flush(true);
+    }
+
+    /**
+     * Writes the current block if it was started before the flush interval, and completes the current file if it is
+     * due to be rotated.
+     *
+     * @param close true if the block is written and the file completed regardless, and the sink closed
+     */
+    synchronized void flush(boolean close) {
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (!block.isEmpty() && (close || now - blockStartedTime >= FLUSH_INTERVAL_MILLIS)) {
+            writeBlock();
+        }
+        if (output != null && (close || now - fileOpenedTime >= rotationIntervalMillis)) {
+            closeFile();
+        }
+        closed = close;
+    }
+
+    public synchronized long getWrittenCount() {
+        return writtenCount;
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Encodes, compresses and writes the current block to the current file, opening a new file first if there is
+     * none or if the current one is due to be rotated. The Events of the block are dropped if it cannot be written.
+     */
+    private void writeBlock() {
+        if (block.isEmpty()) {
+            return;
+        }
+        int rows = block.getRowCount();
+        try {
+            int length = block.encode();
+            int deflatedLength = deflate(block.getBuffer(), length);
+            long now = System.currentTimeMillis();
+            if (output != null && (fileSize >= maxFileSize || now - fileOpenedTime >= rotationIntervalMillis)) {
+                closeFile();
+            }
+            if (output == null) {
+                openFile(now);
+            }
+            output.writeInt(length);
+            output.writeInt(deflatedLength);
+            output.write(deflated, 0, deflatedLength);
+            output.flush();
+            fileSize += Integer.BYTES * 2 + deflatedLength;
+            writtenCount += rows;
+        } catch (IOException e) {
+            droppedCount += rows;
+            LOG.error("Writing " + rows + " HTTP statistics events to " + file + " failed: ", e);
+            closeFile();
+        } finally {
+            block.clear();
+        }
+    }
+
+    private int deflate(byte[] bytes, int length) {
+        deflater.reset();
+        deflater.setInput(bytes, 0, length);
+        deflater.finish();
+        int deflatedLength = 0;
+        while (!deflater.finished()) {
+            if (deflatedLength == deflated.length) {
+                deflated = Arrays.copyOf(deflated, deflated.length * 2);
+            }
+            deflatedLength += deflater.deflate(deflated, deflatedLength, deflated.length - deflatedLength);
+        }
+        return deflatedLength;
+    }
+
+    private void openFile(long now) throws IOException {
+        String name = FILE_PREFIX + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(now)) + "-" +
+                (fileSequence++) + FILE_EXTENSION + PART_EXTENSION;
+        file = directory.resolve(name);
+        output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), OUTPUT_BUFFER_SIZE));
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        output.writeUTF(streamId);
+        fileSize = output.size();
+        fileOpenedTime = now;
+    }
+
+    /**
+     * Closes the current file, if any, and removes its {@value #PART_EXTENSION} extension.
+     */
+    private void closeFile() {
+        if (output == null) {
+            return;
+        }
+        try {
+            output.close();
+            complete(file);
+        } catch (IOException e) {
+            LOG.error("Closing the HTTP statistics file " + file + " failed: ", e);
+        }
+        output = null;
+        file = null;
+    }
+
+    private static void complete(Path part) throws IOException {
+        String name = part.getFileName().toString();
+        Files.move(part, part.resolveSibling(name.substring(0, name.length() - PART_EXTENSION.length())),
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.spool;
+
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes an Event into a compact binary record of the spool, and decodes it back.
+ * <p>
+ * Lengths and integral values are written as variable-length integers (zigzag encoded where they may be negative),
+ * strings as UTF-8 bytes and every attribute value is preceded by a single byte tag of its type. A length of zero
+ * stands for a null string, array or map, so the lengths of the present ones are incremented by one.
+ *
+ * @since 6.0.0
+ */
+final class EventCodec {
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte INTEGER = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte TRUE = 6;
+    private static final byte FALSE = 7;
+
+    private EventCodec() {
+    }
+
+    /**
+     * Encodes the Event at the current position of the buffer.
+     *
+     * @param event  the Event to be encoded
+     * @param buffer the buffer
+     * @throws BufferOverflowException  if the remaining bytes of the buffer are not enough for the record
+     * @throws IllegalArgumentException if an attribute value is not of a type supported by the event streams
+     */
+    static void encode(Event event, ByteBuffer buffer) {
+        putString(buffer, event.getStreamId());
+        putVarLong(buffer, zigzag(event.getTimeStamp()));
+        putValues(buffer, event.getMetaData());
+        putValues(buffer, event.getCorrelationData());
+        putValues(buffer, event.getPayloadData());
+        Map<String, String> arbitraryData = event.getArbitraryDataMap();
+        if (arbitraryData == null) {
+            putVarLong(buffer, 0);
+        } else {
+            putVarLong(buffer, arbitraryData.size() + 1);
+            for (Map.Entry<String, String> entry : arbitraryData.entrySet()) {
+                putString(buffer, entry.getKey());
+                putString(buffer, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Decodes an Event from the current position of the buffer.
+     *
+     * @param buffer the buffer
+     * @return the decoded Event
+     * @throws IllegalArgumentException if the bytes are not a valid record
+     */
+    static Event decode(ByteBuffer buffer) {
+        try {
+            String streamId = getString(buffer);
+            long timestamp = unzigzag(getVarLong(buffer));
+            Object[] metaData = getValues(buffer);
+            Object[] correlationData = getValues(buffer);
+            Object[] payloadData = getValues(buffer);
+            Map<String, String> arbitraryData = null;
+            int size = getLength(buffer);
+            if (size >= 0) {
+                arbitraryData = new HashMap<>(size * 2);
+                for (int index = 0; index < size; index++) {
+                    arbitraryData.put(getString(buffer), getString(buffer));
+                }
+            }
+            return new Event(streamId, timestamp, metaData, correlationData, payloadData, arbitraryData);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("The record is truncated.", e);
+        }
+    }
+
+    private static void putValues(ByteBuffer buffer, Object[] values) {
+        if (values == null) {
+            putVarLong(buffer, 0);
+            return;
+        }
+        putVarLong(buffer, values.length + 1);
+        for (Object value : values) {
+            if (value == null) {
+                buffer.put(NULL);
+            } else if (value instanceof String) {
+                buffer.put(STRING);
+                putString(buffer, (String) value);
+            } else if (value instanceof Long) {
+                buffer.put(LONG);
+                putVarLong(buffer, zigzag((Long) value));
+            } else if (value instanceof Integer) {
+                buffer.put(INTEGER);
+                putVarLong(buffer, zigzag((Integer) value));
+            } else if (value instanceof Double) {
+                buffer.put(DOUBLE);
+                buffer.putDouble((Double) value);
+            } else if (value instanceof Float) {
+                buffer.put(FLOAT);
+                buffer.putFloat((Float) value);
+            } else if (value instanceof Boolean) {
+                buffer.put((Boolean) value ? TRUE : FALSE);
+            } else {
+                throw new IllegalArgumentException("Unsupported attribute type: " + value.getClass().getName());
+            }
+        }
+    }
+
+    private static Object[] getValues(ByteBuffer buffer) {
+        int length = getLength(buffer);
+        if (length < 0) {
+            return null;
+        }
+        Object[] values = new Object[length];
+        for (int index = 0; index < length; index++) {
+            byte type = buffer.get();
+            switch (type) {
+                case NULL:
+                    break;
+                case STRING:
+                    values[index] = getString(buffer);
+                    break;
+                case LONG:
+                    values[index] = unzigzag(getVarLong(buffer));
+                    break;
+                case INTEGER:
+                    values[index] = (int) unzigzag(getVarLong(buffer));
+                    break;
+                case DOUBLE:
+                    values[index] = buffer.getDouble();
+                    break;
+                case FLOAT:
+                    values[index] = buffer.getFloat();
+                    break;
+                case TRUE:
+                    values[index] = Boolean.TRUE;
+                    break;
+                case FALSE:
+                    values[index] = Boolean.FALSE;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown attribute type: " + type);
+            }
+        }
+        return values;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            putVarLong(buffer, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarLong(buffer, bytes.length + 1);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = getLength(buffer);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a length written incremented by one.
+     *
+     * @param buffer the buffer
+     * @return the length, or -1 if null was written
+     */
+    private static int getLength(ByteBuffer buffer) {
+        long length = getVarLong(buffer) - 1;
+        if (length < -1 || length > buffer.remaining()) {
+            //  every element takes at least one byte
+            throw new IllegalArgumentException("Invalid length: " + length);
+        }
+        return (int) length;
+    }
+
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte current = buffer.get();
+            value |= (long) (current & 0x7F) << shift;
+            if (current >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable-length integer.");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.spool;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A durable, size capped spool of the Events which could not be handed over for publishing.
+ * <p>
+ * The Events are appended as compact binary records to a sequence of fixed-size, memory-mapped
+ * {@link SpoolSegment} files and read back in the same order by the {@link SpoolReplayer}. A segment file is deleted
+ * once all of its records are replayed. When appending would exceed the maximum size of the spool, the oldest
+ * segment is discarded together with the records which were not replayed yet, and segments older than the
+ * retention period are discarded as well, as their statistics are no longer of interest.
+ * <p>
+ * The segments are written to the storage device when a new segment is started and, for the replay position,
+ * after every {@value #FORCE_INTERVAL} replayed Events, which bounds the Events replayed again after a crash of the
+ * operating system without forcing every record.
+ * <p>
+ * The spool is only used while the Events cannot be published, so its operations simply synchronize on the spool.
+ *
+ * @since 6.0.0
+ */
+public class EventSpool {
+    private static final Log LOG = LogFactory.getLog(EventSpool.class);
+    private static final int INITIAL_RECORD_CAPACITY = 4096;
+    private static final int FORCE_INTERVAL = 1024;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final long retentionMillis;
+    private final Deque<SpoolSegment> segments = new ArrayDeque<>();
+    private final LongAdder spooledCount = new LongAdder();
+    private final LongAdder replayedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private ByteBuffer record = ByteBuffer.allocate(INITIAL_RECORD_CAPACITY);
+    private SpoolSegment peekedSegment;
+    private int unforcedReplays;
+    private long nextSegmentId;
+    private boolean open;
+
+    /**
+     * Creates a spool in the given directory.
+     *
+     * @param directory       the directory of the segment files
+     * @param segmentSize     the size of a segment file, in bytes
+     * @param maxSize         the maximum total size of the segment files, in bytes
+     * @param retentionMillis the period after which a segment is discarded, in milliseconds
+     */
+    public EventSpool(Path directory, int segmentSize, long maxSize, long retentionMillis) {
+        if (segmentSize <= SpoolSegment.HEADER_SIZE + SpoolSegment.RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("The spool segment size is too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxSize / segmentSize));
+        this.retentionMillis = retentionMillis;
+    }
+
+    /**
+     * Opens the spool, recovering the segment files left by a previous run.
+     *
+     * @throws IOException if the directory cannot be created or read
+     */
+    public synchronized void open() throws IOException {
+        if (open) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SpoolSegment.FILE_SUFFIX)) {
+            stream.forEach(paths::add);
+        }
+        Collections.sort(paths, Comparator.comparing(path -> path.getFileName().toString()));
+        for (Path path : paths) {
+            long id = SpoolSegment.parseId(path.getFileName().toString());
+            if (id < 0) {
+                continue;
+            }
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+            try {
+                SpoolSegment segment = SpoolSegment.open(path, id);
+                if (segment.isFullyRead()) {
+                    segment.delete();
+                } else {
+                    segments.addLast(segment);
+                }
+            } catch (IOException e) {
+                LOG.warn("Discarding the unreadable spool segment " + path + ": " + e);
+                Files.deleteIfExists(path);
+            }
+        }
+        open = true;
+        if (!segments.isEmpty()) {
+            LOG.info("Recovered " + segments.size() + " spool segments of HTTP statistics to be replayed.");
+        }
+    }
+
+    /**
+     * Appends the Event to the spool.
+     *
+     * @param event the Event to be spooled
+     * @return true if the Event was spooled, false if it was dropped
+     */
+    public synchronized boolean append(Event event) {
+        if (!open || !encode(event)) {
+            droppedCount.increment();
+            return false;
+        }
+        SpoolSegment segment = segments.peekLast();
+        if (segment == null || !segment.append(record)) {
+            try {
+                segment = rollSegment();
+            } catch (IOException e) {
+                LOG.error("Creating a spool segment failed: " + e);
+                droppedCount.increment();
+                return false;
+            }
+            segment.append(record);
+        }
+        spooledCount.increment();
+        return true;
+    }
+
+    /**
+     * Returns the oldest Event which was not replayed yet, without removing it.
+     *
+     * @return the oldest Event of the spool, or null if the spool is empty
+     */
+    public synchronized Event peek() {
+        if (!open) {
+            return null;
+        }
+        discardExpiredSegments(System.currentTimeMillis());
+        while (!segments.isEmpty()) {
+            SpoolSegment segment = segments.peekFirst();
+            ByteBuffer encoded = segment.peek();
+            if (encoded != null) {
+                try {
+                    Event event = EventCodec.decode(encoded);
+                    peekedSegment = segment;
+                    return event;
+                } catch (IllegalArgumentException e) {
+                    LOG.warn("Discarding the corrupted records of a spool segment: " + e.getMessage());
+                    droppedCount.add(segment.countRemaining());
+                    segment.skip();
+                }
+            }
+            if (segment == segments.peekLast()) {
+                //  the segment being appended to is kept, even when all of its records are replayed
+                return null;
+            }
+            deleteSegment(segments.pollFirst());
+        }
+        return null;
+    }
+
+    /**
+     * Removes the Event returned by {@link #peek()}, once it has been replayed.
+     */
+    public synchronized void remove() {
+        //  the peeked segment may have been discarded in the meantime, if the spool became full
+        if (open && peekedSegment != null && peekedSegment == segments.peekFirst()) {
+            peekedSegment.advance();
+            replayedCount.increment();
+            if (++unforcedReplays >= FORCE_INTERVAL) {
+                peekedSegment.force();
+                unforcedReplays = 0;
+            }
+        }
+        peekedSegment = null;
+    }
+
+    /**
+     * Returns whether there are Events which were not replayed yet.
+     *
+     * @return true if the spool holds no Event to be replayed, false otherwise
+     */
+    public synchronized boolean isEmpty() {
+        for (SpoolSegment segment : segments) {
+            if (!segment.isFullyRead()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the spooled Events to the storage device and closes the spool. The Events which were not replayed yet
+     * are replayed once the spool is opened again.
+     */
+    public synchronized void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        int remaining = 0;
+        for (SpoolSegment segment : segments) {
+            segment.force();
+            remaining += segment.countRemaining();
+            segment.close();
+        }
+        segments.clear();
+        peekedSegment = null;
+        unforcedReplays = 0;
+        if (remaining > 0) {
+            LOG.info(remaining + " spooled HTTP statistics events are kept to be replayed after a restart.");
+        }
+    }
+
+    public long getSpooledCount() {
+        return spooledCount.sum();
+    }
+
+    public long getReplayedCount() {
+        return replayedCount.sum();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Encodes the Event into the record buffer, growing the buffer up to the space available in a segment.
+     *
+     * @param event the Event to be encoded
+     * @return true if the Event was encoded, false if it does not fit in a segment or cannot be encoded
+     */
+    private boolean encode(Event event) {
+        int maxRecordSize = segmentSize - SpoolSegment.HEADER_SIZE - SpoolSegment.RECORD_HEADER_SIZE;
+        while (true) {
+            record.clear();
+            try {
+                EventCodec.encode(event, record);
+                record.flip();
+                return true;
+            } catch (BufferOverflowException e) {
+                if (record.capacity() >= maxRecordSize) {
+                    LOG.warn("Dropping an HTTP statistics event larger than a spool segment.");
+                    return false;
+                }
+                record = ByteBuffer.allocate((int) Math.min((long) record.capacity() * 2, maxRecordSize));
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Dropping an HTTP statistics event which cannot be spooled: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Creates a new segment to append to, discarding the oldest segments beyond the maximum size of the spool.
+     *
+     * @return the new segment
+     * @throws IOException if the segment file cannot be created
+     */
+    private SpoolSegment rollSegment() throws IOException {
+        long now = System.currentTimeMillis();
+        discardExpiredSegments(now);
+        while (segments.size() >= maxSegments) {
+            SpoolSegment oldest = segments.pollFirst();
+            int discarded = oldest.countRemaining();
+            droppedCount.add(discarded);
+            LOG.warn("The HTTP statistics spool is full, discarding " + discarded + " events of its oldest segment.");
+            deleteSegment(oldest);
+        }
+        //  the records of the full segment, and the replay position if it is also being replayed, are made durable
+        SpoolSegment full = segments.peekLast();
+        if (full != null) {
+            full.force();
+        }
+        SpoolSegment segment = SpoolSegment.create(directory, nextSegmentId++, segmentSize, now);
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private void discardExpiredSegments(long now) {
+        //  the segment being appended to is kept, as it also holds recent events
+        while (segments.size() > 1 && now - segments.peekFirst().getCreationTime() > retentionMillis) {
+            SpoolSegment expired = segments.pollFirst();
+            int discarded = expired.countRemaining();
+            droppedCount.add(discarded);
+            if (discarded > 0) {
+                LOG.warn("Discarding " + discarded + " spooled HTTP statistics events older than the retention " +
+                        "period.");
+            }
+            deleteSegment(expired);
+        }
+    }
+
+    private void deleteSegment(SpoolSegment segment) {
+        try {
+            segment.delete();
+        } catch (IOException e) {
+            LOG.warn("Deleting the spool segment " + segment.getId() + " failed: " + e);
+        }
+    }
+}
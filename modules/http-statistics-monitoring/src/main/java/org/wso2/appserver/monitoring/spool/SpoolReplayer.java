@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.spool;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.appserver.monitoring.Constants;
+import org.wso2.appserver.monitoring.publisher.EventPublisher;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays the Events of an {@link EventSpool} using the {@link EventPublisher}, on a dedicated thread.
+ * <p>
+ * An Event is only removed from the spool once the {@link EventPublisher} accepts it. While it does not, the
+ * endpoint is considered to be still unreachable and the replay is retried after a delay. The Events are replayed
+ * at no more than the given rate, so that a recovering endpoint is not flooded with the backlog and the Events of
+ * the live requests keep being accepted.
+ *
+ * @since 6.0.0
+ */
+public class SpoolReplayer implements Runnable {
+    private static final Log LOG = LogFactory.getLog(SpoolReplayer.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long RETRY_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final EventSpool spool;
+    private final EventPublisher eventPublisher;
+    private final long replayIntervalNanos;
+    private volatile boolean running;
+    private Thread replayerThread;
+
+    /**
+     * Creates a replayer of the specified spool.
+     *
+     * @param spool          the spool of the Events which could not be published
+     * @param eventPublisher the event publisher used to publish the Events
+     * @param replayRate     the maximum number of Events replayed per second
+     */
+    public SpoolReplayer(EventSpool spool, EventPublisher eventPublisher, int replayRate) {
+        if (replayRate <= 0) {
+            throw new IllegalArgumentException("The replay rate must be positive: " + replayRate);
+        }
+        this.spool = spool;
+        this.eventPublisher = eventPublisher;
+        this.replayIntervalNanos = TimeUnit.SECONDS.toNanos(1) / replayRate;
+    }
+
+    /**
+     * Starts the replayer thread.
+     */
+    public synchronized void start() {
+        if (replayerThread != null) {
+            return;
+        }
+        running = true;
+        replayerThread = new Thread(this, Constants.SPOOL_REPLAYER_THREAD_NAME);
+        replayerThread.setDaemon(true);
+        replayerThread.start();
+    }
+
+    /**
+     * Stops the replayer thread. The Events which were not replayed are left in the spool.
+     */
+    public synchronized void stop() {
+        if (replayerThread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(replayerThread);
+        try {
+            replayerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (replayerThread.isAlive()) {
+            LOG.warn("The statistics spool replayer thread did not stop within " + SHUTDOWN_TIMEOUT_MILLIS + " ms.");
+        }
+        replayerThread = null;
+    }
+
+    @Override
+    public void run() {
+        long nextReplayTime = System.nanoTime();
+        while (running) {
+            try {
+                long delay = nextReplayTime - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(this, delay);
+                    continue;
+                }
+                Event event = spool.peek();
+                if (event == null) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                } else if (eventPublisher.tryPublish(event)) {
+                    spool.remove();
+                    //  an idle period does not allow a burst of replayed Events afterwards
+                    nextReplayTime = Math.max(nextReplayTime, System.nanoTime() - replayIntervalNanos) +
+                            replayIntervalNanos;
+                } else {
+                    LockSupport.parkNanos(this, RETRY_PARK_NANOS);
+                }
+            } catch (RuntimeException e) {
+                LOG.error("Replaying the spooled HTTP statistics failed: ", e);
+                LockSupport.parkNanos(this, RETRY_PARK_NANOS);
+            }
+        }
+    }
+}
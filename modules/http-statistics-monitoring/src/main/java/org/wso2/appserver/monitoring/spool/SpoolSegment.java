@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.spool;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * A memory-mapped, append-only segment file of the {@link EventSpool}.
+ * <p>
+ * The segment starts with a header holding a magic number, the position of the next record to be replayed and the
+ * creation time of the segment. It is followed by the records, each of them an int length and the encoded Event.
+ * The file is created at its full size, so the first zero length marks the end of the records when the segment is
+ * opened again. The replay position is written to the header after every replayed record, so that a restart only
+ * replays the records which were not replayed before.
+ * <p>
+ * The mapping of a segment is only released by the garbage collector, which may keep the file mapped long after it
+ * was deleted. A retired segment therefore releases its mapping explicitly when it is closed, and must not be used
+ * afterwards.
+ *
+ * @since 6.0.0
+ */
+class SpoolSegment {
+    static final String FILE_SUFFIX = ".seg";
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 4;
+
+    private static final int MAGIC = 0x48535350;
+    private static final int READ_POSITION_OFFSET = 4;
+    private static final int CREATION_TIME_OFFSET = 8;
+    private static final Consumer<MappedByteBuffer> UNMAPPER = createUnmapper();
+
+    private final long id;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long creationTime;
+    private int readPosition;
+    private int writePosition;
+    private boolean closed;
+
+    private SpoolSegment(long id, Path path, MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.buffer = buffer;
+        this.creationTime = buffer.getLong(CREATION_TIME_OFFSET);
+        this.readPosition = buffer.getInt(READ_POSITION_OFFSET);
+    }
+
+    /**
+     * Creates a new segment file of the given size.
+     *
+     * @param directory    the directory of the spool
+     * @param id           the sequence number of the segment
+     * @param size         the size of the segment file, in bytes
+     * @param creationTime the current time
+     * @return the created segment
+     * @throws IOException if the segment file cannot be created
+     */
+    static SpoolSegment create(Path directory, long id, int size, long creationTime) throws IOException {
+        Path path = directory.resolve(fileName(id));
+        MappedByteBuffer buffer = map(path, size, StandardOpenOption.CREATE_NEW);
+        buffer.putLong(CREATION_TIME_OFFSET, creationTime);
+        buffer.putInt(READ_POSITION_OFFSET, HEADER_SIZE);
+        buffer.putInt(0, MAGIC);
+        SpoolSegment segment = new SpoolSegment(id, path, buffer);
+        segment.writePosition = HEADER_SIZE;
+        return segment;
+    }
+
+    /**
+     * Opens an existing segment file and finds the end of its records.
+     *
+     * @param path the path of the segment file
+     * @param id   the sequence number of the segment
+     * @return the segment
+     * @throws IOException if the segment file cannot be read or is not a segment file
+     */
+    static SpoolSegment open(Path path, long id) throws IOException {
+        long size = Files.size(path);
+        if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+            throw new IOException("Invalid spool segment size: " + size);
+        }
+        MappedByteBuffer buffer = map(path, (int) size, StandardOpenOption.READ);
+        SpoolSegment segment = new SpoolSegment(id, path, buffer);
+        if (buffer.getInt(0) != MAGIC) {
+            segment.close();
+            throw new IOException("Not a spool segment: " + path);
+        }
+        int position = HEADER_SIZE;
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.capacity() - position - RECORD_HEADER_SIZE) {
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        segment.writePosition = position;
+        if (segment.readPosition < HEADER_SIZE || segment.readPosition > position) {
+            segment.close();
+            throw new IOException("Invalid replay position of spool segment: " + path);
+        }
+        return segment;
+    }
+
+    /**
+     * Returns the sequence number of the segment file with the given name.
+     *
+     * @param fileName the name of the file
+     * @return the sequence number, or -1 if it is not the name of a segment file
+     */
+    static long parseId(String fileName) {
+        if (!fileName.endsWith(FILE_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(fileName.substring(0, fileName.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String fileName(long id) {
+        return String.format("%020d", id) + FILE_SUFFIX;
+    }
+
+    private static MappedByteBuffer map(Path path, int size, StandardOpenOption openOption) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, openOption, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            //  the mapping remains valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * Appends the remaining bytes of the record buffer as a record.
+     *
+     * @param record the encoded Event
+     * @return true if the record was appended, false if the segment does not have enough space left
+     */
+    boolean append(ByteBuffer record) {
+        int length = record.remaining();
+        if (length > buffer.capacity() - writePosition - RECORD_HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer target = buffer.duplicate();
+        target.position(writePosition + RECORD_HEADER_SIZE);
+        target.put(record);
+        //  the length is written last, so that a partially written record is not found when the segment is opened
+        buffer.putInt(writePosition, length);
+        writePosition += RECORD_HEADER_SIZE + length;
+        return true;
+    }
+
+    /**
+     * Returns the next record to be replayed.
+     *
+     * @return a buffer holding the encoded Event, or null if all of the records were replayed
+     */
+    ByteBuffer peek() {
+        if (readPosition >= writePosition) {
+            return null;
+        }
+        int length = buffer.getInt(readPosition);
+        ByteBuffer record = buffer.duplicate();
+        record.position(readPosition + RECORD_HEADER_SIZE);
+        record.limit(readPosition + RECORD_HEADER_SIZE + length);
+        return record.slice();
+    }
+
+    /**
+     * Moves past the record returned by {@link #peek()}.
+     */
+    void advance() {
+        if (readPosition < writePosition) {
+            readPosition += RECORD_HEADER_SIZE + buffer.getInt(readPosition);
+            buffer.putInt(READ_POSITION_OFFSET, readPosition);
+        }
+    }
+
+    /**
+     * Moves past all of the records, without replaying them.
+     */
+    void skip() {
+        readPosition = writePosition;
+        buffer.putInt(READ_POSITION_OFFSET, readPosition);
+    }
+
+    /**
+     * Counts the records which were not replayed yet.
+     *
+     * @return the number of records after the replay position
+     */
+    int countRemaining() {
+        int count = 0;
+        for (int position = readPosition; position < writePosition;
+                position += RECORD_HEADER_SIZE + buffer.getInt(position)) {
+            count++;
+        }
+        return count;
+    }
+
+    boolean isFullyRead() {
+        return readPosition >= writePosition;
+    }
+
+    /**
+     * Writes the modified content of the segment to the storage device.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Releases the mapping of the segment file. The segment must not be used once it is closed.
+     */
+    void close() {
+        if (!closed) {
+            closed = true;
+            if (UNMAPPER != null) {
+                UNMAPPER.accept(buffer);
+            }
+        }
+    }
+
+    /**
+     * Closes the segment and deletes the segment file.
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    long getId() {
+        return id;
+    }
+
+    long getCreationTime() {
+        return creationTime;
+    }
+
+    int getSize() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Returns the means of releasing a mapping, through the cleaner of the direct buffers which is not part of the
+     * public API. If the cleaner is not accessible, the mappings are left to the garbage collector.
+     *
+     * @return the function which releases the mapping of a buffer, or null if the mappings cannot be released
+     */
+    private static Consumer<MappedByteBuffer> createUnmapper() {
+        try {
+            //  Java 9 and later clean a direct buffer through the Unsafe
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Object unsafe = theUnsafe.get(null);
+            return buffer -> invokeQuietly(invokeCleaner, unsafe, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            //  Java 8 exposes the cleaner of a direct buffer instead
+        }
+        try {
+            Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return buffer -> {
+                Object bufferCleaner = invokeQuietly(cleaner, buffer);
+                if (bufferCleaner != null) {
+                    invokeQuietly(clean, bufferCleaner);
+                }
+            };
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Object invokeQuietly(Method method, Object target, Object... arguments) {
+        try {
+            return method.invoke(target, arguments);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            //  the mapping is released by the garbage collector instead
+            return null;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.template;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.appserver.configuration.context.WebAppStatsPublishing;
+import org.wso2.appserver.monitoring.Constants;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Normalizes the request URIs of a context into URI templates, such as /shop/customers/{id}/orders, so that the
+ * requests to the same route can be grouped without the cardinality of the raw request URIs.
+ * <p>
+ * The path of a request URI relative to the context is first matched against the explicit templates of the context,
+ * in which a {name} segment matches any segment and a literal segment is preferred over a {name} one. The paths
+ * which match no template are normalized segment by segment: the numeric, UUID and hash-like segments are replaced
+ * with {@value #ID_SEGMENT}, {@value #UUID_SEGMENT} and {@value #HASH_SEGMENT}, and the other segments are learned
+ * as the literal parts of the routes, in a path trie. The trie is bounded both in its total number of segments and
+ * in the number of distinct literal segments learned at a position, and the literal segments longer than
+ * {@value #MAX_LITERAL_LENGTH} characters are never learned, so a crawler requesting random URIs cannot grow it: once
+ * a segment cannot be learned, it is replaced with {@value #OTHER_SEGMENT} and the rest of the path is dropped.
+ * <p>
+ * The templates are held by the nodes of the tries, so normalizing a request URI creates no template string.
+ *
+ * @since 6.0.0
+ */
+public class UriTemplateNormalizer {
+    private static final Log LOG = LogFactory.getLog(UriTemplateNormalizer.class);
+    static final String ID_SEGMENT = "{id}";
+    static final String UUID_SEGMENT = "{uuid}";
+    static final String HASH_SEGMENT = "{hash}";
+    static final String OTHER_SEGMENT = "*";
+    static final int MAX_LITERAL_LENGTH = 64;
+    private static final int UUID_LENGTH = 36;
+    private static final int MIN_HEX_HASH_LENGTH = 16;
+    private static final int MIN_TOKEN_HASH_LENGTH = 20;
+
+    private final String contextPath;
+    private final PatternNode patterns = new PatternNode();
+    private final boolean hasPatterns;
+    private final LearnedNode routes;
+    private final int maxLearnedSegments;
+    private final int maxSegmentValues;
+    private final AtomicInteger learnedSegments = new AtomicInteger();
+
+    /**
+     * Creates a normalizer.
+     *
+     * @param contextPath        the context path, which is kept as the prefix of the templates
+     * @param templates          the explicit templates of the paths relative to the context, such as
+     *                           /customers/{customerId}/orders
+     * @param maxLearnedSegments the maximum number of path segments learned
+     * @param maxSegmentValues   the maximum number of distinct literal segments learned at a segment position
+     */
+    public UriTemplateNormalizer(String contextPath, List<String> templates, int maxLearnedSegments,
+            int maxSegmentValues) {
+        if (maxLearnedSegments <= 0 || maxSegmentValues <= 0) {
+            throw new IllegalArgumentException("The URI template bounds must be positive: " + maxLearnedSegments +
+                    ", " + maxSegmentValues);
+        }
+        this.contextPath = (contextPath != null) ? contextPath : "";
+        this.routes = new LearnedNode(this.contextPath);
+        this.maxLearnedSegments = maxLearnedSegments;
+        this.maxSegmentValues = maxSegmentValues;
+        boolean hasPatterns = false;
+        for (String template : templates) {
+            String trimmed = template.trim();
+            if (!trimmed.startsWith("/")) {
+                LOG.warn("Ignoring the URI template " + trimmed + ", which does not start with /.");
+                continue;
+            }
+            PatternNode node = patterns;
+            for (String segment : split(trimmed)) {
+                node = node.getOrAddChild(segment);
+            }
+            node.template = this.contextPath + trimmed;
+            hasPatterns = true;
+        }
+        this.hasPatterns = hasPatterns;
+    }
+
+    /**
+     * Creates the normalizer defined in the context level configuration.
+     *
+     * @param contextPath   the context path
+     * @param configuration the URI template configuration of the context, may be null
+     * @return the normalizer
+     */
+    public static UriTemplateNormalizer fromConfiguration(String contextPath,
+            WebAppStatsPublishing.UriTemplates configuration) {
+        Optional<WebAppStatsPublishing.UriTemplates> uriTemplates = Optional.ofNullable(configuration);
+        return new UriTemplateNormalizer(contextPath, uriTemplates
+                .map(WebAppStatsPublishing.UriTemplates::getTemplates)
+                .orElse(Collections.emptyList()), uriTemplates
+                .map(WebAppStatsPublishing.UriTemplates::getMaxLearnedSegments)
+                .orElse(Constants.DEFAULT_URI_TEMPLATE_MAX_SEGMENTS), uriTemplates
+                .map(WebAppStatsPublishing.UriTemplates::getMaxSegmentValues)
+                .orElse(Constants.DEFAULT_URI_TEMPLATE_MAX_SEGMENT_VALUES));
+    }
+
+    /**
+     * Normalizes a request URI into its URI template.
+     *
+     * @param requestURI the request URI, including the context path
+     * @return the URI template, or null if there is no request URI
+     */
+    public String normalize(String requestURI) {
+        if (requestURI == null) {
+            return null;
+        }
+        int start = requestURI.startsWith(contextPath) ? contextPath.length() : 0;
+        if (start == requestURI.length() || requestURI.charAt(start) != '/') {
+            return routes.getTemplate();
+        }
+        String[] segments = split(requestURI.substring(start));
+        if (hasPatterns) {
+            String template = match(patterns, segments, 0);
+            if (template != null) {
+                return template;
+            }
+        }
+        LearnedNode node = routes;
+        for (String segment : segments) {
+            String placeholder = getPlaceholder(segment);
+            LearnedNode child = node.getChild((placeholder != null) ? placeholder : segment);
+            if (child == null) {
+                child = learn(node, (placeholder != null) ? placeholder : segment, placeholder != null);
+                if (child == null) {
+                    return node.getOverflowTemplate();
+                }
+            }
+            node = child;
+        }
+        return node.getTemplate();
+    }
+
+    /**
+     * Returns the number of path segments learned.
+     *
+     * @return the number of segments in the trie of the learned routes
+     */
+    int getLearnedCount() {
+        return learnedSegments.get();
+    }
+
+    /**
+     * Matches the segments of a path against the explicit templates, from the given segment on.
+     *
+     * @param node     the node of the templates matching the previous segments
+     * @param segments the segments of the path
+     * @param index    the index of the segment to be matched
+     * @return the matching template, or null if none matches
+     */
+    private static String match(PatternNode node, String[] segments, int index) {
+        if (index == segments.length) {
+            return node.template;
+        }
+        PatternNode literal = node.literals.get(segments[index]);
+        if (literal != null) {
+            String template = match(literal, segments, index + 1);
+            if (template != null) {
+                return template;
+            }
+        }
+        return (node.variable != null) ? match(node.variable, segments, index + 1) : null;
+    }
+
+    /**
+     * Learns a segment as a child of the given node, unless the bounds of the trie are reached.
+     *
+     * @param node        the node of the previous segments
+     * @param key         the segment, or the placeholder replacing it
+     * @param placeholder true if the key is a placeholder, which is not counted as a distinct literal segment
+     * @return the node of the segment, or null if it cannot be learned
+     */
+    private LearnedNode learn(LearnedNode node, String key, boolean placeholder) {
+        if (!placeholder && (key.length() > MAX_LITERAL_LENGTH || node.literals.get() >= maxSegmentValues)) {
+            return null;
+        }
+        if (learnedSegments.incrementAndGet() > maxLearnedSegments) {
+            learnedSegments.decrementAndGet();
+            return null;
+        }
+        LearnedNode child = new LearnedNode(node.path + "/" + key);
+        LearnedNode existing = node.children.putIfAbsent(key, child);
+        if (existing != null) {
+            learnedSegments.decrementAndGet();
+            return existing;
+        }
+        if (!placeholder) {
+            node.literals.incrementAndGet();
+        }
+        return child;
+    }
+
+    /**
+     * Splits a path starting with / into its segments, without their path parameters such as the session ID.
+     *
+     * @param path the path
+     * @return the segments of the path, the last one being empty if the path ends with /
+     */
+    private static String[] split(String path) {
+        int count = 0;
+        for (int index = 0; index < path.length(); index++) {
+            if (path.charAt(index) == '/') {
+                count++;
+            }
+        }
+        String[] segments = new String[count];
+        int start = 1;
+        for (int index = 0; index < count; index++) {
+            int next = path.indexOf('/', start);
+            int end = (next < 0) ? path.length() : next;
+            int parameters = path.indexOf(';', start);
+            segments[index] = path.substring(start, (parameters >= 0 && parameters < end) ? parameters : end);
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    /**
+     * Returns the placeholder replacing a segment, if it is an identifier.
+     *
+     * @param segment the segment
+     * @return {@value #ID_SEGMENT} for numeric segments, {@value #UUID_SEGMENT} for UUIDs, {@value #HASH_SEGMENT}
+     * for long hexadecimal or random looking tokens, or null if the segment is not an identifier
+     */
+    static String getPlaceholder(String segment) {
+        int length = segment.length();
+        if (length == 0) {
+            return null;
+        }
+        boolean numeric = true;
+        boolean hex = true;
+        boolean token = true;
+        boolean digit = false;
+        boolean lowerCase = false;
+        boolean upperCase = false;
+        for (int index = 0; index < length && token; index++) {
+            char character = segment.charAt(index);
+            if (character >= '0' && character <= '9') {
+                digit = true;
+            } else if (character >= 'a' && character <= 'z') {
+                lowerCase = true;
+                numeric = false;
+                hex &= character <= 'f';
+            } else if (character >= 'A' && character <= 'Z') {
+                upperCase = true;
+                numeric = false;
+                hex &= character <= 'F';
+            } else {
+                numeric = false;
+                hex = false;
+                token = character == '-' || character == '_';
+            }
+        }
+        if (numeric) {
+            return ID_SEGMENT;
+        }
+        if (isUUID(segment)) {
+            return UUID_SEGMENT;
+        }
+        if ((hex && length >= MIN_HEX_HASH_LENGTH)
+                || (token && length >= MIN_TOKEN_HASH_LENGTH && digit && lowerCase && upperCase)) {
+            return HASH_SEGMENT;
+        }
+        return null;
+    }
+
+    private static boolean isUUID(String segment) {
+        if (segment.length() != UUID_LENGTH) {
+            return false;
+        }
+        for (int index = 0; index < UUID_LENGTH; index++) {
+            char character = segment.charAt(index);
+            boolean valid = (index == 8 || index == 13 || index == 18 || index == 23) ? character == '-'
+                    : (character >= '0' && character <= '9') || (character >= 'a' && character <= 'f')
+                    || (character >= 'A' && character <= 'F');
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A node of the explicit templates, whose {name} segments share a single variable child.
+     */
+    private static class PatternNode {
+        private final Map<String, PatternNode> literals = new HashMap<>();
+        private PatternNode variable;
+        private String template;
+
+        PatternNode getOrAddChild(String segment) {
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                if (variable == null) {
+                    variable = new PatternNode();
+                }
+                return variable;
+            }
+            return literals.computeIfAbsent(segment, key -> new PatternNode());
+        }
+    }
+
+    /**
+     * A node of the learned routes, holding the template of the path up to its segment.
+     */
+    private static class LearnedNode {
+        private final Map<String, LearnedNode> children = new ConcurrentHashMap<>();
+        private final AtomicInteger literals = new AtomicInteger();
+        private final String path;
+        private final String template;
+        private volatile String overflowTemplate;
+
+        LearnedNode(String path) {
+            this.path = path;
+            this.template = path.isEmpty() ? "/" : path;
+        }
+
+        LearnedNode getChild(String key) {
+            return children.get(key);
+        }
+
+        String getTemplate() {
+            return template;
+        }
+
+        String getOverflowTemplate() {
+            if (overflowTemplate == null) {
+                overflowTemplate = path + "/" + OTHER_SEGMENT;
+            }
+            return overflowTemplate;
+        }
+    }
+}
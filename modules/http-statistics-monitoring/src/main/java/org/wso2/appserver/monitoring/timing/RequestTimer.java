@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.timing;
+
+import org.apache.catalina.connector.Request;
+import org.wso2.appserver.monitoring.profile.StatsProfile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the phases of the request being processed by the current thread, using {@link System#nanoTime()}.
+ * <p>
+ * The phases of a request are:
+ * <ul>
+ * <li>queue - from the time the connector started processing the request to the time it reached the valve, which
+ * Tomcat only records with millisecond resolution</li>
+ * <li>pipeline - the time spent in the valves, before and after the servlet</li>
+ * <li>servlet - the time spent in the filters and the servlet of the web application</li>
+ * <li>commit - the time taken to commit and flush the response once the valves returned</li>
+ * </ul>
+ * The response time spans the pipeline, servlet and commit phases. Each thread owns a single timer which is reused
+ * for every request it processes, so timing a request creates no objects. The timer also carries the statistics
+ * publishing profile the request was started with, so that the profile is resolved once per request. The request
+ * and its profile are released once the timer is stopped, detached or cleared, so that an idle thread keeps neither.
+ * <p>
+ * An asynchronous request is still being processed once the valves return, so its timing is detached from the
+ * thread and stopped by the thread which completes it. As its response is written during the asynchronous
+ * processing, the servlet phase of such a request lasts until it completes and its commit phase is not timed.
+ *
+ * @since 6.0.0
+ */
+public final class RequestTimer {
+    /**
+     * The value of a phase which was not timed.
+     */
+    public static final long NOT_TIMED = -1;
+
+    private static final ThreadLocal<RequestTimer> TIMERS = ThreadLocal.withInitial(RequestTimer::new);
+
+    private Request request;
+    private StatsProfile profile;
+    private long startTime;
+    private long valveStart;
+    private long servletStart;
+    private long servletEnd;
+    private long valveEnd;
+    private boolean servletInvoked;
+    private boolean valveEnded;
+    private boolean asynchronous;
+
+    private long responseTime;
+    private long queueTime;
+    private long pipelineTime;
+    private long servletTime;
+    private long commitTime;
+
+    private RequestTimer() {
+    }
+
+    /**
+     * Returns the timer of the current thread.
+     *
+     * @return the timer of the current thread
+     */
+    public static RequestTimer get() {
+        return TIMERS.get();
+    }
+
+    /**
+     * Starts timing a request, when it reaches the valve.
+     *
+     * @param request the Request object of client
+     * @param profile the statistics publishing profile of the request context
+     */
+    public void start(Request request, StatsProfile profile) {
+        this.request = request;
+        this.profile = profile;
+        startTime = System.currentTimeMillis();
+        valveStart = System.nanoTime();
+        servletInvoked = false;
+        valveEnded = false;
+        org.apache.coyote.Request coyoteRequest = request.getCoyoteRequest();
+        long connectorStartTime = (coyoteRequest != null) ? coyoteRequest.getStartTime() : 0;
+        queueTime = (connectorStartTime > 0) ?
+                TimeUnit.MILLISECONDS.toMicros(Math.max(startTime - connectorStartTime, 0)) : NOT_TIMED;
+    }
+
+    /**
+     * Returns whether this timer is timing the given request.
+     *
+     * @param request the Request object of client
+     * @return true if the request is being timed, false otherwise
+     */
+    public boolean isTiming(Request request) {
+        return this.request != null && this.request == request;
+    }
+
+    /**
+     * Marks the start of the servlet phase.
+     */
+    public void servletStarted() {
+        servletStart = System.nanoTime();
+        servletInvoked = true;
+    }
+
+    /**
+     * Marks the end of the servlet phase.
+     */
+    public void servletEnded() {
+        servletEnd = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of the pipeline phase, when the valves returned.
+     */
+    public void valveEnded() {
+        valveEnd = System.nanoTime();
+        valveEnded = true;
+    }
+
+    /**
+     * Detaches the timing of an asynchronous request from the current thread, once the valves returned, so that the
+     * current thread is free to time its next request.
+     *
+     * @return a timer which carries on timing the request, to be stopped once the request completes
+     */
+    public RequestTimer detach() {
+        RequestTimer detached = new RequestTimer();
+        detached.request = request;
+        detached.profile = profile;
+        detached.startTime = startTime;
+        detached.valveStart = valveStart;
+        detached.servletStart = servletStart;
+        detached.servletEnd = servletEnd;
+        detached.valveEnd = valveEnd;
+        detached.servletInvoked = servletInvoked;
+        detached.valveEnded = valveEnded;
+        detached.queueTime = queueTime;
+        detached.asynchronous = true;
+        request = null;
+        profile = null;
+        return detached;
+    }
+
+    /**
+     * Stops timing the request and computes the durations of its phases. The timer releases the request and its
+     * profile, so the profile has to be obtained before the timer is stopped.
+     */
+    public void stop() {
+        long end = System.nanoTime();
+        if (!valveEnded) {
+            valveEnd = end;
+        }
+        responseTime = end - valveStart;
+        //  the asynchronous processing is accounted to the servlet, or to the pipeline if no servlet was reached
+        long asyncTime = asynchronous ? end - valveEnd : 0;
+        commitTime = asynchronous ? NOT_TIMED : toMicros(end - valveEnd);
+        if (servletInvoked) {
+            servletTime = toMicros((servletEnd - servletStart) + asyncTime);
+            pipelineTime = toMicros((servletStart - valveStart) + (valveEnd - servletEnd));
+        } else {
+            servletTime = NOT_TIMED;
+            pipelineTime = toMicros((valveEnd - valveStart) + asyncTime);
+        }
+        request = null;
+        profile = null;
+    }
+
+    /**
+     * Stops timing the request without computing the durations of its phases, releasing the request and its
+     * profile.
+     */
+    public void clear() {
+        request = null;
+        profile = null;
+    }
+
+    /**
+     * Returns the statistics publishing profile of the request being timed.
+     *
+     * @return the profile the request was started with, or null if no request is being timed
+     */
+    public StatsProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Returns the time at which the request reached the valve.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Returns the response time of the stopped request.
+     *
+     * @return the response time in nanoseconds
+     */
+    public long getResponseTime() {
+        return responseTime;
+    }
+
+    /**
+     * Returns the queue phase of the stopped request.
+     *
+     * @return the queue time in microseconds, or {@link #NOT_TIMED}
+     */
+    public long getQueueTime() {
+        return queueTime;
+    }
+
+    /**
+     * Returns the pipeline phase of the stopped request.
+     *
+     * @return the pipeline time in microseconds
+     */
+    public long getPipelineTime() {
+        return pipelineTime;
+    }
+
+    /**
+     * Returns the servlet phase of the stopped request.
+     *
+     * @return the servlet time in microseconds, or {@link #NOT_TIMED} if the request did not reach a servlet
+     */
+    public long getServletTime() {
+        return servletTime;
+    }
+
+    /**
+     * Returns the commit phase of the stopped request.
+     *
+     * @return the commit time in microseconds
+     */
+    public long getCommitTime() {
+        return commitTime;
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.useragent;
+
+/**
+ * The classification of a {@code User-Agent}: the browser family, the operating system and the device class.
+ *
+ * @since 6.0.0
+ */
+public class UserAgent {
+    public static final String OTHER = "Other";
+    public static final String DESKTOP = "Desktop";
+    public static final String MOBILE = "Mobile";
+    public static final String TABLET = "Tablet";
+    public static final String BOT = "Bot";
+
+    private final String browserFamily;
+    private final String operatingSystem;
+    private final String deviceClass;
+
+    /**
+     * Creates a classification.
+     *
+     * @param browserFamily   the browser family, such as Chrome, or the name of the client library or crawler
+     * @param operatingSystem the operating system family, such as Windows
+     * @param deviceClass     one of {@link #DESKTOP}, {@link #MOBILE}, {@link #TABLET}, {@link #BOT} or
+     *                        {@link #OTHER}
+     */
+    public UserAgent(String browserFamily, String operatingSystem, String deviceClass) {
+        this.browserFamily = browserFamily;
+        this.operatingSystem = operatingSystem;
+        this.deviceClass = deviceClass;
+    }
+
+    public String getBrowserFamily() {
+        return browserFamily;
+    }
+
+    public String getOperatingSystem() {
+        return operatingSystem;
+    }
+
+    public String getDeviceClass() {
+        return deviceClass;
+    }
+
+    @Override
+    public String toString() {
+        return browserFamily + " on " + operatingSystem + " (" + deviceClass + ")";
+    }
+}
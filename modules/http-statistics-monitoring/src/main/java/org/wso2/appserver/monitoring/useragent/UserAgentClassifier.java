@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.useragent;
+
+import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+import org.wso2.appserver.monitoring.Constants;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classifies the {@code User-Agent}s of the requests, keeping the classifications in a bounded cache keyed by the
+ * raw {@code User-Agent}, so that each distinct {@code User-Agent} is parsed once.
+ * <p>
+ * The cache is made of two generations: the classifications are added to the current generation, and once it
+ * holds half of the cache size, it becomes the previous generation and a new generation is started. The
+ * classifications found in the previous generation are moved to the current one, so the {@code User-Agent}s which
+ * keep being seen are kept, while the others are discarded with the previous generation. This bounds the cache
+ * without the bookkeeping of a least recently used eviction on every lookup. The {@code User-Agent}s longer than
+ * {@value #MAX_CACHED_LENGTH} characters are classified without being cached.
+ *
+ * @since 6.0.0
+ */
+public class UserAgentClassifier {
+    static final int MAX_CACHED_LENGTH = 512;
+
+    private final int generationSize;
+    private final boolean publishRawUserAgent;
+    private volatile Map<String, UserAgent> current;
+    private volatile Map<String, UserAgent> previous;
+
+    /**
+     * Creates a classifier.
+     *
+     * @param cacheSize           the maximum number of classifications kept in the cache
+     * @param publishRawUserAgent true if the raw {@code User-Agent} is still published along with its classification
+     */
+    public UserAgentClassifier(int cacheSize, boolean publishRawUserAgent) {
+        if (cacheSize < 2) {
+            throw new IllegalArgumentException("The user agent cache size must be at least 2: " + cacheSize);
+        }
+        this.generationSize = cacheSize / 2;
+        this.publishRawUserAgent = publishRawUserAgent;
+        this.current = new ConcurrentHashMap<>();
+        this.previous = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Creates the classifier defined in the server level configuration.
+     *
+     * @param configuration the user agent classification configuration, may be null
+     * @return the classifier, or null if the user agents are not classified
+     */
+    public static UserAgentClassifier fromConfiguration(
+            AppServerStatsPublishing.UserAgentClassification configuration) {
+        Optional<AppServerStatsPublishing.UserAgentClassification> classification = Optional.ofNullable(configuration);
+        if (!classification.map(AppServerStatsPublishing.UserAgentClassification::isEnabled).orElse(false)) {
+            return null;
+        }
+        return new UserAgentClassifier(classification
+                .map(AppServerStatsPublishing.UserAgentClassification::getCacheSize)
+                .orElse(Constants.DEFAULT_USER_AGENT_CACHE_SIZE), classification
+                .map(AppServerStatsPublishing.UserAgentClassification::isPublishRawUserAgent)
+                .orElse(true));
+    }
+
+    /**
+     * Classifies a {@code User-Agent}.
+     *
+     * @param userAgent the value of the {@code User-Agent} header, may be null
+     * @return the classification, or null if there is no {@code User-Agent}
+     */
+    public UserAgent classify(String userAgent) {
+        if (userAgent == null || userAgent.isEmpty()) {
+            return null;
+        }
+        if (userAgent.length() > MAX_CACHED_LENGTH) {
+            return UserAgentParser.parse(userAgent);
+        }
+        Map<String, UserAgent> generation = current;
+        UserAgent classification = generation.get(userAgent);
+        if (classification == null) {
+            classification = previous.get(userAgent);
+            if (classification == null) {
+                classification = UserAgentParser.parse(userAgent);
+            }
+            generation.put(userAgent, classification);
+            if (generation.size() >= generationSize) {
+                rotate(generation);
+            }
+        }
+        return classification;
+    }
+
+    public boolean isPublishRawUserAgent() {
+        return publishRawUserAgent;
+    }
+
+    /**
+     * Returns the number of classifications in the cache.
+     *
+     * @return the number of classifications in both generations, some of which may be counted twice
+     */
+    int getCachedCount() {
+        return current.size() + previous.size();
+    }
+
+    /**
+     * Starts a new generation, unless another thread already did.
+     */
+    private synchronized void rotate(Map<String, UserAgent> full) {
+        if (current == full) {
+            previous = full;
+            current = new ConcurrentHashMap<>();
+        }
+    }
+}
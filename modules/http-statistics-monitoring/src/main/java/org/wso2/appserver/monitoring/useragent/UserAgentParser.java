@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.useragent;
+
+import java.util.Locale;
+
+/**
+ * Classifies a {@code User-Agent} by the tokens it contains.
+ * <p>
+ * The tokens are matched in order, the more specific first: the browsers based on Chrome also report Chrome and
+ * Safari, and Chrome also reports Safari, so for example Edge must be matched before Chrome, itself matched before
+ * Safari. The crawlers and the client libraries, which usually identify themselves in the first token, are matched
+ * first.
+ *
+ * @since 6.0.0
+ */
+class UserAgentParser {
+    private static final String[][] BOTS = { { "googlebot", "Googlebot" }, { "bingbot", "Bingbot" },
+            { "yandexbot", "YandexBot" }, { "baiduspider", "Baiduspider" }, { "duckduckbot", "DuckDuckBot" },
+            { "slurp", "Yahoo! Slurp" }, { "facebookexternalhit", "Facebook" }, { "bot", "Other Bot" },
+            { "crawler", "Other Bot" }, { "spider", "Other Bot" } };
+    private static final String[][] CLIENTS = { { "curl/", "curl" }, { "Wget/", "Wget" },
+            { "PostmanRuntime/", "Postman" }, { "Apache-HttpClient/", "Apache HttpClient" }, { "okhttp/", "OkHttp" },
+            { "python-requests/", "Python Requests" }, { "Python-urllib/", "Python urllib" },
+            { "Go-http-client/", "Go HTTP Client" }, { "Java/", "Java" } };
+    private static final String[][] BROWSERS = { { "Edg/", "Edge" }, { "EdgA/", "Edge" }, { "EdgiOS/", "Edge" },
+            { "Edge/", "Edge" }, { "OPR/", "Opera" }, { "Opera", "Opera" }, { "SamsungBrowser/", "Samsung Internet" },
+            { "YaBrowser/", "Yandex Browser" }, { "UCBrowser/", "UC Browser" }, { "Vivaldi/", "Vivaldi" },
+            { "FxiOS/", "Firefox" }, { "Firefox/", "Firefox" }, { "CriOS/", "Chrome" }, { "Chromium/", "Chromium" },
+            { "Chrome/", "Chrome" }, { "Trident/", "Internet Explorer" }, { "MSIE ", "Internet Explorer" },
+            { "Version/", "Safari" } };
+    private static final String[][] OPERATING_SYSTEMS = { { "Windows Phone", "Windows Phone" },
+            { "Windows", "Windows" }, { "iPhone", "iOS" }, { "iPad", "iOS" }, { "iPod", "iOS" },
+            { "Mac OS X", "Mac OS X" }, { "Macintosh", "Mac OS X" }, { "CrOS", "Chrome OS" },
+            { "Android", "Android" }, { "BlackBerry", "BlackBerry OS" }, { "BB10", "BlackBerry OS" },
+            { "Ubuntu", "Ubuntu" }, { "Linux", "Linux" }, { "FreeBSD", "FreeBSD" } };
+    private static final String[] TABLETS = { "iPad", "Tablet", "Kindle", "Silk/", "PlayBook" };
+    private static final String[] MOBILES = { "Mobi", "iPhone", "iPod", "Android", "Windows Phone", "BlackBerry",
+            "BB10", "Opera Mini" };
+    private static final String[] DESKTOPS = { "Windows NT", "Macintosh", "X11", "CrOS", "Linux" };
+
+    /**
+     * Classifies a {@code User-Agent}.
+     *
+     * @param userAgent the value of the {@code User-Agent} header
+     * @return the classification
+     */
+    static UserAgent parse(String userAgent) {
+        String bot = find(BOTS, userAgent.toLowerCase(Locale.ENGLISH));
+        if (bot != null) {
+            return new UserAgent(bot, UserAgent.OTHER, UserAgent.BOT);
+        }
+        String operatingSystem = find(OPERATING_SYSTEMS, userAgent);
+        if (operatingSystem == null) {
+            operatingSystem = UserAgent.OTHER;
+        }
+        String client = find(CLIENTS, userAgent);
+        if (client != null) {
+            return new UserAgent(client, operatingSystem, UserAgent.OTHER);
+        }
+        String browser = find(BROWSERS, userAgent);
+        if (browser == null) {
+            browser = UserAgent.OTHER;
+        }
+        return new UserAgent(browser, operatingSystem, getDeviceClass(userAgent));
+    }
+
+    private static String getDeviceClass(String userAgent) {
+        //  Android tablets differ from Android phones by not reporting Mobile
+        if (contains(userAgent, TABLETS) || userAgent.contains("Android") && !userAgent.contains("Mobile")) {
+            return UserAgent.TABLET;
+        }
+        if (contains(userAgent, MOBILES)) {
+            return UserAgent.MOBILE;
+        }
+        if (contains(userAgent, DESKTOPS)) {
+            return UserAgent.DESKTOP;
+        }
+        return UserAgent.OTHER;
+    }
+
+    private static String find(String[][] rules, String userAgent) {
+        for (String[] rule : rules) {
+            if (userAgent.contains(rule[0])) {
+                return rule[1];
+            }
+        }
+        return null;
+    }
+
+    private static boolean contains(String userAgent, String[] tokens) {
+        for (String token : tokens) {
+            if (userAgent.contains(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -17,50 +17,79 @@
  */
 package org.wso2.appserver.monitoring.utils;
 
-import org.apache.catalina.connector.Request;
-import org.apache.catalina.connector.Response;
-import org.apache.commons.lang3.StringUtils;
+import org.apache.catalina.Context;
 import org.wso2.appserver.monitoring.Constants;
 import org.wso2.appserver.monitoring.exceptions.StatPublisherException;
+import org.wso2.appserver.monitoring.geoip.GeoIpDatabase;
+import org.wso2.appserver.monitoring.geoip.GeoLocation;
+import org.wso2.appserver.monitoring.template.UriTemplateNormalizer;
+import org.wso2.appserver.monitoring.useragent.UserAgent;
+import org.wso2.appserver.monitoring.useragent.UserAgentClassifier;
 import org.wso2.carbon.databridge.commons.Event;
 
-import java.security.Principal;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.stream.Collectors;
-import javax.servlet.http.HttpSession;
 
 /**
  * Utility class to create an Event to be published by the DataPublisher.
+ * <p>
+ * The context invariant parts of an Event are kept in an {@link EventTemplate} per {@code Context}, so building an
+ * Event only allocates the Event, its exact-size payload array and the header strings.
  *
  * @since 6.0.0
  */
 public class EventBuilder {
+    private static final int PAYLOAD_SIZE = 37;
+    private static final Long[] STATUS_CODES = new Long[1000];
 
-    private static Map<String, String> arbitraryData;
+    private static volatile Map<String, String> arbitraryData;
+
+    static {
+        for (int index = 0; index < STATUS_CODES.length; index++) {
+            STATUS_CODES[index] = (long) index;
+        }
+    }
 
     /**
-     * Creates an Event to be published by the DataPublisher.
+     * Creates an Event to be published by the DataPublisher from the recorded request data.
      *
-     * @param streamId     unique ID of the event stream definition deployed in DAS
-     * @param request      the Request object of client
-     * @param response     the Response object of client
-     * @param startTime    the time at which the valve is invoked
-     * @param responseTime the time that is taken for the client to receive a response
+     * @param streamId unique ID of the event stream definition deployed in DAS
+     * @param capture  the recorded data of the request and response
      * @return an Event object populated with data to be published
      * @throws StatPublisherException
      */
-    public static Event buildEvent(String streamId, Request request, Response response, long startTime,
-            long responseTime) throws StatPublisherException {
-        List<Object> payload = buildPayloadData(request, response, startTime, responseTime);
+    public static Event buildEvent(String streamId, RequestCapture capture) throws StatPublisherException {
+        return buildEvent(streamId, capture, null);
+    }
 
-        return new Event(streamId, startTime,
-                new ArrayList<>(Arrays.asList(request.getServerName(), request.getLocalName())).toArray(), null,
-                payload.toArray(), getArbitraryData());
+    /**
+     * Creates an Event to be published by the DataPublisher from the recorded request data, located in the given
+     * GeoIP database.
+     *
+     * @param streamId unique ID of the event stream definition deployed in DAS
+     * @param capture  the recorded data of the request and response
+     * @param geoIp    the GeoIP database the client address is looked up in, or null if it is not located
+     * @return an Event object populated with data to be published
+     * @throws StatPublisherException
+     */
+    public static Event buildEvent(String streamId, RequestCapture capture, GeoIpDatabase geoIp)
+            throws StatPublisherException {
+        EventTemplate template = capture.getProfile().getTemplate();
+        GeoLocation location = (geoIp != null) ? geoIp.lookup(capture.getClientIpAddress()) : null;
+
+        return new Event(streamId, capture.getStartTime(),
+                template.getMetaData(capture.getServerName(), capture.getLocalName()), null,
+                buildPayloadData(capture, template, location), template.getArbitraryData());
+    }
+
+    /**
+     * Creates the Event template of the given context.
+     *
+     * @param context the context of the requests
+     * @return the Event template of the context
+     */
+    public static EventTemplate createTemplate(Context context) {
+        return new EventTemplate(context, getArbitraryData());
     }
 
     /**
@@ -89,144 +118,69 @@ public class EventBuilder {
     /**
      * Creates the payload.
      *
-     * @param request      the Request object of client
-     * @param response     the Response object of client
-     * @param startTime    the time at which the valve is invoked
-     * @param responseTime the time that is taken for the client to receive a response
-     * @return a list containing all payload data that were extracted from the request and response
+     * @param capture  the recorded data of the request and response
+     * @param template the Event template of the request context
+     * @param location the location of the client address, or null if it is not known
+     * @return an array containing all payload data that were extracted from the request and response
      */
-    private static List<Object> buildPayloadData(Request request, Response response, long startTime,
-            long responseTime) {
-        List<Object> payload = new ArrayList<>();
-        final String forwardSlash = "/";
-
-        Optional.ofNullable(request.getRequestURI())
-                .map(String::trim)
-                .ifPresent(requestedURI -> {
-                    String[] requestedUriParts = requestedURI.split(forwardSlash);
-                    if (!forwardSlash.equals(requestedURI)) {
-                        payload.add((requestedUriParts[1]));
-                    } else {
-                        payload.add((forwardSlash));
-                    }
-                });
-
-        String webappServletVersion = request.getContext().getEffectiveMajorVersion() + "." +
-                request.getContext().getEffectiveMinorVersion();
-
-        payload.add(webappServletVersion);
-        payload.add(extractUsername(request));
-        payload.add(request.getRequestURI());
-        payload.add(startTime);
-        payload.add(request.getPathInfo());
-        payload.add(Constants.APP_TYPE);
-        payload.add(request.getContext().getDisplayName());
-        payload.add(extractSessionId(request));
-        payload.add(request.getMethod());
-        payload.add(request.getContentType());
-        payload.add(response.getContentType());
-        payload.add((long) response.getStatus());
-        payload.add(getClientIpAddress(request));
-        payload.add(request.getHeader(Constants.REFERRER));
-        payload.add(request.getHeader(Constants.USER_AGENT));
-        payload.add(request.getHeader(Constants.HOST));
-        payload.add(request.getRemoteUser());
-        payload.add(request.getAuthType());
-        payload.add(responseTime);
-        payload.add((long) request.getContentLength());
-        payload.add((long) response.getContentLength());
-        payload.add(getRequestHeaders(request));
-        payload.add(getResponseHeaders(response));
-        payload.add(request.getLocale().getLanguage());
+    private static Object[] buildPayloadData(RequestCapture capture, EventTemplate template, GeoLocation location) {
+        Object[] payload = new Object[PAYLOAD_SIZE];
+        int index = 0;
+        UserAgentClassifier userAgentClassifier = capture.getProfile().getUserAgentClassifier();
+        UserAgent userAgent = (userAgentClassifier != null) ? userAgentClassifier.classify(capture.getUserAgent()) :
+                null;
+        UriTemplateNormalizer uriTemplateNormalizer = capture.getProfile().getUriTemplateNormalizer();
+
+        payload[index++] = template.getAppName(capture.getRequestURI());
+        payload[index++] = template.getServletVersion();
+        payload[index++] = capture.getUsername();
+        payload[index++] = capture.getRequestURI();
+        payload[index++] = capture.getStartTime();
+        payload[index++] = capture.getPathInfo();
+        payload[index++] = template.getAppType();
+        payload[index++] = template.getDisplayName();
+        payload[index++] = capture.getSessionId();
+        payload[index++] = capture.getMethod();
+        payload[index++] = capture.getRequestContentType();
+        payload[index++] = capture.getResponseContentType();
+        payload[index++] = toLong(capture.getStatus());
+        payload[index++] = capture.getClientIpAddress();
+        payload[index++] = capture.getReferrer();
+        payload[index++] = (userAgentClassifier == null || userAgentClassifier.isPublishRawUserAgent()) ?
+                capture.getUserAgent() : null;
+        payload[index++] = capture.getHost();
+        payload[index++] = capture.getRemoteUser();
+        payload[index++] = capture.getAuthType();
+        payload[index++] = capture.getResponseTime();
+        payload[index++] = capture.getRequestContentLength();
+        payload[index++] = capture.getResponseContentLength();
+        payload[index++] = capture.getRequestHeaders();
+        payload[index++] = capture.getResponseHeaders();
+        payload[index++] = capture.getLanguage();
+        payload[index++] = capture.getSamplingWeight();
+        payload[index++] = capture.getResponseTimeMicros();
+        payload[index++] = capture.getQueueTime();
+        payload[index++] = capture.getPipelineTime();
+        payload[index++] = capture.getServletTime();
+        payload[index++] = capture.getCommitTime();
+        payload[index++] = (userAgent != null) ? userAgent.getBrowserFamily() : null;
+        payload[index++] = (userAgent != null) ? userAgent.getOperatingSystem() : null;
+        payload[index++] = (userAgent != null) ? userAgent.getDeviceClass() : null;
+        payload[index++] = (location != null) ? location.getCountry() : null;
+        payload[index++] = (location != null) ? location.getRegion() : null;
+        payload[index] = (uriTemplateNormalizer != null) ? uriTemplateNormalizer.normalize(capture.getRequestURI()) :
+                null;
 
         return payload;
     }
 
     /**
-     * Gets all request headers and their corresponding values.
+     * Boxes the HTTP status code, reusing a cached instance for the valid status codes.
      *
-     * @param request the Request object of client
-     * @return a {@link String} containing all request headers and their values
+     * @param status the HTTP status code
+     * @return the boxed status code
      */
-    private static String getRequestHeaders(Request request) {
-        List<String> requestHeaders = new ArrayList<>();
-        Collections.list(request.getHeaderNames())
-                .forEach(header -> {
-                    List<String> values = new ArrayList<>();
-                    values.add(request.getHeader(header));
-                    String tmpString = "(" + StringUtils.join(values, ",") + ")";
-                    requestHeaders.add(header + ":" + tmpString);
-                });
-        return StringUtils.join(requestHeaders, ";");
-    }
-
-    /**
-     * Gets all response headers and their corresponding values.
-     *
-     * @param response the Response object of client
-     * @return a {@link String} containing all response headers and their values
-     */
-    private static String getResponseHeaders(Response response) {
-        List<String> responseHeaders = new ArrayList<>();
-        response.getHeaderNames()
-                .forEach(header -> {
-                    List<String> values = new ArrayList<>();
-                    values.add(response.getHeader(header));
-                    String tmpString = "(" + StringUtils.join(values, ",") + ")";
-                    responseHeaders.add(header + ":" + tmpString);
-                });
-        return StringUtils.join(responseHeaders, ",");
-    }
-
-    /**
-     * Extracts the session ID of the current session associated with the request.
-     *
-     * @param request the Request object of client
-     * @return the session ID of client
-     */
-    private static String extractSessionId(Request request) {
-        HttpSession session = request.getSession(false);
-        //  CXF web services does not have a session id, because they are stateless
-        return (session != null && session.getId() != null) ? session.getId() : "-";
-    }
-
-    /**
-     * Extracts the name of the current authenticated user for the request.
-     *
-     * @param request the Request object of client
-     * @return the username of the current authenticated user
-     */
-    private static String extractUsername(Request request) {
-        String consumerName;
-        Principal principal = request.getUserPrincipal();
-        if (principal != null) {
-            consumerName = principal.getName();
-        } else {
-            consumerName = Constants.ANONYMOUS_USER;
-        }
-        return consumerName;
-    }
-
-    /**
-     * Gets the original client IP address.
-     *
-     * @param request the Request object of client
-     * @return the original IP address of the client
-     */
-    private static String getClientIpAddress(Request request) {
-        List<String> headers = Arrays.
-                asList(Constants.X_FORWARDED_FOR, Constants.PROXY_CLIENT_IP, Constants.WL_PROXY_CLIENT_IP,
-                        Constants.HTTP_CLIENT_IP, Constants.HTTP_X_FORWARDED_FOR);
-
-        for (String header : headers) {
-            String ip = request.getHeader(header);
-            if (ip != null && ip.length() != 0 && !Constants.UNKNOWN.equalsIgnoreCase(ip)) {
-                return ip;
-            } else {
-                return request.getRemoteAddr();
-            }
-        }
-
-        return request.getRemoteAddr();
+    private static Long toLong(int status) {
+        return (status >= 0 && status < STATUS_CODES.length) ? STATUS_CODES[status] : Long.valueOf(status);
     }
 }
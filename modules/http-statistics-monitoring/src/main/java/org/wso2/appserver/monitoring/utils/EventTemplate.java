@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.utils;
+
+import org.apache.catalina.Context;
+import org.wso2.appserver.monitoring.Constants;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The per-context part of an Event, which is computed once for a {@code Context} and shared by all Events built
+ * for the requests to it.
+ * <p>
+ * Apart from the context invariant fields, a template remembers the last meta data and application name it handed
+ * out, so that they are reused instead of being re-created as long as they do not change between requests.
+ *
+ * @since 6.0.0
+ */
+public class EventTemplate {
+    private static final String FORWARD_SLASH = "/";
+
+    private final String servletVersion;
+    private final String displayName;
+    private final Map<String, String> arbitraryData;
+    private volatile Object[] metaData;
+    private volatile String appName;
+
+    /**
+     * Creates the template of the Events for the specified context.
+     *
+     * @param context       the context of the requests
+     * @param arbitraryData the arbitrary data published with every Event
+     */
+    public EventTemplate(Context context, Map<String, String> arbitraryData) {
+        this.servletVersion = context.getEffectiveMajorVersion() + "." + context.getEffectiveMinorVersion();
+        this.displayName = context.getDisplayName();
+        this.arbitraryData = arbitraryData;
+        this.metaData = new Object[] { null, null };
+    }
+
+    public String getServletVersion() {
+        return servletVersion;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String getAppType() {
+        return Constants.APP_TYPE;
+    }
+
+    public Map<String, String> getArbitraryData() {
+        return arbitraryData;
+    }
+
+    /**
+     * Returns the meta data array holding the server name and the local name.
+     * <p>
+     * The returned array is shared between Events and must not be modified.
+     *
+     * @param serverName the host name of the server to which the request was sent
+     * @param localName  the host name of the interface on which the request was received
+     * @return the meta data array
+     */
+    public Object[] getMetaData(String serverName, String localName) {
+        Object[] current = metaData;
+        if (Objects.equals(current[0], serverName) && Objects.equals(current[1], localName)) {
+            return current;
+        }
+        current = new Object[] { serverName, localName };
+        metaData = current;
+        return current;
+    }
+
+    /**
+     * Returns the application name, which is the first segment of the request URI.
+     *
+     * @param requestURI the request URI
+     * @return the first segment of the request URI, "/" for the root URI or null if the URI is null
+     */
+    public String getAppName(String requestURI) {
+        if (requestURI == null) {
+            return null;
+        }
+        String uri = requestURI.trim();
+        if (FORWARD_SLASH.equals(uri)) {
+            return FORWARD_SLASH;
+        }
+        int start = uri.indexOf('/') + 1;
+        if (start == 0) {
+            return uri;
+        }
+        int end = uri.indexOf('/', start);
+        int length = ((end < 0) ? uri.length() : end) - start;
+
+        String current = appName;
+        if (current != null && current.length() == length && uri.regionMatches(start, current, 0, length)) {
+            return current;
+        }
+        current = uri.substring(start, start + length);
+        appName = current;
+        return current;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.utils;
+
+import org.wso2.appserver.configuration.context.WebAppStatsPublishing;
+import org.wso2.appserver.monitoring.Constants;
+
+import java.util.Optional;
+
+/**
+ * The compiled header capture policy of a context, which decides the request and response headers to be published.
+ * <p>
+ * Header names are matched case-insensitively against the configured names without creating any objects.
+ *
+ * @since 6.0.0
+ */
+public class HeaderCapturePolicy {
+    /**
+     * The policy of the contexts which do not define a header capture policy.
+     */
+    public static final HeaderCapturePolicy DEFAULT = new HeaderCapturePolicy(true, true,
+            Constants.DEFAULT_MAX_HEADER_BYTES, null, new String[0], Constants.DEFAULT_REDACTED_HEADERS);
+
+    private final boolean captureRequestHeaders;
+    private final boolean captureResponseHeaders;
+    private final int maxHeaderBytes;
+    private final String[] includeHeaders;
+    private final String[] excludeHeaders;
+    private final String[] redactHeaders;
+
+    /**
+     * Creates a header capture policy.
+     *
+     * @param captureRequestHeaders  true if the request headers are published
+     * @param captureResponseHeaders true if the response headers are published
+     * @param maxHeaderBytes         the maximum size of the encoded request headers or response headers
+     * @param includeHeaders         the only headers to be published, or null to publish all headers
+     * @param excludeHeaders         the headers which are never published
+     * @param redactHeaders          the headers whose values are masked
+     */
+    public HeaderCapturePolicy(boolean captureRequestHeaders, boolean captureResponseHeaders, int maxHeaderBytes,
+            String[] includeHeaders, String[] excludeHeaders, String[] redactHeaders) {
+        this.captureRequestHeaders = captureRequestHeaders;
+        this.captureResponseHeaders = captureResponseHeaders;
+        this.maxHeaderBytes = maxHeaderBytes;
+        this.includeHeaders = includeHeaders;
+        this.excludeHeaders = excludeHeaders;
+        this.redactHeaders = redactHeaders;
+    }
+
+    /**
+     * Compiles the header capture policy defined in the context level configuration.
+     *
+     * @param configuration the header capture configuration of the context, may be null
+     * @return the header capture policy
+     */
+    public static HeaderCapturePolicy fromConfiguration(WebAppStatsPublishing.HeaderCapture configuration) {
+        if (configuration == null) {
+            return DEFAULT;
+        }
+        return new HeaderCapturePolicy(
+                Optional.ofNullable(configuration.isCaptureRequestHeaders()).orElse(true),
+                Optional.ofNullable(configuration.isCaptureResponseHeaders()).orElse(true),
+                Optional.ofNullable(configuration.getMaxHeaderBytes()).orElse(Constants.DEFAULT_MAX_HEADER_BYTES),
+                toArray(configuration.getIncludeHeaders(), null),
+                toArray(configuration.getExcludeHeaders(), new String[0]),
+                toArray(configuration.getRedactHeaders(), Constants.DEFAULT_REDACTED_HEADERS));
+    }
+
+    public boolean isCaptureRequestHeaders() {
+        return captureRequestHeaders;
+    }
+
+    public boolean isCaptureResponseHeaders() {
+        return captureResponseHeaders;
+    }
+
+    public int getMaxHeaderBytes() {
+        return maxHeaderBytes;
+    }
+
+    /**
+     * Returns whether the given header is published.
+     *
+     * @param name the header name
+     * @return true if the header is published, false otherwise
+     */
+    public boolean isCaptured(String name) {
+        if (includeHeaders != null && !contains(includeHeaders, name)) {
+            return false;
+        }
+        return !contains(excludeHeaders, name);
+    }
+
+    /**
+     * Returns whether the value of the given header is masked.
+     *
+     * @param name the header name
+     * @return true if the header value is masked, false otherwise
+     */
+    public boolean isRedacted(String name) {
+        return contains(redactHeaders, name);
+    }
+
+    private static boolean contains(String[] names, String name) {
+        for (String candidate : names) {
+            if (candidate.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] toArray(WebAppStatsPublishing.HeaderNames headerNames, String[] defaultNames) {
+        return Optional.ofNullable(headerNames)
+                .map(WebAppStatsPublishing.HeaderNames::getHeaders)
+                .map(headers -> headers.stream()
+                        .map(String::trim)
+                        .toArray(String[]::new))
+                .orElse(defaultNames);
+    }
+}
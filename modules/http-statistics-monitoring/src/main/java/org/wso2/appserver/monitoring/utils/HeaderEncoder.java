@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.utils;
+
+/**
+ * A reusable encoder of HTTP headers into the "name:(value1,value2)" format, with the headers separated by a fixed
+ * separator.
+ * <p>
+ * The headers are written into a single buffer which never grows beyond the size limit: a header which does not fit
+ * in is left out along with all headers that follow. As header values are ISO-8859-1 strings, the size is counted in
+ * characters, which equals the size in bytes.
+ *
+ * @since 6.0.0
+ */
+public class HeaderEncoder {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final StringBuilder buffer;
+    private final char separator;
+    private int maxLength;
+    private int headerStart;
+    private int valueCount;
+    private boolean overflow;
+    private boolean full;
+
+    /**
+     * Creates an encoder which separates the headers with the given separator.
+     *
+     * @param separator the separator between two headers
+     */
+    public HeaderEncoder(char separator) {
+        this.buffer = new StringBuilder(INITIAL_CAPACITY);
+        this.separator = separator;
+    }
+
+    /**
+     * Discards the encoded headers and sets the size limit of the next headers.
+     *
+     * @param maxLength the maximum size of the encoded headers
+     */
+    public void reset(int maxLength) {
+        buffer.setLength(0);
+        this.maxLength = maxLength;
+        full = (maxLength <= 0);
+    }
+
+    /**
+     * Starts a new header.
+     *
+     * @param name the header name
+     * @return true if the values of the header are to be appended, false if the size limit is reached
+     */
+    public boolean beginHeader(String name) {
+        if (full) {
+            return false;
+        }
+        headerStart = buffer.length();
+        valueCount = 0;
+        //  the separator, the name, ":(" and ")"
+        overflow = (headerStart + ((headerStart > 0) ? 1 : 0) + name.length() + 3 > maxLength);
+        if (overflow) {
+            full = true;
+            return false;
+        }
+        if (headerStart > 0) {
+            buffer.append(separator);
+        }
+        buffer.append(name).append(":(");
+        return true;
+    }
+
+    /**
+     * Appends a value of the current header.
+     *
+     * @param value the header value
+     */
+    public void appendValue(String value) {
+        if (overflow) {
+            return;
+        }
+        int length = (value != null) ? value.length() : 0;
+        //  the preceding comma, the value and ")"
+        if (buffer.length() + ((valueCount > 0) ? 1 : 0) + length + 1 > maxLength) {
+            overflow = true;
+            return;
+        }
+        if (valueCount++ > 0) {
+            buffer.append(',');
+        }
+        if (value != null) {
+            buffer.append(value);
+        }
+    }
+
+    /**
+     * Completes the current header, or discards it if it does not fit in.
+     */
+    public void endHeader() {
+        if (overflow) {
+            buffer.setLength(headerStart);
+            full = true;
+        } else {
+            buffer.append(')');
+        }
+    }
+
+    /**
+     * Returns the number of characters of the encoded headers.
+     *
+     * @return the length of the encoded headers
+     */
+    public int length() {
+        return buffer.length();
+    }
+
+    @Override
+    public String toString() {
+        return buffer.toString();
+    }
+}
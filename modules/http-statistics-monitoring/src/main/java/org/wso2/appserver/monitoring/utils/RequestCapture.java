@@ -0,0 +1,440 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.utils;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.wso2.appserver.monitoring.Constants;
+import org.wso2.appserver.monitoring.profile.StatsProfile;
+import org.wso2.appserver.monitoring.timing.RequestTimer;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpSession;
+
+/**
+ * A fixed-size record of the request and response data required to build an Event.
+ * <p>
+ * Instances are reused: the request thread copies the values out of the {@code Request} and {@code Response}
+ * (which are recycled by Tomcat once the request completes) and the publisher thread later builds the Event from
+ * this record. The headers are encoded into buffers owned by the record, so apart from the references to the copied
+ * values, recording a request allocates only what the servlet API returns while iterating the headers.
+ *
+ * @since 6.0.0
+ */
+public class RequestCapture {
+    private boolean valid;
+    private Context context;
+    private StatsProfile profile;
+    private String serverName;
+    private String localName;
+    private String requestURI;
+    private String pathInfo;
+    private String username;
+    private String sessionId;
+    private String method;
+    private String requestContentType;
+    private String responseContentType;
+    private int status;
+    private String clientIpAddress;
+    private String referrer;
+    private String userAgent;
+    private String host;
+    private String remoteUser;
+    private String authType;
+    private long startTime;
+    private long responseTime;
+    private long requestContentLength;
+    private long responseContentLength;
+    private String language;
+    private double samplingWeight;
+    private long responseTimeMicros;
+    private long queueTime;
+    private long pipelineTime;
+    private long servletTime;
+    private long commitTime;
+
+    private final HeaderEncoder requestHeaders = new HeaderEncoder(';');
+    private final HeaderEncoder responseHeaders = new HeaderEncoder(',');
+
+    /**
+     * Records the data of the given request and response, with the phases timed by the given timer.
+     *
+     * @param request        the Request object of client
+     * @param response       the Response object of client
+     * @param profile        the statistics publishing profile of the request context
+     * @param timer          the stopped timer of the request
+     * @param samplingWeight the number of requests represented by this request
+     */
+    public void capture(Request request, Response response, StatsProfile profile, RequestTimer timer,
+            double samplingWeight) {
+        capture(request, response, profile, timer.getStartTime(),
+                TimeUnit.NANOSECONDS.toMillis(timer.getResponseTime()), samplingWeight);
+        responseTimeMicros = TimeUnit.NANOSECONDS.toMicros(timer.getResponseTime());
+        queueTime = timer.getQueueTime();
+        pipelineTime = timer.getPipelineTime();
+        servletTime = timer.getServletTime();
+        commitTime = timer.getCommitTime();
+    }
+
+    /**
+     * Records the data of the given request and response, without the breakdown of the response time.
+     *
+     * @param request        the Request object of client
+     * @param response       the Response object of client
+     * @param profile        the statistics publishing profile of the request context
+     * @param startTime      the time at which the valve is invoked
+     * @param responseTime   the time that is taken for the client to receive a response
+     * @param samplingWeight the number of requests represented by this request
+     */
+    public void capture(Request request, Response response, StatsProfile profile, long startTime,
+            long responseTime, double samplingWeight) {
+        valid = false;
+        context = request.getContext();
+        this.profile = profile;
+        serverName = request.getServerName();
+        localName = request.getLocalName();
+        requestURI = request.getRequestURI();
+        pathInfo = request.getPathInfo();
+        username = extractUsername(request);
+        sessionId = extractSessionId(request);
+        method = request.getMethod();
+        requestContentType = request.getContentType();
+        responseContentType = response.getContentType();
+        status = response.getStatus();
+        clientIpAddress = profile.getClientAddressResolver().resolve(request);
+        referrer = request.getHeader(Constants.REFERRER);
+        userAgent = request.getHeader(Constants.USER_AGENT);
+        host = request.getHeader(Constants.HOST);
+        remoteUser = request.getRemoteUser();
+        authType = request.getAuthType();
+        this.startTime = startTime;
+        this.responseTime = responseTime;
+        requestContentLength = countBytesRead(request);
+        responseContentLength = countBytesWritten(response);
+        captureRequestHeaders(request, profile.getHeaderPolicy());
+        captureResponseHeaders(response, profile.getHeaderPolicy());
+        Locale locale = request.getLocale();
+        language = (locale != null) ? locale.getLanguage() : null;
+        this.samplingWeight = samplingWeight;
+        responseTimeMicros = TimeUnit.MILLISECONDS.toMicros(responseTime);
+        queueTime = RequestTimer.NOT_TIMED;
+        pipelineTime = RequestTimer.NOT_TIMED;
+        servletTime = RequestTimer.NOT_TIMED;
+        commitTime = RequestTimer.NOT_TIMED;
+        valid = true;
+    }
+
+    /**
+     * Releases the references held by this record, so that they can be garbage collected while the record is idle.
+     */
+    public void clear() {
+        valid = false;
+        context = null;
+        profile = null;
+        requestHeaders.reset(0);
+        responseHeaders.reset(0);
+    }
+
+    /**
+     * Returns whether this record holds a completely captured request.
+     *
+     * @return true if the request was captured without errors, false otherwise
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    public Context getContext() {
+        return context;
+    }
+
+    public StatsProfile getProfile() {
+        return profile;
+    }
+
+    public String getServerName() {
+        return serverName;
+    }
+
+    public String getLocalName() {
+        return localName;
+    }
+
+    public String getRequestURI() {
+        return requestURI;
+    }
+
+    public String getPathInfo() {
+        return pathInfo;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getRequestContentType() {
+        return requestContentType;
+    }
+
+    public String getResponseContentType() {
+        return responseContentType;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getClientIpAddress() {
+        return clientIpAddress;
+    }
+
+    public String getReferrer() {
+        return referrer;
+    }
+
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public String getRemoteUser() {
+        return remoteUser;
+    }
+
+    public String getAuthType() {
+        return authType;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getResponseTime() {
+        return responseTime;
+    }
+
+    public long getRequestContentLength() {
+        return requestContentLength;
+    }
+
+    public long getResponseContentLength() {
+        return responseContentLength;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public double getSamplingWeight() {
+        return samplingWeight;
+    }
+
+    public long getResponseTimeMicros() {
+        return responseTimeMicros;
+    }
+
+    public long getQueueTime() {
+        return queueTime;
+    }
+
+    public long getPipelineTime() {
+        return pipelineTime;
+    }
+
+    public long getServletTime() {
+        return servletTime;
+    }
+
+    public long getCommitTime() {
+        return commitTime;
+    }
+
+    /**
+     * Returns the encoded request headers, separated by ";".
+     *
+     * @return the request headers and their values
+     */
+    public String getRequestHeaders() {
+        return requestHeaders.toString();
+    }
+
+    /**
+     * Returns the encoded response headers, separated by ",".
+     *
+     * @return the response headers and their values
+     */
+    public String getResponseHeaders() {
+        return responseHeaders.toString();
+    }
+
+    /**
+     * Encodes the request headers allowed by the header capture policy, with all values of multi-valued headers.
+     *
+     * @param request      the Request object of client
+     * @param headerPolicy the header capture policy of the request context
+     */
+    private void captureRequestHeaders(Request request, HeaderCapturePolicy headerPolicy) {
+        if (!headerPolicy.isCaptureRequestHeaders()) {
+            requestHeaders.reset(0);
+            return;
+        }
+        requestHeaders.reset(headerPolicy.getMaxHeaderBytes());
+        Enumeration<String> headerNames = request.getHeaderNames();
+        while (headerNames.hasMoreElements()) {
+            String header = headerNames.nextElement();
+            if (!headerPolicy.isCaptured(header)) {
+                continue;
+            }
+            if (!requestHeaders.beginHeader(header)) {
+                break;
+            }
+            if (headerPolicy.isRedacted(header)) {
+                requestHeaders.appendValue(Constants.REDACTED_VALUE);
+            } else {
+                Enumeration<String> values = request.getHeaders(header);
+                while (values.hasMoreElements()) {
+                    requestHeaders.appendValue(values.nextElement());
+                }
+            }
+            requestHeaders.endHeader();
+        }
+    }
+
+    /**
+     * Encodes the response headers allowed by the header capture policy, with all values of multi-valued headers.
+     *
+     * @param response     the Response object of client
+     * @param headerPolicy the header capture policy of the request context
+     */
+    private void captureResponseHeaders(Response response, HeaderCapturePolicy headerPolicy) {
+        if (!headerPolicy.isCaptureResponseHeaders()) {
+            responseHeaders.reset(0);
+            return;
+        }
+        responseHeaders.reset(headerPolicy.getMaxHeaderBytes());
+        //  the names of multi-valued response headers are repeated, one for each value
+        Collection<String> headerNames = response.getHeaderNames();
+        int index = 0;
+        for (String header : headerNames) {
+            if (headerPolicy.isCaptured(header) && !isRepeated(headerNames, header, index)) {
+                if (!responseHeaders.beginHeader(header)) {
+                    break;
+                }
+                if (headerPolicy.isRedacted(header)) {
+                    responseHeaders.appendValue(Constants.REDACTED_VALUE);
+                } else {
+                    for (String value : response.getHeaders(header)) {
+                        responseHeaders.appendValue(value);
+                    }
+                }
+                responseHeaders.endHeader();
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Checks whether the header name at the given position already appears earlier in the header names.
+     *
+     * @param headerNames the header names
+     * @param header      the header name
+     * @param position    the position of the header name
+     * @return true if the header name appears before the given position, false otherwise
+     */
+    private static boolean isRepeated(Collection<String> headerNames, String header, int position) {
+        int index = 0;
+        for (String name : headerNames) {
+            if (index++ == position) {
+                return false;
+            }
+            if (name.equalsIgnoreCase(header)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of bytes of the request body read by the web application, as counted by the connector,
+     * which unlike the Content-Length header is also known for a chunked request body.
+     *
+     * @param request the Request object of client
+     * @return the number of bytes read, or the declared content length if the request has no connector request
+     */
+    static long countBytesRead(Request request) {
+        org.apache.coyote.Request coyoteRequest = request.getCoyoteRequest();
+        return (coyoteRequest != null) ? coyoteRequest.getBytesRead() : request.getContentLength();
+    }
+
+    /**
+     * Returns the number of bytes of the response body written to the client, as counted by the connector, which
+     * unlike the Content-Length header is also known for a chunked or streamed response body.
+     *
+     * @param response the Response object of client
+     * @return the number of bytes written, or the declared content length if the response has no connector response
+     */
+    static long countBytesWritten(Response response) {
+        return (response.getCoyoteResponse() != null) ? response.getBytesWritten(false) :
+                response.getContentLength();
+    }
+
+    /**
+     * Extracts the session ID of the current session associated with the request.
+     *
+     * @param request the Request object of client
+     * @return the session ID of client
+     */
+    private static String extractSessionId(Request request) {
+        HttpSession session = request.getSession(false);
+        //  CXF web services does not have a session id, because they are stateless
+        return (session != null && session.getId() != null) ? session.getId() : "-";
+    }
+
+    /**
+     * Extracts the name of the current authenticated user for the request.
+     *
+     * @param request the Request object of client
+     * @return the username of the current authenticated user
+     */
+    private static String extractUsername(Request request) {
+        String consumerName;
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            consumerName = principal.getName();
+        } else {
+            consumerName = Constants.ANONYMOUS_USER;
+        }
+        return consumerName;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.watchdog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Aggregates the stack samples of the slow requests into the number of samples each frame appears in.
+ * <p>
+ * A frame is counted once per sample in its total count, however deep it recurses, and in its self count if it is
+ * the frame being executed. The frames are ranked by their self count, which points at where the slow requests
+ * spend their time, then by their total count. The number of distinct frames is bounded, the frames seen once the
+ * bound is reached being only counted as overflow. The profile is only accessed by the sampler thread.
+ *
+ * @since 6.0.0
+ */
+final class HotFrameProfile {
+    private final int maxFrames;
+    private final Map<StackTraceElement, FrameCount> counts = new HashMap<>();
+    private final Set<StackTraceElement> sampleFrames = new HashSet<>();
+    private final Set<String> requests = new HashSet<>();
+    private long sampleCount;
+    private long overflowCount;
+
+    HotFrameProfile(int maxFrames) {
+        this.maxFrames = maxFrames;
+    }
+
+    /**
+     * Adds a stack sample of a request.
+     *
+     * @param request the request the stack was sampled from
+     * @param stack   the sampled frames, the frame being executed first
+     */
+    void record(String request, StackTraceElement[] stack) {
+        sampleCount++;
+        if (requests.size() < maxFrames) {
+            requests.add(request);
+        }
+        for (int index = 0; index < stack.length; index++) {
+            StackTraceElement frame = stack[index];
+            if (!sampleFrames.add(frame)) {
+                continue;
+            }
+            FrameCount count = counts.get(frame);
+            if (count == null) {
+                if (counts.size() >= maxFrames) {
+                    overflowCount++;
+                    continue;
+                }
+                count = new FrameCount(frame);
+                counts.put(frame, count);
+            }
+            count.total++;
+            if (index == 0) {
+                count.self++;
+            }
+        }
+        sampleFrames.clear();
+    }
+
+    /**
+     * Returns the hottest frames.
+     *
+     * @param limit the maximum number of frames returned
+     * @return the frames, the hottest first
+     */
+    List<FrameCount> getHotFrames(int limit) {
+        List<FrameCount> frames = new ArrayList<>(counts.values());
+        Collections.sort(frames);
+        return (frames.size() > limit) ? frames.subList(0, limit) : frames;
+    }
+
+    long getSampleCount() {
+        return sampleCount;
+    }
+
+    int getRequestCount() {
+        return requests.size();
+    }
+
+    long getOverflowCount() {
+        return overflowCount;
+    }
+
+    /**
+     * Discards the samples, once they are reported.
+     */
+    void reset() {
+        counts.clear();
+        requests.clear();
+        sampleCount = 0;
+        overflowCount = 0;
+    }
+
+    /**
+     * The number of samples a frame appears in.
+     */
+    static final class FrameCount implements Comparable<FrameCount> {
+        private final StackTraceElement frame;
+        private long total;
+        private long self;
+
+        private FrameCount(StackTraceElement frame) {
+            this.frame = frame;
+        }
+
+        StackTraceElement getFrame() {
+            return frame;
+        }
+
+        long getTotal() {
+            return total;
+        }
+
+        long getSelf() {
+            return self;
+        }
+
+        @Override
+        public int compareTo(FrameCount other) {
+            int order = Long.compare(other.self, self);
+            return (order != 0) ? order : Long.compare(other.total, total);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.watchdog;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * The slot of a request thread in the {@link RequestWatchdog}, which holds the request the thread is processing.
+ * <p>
+ * Each thread owns a single slot which is reused for every request it processes, so that registering a request
+ * creates no objects and no lock is shared with the other request threads. The request data is written before the
+ * volatile start time, which publishes it to the sampler thread; a start time of zero marks an idle thread. The
+ * sampler thread checks that the start time is unchanged after sampling the stack of the thread and copying the
+ * request data, so that a stack is never attributed to a request which already ended, nor to the method and URI of
+ * the next request of the thread.
+ *
+ * @since 6.0.0
+ */
+final class InFlightRequest {
+    static final long IDLE = 0;
+
+    private final WeakReference<Thread> thread;
+    private final long threadId;
+    private String method;
+    private String requestURI;
+    private volatile long startTime = IDLE;
+
+    //  only accessed by the sampler thread
+    private long sampledStartTime = IDLE;
+    private long lastSampledTick;
+    private boolean stuckReported;
+    private long candidateStartTime;
+    private long candidateLastSampledTick;
+
+    InFlightRequest(Thread thread) {
+        this.thread = new WeakReference<>(thread);
+        this.threadId = thread.getId();
+    }
+
+    /**
+     * Registers the request the thread starts processing.
+     *
+     * @param method     the HTTP method of the request
+     * @param requestURI the URI of the request
+     * @param now        the current time in nanoseconds, as given by {@link System#nanoTime()}
+     */
+    void start(String method, String requestURI, long now) {
+        this.method = method;
+        this.requestURI = requestURI;
+        //  a start time of zero would mark the thread as idle
+        startTime = (now != IDLE) ? now : 1;
+    }
+
+    /**
+     * Marks the thread as idle, once it no longer processes the request.
+     */
+    void end() {
+        startTime = IDLE;
+    }
+
+    long getStartTime() {
+        return startTime;
+    }
+
+    String getMethod() {
+        return method;
+    }
+
+    String getRequestURI() {
+        return requestURI;
+    }
+
+    long getThreadId() {
+        return threadId;
+    }
+
+    /**
+     * Returns the thread owning this slot.
+     *
+     * @return the thread, or null if it terminated
+     */
+    Thread getThread() {
+        return thread.get();
+    }
+
+    /**
+     * Takes a snapshot of the request, once it is found to be slow, by which the candidates to the sampling are
+     * ordered while the request threads move on.
+     *
+     * @param startTime the start time of the current request
+     */
+    void snapshot(long startTime) {
+        candidateStartTime = startTime;
+        candidateLastSampledTick = (sampledStartTime == startTime) ? lastSampledTick : 0;
+    }
+
+    /**
+     * Returns the start time of the request when the snapshot was taken.
+     *
+     * @return the start time in nanoseconds
+     */
+    long getCandidateStartTime() {
+        return candidateStartTime;
+    }
+
+    /**
+     * Returns the tick at which the request was last sampled when the snapshot was taken.
+     *
+     * @return the tick, or zero if the request was never sampled
+     */
+    long getCandidateLastSampledTick() {
+        return candidateLastSampledTick;
+    }
+
+    /**
+     * Records that the current request of the thread was sampled.
+     *
+     * @param startTime the start time of the current request
+     * @param tick      the current tick of the sampler
+     * @return true if the request was already reported as stuck, false otherwise
+     */
+    boolean sampled(long startTime, long tick) {
+        if (sampledStartTime != startTime) {
+            sampledStartTime = startTime;
+            stuckReported = false;
+        }
+        lastSampledTick = tick;
+        return stuckReported;
+    }
+
+    /**
+     * Records that the current request of the thread was reported as stuck.
+     */
+    void stuckReported() {
+        stuckReported = true;
+    }
+}
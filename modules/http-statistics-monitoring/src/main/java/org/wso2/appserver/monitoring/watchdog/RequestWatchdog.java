@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.watchdog;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+import org.wso2.appserver.monitoring.Constants;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the requests being processed by the request threads, samples the stack traces of the slow ones and
+ * reports the stuck ones.
+ * <p>
+ * The request threads register the requests they start and end processing in a slot they own, so the registration
+ * neither allocates nor contends. Every sample interval, a dedicated thread looks for the requests running for
+ * longer than the slow request threshold and samples the stacks of their threads, in a single call to the
+ * {@link ThreadMXBean}. The frames of the samples are aggregated into a {@link HotFrameProfile}, whose hottest frames
+ * are logged every report interval. A request running for longer than the stuck request threshold is logged once,
+ * with the stack trace of its thread.
+ * <p>
+ * Sampling the stacks pauses the sampled threads, so its cost is bounded: at most the given number of stacks are
+ * sampled per interval, to the given depth, the requests sampled the least recently being sampled first, and the
+ * interval is stretched so that the sampler thread is busy for no more than {@value #MAX_DUTY_CYCLE_PERCENT}% of the
+ * time. Only the synchronous processing of a request is watched, since an asynchronous request has no thread to
+ * sample once the valves returned.
+ *
+ * @since 6.0.0
+ */
+public class RequestWatchdog implements Runnable {
+    private static final Log LOG = LogFactory.getLog(RequestWatchdog.class);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+    private static final int MAX_DUTY_CYCLE_PERCENT = 5;
+    private static final int MAX_PROFILED_FRAMES = 4096;
+
+    private final long slowRequestThresholdNanos;
+    private final long stuckRequestThresholdNanos;
+    private final long sampleIntervalMillis;
+    private final int maxSamplesPerInterval;
+    private final int maxStackDepth;
+    private final long reportIntervalNanos;
+    private final int maxReportedFrames;
+
+    private final Queue<InFlightRequest> slots = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<InFlightRequest> slot = ThreadLocal.withInitial(this::register);
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private volatile ScheduledExecutorService executor;
+
+    //  only accessed by the sampler thread
+    private final List<InFlightRequest> candidates = new ArrayList<>();
+    private final HotFrameProfile profile = new HotFrameProfile(MAX_PROFILED_FRAMES);
+    private long tick;
+    private long lastReportTime = System.nanoTime();
+    private long sampledCount;
+    private long stuckCount;
+
+    /**
+     * Creates a watchdog.
+     *
+     * @param slowRequestThreshold  the time in milliseconds from which the stack of a request is sampled
+     * @param stuckRequestThreshold the time in milliseconds from which a request is reported as stuck
+     * @param sampleInterval        the interval between two samplings, in milliseconds
+     * @param maxSamplesPerInterval the maximum number of stacks sampled per interval
+     * @param maxStackDepth         the maximum number of frames sampled per stack
+     * @param reportInterval        the interval between two reports of the hottest frames, in seconds
+     * @param maxReportedFrames     the maximum number of frames reported
+     */
+    public RequestWatchdog(long slowRequestThreshold, long stuckRequestThreshold, int sampleInterval,
+            int maxSamplesPerInterval, int maxStackDepth, int reportInterval, int maxReportedFrames) {
+        if (slowRequestThreshold <= 0 || stuckRequestThreshold < slowRequestThreshold) {
+            throw new IllegalArgumentException("The thresholds must satisfy 0 < slow <= stuck: " +
+                    slowRequestThreshold + ", " + stuckRequestThreshold);
+        }
+        if (sampleInterval <= 0 || maxSamplesPerInterval <= 0 || maxStackDepth <= 0 || reportInterval <= 0 ||
+                maxReportedFrames <= 0) {
+            throw new IllegalArgumentException("The sampling and reporting limits must be positive.");
+        }
+        this.slowRequestThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowRequestThreshold);
+        this.stuckRequestThresholdNanos = TimeUnit.MILLISECONDS.toNanos(stuckRequestThreshold);
+        this.sampleIntervalMillis = sampleInterval;
+        this.maxSamplesPerInterval = maxSamplesPerInterval;
+        this.maxStackDepth = maxStackDepth;
+        this.reportIntervalNanos = TimeUnit.SECONDS.toNanos(reportInterval);
+        this.maxReportedFrames = maxReportedFrames;
+    }
+
+    /**
+     * Creates the watchdog defined in the server level configuration.
+     *
+     * @param configuration the watchdog configuration, may be null
+     * @return the watchdog, or null if it is not enabled
+     * @throws IllegalArgumentException if the configuration is invalid
+     */
+    public static RequestWatchdog fromConfiguration(AppServerStatsPublishing.Watchdog configuration) {
+        Optional<AppServerStatsPublishing.Watchdog> watchdog = Optional.ofNullable(configuration);
+        if (!watchdog.map(AppServerStatsPublishing.Watchdog::isEnabled).orElse(false)) {
+            return null;
+        }
+        return new RequestWatchdog(watchdog
+                .map(AppServerStatsPublishing.Watchdog::getSlowRequestThreshold)
+                .orElse(Constants.DEFAULT_WATCHDOG_SLOW_REQUEST_THRESHOLD), watchdog
+                .map(AppServerStatsPublishing.Watchdog::getStuckRequestThreshold)
+                .orElse(Constants.DEFAULT_WATCHDOG_STUCK_REQUEST_THRESHOLD), watchdog
+                .map(AppServerStatsPublishing.Watchdog::getSampleInterval)
+                .orElse(Constants.DEFAULT_WATCHDOG_SAMPLE_INTERVAL), watchdog
+                .map(AppServerStatsPublishing.Watchdog::getMaxSamplesPerInterval)
+                .orElse(Constants.DEFAULT_WATCHDOG_MAX_SAMPLES_PER_INTERVAL), watchdog
+                .map(AppServerStatsPublishing.Watchdog::getMaxStackDepth)
+                .orElse(Constants.DEFAULT_WATCHDOG_MAX_STACK_DEPTH), watchdog
+                .map(AppServerStatsPublishing.Watchdog::getReportInterval)
+                .orElse(Constants.DEFAULT_WATCHDOG_REPORT_INTERVAL), watchdog
+                .map(AppServerStatsPublishing.Watchdog::getMaxReportedFrames)
+                .orElse(Constants.DEFAULT_WATCHDOG_MAX_REPORTED_FRAMES));
+    }
+
+    /**
+     * Registers the request the current thread starts processing.
+     *
+     * @param method     the HTTP method of the request
+     * @param requestURI the URI of the request
+     */
+    public void requestStarted(String method, String requestURI) {
+        slot.get().start(method, requestURI, System.nanoTime());
+    }
+
+    /**
+     * Registers the end of the processing of the request by the current thread.
+     */
+    public void requestEnded() {
+        slot.get().end();
+    }
+
+    /**
+     * Starts the sampler thread.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, Constants.WATCHDOG_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.schedule(this, sampleIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the sampler thread.
+     */
+    public synchronized void stop() {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        executor = null;
+        current.shutdownNow();
+        try {
+            if (!current.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                LOG.warn("The HTTP request watchdog thread did not stop within " + SHUTDOWN_TIMEOUT_MILLIS + " ms.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        long startTime = System.nanoTime();
+        try {
+            sample(startTime);
+            if (startTime - lastReportTime >= reportIntervalNanos) {
+                report();
+                lastReportTime = startTime;
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Sampling the in-flight HTTP requests failed: ", e);
+        } finally {
+            long busyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            schedule(Math.max(sampleIntervalMillis, busyMillis * 100 / MAX_DUTY_CYCLE_PERCENT));
+        }
+    }
+
+    /**
+     * Samples the stacks of the slow requests, within the sampling budget, and reports the stuck ones.
+     *
+     * @param now the current time in nanoseconds, as given by {@link System#nanoTime()}
+     */
+    void sample(long now) {
+        tick++;
+        candidates.clear();
+        for (Iterator<InFlightRequest> iterator = slots.iterator(); iterator.hasNext(); ) {
+            InFlightRequest request = iterator.next();
+            long startTime = request.getStartTime();
+            if (startTime == InFlightRequest.IDLE) {
+                if (request.getThread() == null) {
+                    iterator.remove();
+                }
+            } else if (now - startTime >= slowRequestThresholdNanos) {
+                request.snapshot(startTime);
+                candidates.add(request);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+        //  the requests which were sampled the least recently, then the oldest requests, are sampled first
+        candidates.sort(Comparator.comparingLong(InFlightRequest::getCandidateLastSampledTick)
+                .thenComparingLong(InFlightRequest::getCandidateStartTime));
+        int count = Math.min(candidates.size(), maxSamplesPerInterval);
+        long[] startTimes = new long[count];
+        long[] threadIds = new long[count];
+        for (int index = 0; index < count; index++) {
+            startTimes[index] = candidates.get(index).getCandidateStartTime();
+            threadIds[index] = candidates.get(index).getThreadId();
+        }
+        ThreadInfo[] threadInfos = threadBean.getThreadInfo(threadIds, maxStackDepth);
+        for (int index = 0; index < count; index++) {
+            InFlightRequest request = candidates.get(index);
+            ThreadInfo threadInfo = threadInfos[index];
+            String method = request.getMethod();
+            String requestURI = request.getRequestURI();
+            //  the request may have ended, or the thread moved on to another request, while the stack was sampled or
+            //  while the request data, which is written before the start time, was copied
+            if (threadInfo == null || request.getStartTime() != startTimes[index]) {
+                continue;
+            }
+            String name = method + " " + requestURI;
+            sampledCount++;
+            profile.record(name, threadInfo.getStackTrace());
+            boolean stuckReported = request.sampled(startTimes[index], tick);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(now - startTimes[index]);
+            if (!stuckReported && now - startTimes[index] >= stuckRequestThresholdNanos) {
+                request.stuckReported();
+                stuckCount++;
+                LOG.warn(formatStuckRequest(name, threadInfo, elapsedMillis));
+            }
+        }
+        candidates.clear();
+    }
+
+    /**
+     * Logs the hottest frames of the slow requests sampled since the previous report, if any.
+     */
+    void report() {
+        if (profile.getSampleCount() > 0) {
+            LOG.info(formatReport());
+        }
+        profile.reset();
+    }
+
+    /**
+     * Formats the report of the hottest frames of the slow requests sampled since the previous report.
+     *
+     * @return the report
+     */
+    String formatReport() {
+        StringBuilder report = new StringBuilder("Sampled the stacks of ").append(profile.getRequestCount())
+                .append(" slow HTTP requests ").append(profile.getSampleCount()).append(" times. Hottest frames " +
+                        "(self/total samples):");
+        for (HotFrameProfile.FrameCount frame : profile.getHotFrames(maxReportedFrames)) {
+            report.append(System.lineSeparator()).append('\t').append(frame.getSelf()).append('/')
+                    .append(frame.getTotal()).append('\t').append(frame.getFrame());
+        }
+        if (profile.getOverflowCount() > 0) {
+            report.append(System.lineSeparator()).append('\t').append(profile.getOverflowCount())
+                    .append(" frames were not counted, as too many distinct frames were sampled.");
+        }
+        return report.toString();
+    }
+
+    long getSampledCount() {
+        return sampledCount;
+    }
+
+    long getStuckCount() {
+        return stuckCount;
+    }
+
+    /**
+     * Returns the slot of the current thread, after registering it.
+     *
+     * @return the slot of the current thread
+     */
+    private InFlightRequest register() {
+        InFlightRequest request = new InFlightRequest(Thread.currentThread());
+        slots.add(request);
+        return request;
+    }
+
+    /**
+     * Schedules the next sampling, unless the watchdog is stopped.
+     *
+     * @param delay the delay in milliseconds
+     */
+    private void schedule(long delay) {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.schedule(this, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            LOG.debug("The HTTP request watchdog is stopped.");
+        }
+    }
+
+    private static String formatStuckRequest(String name, ThreadInfo threadInfo, long elapsedMillis) {
+        StringBuilder message = new StringBuilder("The HTTP request ").append(name).append(" has been processed by ")
+                .append(threadInfo.getThreadName()).append(" for ").append(elapsedMillis).append(" ms, in state ")
+                .append(threadInfo.getThreadState()).append(':');
+        for (StackTraceElement frame : threadInfo.getStackTrace()) {
+            message.append(System.lineSeparator()).append("\tat ").append(frame);
+        }
+        return message.toString();
+    }
+}
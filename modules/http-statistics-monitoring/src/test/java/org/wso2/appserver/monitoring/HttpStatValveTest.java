@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.valves.ValveBase;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+import org.wso2.appserver.monitoring.metrics.ContextMetrics;
+import org.wso2.appserver.monitoring.metrics.MetricsRegistry;
+import org.wso2.appserver.monitoring.profile.ContextStatsValve;
+import org.wso2.appserver.monitoring.profile.StatsProfile;
+import org.wso2.appserver.monitoring.timing.RequestTimer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+/**
+ * This class contains unit tests for the recording of the requests by the {@link HttpStatValve}.
+ *
+ * @since 6.0.0
+ */
+public class HttpStatValveTest {
+    private static final int SUCCESS = 2;
+
+    private StandardContext context;
+    private ContextMetrics metrics;
+
+    @BeforeMethod
+    public void createContext() {
+        context = new StandardContext();
+        metrics = new MetricsRegistry().register("/async", "/async");
+        context.getPipeline().addValve(new ContextStatsValve(new StatsProfile(metrics)));
+    }
+
+    @Test(description = "Checks if a request is recorded once, with the profile it was started with")
+    public void synchronousTest() throws Exception {
+        HttpStatValve valve = createValve();
+        try {
+            Request request = createRequest(context, null);
+            Response response = createResponse();
+            valve.invoke(request, response);
+            Assert.assertTrue(RequestTimer.get().isTiming(request));
+            valve.log(request, response, 0);
+            Assert.assertEquals(metrics.getCount(SUCCESS), 1);
+            valve.log(request, response, 0);
+            Assert.assertEquals(metrics.getCount(SUCCESS), 1, "The request was recorded more than once");
+        } finally {
+            valve.destroy();
+        }
+    }
+
+    @Test(description = "Checks if a request of a context whose statistics are not published is not timed")
+    public void disabledContextTest() throws Exception {
+        HttpStatValve valve = createValve();
+        try {
+            Request request = createRequest(new StandardContext(), null);
+            Response response = createResponse();
+            valve.invoke(request, response);
+            Assert.assertFalse(RequestTimer.get().isTiming(request), "The request of a disabled context was timed");
+            valve.log(request, response, 0);
+            Assert.assertEquals(metrics.getCount(SUCCESS), 0);
+        } finally {
+            valve.destroy();
+        }
+    }
+
+    @Test(description = "Checks if a request which was timed but never logged is released by the next log")
+    public void unloggedRequestTest() throws Exception {
+        HttpStatValve valve = createValve();
+        try {
+            Request unlogged = createRequest(context, null);
+            valve.invoke(unlogged, createResponse());
+            Assert.assertTrue(RequestTimer.get().isTiming(unlogged));
+
+            valve.log(createRequest(new StandardContext(), null), createResponse(), 0);
+            Assert.assertFalse(RequestTimer.get().isTiming(unlogged), "The thread kept the unlogged request");
+            Assert.assertNull(RequestTimer.get().getProfile(), "The thread kept the profile of the unlogged request");
+            Assert.assertEquals(metrics.getCount(SUCCESS), 0);
+        } finally {
+            valve.destroy();
+        }
+    }
+
+    @Test(description = "Checks if an asynchronous request is recorded once, when it completes")
+    public void completeTest() throws Exception {
+        HttpStatValve valve = createValve();
+        try {
+            TestAsyncContext asyncContext = new TestAsyncContext(false);
+            Request request = createRequest(context, asyncContext);
+            Response response = createResponse();
+            valve.invoke(request, response);
+            valve.log(request, response, 0);
+            Assert.assertEquals(metrics.getCount(SUCCESS), 0, "The request was recorded before it completed");
+            Assert.assertEquals(asyncContext.listeners.size(), 1);
+
+            AsyncListener listener = asyncContext.listeners.get(0);
+            listener.onComplete(new AsyncEvent(asyncContext));
+            Assert.assertEquals(metrics.getCount(SUCCESS), 1);
+            listener.onComplete(new AsyncEvent(asyncContext));
+            Assert.assertEquals(metrics.getCount(SUCCESS), 1, "The request was recorded more than once");
+        } finally {
+            valve.destroy();
+        }
+    }
+
+    @Test(description = "Checks if an asynchronous request which timed out is recorded once, when it completes")
+    public void timeoutTest() throws Exception {
+        HttpStatValve valve = createValve();
+        try {
+            TestAsyncContext asyncContext = new TestAsyncContext(false);
+            valve.invoke(createRequest(context, asyncContext), createResponse());
+            AsyncListener listener = asyncContext.listeners.get(0);
+
+            listener.onTimeout(new AsyncEvent(asyncContext));
+            Assert.assertEquals(metrics.getCount(SUCCESS), 0, "The request was recorded before it completed");
+            listener.onComplete(new AsyncEvent(asyncContext));
+            Assert.assertEquals(metrics.getCount(SUCCESS), 1);
+        } finally {
+            valve.destroy();
+        }
+    }
+
+    @Test(description = "Checks if an asynchronous request which failed is recorded once, when it completes")
+    public void errorTest() throws Exception {
+        HttpStatValve valve = createValve();
+        try {
+            TestAsyncContext asyncContext = new TestAsyncContext(false);
+            valve.invoke(createRequest(context, asyncContext), createResponse());
+            AsyncListener listener = asyncContext.listeners.get(0);
+
+            listener.onError(new AsyncEvent(asyncContext));
+            Assert.assertEquals(metrics.getCount(SUCCESS), 0, "The request was recorded before it completed");
+            listener.onComplete(new AsyncEvent(asyncContext));
+            Assert.assertEquals(metrics.getCount(SUCCESS), 1);
+        } finally {
+            valve.destroy();
+        }
+    }
+
+    @Test(description = "Checks if the listener is registered again when the asynchronous processing is restarted")
+    public void restartedTest() throws Exception {
+        HttpStatValve valve = createValve();
+        try {
+            TestAsyncContext asyncContext = new TestAsyncContext(false);
+            valve.invoke(createRequest(context, asyncContext), createResponse());
+            AsyncListener listener = asyncContext.listeners.get(0);
+
+            TestAsyncContext restartedContext = new TestAsyncContext(false);
+            listener.onStartAsync(new AsyncEvent(restartedContext));
+            Assert.assertEquals(restartedContext.listeners.size(), 1,
+                    "The listener was not registered with the restarted asynchronous processing");
+            Assert.assertSame(restartedContext.listeners.get(0), listener);
+
+            restartedContext.listeners.get(0).onComplete(new AsyncEvent(restartedContext));
+            Assert.assertEquals(metrics.getCount(SUCCESS), 1);
+        } finally {
+            valve.destroy();
+        }
+    }
+
+    @Test(description = "Checks if a request which completed before the listener was added is recorded at once")
+    public void completedBeforeListenerTest() throws Exception {
+        HttpStatValve valve = createValve();
+        try {
+            TestAsyncContext asyncContext = new TestAsyncContext(true);
+            Request request = createRequest(context, asyncContext);
+            Response response = createResponse();
+            valve.invoke(request, response);
+            Assert.assertEquals(metrics.getCount(SUCCESS), 1, "The completed request was not recorded");
+            valve.log(request, response, 0);
+            Assert.assertEquals(metrics.getCount(SUCCESS), 1, "The request was recorded more than once");
+        } finally {
+            valve.destroy();
+        }
+    }
+
+    private static HttpStatValve createValve() throws LifecycleException {
+        AppServerStatsPublishing configuration = new AppServerStatsPublishing();
+        configuration.setPublishingMode("none");
+        HttpStatValve valve = new HttpStatValve(configuration, null) {
+            @Override
+            public String getObjectNameKeyProperties() {
+                //  the valve is not added to a container, which would name its MBean
+                return "type=Valve,name=HttpStatValveTest";
+            }
+        };
+        valve.setNext(new PassThroughValve());
+        valve.init();
+        return valve;
+    }
+
+    private static Request createRequest(Context context, AsyncContext asyncContext) {
+        return new Request() {
+            @Override
+            public Context getContext() {
+                return context;
+            }
+
+            @Override
+            public DispatcherType getDispatcherType() {
+                return DispatcherType.REQUEST;
+            }
+
+            @Override
+            public String getMethod() {
+                return "GET";
+            }
+
+            @Override
+            public String getRequestURI() {
+                return "/async/orders";
+            }
+
+            @Override
+            public String getDecodedRequestURI() {
+                return "/async/orders";
+            }
+
+            @Override
+            public boolean isAsync() {
+                return asyncContext != null;
+            }
+
+            @Override
+            public AsyncContext getAsyncContext() {
+                return asyncContext;
+            }
+        };
+    }
+
+    private static Response createResponse() {
+        return new Response() {
+            @Override
+            public int getStatus() {
+                return 200;
+            }
+        };
+    }
+
+    private static final class PassThroughValve extends ValveBase {
+        @Override
+        public void invoke(Request request, Response response) throws IOException, ServletException {
+        }
+    }
+
+    /**
+     * An asynchronous context which keeps the listeners added to it, or which already completed and refuses them.
+     */
+    private static final class TestAsyncContext implements AsyncContext {
+        private final List<AsyncListener> listeners = new ArrayList<>();
+        private final boolean completed;
+
+        private TestAsyncContext(boolean completed) {
+            this.completed = completed;
+        }
+
+        @Override
+        public void addListener(AsyncListener listener) {
+            if (completed) {
+                throw new IllegalStateException("The asynchronous processing already completed");
+            }
+            listeners.add(listener);
+        }
+
+        @Override
+        public void addListener(AsyncListener listener, ServletRequest request, ServletResponse response) {
+            addListener(listener);
+        }
+
+        @Override
+        public ServletRequest getRequest() {
+            return null;
+        }
+
+        @Override
+        public ServletResponse getResponse() {
+            return null;
+        }
+
+        @Override
+        public boolean hasOriginalRequestAndResponse() {
+            return true;
+        }
+
+        @Override
+        public void dispatch() {
+        }
+
+        @Override
+        public void dispatch(String path) {
+        }
+
+        @Override
+        public void dispatch(ServletContext context, String path) {
+        }
+
+        @Override
+        public void complete() {
+        }
+
+        @Override
+        public void start(Runnable run) {
+        }
+
+        @Override
+        public <T extends AsyncListener> T createListener(Class<T> clazz) throws ServletException {
+            throw new ServletException("Listeners are not created by the test context");
+        }
+
+        @Override
+        public void setTimeout(long timeout) {
+        }
+
+        @Override
+        public long getTimeout() {
+            return 0;
+        }
+    }
+}
@@ -24,7 +24,10 @@ import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 import org.wso2.appserver.monitoring.exceptions.StatPublisherException;
+import org.wso2.appserver.monitoring.profile.StatsProfile;
+import org.wso2.appserver.monitoring.profile.StatsProfiles;
 import org.wso2.appserver.monitoring.utils.EventBuilder;
+import org.wso2.appserver.monitoring.utils.RequestCapture;
 import org.wso2.carbon.databridge.commons.Event;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -81,6 +84,10 @@ public class StatPublisherUnitTest {
 
         when(request.getHeader("host")).thenReturn("localhost:8080");
         when(request.getHeader("custom-header")).thenReturn("dummyvalue");
+        when(request.getHeaders("host")).thenReturn(Collections.enumeration(Collections.
+                singletonList("localhost:8080")));
+        when(request.getHeaders("custom-header")).thenReturn(Collections.enumeration(Collections.
+                singletonList("dummyvalue")));
         when(request.getRemoteAddr()).thenReturn("127.0.0.1");
         when(request.getRequestURI()).thenReturn("/");
         when(request.getContext()).thenReturn(standardContext);
@@ -103,6 +110,8 @@ public class StatPublisherUnitTest {
 
         when(response.getHeader("Content-Type")).thenReturn("text/html;charset=utf-8");
         when(response.getHeader("Content-Length")).thenReturn("1046");
+        when(response.getHeaders("Content-Type")).thenReturn(Collections.singletonList("text/html;charset=utf-8"));
+        when(response.getHeaders("Content-Length")).thenReturn(Collections.singletonList("1046"));
         when(response.getContentType()).thenReturn("text/html;charset=utf-8");
         when(response.getStatus()).thenReturn(200);
         when(response.getHeaderNames()).thenReturn(responseHeaders);
@@ -140,13 +149,28 @@ public class StatPublisherUnitTest {
         payload.add("host:(localhost:8080);custom-header:(dummyvalue)");
         payload.add("Content-Type:(text/html;charset=utf-8),Content-Length:(1046)");
         payload.add("en");
+        payload.add(1.0);
+        payload.add(0L);
+        payload.add(-1L);
+        payload.add(-1L);
+        payload.add(-1L);
+        payload.add(-1L);
+        payload.add(null);
+        payload.add(null);
+        payload.add(null);
+        payload.add(null);
+        payload.add(null);
+        payload.add("/");
 
-        Event testEvent = new Event("org.wso2.http.analytics.stream:1.0.0", startTime,
+        Event testEvent = new Event("org.wso2.http.analytics.stream:1.5.0", startTime,
                 new ArrayList<>(Arrays.asList("localhost", "localhost.localdomain")).toArray(),
                 null, payload.toArray(), new HashMap<String, String>());
         Event event = null;
         try {
-            event = EventBuilder.buildEvent("org.wso2.http.analytics.stream:1.0.0", request, response, startTime, 0);
+            RequestCapture capture = new RequestCapture();
+            StatsProfile profile = new StatsProfiles(null, null).create(request.getContext());
+            capture.capture(request, response, profile, startTime, 0, 1.0);
+            event = EventBuilder.buildEvent("org.wso2.http.analytics.stream:1.5.0", capture);
         } catch (StatPublisherException e) {
             Assert.fail("Building event failed.");
         }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.aggregation;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class contains unit tests for the {@link LatencyAggregator}.
+ *
+ * @since 6.0.0
+ */
+public class LatencyAggregatorTest {
+
+    @Test(description = "Checks if the requests are aggregated per key and idle keys are discarded")
+    public void drainTest() {
+        LatencyAggregator aggregator = new LatencyAggregator(100);
+        aggregator.record("shop", "/shop/orders/{id}", "GET", 200, 1000);
+        aggregator.record("shop", "/shop/orders/{id}", "GET", 204, 3000);
+        aggregator.record("shop", "/shop/orders/{id}", "GET", 404, 500);
+        aggregator.record("shop", "/shop/orders", "POST", 201, 7000);
+        aggregator.record("shop", null, "GET", 200, 100);
+
+        Map<AggregationKey, HistogramSnapshot> summaries = drain(aggregator);
+        Assert.assertEquals(summaries.size(), 4);
+        HistogramSnapshot orders = summaries.get(new AggregationKey("shop", "/shop/orders/{id}", "GET", 2));
+        Assert.assertEquals(orders.getCount(), 2);
+        Assert.assertEquals(orders.getMean(), 2000.0);
+        Assert.assertEquals(summaries.get(new AggregationKey("shop", "/shop/orders/{id}", "GET", 4)).getCount(), 1);
+        Assert.assertEquals(summaries.get(new AggregationKey("shop", LatencyAggregator.OTHER, "GET", 2)).getCount(),
+                1, "A request without a URI template was not aggregated");
+
+        aggregator.record("shop", "/shop/orders", "POST", 201, 7000);
+        summaries = drain(aggregator);
+        Assert.assertEquals(summaries.size(), 1);
+        Assert.assertEquals(aggregator.size(), 1);
+        Assert.assertTrue(drain(aggregator).isEmpty());
+        Assert.assertEquals(aggregator.size(), 0);
+    }
+
+    @Test(description = "Checks if the requests of new keys are aggregated together once the maximum is reached")
+    public void maxKeysTest() {
+        LatencyAggregator aggregator = new LatencyAggregator(2);
+        aggregator.record("shop", "/shop/a", "GET", 200, 1);
+        aggregator.record("shop", "/shop/b", "GET", 200, 1);
+        aggregator.record("shop", "/shop/c", "GET", 200, 1);
+        aggregator.record("shop", "/shop/d", "GET", 200, 1);
+        aggregator.record("shop", "/shop/a", "GET", 200, 1);
+
+        Map<AggregationKey, HistogramSnapshot> summaries = drain(aggregator);
+        Assert.assertEquals(summaries.get(new AggregationKey("shop", "/shop/a", "GET", 2)).getCount(), 2);
+        Assert.assertEquals(summaries.get(new AggregationKey(LatencyAggregator.OTHER, LatencyAggregator.OTHER,
+                LatencyAggregator.OTHER, 2)).getCount(), 2);
+    }
+
+    @Test(description = "Checks if the number of keys stays bounded with arbitrary applications and methods")
+    public void overflowCardinalityTest() {
+        LatencyAggregator aggregator = new LatencyAggregator(10);
+        for (int index = 0; index < 10000; index++) {
+            aggregator.record("app" + index, "/app" + index + "/page", "METHOD" + index, 200 + (index % 4) * 100, 1);
+        }
+        Assert.assertEquals(aggregator.size(), 14, "The keys past the maximum were not collapsed per status class");
+
+        Map<AggregationKey, HistogramSnapshot> summaries = drain(aggregator);
+        long overflowCount = 0;
+        for (int statusClass = 2; statusClass <= 5; statusClass++) {
+            overflowCount += summaries.get(new AggregationKey(LatencyAggregator.OTHER, LatencyAggregator.OTHER,
+                    LatencyAggregator.OTHER, statusClass)).getCount();
+        }
+        Assert.assertEquals(overflowCount, 10000 - 10);
+    }
+
+    private static Map<AggregationKey, HistogramSnapshot> drain(LatencyAggregator aggregator) {
+        Map<AggregationKey, HistogramSnapshot> summaries = new HashMap<>();
+        aggregator.drain(summaries::put);
+        return summaries;
+    }
+}
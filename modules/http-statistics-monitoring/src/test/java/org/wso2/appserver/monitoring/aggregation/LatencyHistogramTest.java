@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.aggregation;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class contains unit tests for the {@link LatencyHistogram} and the {@link HistogramSnapshot}.
+ *
+ * @since 6.0.0
+ */
+public class LatencyHistogramTest {
+
+    @Test(description = "Checks if the bucket boundaries are contiguous and keep the values within their precision")
+    public void bucketTest() {
+        for (long value = 0; value < 1 << 20; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            Assert.assertTrue(LatencyHistogram.highestValue(index) >= value);
+            Assert.assertTrue(LatencyHistogram.highestValue(index) - value <= value / 64);
+            Assert.assertTrue(index == 0 || LatencyHistogram.highestValue(index - 1) < value);
+        }
+        Assert.assertEquals(LatencyHistogram.highestValue(LatencyHistogram.BUCKET_COUNT - 1),
+                LatencyHistogram.HIGHEST_TRACKABLE_VALUE);
+    }
+
+    @Test(description = "Checks if the percentiles, mean and maximum of the recorded values are reported")
+    public void percentileTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10000; value++) {
+            histogram.record(value);
+        }
+        histogram.record(Long.MAX_VALUE / 2);
+
+        HistogramSnapshot snapshot = histogram.snapshotAndReset();
+        Assert.assertEquals(snapshot.getCount(), 10001);
+        Assert.assertEquals(snapshot.getMax(), Long.MAX_VALUE / 2);
+        assertWithinPrecision(snapshot.getValueAtPercentile(50), 5001);
+        assertWithinPrecision(snapshot.getValueAtPercentile(99), 9901);
+        assertWithinPrecision(snapshot.getValueAtPercentile(99.9), 9991);
+        Assert.assertEquals(snapshot.getValueAtPercentile(100), Long.MAX_VALUE / 2);
+
+        Assert.assertEquals(histogram.snapshotAndReset().getCount(), 0);
+    }
+
+    @Test(description = "Checks if merged snapshots report the percentiles of all the values")
+    public void mergeTest() {
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        for (int count = 0; count < 900; count++) {
+            fast.record(100);
+        }
+        for (int count = 0; count < 100; count++) {
+            slow.record(50000);
+        }
+
+        HistogramSnapshot merged = new HistogramSnapshot();
+        merged.merge(fast.snapshotAndReset());
+        merged.merge(slow.snapshotAndReset());
+        Assert.assertEquals(merged.getCount(), 1000);
+        Assert.assertEquals(merged.getValueAtPercentile(90), 100);
+        assertWithinPrecision(merged.getValueAtPercentile(91), 50000);
+        Assert.assertEquals(merged.getMean(), 5090.0);
+    }
+
+    @Test(description = "Checks if no value is lost when recording concurrently")
+    public void concurrentRecordTest() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            threads.add(new Thread(() -> {
+                for (int value = 0; value < 100000; value++) {
+                    histogram.record(value % 1000);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        HistogramSnapshot snapshot = histogram.snapshotAndReset();
+        Assert.assertEquals(snapshot.getCount(), 400000);
+        Assert.assertEquals(snapshot.getMax(), 999);
+    }
+
+    private static void assertWithinPrecision(long actual, long expected) {
+        Assert.assertTrue(actual >= expected && actual - expected <= expected / 64, actual + " for " + expected);
+    }
+}
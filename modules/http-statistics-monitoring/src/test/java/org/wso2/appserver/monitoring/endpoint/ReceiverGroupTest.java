@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.endpoint;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.appserver.monitoring.publisher.EventPublisher;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class contains unit tests for the {@link ReceiverGroup} and the {@link CircuitBreaker}s of its receivers.
+ *
+ * @since 6.0.0
+ */
+public class ReceiverGroupTest {
+    private static final String STREAM_ID = "org.wso2.http.analytics.stream:1.5.0";
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long RETRY_INTERVAL_MILLIS = 30000;
+
+    private long now;
+
+    @Test(description = "Checks if the Events are distributed evenly among the receivers")
+    public void roundRobinTest() {
+        Map<String, TestReceiver> receivers = createReceivers(3);
+        ReceiverGroup group = createGroup(receivers, LoadBalancingPolicy.ROUND_ROBIN);
+        for (int index = 0; index < 30; index++) {
+            Assert.assertTrue(group.tryPublish(createEvent("/sample")));
+        }
+        receivers.values().forEach(receiver -> Assert.assertEquals(receiver.events.size(), 10));
+    }
+
+    @Test(description = "Checks if the Events of a web application are always published to the same receiver")
+    public void consistentHashTest() {
+        Map<String, TestReceiver> receivers = createReceivers(4);
+        ReceiverGroup group = createGroup(receivers, LoadBalancingPolicy.CONSISTENT_HASH);
+        for (int round = 0; round < 3; round++) {
+            for (int app = 0; app < 100; app++) {
+                group.tryPublish(createEvent("/app" + app));
+            }
+        }
+        Set<String> apps = new HashSet<>();
+        for (TestReceiver receiver : receivers.values()) {
+            Assert.assertFalse(receiver.events.isEmpty(), "A receiver was not mapped any web application");
+            Set<String> receiverApps = new HashSet<>();
+            receiver.events.forEach(event -> receiverApps.add((String) event.getPayloadData()[0]));
+            Assert.assertEquals(receiver.events.size(), receiverApps.size() * 3);
+            receiverApps.forEach(app -> Assert.assertTrue(apps.add(app), app + " was published to two receivers"));
+        }
+        Assert.assertEquals(apps.size(), 100);
+    }
+
+    @Test(description = "Checks if only the web applications of an unavailable receiver move to the other receivers")
+    public void consistentHashFailoverTest() {
+        Map<String, TestReceiver> receivers = createReceivers(4);
+        ReceiverGroup group = createGroup(receivers, LoadBalancingPolicy.CONSISTENT_HASH);
+        for (int app = 0; app < 100; app++) {
+            group.tryPublish(createEvent("/app" + app));
+        }
+        Map<String, TestReceiver> mapping = new LinkedHashMap<>();
+        receivers.values().forEach(receiver -> receiver.events.forEach(event ->
+                mapping.put((String) event.getPayloadData()[0], receiver)));
+        TestReceiver failed = receivers.get("tcp://127.0.0.1:7611");
+        failed.accepting = false;
+        receivers.values().forEach(receiver -> receiver.events.clear());
+
+        for (int app = 0; app < 100; app++) {
+            Assert.assertTrue(group.tryPublish(createEvent("/app" + app)));
+        }
+        Set<TestReceiver> failoverReceivers = new HashSet<>();
+        for (TestReceiver receiver : receivers.values()) {
+            for (Event event : receiver.events) {
+                TestReceiver previous = mapping.get((String) event.getPayloadData()[0]);
+                if (previous == failed) {
+                    failoverReceivers.add(receiver);
+                } else {
+                    Assert.assertSame(receiver, previous, "A web application of an available receiver was moved");
+                }
+            }
+        }
+        Assert.assertTrue(failed.events.isEmpty());
+        Assert.assertTrue(failoverReceivers.size() > 1, "The web applications were not spread over the receivers");
+    }
+
+    @Test(description = "Checks if an unavailable receiver is skipped until its retry interval elapses")
+    public void circuitBreakerTest() {
+        Map<String, TestReceiver> receivers = createReceivers(2);
+        ReceiverGroup group = createGroup(receivers, LoadBalancingPolicy.ROUND_ROBIN);
+        TestReceiver failed = receivers.get("tcp://127.0.0.1:7611");
+        CircuitBreaker circuitBreaker = group.getCircuitBreaker("tcp://127.0.0.1:7611");
+        failed.accepting = false;
+
+        for (int index = 0; index < 20; index++) {
+            Assert.assertTrue(group.tryPublish(createEvent("/sample")), "The Event was not failed over");
+        }
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+        Assert.assertEquals(circuitBreaker.getTripCount(), 1);
+        Assert.assertEquals(failed.offered, FAILURE_THRESHOLD, "An unavailable receiver was offered Events");
+
+        now += TimeUnit.MILLISECONDS.toNanos(RETRY_INTERVAL_MILLIS);
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.HALF_OPEN);
+        group.tryPublish(createEvent("/sample"));
+        group.tryPublish(createEvent("/sample"));
+        Assert.assertEquals(failed.offered, FAILURE_THRESHOLD + 1, "The receiver was not retried exactly once");
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+
+        failed.accepting = true;
+        now += TimeUnit.MILLISECONDS.toNanos(RETRY_INTERVAL_MILLIS);
+        group.tryPublish(createEvent("/sample"));
+        group.tryPublish(createEvent("/sample"));
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+        Assert.assertEquals(failed.events.size(), 1);
+        Assert.assertEquals(circuitBreaker.getTripCount(), 1);
+    }
+
+    @Test(description = "Checks if a half-open circuit lets a single probe through until its outcome is known")
+    public void halfOpenProbeTest() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, TimeUnit.MILLISECONDS.toNanos(RETRY_INTERVAL_MILLIS),
+                () -> now);
+        Assert.assertTrue(circuitBreaker.onFailure());
+        Assert.assertFalse(circuitBreaker.allowRequest());
+
+        now += TimeUnit.MILLISECONDS.toNanos(RETRY_INTERVAL_MILLIS);
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.HALF_OPEN);
+        Assert.assertTrue(circuitBreaker.allowRequest());
+        Assert.assertFalse(circuitBreaker.allowRequest(), "A second probe was let through while half-open");
+        Assert.assertTrue(circuitBreaker.onSuccess());
+        Assert.assertTrue(circuitBreaker.allowRequest());
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test(description = "Checks if an Event is rejected only when no receiver accepts it")
+    public void allReceiversUnavailableTest() {
+        Map<String, TestReceiver> receivers = createReceivers(2);
+        ReceiverGroup group = createGroup(receivers, LoadBalancingPolicy.CONSISTENT_HASH);
+        receivers.values().forEach(receiver -> receiver.accepting = false);
+        Assert.assertFalse(group.tryPublish(createEvent("/sample")));
+        receivers.values().forEach(receiver -> Assert.assertEquals(receiver.offered, 1));
+    }
+
+    private ReceiverGroup createGroup(Map<String, TestReceiver> receivers, LoadBalancingPolicy policy) {
+        return new ReceiverGroup(receivers, policy, FAILURE_THRESHOLD, RETRY_INTERVAL_MILLIS, () -> now);
+    }
+
+    private static Map<String, TestReceiver> createReceivers(int count) {
+        Map<String, TestReceiver> receivers = new LinkedHashMap<>();
+        for (int index = 0; index < count; index++) {
+            receivers.put("tcp://127.0.0.1:" + (7611 + index), new TestReceiver());
+        }
+        return receivers;
+    }
+
+    private static Event createEvent(String appName) {
+        return new Event(STREAM_ID, 1468296734385L, new Object[] { "localhost" }, null,
+                new Object[] { appName, "/index.jsp", 200 }, null);
+    }
+
+    private static class TestReceiver implements EventPublisher {
+        private final List<Event> events = new ArrayList<>();
+        private boolean accepting = true;
+        private int offered;
+
+        @Override
+        public void publish(Event event) {
+            events.add(event);
+        }
+
+        @Override
+        public boolean tryPublish(Event event) {
+            offered++;
+            if (accepting) {
+                events.add(event);
+            }
+            return accepting;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.filter;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.appserver.configuration.context.WebAppStatsPublishing;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * This class contains unit tests for the {@link ResponseFilter}.
+ *
+ * @since 6.0.0
+ */
+public class ResponseFilterTest {
+
+    @Test(description = "Checks if the default filter publishes only text/html responses")
+    public void defaultFilterTest() {
+        ResponseFilter filter = ResponseFilter.fromConfiguration(null);
+        Assert.assertTrue(filter.accept("GET", "/sample/index.jsp", 7, "text/html;charset=UTF-8", 200));
+        Assert.assertTrue(filter.accept("POST", "/sample/", 7, "TEXT/HTML", 500));
+        Assert.assertFalse(filter.accept("GET", "/sample/api", 7, "application/json", 200));
+        Assert.assertFalse(filter.accept("GET", "/sample/api", 7, "text/htmlx", 200));
+        Assert.assertFalse(filter.accept("GET", "/sample/api", 7, null, 204));
+    }
+
+    @Test(description = "Checks if exact and wildcard media types are matched ignoring the media type parameters")
+    public void mediaTypeTest() {
+        ResponseFilter filter = new ResponseFilter(Arrays.asList("application/json", "text/*"),
+                Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+        Assert.assertTrue(filter.accept("GET", "/api", 0, "application/json; charset=UTF-8", 200));
+        Assert.assertTrue(filter.accept("GET", "/api", 0, "text/plain", 200));
+        Assert.assertTrue(filter.accept("GET", "/api", 0, "Text/CSV", 200));
+        Assert.assertFalse(filter.accept("GET", "/api", 0, "application/xml", 200));
+        Assert.assertFalse(filter.accept("GET", "/api", 0, "application/json-patch", 200));
+
+        ResponseFilter anyFilter = new ResponseFilter(Collections.singletonList("*/*"), Collections.emptyList(),
+                Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+        Assert.assertTrue(anyFilter.accept("DELETE", "/api/1", 0, null, 204));
+    }
+
+    @Test(description = "Checks if the paths are matched relative to the context path, ignoring path parameters")
+    public void pathTest() {
+        ResponseFilter filter = new ResponseFilter(Collections.singletonList("*/*"),
+                Arrays.asList("/static/", "/health"), Arrays.asList(".css", ".js"), Collections.emptyList(),
+                Collections.emptyList());
+        Assert.assertFalse(filter.accept("GET", "/shop/static/logo.png", 5, "image/png", 200));
+        Assert.assertFalse(filter.accept("GET", "/shop/healthz", 5, "text/plain", 200));
+        Assert.assertFalse(filter.accept("GET", "/shop/theme/main.css", 5, "text/css", 200));
+        Assert.assertFalse(filter.accept("GET", "/shop/app.js;jsessionid=1A2B", 5, "text/javascript", 200));
+        Assert.assertTrue(filter.accept("GET", "/static/cart", 7, "text/html", 200));
+        Assert.assertTrue(filter.accept("GET", "/shop/main.jsp", 5, "text/html", 200));
+        Assert.assertTrue(filter.accept("GET", "/shop/", 5, "text/html", 200));
+    }
+
+    @Test(description = "Checks if the methods and status classes are filtered")
+    public void methodAndStatusClassTest() {
+        WebAppStatsPublishing.ResponseFilter configuration = new WebAppStatsPublishing.ResponseFilter();
+        WebAppStatsPublishing.Methods methods = new WebAppStatsPublishing.Methods();
+        methods.setMethods(Arrays.asList("GET", "POST"));
+        configuration.setMethods(methods);
+        WebAppStatsPublishing.StatusClasses statusClasses = new WebAppStatsPublishing.StatusClasses();
+        statusClasses.setStatusClasses(Arrays.asList("2xx", "5XX", "invalid"));
+        configuration.setStatusClasses(statusClasses);
+
+        ResponseFilter filter = ResponseFilter.fromConfiguration(configuration);
+        Assert.assertTrue(filter.accept("GET", "/", 0, "text/html", 200));
+        Assert.assertTrue(filter.accept("POST", "/", 0, "text/html", 503));
+        Assert.assertFalse(filter.accept("PUT", "/", 0, "text/html", 200));
+        Assert.assertFalse(filter.accept("GE", "/", 0, "text/html", 200));
+        Assert.assertFalse(filter.accept("GET", "/", 0, "text/html", 404));
+        Assert.assertFalse(filter.accept("GET", "/", 0, "text/html", 302));
+        Assert.assertFalse(filter.accept("GET", "/", 0, "application/json", 200));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.geoip;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+/**
+ * This class contains unit tests for the {@link GeoIpIndex} and the {@link GeoIpDatabase}.
+ *
+ * @since 6.0.0
+ */
+public class GeoIpDatabaseTest {
+    private Path database;
+
+    @BeforeMethod
+    public void createDatabase() throws IOException {
+        database = Files.createTempFile("http-statistics-geoip", ".csv");
+    }
+
+    @AfterMethod
+    public void deleteDatabase() throws IOException {
+        Files.deleteIfExists(database);
+    }
+
+    @Test(description = "Checks if the addresses are located in the ranges of the database")
+    public void lookupTest() throws IOException {
+        writeDatabase("\"ip_from\",\"ip_to\",\"country\",\"region\"",
+                "41.85.0.0,41.85.127.255,ZA,Gauteng",
+                "\"1760763904\",\"1760764927\",\"US\",\"Washington, D.C.\"",
+                "42.241.0.0/16,AU",
+                "2001:db8::/32,NL,North Holland",
+                "# a comment");
+        GeoIpIndex index = GeoIpIndex.load(database);
+        Assert.assertEquals(index.size(), 4);
+
+        Assert.assertEquals(index.lookup("41.85.0.0"), new GeoLocation("ZA", "Gauteng"));
+        Assert.assertEquals(index.lookup("41.85.127.255"), new GeoLocation("ZA", "Gauteng"));
+        Assert.assertNull(index.lookup("41.85.128.0"));
+        //  104.243.32.0 to 104.243.35.255
+        Assert.assertEquals(index.lookup("104.243.33.1"), new GeoLocation("US", "Washington, D.C."));
+        Assert.assertEquals(index.lookup("42.241.200.3"), new GeoLocation("AU", null));
+        Assert.assertEquals(index.lookup("::ffff:42.241.0.1"), new GeoLocation("AU", null));
+        Assert.assertEquals(index.lookup("2001:db8:1::5"), new GeoLocation("NL", "North Holland"));
+        Assert.assertNull(index.lookup("2001:db9::"));
+        Assert.assertNull(index.lookup("1.1.1.1"));
+        Assert.assertNull(index.lookup("unknown"));
+        Assert.assertNull(index.lookup(null));
+    }
+
+    @Test(description = "Checks if the locations of the ranges are shared and the overlapping ranges ignored")
+    public void rangesTest() throws IOException {
+        writeDatabase("10.0.0.0/8,ZZ", "10.1.0.0/16,YY", "11.0.0.0/8,ZZ");
+        GeoIpIndex index = GeoIpIndex.load(database);
+        Assert.assertEquals(index.size(), 2);
+        Assert.assertEquals(index.lookup("10.1.2.3").getCountry(), "ZZ");
+        Assert.assertSame(index.lookup("10.0.0.1"), index.lookup("11.0.0.1"), "A location was not shared");
+    }
+
+    @Test(description = "Checks if the database is reloaded once its file changes, and kept if it cannot be loaded")
+    public void reloadTest() throws IOException {
+        writeDatabase("10.0.0.0/8,ZZ");
+        GeoIpDatabase geoIp = new GeoIpDatabase(database, 1000);
+        geoIp.open();
+        Assert.assertEquals(geoIp.lookup("10.0.0.1").getCountry(), "ZZ");
+        Assert.assertFalse(geoIp.reloadIfModified());
+
+        writeDatabase("10.0.0.0/8,YY");
+        Files.setLastModifiedTime(database, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        Assert.assertTrue(geoIp.reloadIfModified());
+        Assert.assertEquals(geoIp.lookup("10.0.0.1").getCountry(), "YY");
+
+        Files.delete(database);
+        Assert.assertFalse(geoIp.reloadIfModified());
+        Assert.assertEquals(geoIp.lookup("10.0.0.1").getCountry(), "YY", "The previous database was not kept");
+    }
+
+    private void writeDatabase(String... lines) throws IOException {
+        Files.write(database, Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.heavyhitters;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+import org.wso2.appserver.monitoring.management.HeavyHittersMonitor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class contains unit tests for the {@link HeavyHitterTracker} and the structures it is made of.
+ *
+ * @since 6.0.0
+ */
+public class HeavyHitterTrackerTest {
+
+    @Test(description = "Checks if the Space-Saving counts bound the actual counts of the heavy keys")
+    public void spaceSavingTest() {
+        SpaceSavingSummary summary = new SpaceSavingSummary(8);
+        Map<String, Integer> actual = new HashMap<>();
+        for (int index = 0; index < 100; index++) {
+            String key = (index % 2 == 0) ? "a" : (index % 3 == 1) ? "b" : "other-" + index;
+            summary.offer(key, 1);
+            actual.merge(key, 1, Integer::sum);
+        }
+        Assert.assertEquals(summary.size(), 8);
+        Map<String, SpaceSavingSummary.Counter> counters = new HashMap<>();
+        summary.forEach(counter -> counters.put(counter.getKey(), counter));
+        Assert.assertTrue(counters.containsKey("a"), "The heaviest key was not counted");
+        Assert.assertTrue(counters.containsKey("b"), "A key above the guaranteed share was not counted");
+        for (SpaceSavingSummary.Counter counter : counters.values()) {
+            int count = actual.get(counter.getKey());
+            Assert.assertTrue(counter.getCount() >= count, "The count of " + counter.getKey() + " is too low");
+            Assert.assertTrue(counter.getCount() - counter.getError() <= count,
+                    "The error of " + counter.getKey() + " is too low");
+        }
+        double minCount = summary.getMinCount();
+        summary.forEach(counter -> Assert.assertTrue(counter.getCount() >= minCount));
+
+        summary.clear();
+        Assert.assertEquals(summary.size(), 0);
+        Assert.assertEquals(summary.getMinCount(), 0.0);
+    }
+
+    @Test(description = "Checks if the count-min estimates are never below the actual weights and stay close to them")
+    public void countMinSketchTest() {
+        CountMinSketch sketch = new CountMinSketch(100, 4);
+        Assert.assertEquals(sketch.getWidth(), 128);
+        for (int index = 0; index < 1000; index++) {
+            sketch.add(CountMinSketch.hash("key-" + index), 1);
+        }
+        sketch.add(CountMinSketch.hash("hot"), 500);
+        double estimate = sketch.estimate(CountMinSketch.hash("hot"));
+        Assert.assertTrue(estimate >= 500 && estimate <= 500 + Math.E * 1500 / 128, "Estimate: " + estimate);
+        for (int index = 0; index < 1000; index++) {
+            Assert.assertTrue(sketch.estimate(CountMinSketch.hash("key-" + index)) >= 1);
+        }
+        sketch.clear();
+        Assert.assertEquals(sketch.estimate(CountMinSketch.hash("hot")), 0.0);
+    }
+
+    @Test(description = "Checks if the keys leave the window once their slice is older than the window")
+    public void slidingWindowTest() {
+        SlidingHeavyHitters window = new SlidingHeavyHitters(60000, 6, 10, 64, 2);
+        for (int index = 0; index < 5; index++) {
+            window.record("a", 1, 1000);
+        }
+        for (int index = 0; index < 3; index++) {
+            window.record("b", 1, 30000);
+        }
+        window.record(null, 1, 30000);
+
+        List<HeavyHitter> top = window.getTop(10, 35000);
+        Assert.assertEquals(top.size(), 2);
+        Assert.assertEquals(top.get(0), new HeavyHitter("a", 5, 0));
+        Assert.assertEquals(top.get(1), new HeavyHitter("b", 3, 0));
+        Assert.assertEquals(window.getTotal(35000), 8.0);
+        Assert.assertTrue(window.estimate("a", 35000) >= 5);
+
+        Assert.assertEquals(window.getTop(10, 65000), Collections.singletonList(new HeavyHitter("b", 3, 0)));
+        Assert.assertTrue(window.getTop(10, 95000).isEmpty());
+        Assert.assertEquals(window.getTotal(95000), 0.0);
+
+        window.record("c", 1, 70000);
+        window.record("d", 1, 10000);
+        Assert.assertEquals(window.getTop(10, 70000), Arrays.asList(new HeavyHitter("b", 3, 0),
+                new HeavyHitter("c", 1, 0)), "An occurrence older than the window was counted");
+    }
+
+    @Test(description = "Checks if the merged counts of full slices still bound the actual counts")
+    public void mergeTest() {
+        SlidingHeavyHitters window = new SlidingHeavyHitters(20000, 2, 1, 64, 2);
+        window.record("a", 3, 1000);
+        window.record("b", 2, 11000);
+
+        List<HeavyHitter> top = window.getTop(10, 11000);
+        Assert.assertEquals(top.get(0), new HeavyHitter("a", 5, 2));
+        Assert.assertEquals(top.get(1), new HeavyHitter("b", 5, 3));
+    }
+
+    @Test(description = "Checks if the tracker counts every dimension but the anonymous user, weighted by sampling")
+    public void trackerTest() {
+        HeavyHitterTracker tracker = new HeavyHitterTracker(60, 6, 10, 64, 2);
+        long now = System.currentTimeMillis();
+        tracker.record("10.0.0.1", "anonymous.user", "/shop/cart", "curl/7.47.0", 4, now);
+        tracker.record("10.0.0.1", "alice", "/shop/cart", "curl/7.47.0", 1, now);
+        tracker.record("10.0.0.2", "bob", "/shop/item", null, 1, now);
+
+        Assert.assertEquals(tracker.getTotal(now), 6.0);
+        Assert.assertEquals(tracker.getTop(HeavyHitterTracker.Dimension.CLIENT_ADDRESS, 1, now).get(0),
+                new HeavyHitter("10.0.0.1", 5, 0));
+        Assert.assertEquals(tracker.getTop(HeavyHitterTracker.Dimension.USER, 10, now).size(), 2,
+                "The anonymous user was tracked");
+        Assert.assertEquals(tracker.getTop(HeavyHitterTracker.Dimension.USER_AGENT, 10, now).size(), 1);
+        Assert.assertTrue(tracker.estimate(HeavyHitterTracker.Dimension.REQUEST_URI, "/shop/cart", now) >= 5);
+
+        HeavyHittersMonitor monitor = new HeavyHittersMonitor(tracker, 1);
+        Assert.assertEquals(monitor.getWindow(), 60);
+        Assert.assertEquals(monitor.getTopRequestURIs(), new String[] { "5 (83.3%, error 0) /shop/cart" });
+        Assert.assertEquals(monitor.getTop("client_address", 2).length, 2);
+        Assert.assertTrue(monitor.estimateRequestCount("USER", "bob") >= 1);
+    }
+
+    @Test(description = "Checks if an unknown dimension is rejected by the monitor",
+            expectedExceptions = IllegalArgumentException.class)
+    public void unknownDimensionTest() {
+        new HeavyHittersMonitor(new HeavyHitterTracker(60, 6, 10, 64, 2), 10).getTop("referrer", 10);
+    }
+
+    @Test(description = "Checks if the tracker is only created when it is enabled")
+    public void fromConfigurationTest() {
+        Assert.assertNull(HeavyHitterTracker.fromConfiguration(null));
+        AppServerStatsPublishing.HeavyHitters configuration = new AppServerStatsPublishing.HeavyHitters();
+        configuration.setEnabled(true);
+        configuration.setWindow(300);
+        HeavyHitterTracker tracker = HeavyHitterTracker.fromConfiguration(configuration);
+        Assert.assertNotNull(tracker);
+        Assert.assertEquals(tracker.getWindowMillis(), 300000);
+    }
+}
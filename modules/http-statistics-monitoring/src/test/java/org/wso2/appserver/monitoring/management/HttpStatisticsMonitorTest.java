@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.management;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.appserver.monitoring.publisher.CaptureRingBuffer;
+import org.wso2.appserver.monitoring.publisher.OverflowPolicy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class contains unit tests for the {@link HttpStatisticsMonitor}.
+ *
+ * @since 6.0.0
+ */
+public class HttpStatisticsMonitorTest {
+    @Test(description = "Checks if the statistics of the pipeline are exposed")
+    public void statisticsTest() {
+        PipelineStatistics statistics = new PipelineStatistics();
+        CaptureRingBuffer buffer = new CaptureRingBuffer(8, OverflowPolicy.DROP);
+        HttpStatisticsMonitor monitor = new HttpStatisticsMonitor(statistics, buffer, null, null);
+        statistics.recordRequestThreadTime(TimeUnit.MICROSECONDS.toNanos(2));
+        statistics.recordRequestThreadTime(TimeUnit.MICROSECONDS.toNanos(4));
+        statistics.recordCaptured();
+        statistics.recordPublished(TimeUnit.MICROSECONDS.toNanos(10), true);
+        statistics.recordPublished(TimeUnit.MICROSECONDS.toNanos(30), false);
+        statistics.recordFailed();
+
+        Assert.assertEquals(monitor.getQueueCapacity(), 8);
+        Assert.assertEquals(monitor.getQueueDepth(), 0);
+        Assert.assertEquals(monitor.getRequestCount(), 2);
+        Assert.assertEquals(monitor.getRequestThreadTimeMean(), 3.0, 0.001);
+        Assert.assertEquals(monitor.getCapturedCount(), 1);
+        Assert.assertEquals(monitor.getPublishedCount(), 1);
+        Assert.assertEquals(monitor.getRejectedCount(), 1);
+        Assert.assertEquals(monitor.getFailedCount(), 1);
+        Assert.assertEquals(monitor.getPublishTimeMean(), 20.0, 0.001);
+        Assert.assertEquals(monitor.getPublishTimeMax(), 30);
+        Assert.assertEquals(monitor.getSpooledCount(), 0, "A missing spool was not reported as empty");
+        Assert.assertEquals(monitor.getUnavailableReceiverCount(), 0);
+    }
+
+    @Test(description = "Checks if the statistics are counted anew after a reset, without altering the pipeline")
+    public void resetTest() {
+        PipelineStatistics statistics = new PipelineStatistics();
+        HttpStatisticsMonitor monitor = new HttpStatisticsMonitor(statistics, null, null, null);
+        statistics.recordPublished(TimeUnit.MICROSECONDS.toNanos(50), true);
+        statistics.recordRequestThreadTime(1000);
+        monitor.resetStatistics();
+
+        Assert.assertEquals(monitor.getPublishedCount(), 0);
+        Assert.assertEquals(monitor.getPublishTimeMax(), 0);
+        Assert.assertEquals(monitor.getPublishTimeMean(), 0.0, 0.001);
+        Assert.assertEquals(monitor.getRequestCount(), 0);
+        Assert.assertEquals(statistics.getPublishedCount(), 1, "The counters of the pipeline were reset");
+
+        statistics.recordPublished(TimeUnit.MICROSECONDS.toNanos(20), true);
+        Assert.assertEquals(monitor.getPublishedCount(), 1);
+        Assert.assertEquals(monitor.getPublishTimeMax(), 20);
+        Assert.assertEquals(monitor.getPublishTimeMean(), 20.0, 0.001);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.metrics;
+
+import org.apache.catalina.connector.Request;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * This class contains unit tests for the {@link MetricsEndpoint}.
+ *
+ * @since 6.0.0
+ */
+public class MetricsEndpointTest {
+    private static final String PATH = "/http-metrics";
+
+    @Test(description = "Checks if only the requests for the path from the allowed client addresses are matched")
+    public void allowedAddressTest() {
+        MetricsEndpoint endpoint = new MetricsEndpoint(new MetricsRegistry(), PATH,
+                Arrays.asList("127.0.0.0/8", "::1/128", "10.1.0.0/16", "invalid"));
+        Assert.assertTrue(endpoint.matches(createRequest(PATH, "127.0.0.1")));
+        Assert.assertTrue(endpoint.matches(createRequest(PATH, "::1")));
+        Assert.assertTrue(endpoint.matches(createRequest(PATH, "10.1.2.3")));
+        Assert.assertFalse(endpoint.matches(createRequest(PATH, "10.2.0.1")),
+                "The metrics were served to a client address which is not allowed");
+        Assert.assertFalse(endpoint.matches(createRequest(PATH, null)));
+        Assert.assertFalse(endpoint.matches(createRequest("/sample", "127.0.0.1")));
+    }
+
+    @Test(description = "Checks if the metrics are served to no client if the allowed addresses are empty")
+    public void noAllowedAddressTest() {
+        MetricsEndpoint endpoint = new MetricsEndpoint(new MetricsRegistry(), PATH, Collections.emptyList());
+        Assert.assertFalse(endpoint.matches(createRequest(PATH, "127.0.0.1")));
+    }
+
+    private static Request createRequest(String requestURI, String remoteAddress) {
+        return new Request() {
+            @Override
+            public String getDecodedRequestURI() {
+                return requestURI;
+            }
+
+            @Override
+            public String getRemoteAddr() {
+                return remoteAddress;
+            }
+        };
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class contains unit tests for the {@link MetricsRegistry} and its exposition of the request metrics.
+ *
+ * @since 6.0.0
+ */
+public class MetricsRegistryTest {
+    private static final String BUCKET = MetricsRegistry.DURATION_METRIC + "_bucket";
+
+    @Test(description = "Checks if the buckets of the histogram are cumulative and end with the total count")
+    public void histogramTest() {
+        MetricsRegistry registry = new MetricsRegistry();
+        ContextMetrics metrics = registry.register("/sample", "/sample");
+        metrics.record(200, TimeUnit.MICROSECONDS.toNanos(500));
+        metrics.record(200, TimeUnit.MILLISECONDS.toNanos(1));
+        metrics.record(204, TimeUnit.MILLISECONDS.toNanos(30));
+        metrics.record(200, TimeUnit.SECONDS.toNanos(20));
+
+        String exposition = write(registry, false);
+        String labels = "{context=\"/sample\",status_class=\"2xx\"";
+        Assert.assertTrue(exposition.contains(BUCKET + labels + ",le=\"0.001\"} 2\n"), exposition);
+        Assert.assertTrue(exposition.contains(BUCKET + labels + ",le=\"0.025\"} 2\n"), exposition);
+        Assert.assertTrue(exposition.contains(BUCKET + labels + ",le=\"0.05\"} 3\n"), exposition);
+        Assert.assertTrue(exposition.contains(BUCKET + labels + ",le=\"10.0\"} 3\n"), exposition);
+        Assert.assertTrue(exposition.contains(BUCKET + labels + ",le=\"+Inf\"} 4\n"), exposition);
+        Assert.assertTrue(exposition.contains(MetricsRegistry.DURATION_METRIC + "_count" + labels + "} 4\n"));
+        Assert.assertTrue(exposition.contains(MetricsRegistry.DURATION_METRIC + "_sum" + labels + "} 20.0315\n"),
+                exposition);
+        Assert.assertEquals(metrics.getCount(2), 4);
+    }
+
+    @Test(description = "Checks if a series is only written for the status classes which were recorded")
+    public void statusClassTest() {
+        MetricsRegistry registry = new MetricsRegistry();
+        ContextMetrics metrics = registry.register("/", "");
+        metrics.record(404, 1000);
+        metrics.record(999, 1000);
+
+        String exposition = write(registry, false);
+        Assert.assertTrue(exposition.contains("status_class=\"4xx\""));
+        Assert.assertTrue(exposition.contains("status_class=\"9xx\""));
+        Assert.assertFalse(exposition.contains("status_class=\"2xx\""));
+        Assert.assertEquals(metrics.getCount(4), 1);
+        Assert.assertEquals(metrics.getCount(5), 0);
+    }
+
+    @Test(description = "Checks if the metadata of the OpenMetrics format is written and the label values escaped")
+    public void openMetricsTest() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.register("/a\"b\\c", "/a\"b\\c").record(500, 1000);
+
+        String exposition = write(registry, true);
+        Assert.assertTrue(exposition.startsWith("# TYPE " + MetricsRegistry.DURATION_METRIC + " histogram\n# UNIT " +
+                MetricsRegistry.DURATION_METRIC + " seconds\n"), exposition);
+        Assert.assertTrue(exposition.contains("context=\"/a\\\"b\\\\c\""), exposition);
+        Assert.assertTrue(exposition.endsWith("\n# EOF\n"));
+        Assert.assertFalse(write(registry, false).contains("# EOF"));
+    }
+
+    @Test(description = "Checks if the metrics of a context are kept when it is registered again and removed with it")
+    public void registrationTest() {
+        MetricsRegistry registry = new MetricsRegistry();
+        ContextMetrics metrics = registry.register("/sample", "/sample");
+        metrics.record(200, 1000);
+        Assert.assertSame(registry.register("/sample", "/sample"), metrics);
+
+        registry.unregister("/sample", "/sample");
+        Assert.assertFalse(write(registry, false).contains("/sample"));
+    }
+
+    @Test(description = "Checks if the metrics shared by the versions of a context are kept until every one is removed")
+    public void parallelVersionsTest() {
+        MetricsRegistry registry = new MetricsRegistry();
+        ContextMetrics metrics = registry.register("/sample", "/sample##1");
+        Assert.assertSame(registry.register("/sample", "/sample##2"), metrics);
+        metrics.record(200, 1000);
+
+        registry.unregister("/sample", "/sample##1");
+        Assert.assertTrue(write(registry, false).contains("context=\"/sample\""),
+                "The metrics still used by a version were removed");
+        registry.unregister("/sample", "/sample##2");
+        Assert.assertFalse(write(registry, false).contains("/sample"));
+    }
+
+    private static String write(MetricsRegistry registry, boolean openMetrics) {
+        StringBuilder out = new StringBuilder();
+        registry.write(out, openMetrics);
+        return out.toString();
+    }
+}
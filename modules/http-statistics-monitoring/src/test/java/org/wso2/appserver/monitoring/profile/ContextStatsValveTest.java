@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.profile;
+
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.valves.ValveBase;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.appserver.monitoring.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import javax.servlet.ServletException;
+
+/**
+ * This class contains unit tests for the {@link ContextStatsValve} and the resolution of the {@link StatsProfile}s.
+ *
+ * @since 6.0.0
+ */
+public class ContextStatsValveTest {
+    private static final String STREAM_ID = "org.wso2.http.analytics.stream:1.5.0";
+
+    @Test(description = "Checks if a context without the valve has no profile")
+    public void disabledContextTest() {
+        StandardContext context = new StandardContext();
+        context.getPipeline().addValve(new PassThroughValve());
+        Assert.assertNull(ContextStatsValve.getProfile(context));
+    }
+
+    @Test(description = "Checks if the profile is registered against the context the valve is added to")
+    public void enabledContextTest() {
+        StandardContext context = new StandardContext();
+        StatsProfile profile = new StatsProfile(STREAM_ID, null, null, null, null, null, null, null, null);
+        context.getPipeline().addValve(new PassThroughValve());
+        context.getPipeline().addValve(new ContextStatsValve(profile));
+        Assert.assertSame(ContextStatsValve.getProfile(context), profile);
+        Assert.assertTrue(profile.isEnabled());
+        Assert.assertEquals(profile.getStreamId(), STREAM_ID);
+    }
+
+    @Test(description = "Checks if the profile of a context is unregistered, or replaced, with its valve")
+    public void removedValveTest() {
+        StandardContext context = new StandardContext();
+        ContextStatsValve valve = new ContextStatsValve(new StatsProfile(null));
+        context.getPipeline().addValve(valve);
+        context.getPipeline().removeValve(valve);
+        Assert.assertNull(ContextStatsValve.getProfile(context), "The profile of a removed valve was kept");
+
+        StatsProfile profile = new StatsProfile(null);
+        ContextStatsValve replacement = new ContextStatsValve(profile);
+        context.getPipeline().addValve(valve);
+        context.getPipeline().addValve(replacement);
+        context.getPipeline().removeValve(valve);
+        Assert.assertSame(ContextStatsValve.getProfile(context), profile,
+                "Removing a replaced valve unregistered the profile of its replacement");
+    }
+
+    @Test(description = "Checks if a context without a statistics publishing configuration is not published")
+    public void unconfiguredContextTest() {
+        StatsProfile profile = new StatsProfiles(null, null).resolve(new StandardContext());
+        Assert.assertSame(profile, StatsProfile.DISABLED);
+        Assert.assertFalse(profile.isEnabled());
+    }
+
+    @Test(description = "Checks if a context whose statistics are not published still has its requests counted")
+    public void metricsOnlyContextTest() {
+        StatsProfiles profiles = new StatsProfiles(null, new MetricsRegistry());
+        StandardContext context = new StandardContext();
+        context.setPath("/sample");
+        StatsProfile profile = profiles.resolve(context);
+        Assert.assertNotSame(profile, StatsProfile.DISABLED);
+        Assert.assertFalse(profile.isEnabled());
+        Assert.assertNotNull(profile.getMetrics());
+        Assert.assertEquals(profile.getMetrics().getContextName(), "/sample");
+        Assert.assertSame(profiles.resolve(context).getMetrics(), profile.getMetrics(),
+                "The metrics of a restarted context were not kept");
+    }
+
+    private static class PassThroughValve extends ValveBase {
+        @Override
+        public void invoke(Request request, Response response) throws IOException, ServletException {
+            getNext().invoke(request, response);
+        }
+    }
+}
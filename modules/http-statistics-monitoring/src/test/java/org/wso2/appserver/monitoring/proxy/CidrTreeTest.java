@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.proxy;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * This class contains unit tests for the {@link CidrTree}.
+ *
+ * @since 6.0.0
+ */
+public class CidrTreeTest {
+    @Test(description = "Checks if IPv4 addresses are matched against the IPv4 ranges")
+    public void ipv4Test() {
+        CidrTree tree = createTree("10.0.0.0/8", "192.168.1.0/24", "203.0.113.7");
+        Assert.assertTrue(tree.contains("10.255.1.2"));
+        Assert.assertTrue(tree.contains("192.168.1.200"));
+        Assert.assertFalse(tree.contains("192.168.2.1"));
+        Assert.assertTrue(tree.contains("203.0.113.7"));
+        Assert.assertFalse(tree.contains("203.0.113.8"));
+        Assert.assertFalse(tree.contains("11.0.0.1"));
+    }
+
+    @Test(description = "Checks if IPv6 addresses, in their compressed and mapped forms, are matched")
+    public void ipv6Test() {
+        CidrTree tree = createTree("2001:db8::/32", "::1", "10.0.0.0/8", "fe80::/10");
+        Assert.assertTrue(tree.contains("2001:db8:0:0:0:0:0:1"));
+        Assert.assertTrue(tree.contains("2001:DB8:ffff::"));
+        Assert.assertFalse(tree.contains("2001:db9::1"));
+        Assert.assertTrue(tree.contains("::1"));
+        Assert.assertFalse(tree.contains("::2"));
+        Assert.assertTrue(tree.contains("::ffff:10.1.2.3"), "An IPv4-mapped address was not matched");
+        Assert.assertTrue(tree.contains("fe80::1%eth0"), "An address with a zone index was not matched");
+    }
+
+    @Test(description = "Checks if a lookup within a range of characters ignores the characters around it")
+    public void rangeTest() {
+        CidrTree tree = createTree("172.16.0.0/12");
+        String value = "203.0.113.1, 172.20.1.1, x";
+        Assert.assertEquals(tree.lookup(value, 0, 11), CidrTree.NO_MATCH);
+        Assert.assertEquals(tree.lookup(value, 13, 23), CidrTree.MATCH);
+        Assert.assertEquals(tree.lookup(value, 25, 26), CidrTree.MALFORMED);
+    }
+
+    @Test(description = "Checks if the texts which are not IP addresses are reported as malformed")
+    public void malformedTest() {
+        CidrTree tree = createTree("0.0.0.0/0", "::/0");
+        for (String address : new String[] { "", "unknown", "1.2.3", "1.2.3.4.5", "256.1.1.1", "1..2.3", "1:2",
+                "1:2:3:4:5:6:7:8:9", "1::2::3", ":1::", "12345::", "::ffff:1.2.3", "1:2:3:4:5:6:7:8::" }) {
+            Assert.assertEquals(tree.lookup(address, 0, address.length()), CidrTree.MALFORMED, address);
+        }
+        Assert.assertEquals(tree.lookup("1:2:3:4:5:6:1.2.3.4", 0, 19), CidrTree.MATCH);
+        Assert.assertEquals(tree.lookup("::", 0, 2), CidrTree.MATCH);
+    }
+
+    @Test(description = "Checks if the invalid ranges are rejected",
+            expectedExceptions = IllegalArgumentException.class)
+    public void invalidRangeTest() {
+        createTree("10.0.0.0/33");
+    }
+
+    private static CidrTree createTree(String... ranges) {
+        CidrTree tree = new CidrTree();
+        for (String range : ranges) {
+            tree.add(range);
+        }
+        return tree;
+    }
+}
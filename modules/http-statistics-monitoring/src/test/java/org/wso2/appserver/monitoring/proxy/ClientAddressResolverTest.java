@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.proxy;
+
+import org.apache.catalina.connector.Request;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class contains unit tests for the {@link ClientAddressResolver}.
+ *
+ * @since 6.0.0
+ */
+public class ClientAddressResolverTest {
+    private static final ClientAddressResolver RESOLVER = new ClientAddressResolver(
+            Arrays.asList("10.0.0.0/8", "2001:db8::/32"));
+
+    @Test(description = "Checks if the forwarding chain is walked from right to left up to an untrusted address")
+    public void chainTest() {
+        Assert.assertEquals(RESOLVER.resolve("198.51.100.1, 203.0.113.9, 10.0.0.2, 10.0.0.1"), "203.0.113.9");
+        Assert.assertEquals(RESOLVER.resolve("203.0.113.9"), "203.0.113.9");
+        Assert.assertEquals(RESOLVER.resolve("10.0.0.3,10.0.0.2"), "10.0.0.3",
+                "The leftmost address of a chain of trusted proxies was not resolved");
+        Assert.assertEquals(RESOLVER.resolve(" 198.51.100.1 ,, 2001:db8::7 "), "198.51.100.1");
+    }
+
+    @Test(description = "Checks if the ports and the invalid entries of the forwarding chain are handled")
+    public void entryTest() {
+        Assert.assertEquals(RESOLVER.resolve("203.0.113.9:5678, 10.0.0.1"), "203.0.113.9");
+        Assert.assertEquals(RESOLVER.resolve("[2001:db9::1]:443"), "2001:db9::1");
+        Assert.assertEquals(RESOLVER.resolve("unknown, 10.0.0.1"), "10.0.0.1");
+        Assert.assertNull(RESOLVER.resolve("unknown"));
+        Assert.assertNull(RESOLVER.resolve(""));
+    }
+
+    @Test(description = "Checks if the forwarding headers are only trusted when set by a trusted proxy")
+    public void trustedProxyTest() {
+        Assert.assertEquals(RESOLVER.resolve(createRequest("198.51.100.1", "X-Forwarded-For", "203.0.113.9")),
+                "198.51.100.1", "The forwarding header of an untrusted client was trusted");
+        Assert.assertEquals(RESOLVER.resolve(createRequest("10.0.0.1", "X-Forwarded-For", "203.0.113.9")),
+                "203.0.113.9");
+        Assert.assertEquals(RESOLVER.resolve(createRequest("10.0.0.1", "X-Forwarded-For", "unknown",
+                "HTTP_CLIENT_IP", "203.0.113.9")), "203.0.113.9", "The subsequent forwarding headers were ignored");
+        Assert.assertEquals(RESOLVER.resolve(createRequest("10.0.0.1")), "10.0.0.1");
+        Assert.assertEquals(RESOLVER.resolve(createRequest("198.51.100.1", "HTTP_CLIENT_IP", "203.0.113.9")),
+                "198.51.100.1", "The fallback forwarding header of an untrusted client was trusted");
+    }
+
+    @Test(description = "Checks if the default proxies are trusted unless the trusted proxies are configured")
+    public void configurationTest() {
+        Assert.assertSame(ClientAddressResolver.fromConfiguration(null), ClientAddressResolver.DEFAULT);
+        Assert.assertEquals(ClientAddressResolver.DEFAULT.resolve("203.0.113.9, 127.0.0.1"), "203.0.113.9");
+        Assert.assertEquals(ClientAddressResolver.DEFAULT.resolve(createRequest("192.168.1.1", "X-Forwarded-For",
+                "203.0.113.9")), "192.168.1.1", "A private network address was trusted by default");
+
+        ClientAddressResolver resolver = ClientAddressResolver.fromConfiguration(
+                new AppServerStatsPublishing.TrustedProxies());
+        Assert.assertEquals(resolver.resolve(createRequest("127.0.0.1", "X-Forwarded-For", "203.0.113.9")),
+                "127.0.0.1", "A proxy was trusted although none are configured");
+    }
+
+    private static Request createRequest(String remoteAddress, String... headers) {
+        Map<String, String> values = new HashMap<>();
+        for (int index = 0; index < headers.length; index += 2) {
+            values.put(headers[index], headers[index + 1]);
+        }
+        return new Request() {
+            @Override
+            public String getRemoteAddr() {
+                return remoteAddress;
+            }
+
+            @Override
+            public String getHeader(String name) {
+                return values.get(name);
+            }
+        };
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.publisher;
+
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.catalina.core.StandardContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.appserver.monitoring.management.PipelineStatistics;
+import org.wso2.appserver.monitoring.profile.StatsProfile;
+import org.wso2.appserver.monitoring.proxy.ClientAddressResolver;
+import org.wso2.appserver.monitoring.utils.EventBuilder;
+import org.wso2.appserver.monitoring.utils.HeaderCapturePolicy;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * This class contains unit tests for the {@link AsyncStatPublisher}.
+ *
+ * @since 6.0.0
+ */
+public class AsyncStatPublisherTest {
+    private static final String STREAM_ID = "org.wso2.http.analytics.stream:1.5.0";
+
+    @Test(description = "Checks if the Events of a batch whose publishing failed are not published again")
+    public void failedPublishingTest() {
+        CaptureRingBuffer buffer = new CaptureRingBuffer(8, OverflowPolicy.DROP);
+        FailingEventPublisher eventPublisher = new FailingEventPublisher();
+        PipelineStatistics statistics = new PipelineStatistics();
+        AsyncStatPublisher publisher = new AsyncStatPublisher(buffer, eventPublisher, 8, null, statistics);
+        StatsProfile profile = createProfile();
+        capture(buffer, profile, "/sample/first");
+        capture(buffer, profile, "/sample/second");
+        capture(buffer, profile, "/sample/third");
+
+        try {
+            publisher.publishBatch();
+            Assert.fail("The failure of the event publisher was not propagated");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(eventPublisher.attempts, 1);
+        }
+        Assert.assertEquals(buffer.size(), 0, "The slots of the failed batch were not released");
+        Assert.assertEquals(statistics.getFailedCount(), 3);
+
+        capture(buffer, profile, "/sample/fourth");
+        Assert.assertEquals(publisher.publishBatch(), 1);
+        Assert.assertEquals(eventPublisher.published.size(), 1, "The Events of the failed batch were published again");
+        Assert.assertEquals(eventPublisher.published.get(0).getPayloadData()[3], "/sample/fourth");
+        Assert.assertEquals(statistics.getPublishedCount(), 1);
+        Assert.assertEquals(statistics.getFailedCount(), 3);
+    }
+
+    private static StatsProfile createProfile() {
+        StandardContext context = new StandardContext();
+        context.setPath("/sample");
+        return new StatsProfile(STREAM_ID, EventBuilder.createTemplate(context),
+                HeaderCapturePolicy.fromConfiguration(null), null, null, ClientAddressResolver.fromConfiguration(null),
+                null, null, null);
+    }
+
+    private static void capture(CaptureRingBuffer buffer, StatsProfile profile, String requestURI) {
+        Request request = mock(Request.class);
+        when(request.getRequestURI()).thenReturn(requestURI);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getRemoteAddr()).thenReturn("127.0.0.1");
+        when(request.getHeaderNames()).thenAnswer(invocation -> Collections.emptyEnumeration());
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(200);
+
+        int slot = buffer.claim();
+        buffer.get(slot).capture(request, response, profile, System.currentTimeMillis(), 5, 1.0);
+        buffer.publish(slot);
+    }
+
+    /**
+     * An event publisher which fails the first time it is called, and keeps the Events it publishes afterwards.
+     */
+    private static class FailingEventPublisher implements EventPublisher {
+        private final List<Event> published = new ArrayList<>();
+        private int attempts;
+
+        @Override
+        public void publish(Event event) {
+            if (++attempts == 1) {
+                throw new IllegalStateException("The receiver failed");
+            }
+            published.add(event);
+        }
+
+        @Override
+        public boolean tryPublish(Event event) {
+            publish(event);
+            return true;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
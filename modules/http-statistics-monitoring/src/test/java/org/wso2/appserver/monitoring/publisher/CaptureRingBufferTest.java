@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.publisher;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * This class contains unit tests for the {@link CaptureRingBuffer}.
+ *
+ * @since 6.0.0
+ */
+public class CaptureRingBufferTest {
+
+    @Test(description = "Checks if the capacity is rounded up to a power of two")
+    public void capacityTest() {
+        Assert.assertEquals(new CaptureRingBuffer(1, OverflowPolicy.DROP).getCapacity(), 2);
+        Assert.assertEquals(new CaptureRingBuffer(8, OverflowPolicy.DROP).getCapacity(), 8);
+        Assert.assertEquals(new CaptureRingBuffer(1000, OverflowPolicy.DROP).getCapacity(), 1024);
+    }
+
+    @Test(description = "Checks if the published slots are polled in order and unpublished slots are not visible")
+    public void orderingTest() {
+        CaptureRingBuffer buffer = new CaptureRingBuffer(4, OverflowPolicy.DROP);
+        int first = buffer.claim();
+        int second = buffer.claim();
+        buffer.publish(second);
+        Assert.assertEquals(buffer.poll(), -1, "Slot polled before the preceding slot was published");
+
+        buffer.publish(first);
+        Assert.assertEquals(buffer.poll(), first);
+        Assert.assertEquals(buffer.poll(), second);
+        Assert.assertEquals(buffer.poll(), -1);
+        buffer.release(first);
+        buffer.release(second);
+        Assert.assertEquals(buffer.size(), 0);
+    }
+
+    @Test(description = "Checks if arriving records are dropped when the buffer is full under the drop policy")
+    public void dropPolicyTest() {
+        CaptureRingBuffer buffer = new CaptureRingBuffer(2, OverflowPolicy.DROP);
+        int first = buffer.claim();
+        buffer.publish(first);
+        buffer.publish(buffer.claim());
+        Assert.assertEquals(buffer.claim(), -1);
+        Assert.assertEquals(buffer.getDroppedCount(), 1);
+
+        int slot = buffer.poll();
+        Assert.assertEquals(slot, first);
+        buffer.release(slot);
+        Assert.assertTrue(buffer.claim() >= 0, "No slot could be claimed after a slot was released");
+    }
+
+    @Test(description = "Checks if the oldest records are discarded when the buffer is full under the overwrite "
+            + "policy")
+    public void overwritePolicyTest() {
+        CaptureRingBuffer buffer = new CaptureRingBuffer(2, OverflowPolicy.OVERWRITE);
+        int first = buffer.claim();
+        buffer.publish(first);
+        int second = buffer.claim();
+        buffer.publish(second);
+        int third = buffer.claim();
+        Assert.assertEquals(third, first, "The oldest slot was not reused");
+        Assert.assertEquals(buffer.getDroppedCount(), 1);
+        buffer.publish(third);
+
+        Assert.assertEquals(buffer.poll(), second);
+        Assert.assertEquals(buffer.poll(), third);
+    }
+
+    @Test(description = "Checks if no record is lost or duplicated with concurrent producers")
+    public void concurrentProducersTest() throws InterruptedException {
+        final int producers = 4;
+        final int recordsPerProducer = 10000;
+        CaptureRingBuffer buffer = new CaptureRingBuffer(64, OverflowPolicy.DROP);
+        CountDownLatch latch = new CountDownLatch(producers);
+        List<Thread> threads = new ArrayList<>();
+        for (int producer = 0; producer < producers; producer++) {
+            Thread thread = new Thread(() -> {
+                int published = 0;
+                while (published < recordsPerProducer) {
+                    int slot = buffer.claim();
+                    if (slot >= 0) {
+                        buffer.publish(slot);
+                        published++;
+                    }
+                }
+                latch.countDown();
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        long consumed = 0;
+        while (consumed < (long) producers * recordsPerProducer) {
+            int slot = buffer.poll();
+            if (slot >= 0) {
+                buffer.release(slot);
+                consumed++;
+            }
+        }
+        latch.await();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(buffer.poll(), -1, "More records were consumed than published");
+        Assert.assertEquals(consumed, (long) producers * recordsPerProducer);
+    }
+}
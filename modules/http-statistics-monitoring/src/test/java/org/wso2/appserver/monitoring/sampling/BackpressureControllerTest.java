@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.sampling;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+import org.wso2.appserver.monitoring.management.PipelineStatistics;
+import org.wso2.appserver.monitoring.publisher.CaptureRingBuffer;
+import org.wso2.appserver.monitoring.publisher.OverflowPolicy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class contains unit tests for the {@link BackpressureController}.
+ *
+ * @since 6.0.0
+ */
+public class BackpressureControllerTest {
+    private static final int CAPACITY = 16;
+
+    @Test(description = "Checks if the rate is halved down to its minimum while the buffer is filled and raised " +
+            "back once it is drained")
+    public void occupancyTest() {
+        CaptureRingBuffer buffer = new CaptureRingBuffer(CAPACITY, OverflowPolicy.DROP);
+        BackpressureController controller = new BackpressureController(buffer, new PipelineStatistics(), 0.5, 0.1,
+                20, 0.1, 1000);
+        fill(buffer, CAPACITY / 2);
+        controller.adjust();
+        Assert.assertEquals(controller.getRate(), 0.5);
+        for (int count = 0; count < 10; count++) {
+            controller.adjust();
+        }
+        Assert.assertEquals(controller.getRate(), 0.1, "The rate was lowered below its minimum");
+
+        drain(buffer, CAPACITY / 4);
+        controller.adjust();
+        Assert.assertEquals(controller.getRate(), 0.1, "The rate changed between the watermarks");
+
+        drain(buffer, CAPACITY / 4);
+        controller.adjust();
+        Assert.assertEquals(controller.getRate(), 0.125, 0.000001);
+        for (int count = 0; count < 20; count++) {
+            controller.adjust();
+        }
+        Assert.assertEquals(controller.getRate(), 1.0, "The rate was raised above one");
+    }
+
+    @Test(description = "Checks if a slow or rejecting publisher lowers the rate even while the buffer is empty")
+    public void publishLatencyTest() {
+        CaptureRingBuffer buffer = new CaptureRingBuffer(CAPACITY, OverflowPolicy.DROP);
+        PipelineStatistics statistics = new PipelineStatistics();
+        BackpressureController controller = new BackpressureController(buffer, statistics, 0.5, 0.1, 20, 0.01, 1000);
+        statistics.recordPublished(TimeUnit.MILLISECONDS.toNanos(1), true);
+        statistics.recordPublished(TimeUnit.MILLISECONDS.toNanos(2), true);
+        controller.adjust();
+        Assert.assertEquals(controller.getRate(), 1.0);
+
+        statistics.recordPublished(TimeUnit.MILLISECONDS.toNanos(50), true);
+        statistics.recordPublished(TimeUnit.MILLISECONDS.toNanos(30), true);
+        controller.adjust();
+        Assert.assertEquals(controller.getRate(), 0.5, "A slow publisher did not lower the rate");
+
+        statistics.recordPublished(TimeUnit.MICROSECONDS.toNanos(10), false);
+        controller.adjust();
+        Assert.assertEquals(controller.getRate(), 0.25, "Spooled Events did not lower the rate");
+
+        controller.adjust();
+        Assert.assertEquals(controller.getRate(), 0.3125, 0.000001);
+    }
+
+    @Test(description = "Checks if the rate is adjusted at most once per interval")
+    public void intervalTest() {
+        CaptureRingBuffer buffer = new CaptureRingBuffer(CAPACITY, OverflowPolicy.DROP);
+        BackpressureController controller = new BackpressureController(buffer, new PipelineStatistics(), 0.5, 0.1,
+                20, 0.01, 1000);
+        fill(buffer, CAPACITY);
+        Assert.assertEquals(controller.getRate(1000), 0.5);
+        Assert.assertEquals(controller.getRate(1500), 0.5);
+        Assert.assertEquals(controller.getRate(2000), 0.25);
+    }
+
+    @Test(description = "Checks if the sampling probability is multiplied by the rate and the tail rules still apply")
+    public void samplerRateTest() {
+        Sampler sampler = new Sampler(0.5, 0, true, 2000);
+        for (int count = 0; count < 100; count++) {
+            Assert.assertEquals(sampler.sample(500, 10, 1000, 0.01), 1.0);
+            Assert.assertEquals(sampler.sample(200, 2500, 1000, 0.01), 1.0);
+            double weight = sampler.sample(200, 10, 1000, 0.25);
+            Assert.assertTrue(weight == Sampler.NOT_SAMPLED || weight == 8.0, "Unexpected weight " + weight);
+        }
+    }
+
+    @Test(description = "Checks if the controller is only created when the adaptive sampling is enabled")
+    public void fromConfigurationTest() {
+        CaptureRingBuffer buffer = new CaptureRingBuffer(CAPACITY, OverflowPolicy.DROP);
+        Assert.assertNull(BackpressureController.fromConfiguration(null, buffer, new PipelineStatistics()));
+
+        AppServerStatsPublishing.AdaptiveSampling configuration = new AppServerStatsPublishing.AdaptiveSampling();
+        configuration.setEnabled(true);
+        BackpressureController controller = BackpressureController.fromConfiguration(configuration, buffer,
+                new PipelineStatistics());
+        Assert.assertNotNull(controller);
+        Assert.assertEquals(controller.getRate(), 1.0);
+    }
+
+    @Test(description = "Checks if inconsistent watermarks are rejected",
+            expectedExceptions = IllegalArgumentException.class)
+    public void invalidWatermarksTest() {
+        new BackpressureController(new CaptureRingBuffer(CAPACITY, OverflowPolicy.DROP), new PipelineStatistics(),
+                0.2, 0.5, 20, 0.01, 1000);
+    }
+
+    private static void fill(CaptureRingBuffer buffer, int count) {
+        for (int index = 0; index < count; index++) {
+            buffer.publish(buffer.claim());
+        }
+    }
+
+    private static void drain(CaptureRingBuffer buffer, int count) {
+        for (int index = 0; index < count; index++) {
+            buffer.release(buffer.poll());
+        }
+    }
+}
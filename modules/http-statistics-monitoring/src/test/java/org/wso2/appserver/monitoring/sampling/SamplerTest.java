@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.sampling;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.appserver.configuration.context.WebAppStatsPublishing;
+import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+
+/**
+ * This class contains unit tests for the {@link Sampler}.
+ *
+ * @since 6.0.0
+ */
+public class SamplerTest {
+
+    @Test(description = "Checks if the context level sampling configuration overrides the server level one")
+    public void createTest() {
+        AppServerStatsPublishing.Sampling server = new AppServerStatsPublishing.Sampling();
+        server.setProbability(0.5);
+        server.setMaxEventsPerSecond(100);
+        WebAppStatsPublishing.Sampling context = new WebAppStatsPublishing.Sampling();
+        context.setProbability(0.25);
+        context.setKeepErrors(false);
+
+        Sampler sampler = Sampler.create(server, context);
+        Assert.assertEquals(sampler.getProbability(), 0.25);
+        Assert.assertEquals(sampler.getMaxEventsPerSecond(), 100);
+        Assert.assertFalse(sampler.isKeepErrors());
+        Assert.assertEquals(sampler.getSlowRequestThreshold(), 0L);
+
+        Sampler defaultSampler = Sampler.create(null, null);
+        Assert.assertEquals(defaultSampler.getProbability(), 1.0);
+        Assert.assertEquals(defaultSampler.getMaxEventsPerSecond(), 0);
+        Assert.assertTrue(defaultSampler.isKeepErrors());
+    }
+
+    @Test(description = "Checks if errors and slow requests are always kept")
+    public void tailRulesTest() {
+        Sampler sampler = new Sampler(0.0001, 1, true, 2000);
+        for (int count = 0; count < 100; count++) {
+            Assert.assertEquals(sampler.sample(500, 10, 1000), 1.0);
+            Assert.assertEquals(sampler.sample(200, 2500, 1000), 1.0);
+        }
+    }
+
+    @Test(description = "Checks if every request is kept with a weight of one when sampling is disabled")
+    public void keepAllTest() {
+        for (int count = 0; count < 100; count++) {
+            Assert.assertEquals(Sampler.KEEP_ALL.sample(200, 10, count), 1.0);
+        }
+    }
+
+    @Test(description = "Checks if the per-second cap limits the kept requests and raises their weight")
+    public void maxEventsPerSecondTest() {
+        Sampler sampler = new Sampler(1.0, 10, false, 0);
+        int kept = 0;
+        for (int count = 0; count < 100; count++) {
+            if (sampler.sample(200, 10, 1000) != Sampler.NOT_SAMPLED) {
+                kept++;
+            }
+        }
+        Assert.assertEquals(kept, 10);
+
+        double weight = Sampler.NOT_SAMPLED;
+        for (int count = 0; count < 100 && weight == Sampler.NOT_SAMPLED; count++) {
+            weight = sampler.sample(200, 10, 2000);
+        }
+        Assert.assertEquals(weight, 10.0);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.sink;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * This class contains unit tests for the {@link ColumnarFileSink} and the {@link ColumnarFileReader}.
+ *
+ * @since 6.0.0
+ */
+public class ColumnarFileSinkTest {
+    private static final String STREAM_ID = "org.wso2.http.analytics.stream:1.5.0";
+    private static final long ROTATION_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final String[] METHODS = { "GET", "POST", "PUT", "DELETE" };
+
+    private Path directory;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("http-statistics-sink");
+    }
+
+    @AfterMethod
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test(description = "Checks if the attribute values of the written Events are read back unchanged")
+    public void roundTripTest() throws IOException {
+        ColumnarFileSink sink = openSink(64, Long.MAX_VALUE);
+        List<Event> events = new ArrayList<>();
+        for (int index = 0; index < 150; index++) {
+            Event event = createEvent(index);
+            events.add(event);
+            Assert.assertTrue(sink.tryPublish(event));
+        }
+        sink.publish(new Event(STREAM_ID, 1468296734385L, null, null,
+                new Object[] { 1, 2.5f, true, false, null, "mixed", 3L }, null));
+        sink.shutdown();
+        Assert.assertEquals(sink.getWrittenCount(), 151);
+
+        sink.publish(createEvent(0));
+        Assert.assertEquals(sink.getDroppedCount(), 1, "An Event published after the shutdown was not dropped");
+
+        List<Object[]> rows = readRows(listFiles().get(0));
+        Assert.assertEquals(rows.size(), 151);
+        for (int index = 0; index < events.size(); index++) {
+            Assert.assertEquals(rows.get(index), toRow(events.get(index)));
+        }
+        Assert.assertEquals(rows.get(150), new Object[] { 1468296734385L, 1L, 2.5, true, false, null, "mixed", 3L },
+                "The Event of different attributes was not written as a block of its own");
+    }
+
+    @Test(description = "Checks if the files are rotated once they reach the maximum size")
+    public void rotationTest() throws IOException {
+        ColumnarFileSink sink = openSink(16, 512);
+        for (int index = 0; index < 200; index++) {
+            sink.publish(createEvent(index));
+        }
+        Assert.assertEquals(listParts().size(), 1, "The file being written was not a part file");
+        sink.shutdown();
+
+        List<Path> files = listFiles();
+        Assert.assertTrue(files.size() > 1, "The files were not rotated");
+        Assert.assertTrue(listParts().isEmpty(), "A rotated file was left as a part file");
+        int rows = 0;
+        for (Path file : files) {
+            rows += readRows(file).size();
+        }
+        Assert.assertEquals(rows, 200);
+    }
+
+    @Test(description = "Checks if the complete blocks of a partially written file are recovered")
+    public void recoveryTest() throws IOException {
+        ColumnarFileSink sink = openSink(10, Long.MAX_VALUE);
+        for (int index = 0; index < 25; index++) {
+            sink.publish(createEvent(index));
+        }
+        Path part = listParts().get(0);
+        byte[] truncated = Files.readAllBytes(part);
+        Files.write(part, Arrays.copyOf(truncated, truncated.length - 3));
+
+        openSink(10, Long.MAX_VALUE);
+        Assert.assertTrue(listParts().isEmpty(), "The partially written file was not completed");
+        Assert.assertEquals(readRows(listFiles().get(0)).size(), 10);
+    }
+
+    @Test(description = "Checks if the columnar files are much smaller than the same Events as text")
+    public void compressionTest() throws IOException {
+        ColumnarFileSink sink = openSink(8192, Long.MAX_VALUE);
+        long textSize = 0;
+        for (int index = 0; index < 20000; index++) {
+            Event event = createEvent(index);
+            textSize += Arrays.stream(toRow(event)).map(String::valueOf).collect(Collectors.joining("\",\"", "[\"",
+                    "\"]\n")).length();
+            sink.publish(event);
+        }
+        sink.shutdown();
+        long fileSize = Files.size(listFiles().get(0));
+        Assert.assertTrue(fileSize * 10 < textSize, "The file of " + fileSize + " bytes is not an order of " +
+                "magnitude smaller than the " + textSize + " bytes of text");
+    }
+
+    private ColumnarFileSink openSink(int blockSize, long maxFileSize) throws IOException {
+        ColumnarFileSink sink = new ColumnarFileSink(directory, blockSize, ROTATION_INTERVAL_MILLIS, maxFileSize);
+        sink.open();
+        return sink;
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> path.toString().endsWith(ColumnarFileSink.FILE_EXTENSION)).sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private List<Path> listParts() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> path.toString().endsWith(ColumnarFileSink.PART_EXTENSION))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static List<Object[]> readRows(Path file) throws IOException {
+        List<Object[]> rows = new ArrayList<>();
+        try (ColumnarFileReader reader = new ColumnarFileReader(file)) {
+            Assert.assertEquals(reader.getStreamId(), STREAM_ID);
+            for (Object[][] block = reader.readBlock(); block != null; block = reader.readBlock()) {
+                rows.addAll(Arrays.asList(block));
+            }
+        }
+        return rows;
+    }
+
+    private static Object[] toRow(Event event) {
+        Object[] row = new Object[1 + event.getMetaData().length + event.getPayloadData().length];
+        row[0] = event.getTimeStamp();
+        System.arraycopy(event.getMetaData(), 0, row, 1, event.getMetaData().length);
+        System.arraycopy(event.getPayloadData(), 0, row, 1 + event.getMetaData().length,
+                event.getPayloadData().length);
+        return row;
+    }
+
+    private static Event createEvent(int index) {
+        long startTime = 1468296734385L + index * 3;
+        return new Event(STREAM_ID, startTime, new Object[] { "localhost", "node-1" }, null,
+                new Object[] { "/shop", "/shop/customers/" + index + "/orders", startTime, METHODS[index % 4],
+                        (index % 10 == 0) ? null : "application/json", (long) (index % 7 == 0 ? 500 : 200),
+                        "10.0.0." + (index % 50),
+                        "Mozilla/5.0 (X11; Linux x86_64; rv:46.0) Gecko/20100101 Firefox/46.0",
+                        (long) (index % 97) * 1000, 1.0, "/shop/customers/{id}/orders" }, null);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.spool;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.databridge.commons.Event;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * This class contains unit tests for the {@link EventSpool}.
+ *
+ * @since 6.0.0
+ */
+public class EventSpoolTest {
+    private static final String STREAM_ID = "org.wso2.http.analytics.stream:1.5.0";
+    private static final int SEGMENT_SIZE = 256;
+    private static final long RETENTION_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private Path directory;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("http-statistics-spool");
+    }
+
+    @AfterMethod
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test(description = "Checks if the attribute values of a spooled Event are replayed unchanged")
+    public void encodingTest() throws IOException {
+        EventSpool spool = openSpool(SEGMENT_SIZE * 4);
+        Event event = new Event(STREAM_ID, 1468296734385L, new Object[] { "localhost" }, null,
+                new Object[] { "/sample", -1L, Long.MAX_VALUE, 404, 0.25, 1.5f, true, false, null, "\u00e9t\u00e9" },
+                Collections.singletonMap("WSO2_NODE", "node-1"));
+        Assert.assertTrue(spool.append(event));
+        Assert.assertFalse(spool.isEmpty());
+
+        Assert.assertEquals(spool.peek(), event);
+        spool.remove();
+        Assert.assertNull(spool.peek());
+        Assert.assertTrue(spool.isEmpty());
+        Assert.assertEquals(spool.getSpooledCount(), 1);
+        Assert.assertEquals(spool.getReplayedCount(), 1);
+    }
+
+    @Test(description = "Checks if the Events are replayed in order across segments and replayed segments deleted")
+    public void segmentTest() throws IOException {
+        EventSpool spool = openSpool(SEGMENT_SIZE * 16);
+        for (int index = 0; index < 20; index++) {
+            Assert.assertTrue(spool.append(createEvent(index)));
+        }
+        Assert.assertTrue(countSegmentFiles() > 1, "The Events were not spread over several segments");
+
+        for (int index = 0; index < 20; index++) {
+            Assert.assertEquals(spool.peek(), createEvent(index));
+            spool.remove();
+        }
+        Assert.assertNull(spool.peek());
+        Assert.assertEquals(countSegmentFiles(), 1, "The replayed segments were not deleted");
+    }
+
+    @Test(description = "Checks if the Events which were not replayed are recovered after the spool is reopened")
+    public void recoveryTest() throws IOException {
+        EventSpool spool = openSpool(SEGMENT_SIZE * 16);
+        for (int index = 0; index < 10; index++) {
+            spool.append(createEvent(index));
+        }
+        for (int index = 0; index < 3; index++) {
+            spool.peek();
+            spool.remove();
+        }
+        spool.close();
+
+        EventSpool reopened = openSpool(SEGMENT_SIZE * 16);
+        for (int index = 3; index < 10; index++) {
+            Assert.assertEquals(reopened.peek(), createEvent(index));
+            reopened.remove();
+        }
+        Assert.assertTrue(reopened.isEmpty());
+
+        reopened.append(createEvent(10));
+        Assert.assertEquals(reopened.peek(), createEvent(10), "A new Event was not appended after the recovery");
+    }
+
+    @Test(description = "Checks if the replay position of a spool which was not closed is recovered")
+    public void unclosedRecoveryTest() throws IOException {
+        EventSpool spool = new EventSpool(directory, SEGMENT_SIZE * 64, SEGMENT_SIZE * 4096, RETENTION_MILLIS);
+        spool.open();
+        for (int index = 0; index < 3000; index++) {
+            Assert.assertTrue(spool.append(createEvent(index)));
+        }
+        for (int index = 0; index < 2000; index++) {
+            Assert.assertEquals(spool.peek(), createEvent(index));
+            spool.remove();
+        }
+
+        EventSpool reopened = new EventSpool(directory, SEGMENT_SIZE * 64, SEGMENT_SIZE * 4096, RETENTION_MILLIS);
+        reopened.open();
+        Assert.assertEquals(reopened.peek(), createEvent(2000), "The replayed Events were replayed again");
+        reopened.close();
+        spool.close();
+    }
+
+    @Test(description = "Checks if the oldest segment is discarded when the spool reaches its maximum size")
+    public void maxSizeTest() throws IOException {
+        EventSpool spool = openSpool(SEGMENT_SIZE * 2);
+        for (int index = 0; index < 50; index++) {
+            Assert.assertTrue(spool.append(createEvent(index)));
+        }
+        Assert.assertEquals(countSegmentFiles(), 2);
+        Assert.assertTrue(spool.getDroppedCount() > 0, "No Event was dropped");
+
+        long replayed = 0;
+        Event last = null;
+        for (Event event = spool.peek(); event != null; event = spool.peek()) {
+            last = event;
+            replayed++;
+            spool.remove();
+        }
+        Assert.assertEquals(replayed + spool.getDroppedCount(), 50);
+        Assert.assertEquals(last, createEvent(49), "The most recent Events were not kept");
+    }
+
+    @Test(description = "Checks if the segments older than the retention period are discarded")
+    public void retentionTest() throws IOException, InterruptedException {
+        EventSpool spool = new EventSpool(directory, SEGMENT_SIZE, SEGMENT_SIZE * 16, 0);
+        spool.open();
+        int index = 0;
+        while (countSegmentFiles() < 2) {
+            spool.append(createEvent(index++));
+        }
+        Thread.sleep(5);
+
+        Event first = spool.peek();
+        Assert.assertEquals(first, createEvent(index - 1), "The expired segment was replayed");
+        Assert.assertEquals(spool.getDroppedCount(), index - 1);
+    }
+
+    private EventSpool openSpool(long maxSize) throws IOException {
+        EventSpool spool = new EventSpool(directory, SEGMENT_SIZE, maxSize, RETENTION_MILLIS);
+        spool.open();
+        return spool;
+    }
+
+    private long countSegmentFiles() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.count();
+        }
+    }
+
+    private static Event createEvent(int index) {
+        return new Event(STREAM_ID, 1468296734385L + index, new Object[] { "localhost" }, null,
+                new Object[] { "/sample/" + index, (long) index, 200L }, null);
+    }
+}
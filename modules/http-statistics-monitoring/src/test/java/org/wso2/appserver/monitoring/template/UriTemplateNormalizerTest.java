@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.template;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * This class contains unit tests for the {@link UriTemplateNormalizer}.
+ *
+ * @since 6.0.0
+ */
+public class UriTemplateNormalizerTest {
+    @Test(description = "Checks if the identifier segments are replaced with their placeholders")
+    public void placeholderTest() {
+        UriTemplateNormalizer normalizer = new UriTemplateNormalizer("/shop", Collections.emptyList(), 100, 10);
+        Assert.assertEquals(normalizer.normalize("/shop/customers/42/orders"), "/shop/customers/{id}/orders");
+        Assert.assertEquals(normalizer.normalize("/shop/carts/" + UUID.randomUUID()), "/shop/carts/{uuid}");
+        Assert.assertEquals(normalizer.normalize("/shop/files/d41d8cd98f00b204e9800998ecf8427e"),
+                "/shop/files/{hash}");
+        Assert.assertEquals(normalizer.normalize("/shop/tokens/Xk3_q9ZrT0pLm2NvB7yA"), "/shop/tokens/{hash}");
+        Assert.assertEquals(normalizer.normalize("/shop/products/summer-sale;jsessionid=1A2B"),
+                "/shop/products/summer-sale");
+        Assert.assertEquals(normalizer.normalize("/shop/"), "/shop/");
+        Assert.assertEquals(normalizer.normalize("/shop"), "/shop");
+        Assert.assertNull(normalizer.normalize(null));
+
+        Assert.assertNull(UriTemplateNormalizer.getPlaceholder("orders"));
+        Assert.assertNull(UriTemplateNormalizer.getPlaceholder("cafe"));
+        Assert.assertNull(UriTemplateNormalizer.getPlaceholder("a-very-long-article-title-2016"));
+    }
+
+    @Test(description = "Checks if the explicit templates are preferred, literal segments first")
+    public void explicitTemplateTest() {
+        UriTemplateNormalizer normalizer = new UriTemplateNormalizer("", Arrays.asList("/users/{name}/profile",
+                "/users/me/profile", " /users/{name} ", "invalid"), 100, 10);
+        Assert.assertEquals(normalizer.normalize("/users/alice/profile"), "/users/{name}/profile");
+        Assert.assertEquals(normalizer.normalize("/users/me/profile"), "/users/me/profile");
+        Assert.assertEquals(normalizer.normalize("/users/me"), "/users/{name}");
+        Assert.assertEquals(normalizer.normalize("/users/alice/settings"), "/users/alice/settings");
+        Assert.assertEquals(normalizer.getLearnedCount(), 3);
+    }
+
+    @Test(description = "Checks if the learned routes stay bounded for random request URIs")
+    public void boundTest() {
+        UriTemplateNormalizer normalizer = new UriTemplateNormalizer("", Collections.emptyList(), 20, 5);
+        for (int index = 0; index < 1000; index++) {
+            normalizer.normalize("/crawl/page-" + Integer.toString(index, 36) + "/x");
+        }
+        Assert.assertTrue(normalizer.getLearnedCount() <= 20, "The learned routes were not bounded");
+        Assert.assertEquals(normalizer.normalize("/crawl/page-zzz/x"), "/crawl/*");
+        Assert.assertEquals(normalizer.normalize("/crawl/page-0/x"), "/crawl/page-0/x",
+                "A route learned before the bound was reached was forgotten");
+        Assert.assertEquals(normalizer.normalize("/crawl/17/x"), "/crawl/{id}/x",
+                "A placeholder segment was counted as a distinct value");
+
+        char[] segment = new char[UriTemplateNormalizer.MAX_LITERAL_LENGTH + 1];
+        Arrays.fill(segment, 'z');
+        Assert.assertEquals(normalizer.normalize("/" + new String(segment)), "/*");
+
+        for (int index = 0; index < 100; index++) {
+            normalizer.normalize("/" + index + "/deep/" + index + "/deeper/" + index + "/deepest/" + index + "/end");
+        }
+        Assert.assertEquals(normalizer.getLearnedCount(), 20);
+        Assert.assertEquals(normalizer.normalize("/1/deep/2/deeper/3/deepest/4/end"),
+                "/{id}/deep/{id}/deeper/{id}/deepest/{id}/*", "A segment was learned beyond the bound");
+    }
+}
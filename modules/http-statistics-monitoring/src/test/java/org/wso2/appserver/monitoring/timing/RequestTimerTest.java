@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.timing;
+
+import org.apache.catalina.connector.Request;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.appserver.monitoring.profile.StatsProfile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class contains unit tests for the {@link RequestTimer}.
+ *
+ * @since 6.0.0
+ */
+public class RequestTimerTest {
+
+    @Test(description = "Checks if the phases of a request add up to its response time")
+    public void phasesTest() throws InterruptedException {
+        Request request = createRequest(System.currentTimeMillis() - 20);
+        RequestTimer timer = RequestTimer.get();
+
+        timer.start(request, null);
+        Assert.assertTrue(timer.isTiming(request));
+        timer.servletStarted();
+        Thread.sleep(10);
+        timer.servletEnded();
+        timer.valveEnded();
+        Thread.sleep(5);
+        timer.stop();
+
+        Assert.assertFalse(timer.isTiming(request));
+        Assert.assertTrue(timer.getQueueTime() >= TimeUnit.MILLISECONDS.toMicros(20));
+        Assert.assertTrue(timer.getServletTime() >= TimeUnit.MILLISECONDS.toMicros(10));
+        Assert.assertTrue(timer.getCommitTime() >= TimeUnit.MILLISECONDS.toMicros(5));
+        Assert.assertTrue(timer.getPipelineTime() >= 0);
+        long phases = timer.getPipelineTime() + timer.getServletTime() + timer.getCommitTime();
+        Assert.assertTrue(Math.abs(TimeUnit.NANOSECONDS.toMicros(timer.getResponseTime()) - phases) <= 3);
+    }
+
+    @Test(description = "Checks if the servlet phase is not timed when the request does not reach a servlet")
+    public void noServletTest() {
+        Request request = createRequest(0);
+        RequestTimer timer = RequestTimer.get();
+
+        timer.start(request, null);
+        timer.valveEnded();
+        timer.stop();
+
+        Assert.assertEquals(timer.getQueueTime(), RequestTimer.NOT_TIMED);
+        Assert.assertEquals(timer.getServletTime(), RequestTimer.NOT_TIMED);
+        Assert.assertTrue(timer.getPipelineTime() >= 0);
+    }
+
+    @Test(description = "Checks if a detached asynchronous request is timed until it completes on another thread")
+    public void asynchronousTest() throws InterruptedException {
+        Request request = createRequest(0);
+        RequestTimer timer = RequestTimer.get();
+        timer.start(request, null);
+        timer.servletStarted();
+        Thread.sleep(5);
+        timer.servletEnded();
+        timer.valveEnded();
+
+        RequestTimer detached = timer.detach();
+        Assert.assertNotSame(detached, timer);
+        Assert.assertFalse(timer.isTiming(request), "The thread still times the detached request");
+        Assert.assertTrue(detached.isTiming(request));
+
+        Thread thread = new Thread(() -> {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            detached.stop();
+        });
+        thread.start();
+        thread.join();
+
+        Assert.assertTrue(detached.getResponseTime() >= TimeUnit.MILLISECONDS.toNanos(15));
+        Assert.assertTrue(detached.getServletTime() >= TimeUnit.MILLISECONDS.toMicros(15));
+        Assert.assertEquals(detached.getCommitTime(), RequestTimer.NOT_TIMED);
+        long phases = detached.getPipelineTime() + detached.getServletTime();
+        Assert.assertTrue(Math.abs(TimeUnit.NANOSECONDS.toMicros(detached.getResponseTime()) - phases) <= 3);
+    }
+
+    @Test(description = "Checks if the profile is carried with the request until the timer is stopped")
+    public void profileTest() {
+        Request request = createRequest(0);
+        StatsProfile profile = new StatsProfile(null);
+        RequestTimer timer = RequestTimer.get();
+
+        timer.start(request, profile);
+        Assert.assertSame(timer.getProfile(), profile);
+        RequestTimer detached = timer.detach();
+        Assert.assertNull(timer.getProfile(), "The thread still holds the profile of the detached request");
+        Assert.assertSame(detached.getProfile(), profile);
+        detached.stop();
+        Assert.assertNull(detached.getProfile(), "The stopped timer still holds the profile");
+    }
+
+    @Test(description = "Checks if a cleared timer releases its request and profile")
+    public void clearTest() {
+        Request request = createRequest(0);
+        RequestTimer timer = RequestTimer.get();
+
+        timer.start(request, new StatsProfile(null));
+        timer.clear();
+        Assert.assertFalse(timer.isTiming(request));
+        Assert.assertNull(timer.getProfile());
+    }
+
+    @Test(description = "Checks if each thread times its own request")
+    public void threadTest() throws InterruptedException {
+        Request request = createRequest(0);
+        RequestTimer.get().start(request, null);
+
+        boolean[] timing = new boolean[1];
+        Thread thread = new Thread(() -> timing[0] = RequestTimer.get().isTiming(request));
+        thread.start();
+        thread.join();
+
+        Assert.assertFalse(timing[0]);
+        Assert.assertTrue(RequestTimer.get().isTiming(request));
+        RequestTimer.get().stop();
+    }
+
+    private static Request createRequest(long connectorStartTime) {
+        org.apache.coyote.Request coyoteRequest = new org.apache.coyote.Request();
+        coyoteRequest.setStartTime(connectorStartTime);
+        Request request = new Request();
+        request.setCoyoteRequest(coyoteRequest);
+        return request;
+    }
+}
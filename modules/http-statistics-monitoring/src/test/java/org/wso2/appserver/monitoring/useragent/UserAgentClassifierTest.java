@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.useragent;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * This class contains unit tests for the {@link UserAgentClassifier}.
+ *
+ * @since 6.0.0
+ */
+public class UserAgentClassifierTest {
+    @Test(description = "Checks if the common user agents are classified")
+    public void classificationTest() {
+        UserAgentClassifier classifier = new UserAgentClassifier(100, true);
+        assertClassification(classifier, "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 " +
+                "(KHTML, like Gecko) Chrome/51.0.2704.103 Safari/537.36", "Chrome", "Windows", UserAgent.DESKTOP);
+        assertClassification(classifier, "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 " +
+                "(KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36 Edg/91.0.864.59", "Edge", "Windows",
+                UserAgent.DESKTOP);
+        assertClassification(classifier, "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_11_2) AppleWebKit/601.3.9 " +
+                "(KHTML, like Gecko) Version/9.0.2 Safari/601.3.9", "Safari", "Mac OS X", UserAgent.DESKTOP);
+        assertClassification(classifier, "Mozilla/5.0 (X11; Ubuntu; Linux x86_64; rv:46.0) Gecko/20100101 " +
+                "Firefox/46.0", "Firefox", "Ubuntu", UserAgent.DESKTOP);
+        assertClassification(classifier, "Mozilla/5.0 (iPhone; CPU iPhone OS 9_2 like Mac OS X) " +
+                "AppleWebKit/601.1.46 (KHTML, like Gecko) Version/9.0 Mobile/13C75 Safari/601.1", "Safari", "iOS",
+                UserAgent.MOBILE);
+        assertClassification(classifier, "Mozilla/5.0 (Linux; Android 5.1.1; SM-G928X Build/LMY47X) " +
+                "AppleWebKit/537.36 (KHTML, like Gecko) Chrome/47.0.2526.83 Mobile Safari/537.36", "Chrome",
+                "Android", UserAgent.MOBILE);
+        assertClassification(classifier, "Mozilla/5.0 (Linux; Android 6.0.1; SM-T810 Build/MMB29K) " +
+                "AppleWebKit/537.36 (KHTML, like Gecko) Chrome/51.0.2704.81 Safari/537.36", "Chrome", "Android",
+                UserAgent.TABLET);
+        assertClassification(classifier, "Mozilla/5.0 (compatible; MSIE 10.0; Windows NT 6.2; Trident/6.0)",
+                "Internet Explorer", "Windows", UserAgent.DESKTOP);
+        assertClassification(classifier, "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)",
+                "Googlebot", UserAgent.OTHER, UserAgent.BOT);
+        assertClassification(classifier, "curl/7.47.0", "curl", UserAgent.OTHER, UserAgent.OTHER);
+        assertClassification(classifier, "something else", UserAgent.OTHER, UserAgent.OTHER, UserAgent.OTHER);
+        Assert.assertNull(classifier.classify(null));
+    }
+
+    @Test(description = "Checks if a user agent is classified once and the cache is bounded")
+    public void cacheTest() {
+        UserAgentClassifier classifier = new UserAgentClassifier(10, true);
+        UserAgent classification = classifier.classify("curl/7.47.0");
+        Assert.assertSame(classifier.classify("curl/7.47.0"), classification, "The classification was not cached");
+
+        for (int index = 0; index < 100; index++) {
+            classifier.classify("curl/7." + index);
+            //  a user agent which keeps being seen survives the generations
+            Assert.assertSame(classifier.classify("curl/7.47.0"), classification);
+        }
+        Assert.assertTrue(classifier.getCachedCount() <= 10, "The cache is not bounded");
+    }
+
+    private static void assertClassification(UserAgentClassifier classifier, String userAgent, String browser,
+            String operatingSystem, String deviceClass) {
+        UserAgent classification = classifier.classify(userAgent);
+        Assert.assertEquals(classification.getBrowserFamily(), browser, userAgent);
+        Assert.assertEquals(classification.getOperatingSystem(), operatingSystem, userAgent);
+        Assert.assertEquals(classification.getDeviceClass(), deviceClass, userAgent);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.utils;
+
+import org.apache.catalina.core.StandardContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+/**
+ * This class contains unit tests for the {@link EventTemplate}.
+ *
+ * @since 6.0.0
+ */
+public class EventTemplateTest {
+
+    @Test(description = "Checks if the context invariant fields are computed from the context")
+    public void contextFieldsTest() {
+        EventTemplate template = new EventTemplate(createContext(), Collections.emptyMap());
+        Assert.assertEquals(template.getServletVersion(), "3.1");
+        Assert.assertEquals(template.getDisplayName(), "Test Display Name");
+    }
+
+    @Test(description = "Checks if the application name is the first segment of the request URI")
+    public void appNameTest() {
+        EventTemplate template = new EventTemplate(createContext(), Collections.emptyMap());
+        Assert.assertEquals(template.getAppName("/"), "/");
+        Assert.assertEquals(template.getAppName("/examples"), "examples");
+        Assert.assertEquals(template.getAppName("/examples/servlets/index.html"), "examples");
+        Assert.assertEquals(template.getAppName(" /examples/ "), "examples");
+        Assert.assertEquals(template.getAppName("/other/"), "other");
+        Assert.assertNull(template.getAppName(null));
+    }
+
+    @Test(description = "Checks if the application name and meta data are reused while they do not change")
+    public void reuseTest() {
+        EventTemplate template = new EventTemplate(createContext(), Collections.emptyMap());
+        Assert.assertSame(template.getAppName("/examples/a"), template.getAppName("/examples/b"));
+
+        Object[] metaData = template.getMetaData("localhost", "localhost.localdomain");
+        Assert.assertEquals(metaData, new Object[] { "localhost", "localhost.localdomain" });
+        Assert.assertSame(template.getMetaData("localhost", "localhost.localdomain"), metaData);
+        Assert.assertEquals(template.getMetaData("127.0.0.1", "localhost.localdomain"),
+                new Object[] { "127.0.0.1", "localhost.localdomain" });
+    }
+
+    private static StandardContext createContext() {
+        StandardContext context = new StandardContext();
+        context.setDisplayName("Test Display Name");
+        context.setEffectiveMajorVersion(3);
+        context.setEffectiveMinorVersion(1);
+        return context;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.appserver.configuration.context.WebAppStatsPublishing;
+
+import java.util.Arrays;
+
+/**
+ * This class contains unit tests for the {@link HeaderCapturePolicy}.
+ *
+ * @since 6.0.0
+ */
+public class HeaderCapturePolicyTest {
+
+    @Test(description = "Checks if the default policy captures all headers and redacts the credentials")
+    public void defaultPolicyTest() {
+        HeaderCapturePolicy policy = HeaderCapturePolicy.fromConfiguration(null);
+        Assert.assertTrue(policy.isCaptureRequestHeaders());
+        Assert.assertTrue(policy.isCaptureResponseHeaders());
+        Assert.assertTrue(policy.isCaptured("X-Custom-Header"));
+        Assert.assertTrue(policy.isRedacted("cookie"));
+        Assert.assertTrue(policy.isRedacted("AUTHORIZATION"));
+        Assert.assertFalse(policy.isRedacted("host"));
+    }
+
+    @Test(description = "Checks if the allowlist, denylist and redacted headers are applied case-insensitively")
+    public void configuredPolicyTest() {
+        WebAppStatsPublishing.HeaderCapture configuration = new WebAppStatsPublishing.HeaderCapture();
+        configuration.setCaptureResponseHeaders(false);
+        configuration.setMaxHeaderBytes(512);
+        configuration.setIncludeHeaders(headerNames("Host", "User-Agent", "X-Api-Key"));
+        configuration.setExcludeHeaders(headerNames("user-agent"));
+        configuration.setRedactHeaders(headerNames("x-api-key"));
+
+        HeaderCapturePolicy policy = HeaderCapturePolicy.fromConfiguration(configuration);
+        Assert.assertTrue(policy.isCaptureRequestHeaders());
+        Assert.assertFalse(policy.isCaptureResponseHeaders());
+        Assert.assertEquals(policy.getMaxHeaderBytes(), 512);
+        Assert.assertTrue(policy.isCaptured("host"));
+        Assert.assertFalse(policy.isCaptured("User-Agent"));
+        Assert.assertFalse(policy.isCaptured("Accept"));
+        Assert.assertTrue(policy.isRedacted("X-API-KEY"));
+        Assert.assertFalse(policy.isRedacted("Cookie"));
+    }
+
+    private static WebAppStatsPublishing.HeaderNames headerNames(String... names) {
+        WebAppStatsPublishing.HeaderNames headerNames = new WebAppStatsPublishing.HeaderNames();
+        headerNames.setHeaders(Arrays.asList(names));
+        return headerNames;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * This class contains unit tests for the {@link HeaderEncoder}.
+ *
+ * @since 6.0.0
+ */
+public class HeaderEncoderTest {
+
+    @Test(description = "Checks if single and multi-valued headers are encoded in the expected format")
+    public void encodingTest() {
+        HeaderEncoder encoder = new HeaderEncoder(';');
+        encoder.reset(1024);
+        encode(encoder, "host", "localhost:8080");
+        encode(encoder, "accept", "text/html", "application/xml");
+        encode(encoder, "empty", (String) null);
+        Assert.assertEquals(encoder.toString(), "host:(localhost:8080);accept:(text/html,application/xml);empty:()");
+    }
+
+    @Test(description = "Checks if the headers which do not fit into the size limit are left out")
+    public void sizeLimitTest() {
+        HeaderEncoder encoder = new HeaderEncoder(',');
+        encoder.reset(24);
+        encode(encoder, "a", "1");
+        encode(encoder, "b", "a value which is too long");
+        encode(encoder, "c", "3");
+        Assert.assertEquals(encoder.toString(), "a:(1)");
+
+        encoder.reset(11);
+        encode(encoder, "a", "1");
+        encode(encoder, "b", "2");
+        Assert.assertEquals(encoder.toString(), "a:(1),b:(2)");
+        Assert.assertEquals(encoder.length(), 11);
+    }
+
+    @Test(description = "Checks if the encoder is emptied on reset")
+    public void resetTest() {
+        HeaderEncoder encoder = new HeaderEncoder(',');
+        encoder.reset(1024);
+        encode(encoder, "a", "1");
+        encoder.reset(0);
+        Assert.assertEquals(encoder.toString(), "");
+        Assert.assertFalse(encoder.beginHeader("a"));
+    }
+
+    private static void encode(HeaderEncoder encoder, String name, String... values) {
+        if (encoder.beginHeader(name)) {
+            for (String value : values) {
+                encoder.appendValue(value);
+            }
+            encoder.endHeader();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.utils;
+
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.tomcat.util.buf.ByteChunk;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+/**
+ * This class contains unit tests for the counting of the body bytes by the {@link RequestCapture}.
+ *
+ * @since 6.0.0
+ */
+public class RequestCaptureTest {
+    private static final int CHUNKED = -1;
+
+    @Test(description = "Checks if the bytes of a chunked request body are counted by the connector")
+    public void chunkedRequestTest() throws IOException {
+        org.apache.coyote.Request coyoteRequest = new org.apache.coyote.Request();
+        coyoteRequest.setInputBuffer((chunk, request) -> {
+            chunk.setBytes(new byte[1500], 0, 1500);
+            return 1500;
+        });
+        coyoteRequest.doRead(new ByteChunk());
+        coyoteRequest.doRead(new ByteChunk());
+        Assert.assertEquals(RequestCapture.countBytesRead(createRequest(coyoteRequest, CHUNKED)), 3000);
+    }
+
+    @Test(description = "Checks if the declared content length is used for a request without a connector request")
+    public void requestContentLengthTest() {
+        Assert.assertEquals(RequestCapture.countBytesRead(createRequest(null, 512)), 512);
+        Assert.assertEquals(RequestCapture.countBytesRead(createRequest(null, CHUNKED)), CHUNKED);
+    }
+
+    @Test(description = "Checks if the bytes of a chunked response body are counted by the connector")
+    public void chunkedResponseTest() {
+        Response response = createResponse(new org.apache.coyote.Response(), 4096, CHUNKED);
+        Assert.assertEquals(RequestCapture.countBytesWritten(response), 4096);
+    }
+
+    @Test(description = "Checks if the declared content length is used for a response without a connector response")
+    public void responseContentLengthTest() {
+        Assert.assertEquals(RequestCapture.countBytesWritten(createResponse(null, 4096, 256)), 256);
+        Assert.assertEquals(RequestCapture.countBytesWritten(createResponse(null, 4096, CHUNKED)), CHUNKED);
+    }
+
+    private static Request createRequest(org.apache.coyote.Request coyoteRequest, int contentLength) {
+        return new Request() {
+            @Override
+            public org.apache.coyote.Request getCoyoteRequest() {
+                return coyoteRequest;
+            }
+
+            @Override
+            public int getContentLength() {
+                return contentLength;
+            }
+        };
+    }
+
+    private static Response createResponse(org.apache.coyote.Response coyoteResponse, long bytesWritten,
+            int contentLength) {
+        return new Response() {
+            @Override
+            public org.apache.coyote.Response getCoyoteResponse() {
+                return coyoteResponse;
+            }
+
+            @Override
+            public long getBytesWritten(boolean flush) {
+                return bytesWritten;
+            }
+
+            @Override
+            public int getContentLength() {
+                return contentLength;
+            }
+        };
+    }
+}
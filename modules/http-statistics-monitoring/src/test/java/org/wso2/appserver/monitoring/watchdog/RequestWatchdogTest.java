@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.appserver.monitoring.watchdog;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.appserver.configuration.server.AppServerStatsPublishing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class contains unit tests for the {@link RequestWatchdog}.
+ *
+ * @since 6.0.0
+ */
+public class RequestWatchdogTest {
+    private static final long LATER = TimeUnit.SECONDS.toNanos(10);
+
+    @Test(description = "Checks if a slow request is sampled and reported as stuck only once")
+    public void stuckRequestTest() throws InterruptedException {
+        RequestWatchdog watchdog = new RequestWatchdog(1000, 5000, 1000, 8, 32, 60, 20);
+        CountDownLatch ended = new CountDownLatch(1);
+        List<Thread> threads = startRequests(watchdog, 1, ended);
+        try {
+            watchdog.sample(System.nanoTime() + LATER);
+            Assert.assertEquals(watchdog.getSampledCount(), 1);
+            Assert.assertEquals(watchdog.getStuckCount(), 1);
+
+            watchdog.sample(System.nanoTime() + LATER);
+            Assert.assertEquals(watchdog.getSampledCount(), 2);
+            Assert.assertEquals(watchdog.getStuckCount(), 1, "The stuck request was reported twice");
+
+            String report = watchdog.formatReport();
+            Assert.assertTrue(report.contains("1 slow HTTP requests 2 times"), report);
+            Assert.assertTrue(report.contains("processRequest"), "The request frame was not reported: " + report);
+        } finally {
+            endRequests(threads, ended);
+        }
+    }
+
+    @Test(description = "Checks if the requests below the threshold and the ended requests are not sampled")
+    public void thresholdTest() throws InterruptedException {
+        RequestWatchdog watchdog = new RequestWatchdog(1000, 5000, 1000, 8, 32, 60, 20);
+        CountDownLatch ended = new CountDownLatch(1);
+        List<Thread> threads = startRequests(watchdog, 1, ended);
+        watchdog.sample(System.nanoTime());
+        Assert.assertEquals(watchdog.getSampledCount(), 0, "A fast request was sampled");
+
+        endRequests(threads, ended);
+        watchdog.sample(System.nanoTime() + LATER);
+        Assert.assertEquals(watchdog.getSampledCount(), 0, "An ended request was sampled");
+    }
+
+    @Test(description = "Checks if the samples per interval are bounded and spread over the slow requests")
+    public void budgetTest() throws InterruptedException {
+        RequestWatchdog watchdog = new RequestWatchdog(1000, 1000, 1000, 2, 4, 60, 20);
+        CountDownLatch ended = new CountDownLatch(1);
+        List<Thread> threads = startRequests(watchdog, 5, ended);
+        try {
+            watchdog.sample(System.nanoTime() + LATER);
+            Assert.assertEquals(watchdog.getSampledCount(), 2);
+            watchdog.sample(System.nanoTime() + LATER);
+            watchdog.sample(System.nanoTime() + LATER);
+            Assert.assertEquals(watchdog.getSampledCount(), 6);
+            Assert.assertEquals(watchdog.getStuckCount(), 5, "Not every request was sampled");
+        } finally {
+            endRequests(threads, ended);
+        }
+    }
+
+    @Test(description = "Checks if the watchdog is only created when it is enabled")
+    public void fromConfigurationTest() {
+        Assert.assertNull(RequestWatchdog.fromConfiguration(null));
+        AppServerStatsPublishing.Watchdog configuration = new AppServerStatsPublishing.Watchdog();
+        Assert.assertNull(RequestWatchdog.fromConfiguration(configuration));
+        configuration.setEnabled(true);
+        RequestWatchdog watchdog = RequestWatchdog.fromConfiguration(configuration);
+        Assert.assertNotNull(watchdog);
+        watchdog.start();
+        watchdog.stop();
+    }
+
+    @Test(description = "Checks if a stuck threshold below the slow threshold is rejected",
+            expectedExceptions = IllegalArgumentException.class)
+    public void invalidThresholdsTest() {
+        new RequestWatchdog(5000, 1000, 1000, 8, 32, 60, 20);
+    }
+
+    @Test(description = "Checks if the frames are ranked by the samples they are executed in")
+    public void hotFrameProfileTest() {
+        HotFrameProfile profile = new HotFrameProfile(3);
+        StackTraceElement run = new StackTraceElement("Worker", "run", "Worker.java", 10);
+        StackTraceElement query = new StackTraceElement("Dao", "query", "Dao.java", 20);
+        StackTraceElement read = new StackTraceElement("Socket", "read", "Socket.java", 30);
+        StackTraceElement write = new StackTraceElement("Socket", "write", "Socket.java", 40);
+        profile.record("GET /a", new StackTraceElement[] { read, query, run, run });
+        profile.record("GET /a", new StackTraceElement[] { read, query, run });
+        profile.record("GET /b", new StackTraceElement[] { query, run });
+        profile.record("GET /b", new StackTraceElement[] { write, run });
+
+        List<HotFrameProfile.FrameCount> frames = profile.getHotFrames(2);
+        Assert.assertEquals(frames.size(), 2);
+        Assert.assertEquals(frames.get(0).getFrame(), read);
+        Assert.assertEquals(frames.get(0).getSelf(), 2);
+        Assert.assertEquals(frames.get(1).getFrame(), query);
+        Assert.assertEquals(frames.get(1).getTotal(), 3);
+        Assert.assertEquals(profile.getHotFrames(10).get(2).getTotal(), 4, "A recursive frame was counted twice");
+        Assert.assertEquals(profile.getOverflowCount(), 1, "The distinct frames were not bounded");
+        Assert.assertEquals(profile.getRequestCount(), 2);
+        Assert.assertEquals(profile.getSampleCount(), 4);
+
+        profile.reset();
+        Assert.assertTrue(profile.getHotFrames(10).isEmpty());
+    }
+
+    private static List<Thread> startRequests(RequestWatchdog watchdog, int count, CountDownLatch ended)
+            throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(count);
+        List<Thread> threads = new ArrayList<>();
+        for (int index = 0; index < count; index++) {
+            String requestURI = "/slow/" + index;
+            Thread thread = new Thread(() -> {
+                watchdog.requestStarted("GET", requestURI);
+                started.countDown();
+                processRequest(ended);
+                watchdog.requestEnded();
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        started.await();
+        //  the requests are sampled once their threads are blocked in processRequest, not still counting down
+        for (Thread thread : threads) {
+            while (thread.getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+        }
+        return threads;
+    }
+
+    private static void processRequest(CountDownLatch ended) {
+        try {
+            ended.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void endRequests(List<Thread> threads, CountDownLatch ended) throws InterruptedException {
+        ended.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.appserver.samples.httpanalytics;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class models the daily variation of the traffic, which peaks in the afternoon and is the lowest at night. The
+ * load factor varies around 1 along a cosine, so that the average load over a day is unchanged.
+ */
+class DiurnalPattern {
+    private static final double PEAK_TIME_OF_DAY = 14.0 / 24;
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final double amplitude;
+
+    /**
+     * Creates a daily pattern.
+     *
+     * @param amplitude the relative variation of the load around its average, from 0 for a constant load to less
+     *                  than 1
+     */
+    DiurnalPattern(double amplitude) {
+        if (amplitude < 0 || amplitude >= 1) {
+            throw new IllegalArgumentException("The diurnal amplitude must be at least 0 and less than 1: " +
+                    amplitude);
+        }
+        this.amplitude = amplitude;
+    }
+
+    /**
+     * Returns the load factor at the specified time of the day.
+     *
+     * @param timeOfDay the time of the day, as a fraction of the day
+     * @return the load factor, relative to the average load
+     */
+    double getFactor(double timeOfDay) {
+        return 1 + amplitude * Math.cos(2 * Math.PI * (timeOfDay - PEAK_TIME_OF_DAY));
+    }
+
+    /**
+     * Returns the load factor at the specified time, in the local time zone.
+     *
+     * @param timestamp the time in milliseconds
+     * @return the load factor, relative to the average load
+     */
+    double getFactor(long timestamp) {
+        long localTime = timestamp + TimeZone.getDefault().getOffset(timestamp);
+        return getFactor((double) Math.floorMod(localTime, DAY_MILLIS) / DAY_MILLIS);
+    }
+}
@@ -22,17 +22,24 @@ import org.wso2.carbon.databridge.commons.Event;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
 /**
- * This class is used to generate an Event with random set of HTTP data.
+ * This class is used to generate Events with a random set of HTTP data.
+ * <p>
+ * The request URIs follow a Zipf distribution, so that a few URIs receive most of the requests as in real traffic,
+ * and the response times a log-normal distribution. An instance is not thread safe.
  */
 public class EventGenerator {
+    // index of the timestamp in the payload
+    static final int TIMESTAMP_INDEX = 4;
+
     // This map holds the application name and the list of Request URIs for that application
-    private static Map<String, List<String>> applications = new HashMap<>();
+    private static Map<String, List<String>> applications = new LinkedHashMap<>();
     private static final String[] HTTP_RESPONSE_CODES = {"200", "200", "405", "200", "404", "200", "200", "403",
             "200", "200", "500", "200", "408", "200", "200", "200"};
 
@@ -47,6 +54,17 @@ public class EventGenerator {
             "42.123.0.0-42.123.31.255" // China
     };
 
+    // This array holds the country and region of each ISP address range
+    private static final String[][] CLIENT_LOCATIONS = {
+            {"LK", "Western"},
+            {"US", "California"},
+            {"RU", "Moscow"},
+            {"ZA", "Gauteng"},
+            {"AU", "New South Wales"},
+            {"GB", "England"},
+            {"CN", "Beijing"}
+    };
+
     private static final String[] REFERERS = {
             "https://google.com",
             "https://facebook.com",
@@ -83,67 +101,123 @@ public class EventGenerator {
                     "Safari/537.36"
     };
 
+    // This array holds the browser family, operating system and device class of each user agent, as classified by
+    // the HTTP statistics publisher of the server
+    private static final String[][] USERAGENT_CLASSES = {
+            {"Chrome", "Android", "Mobile"},
+            {"Edge", "Windows Phone", "Mobile"},
+            {"Firefox", "Ubuntu", "Desktop"},
+            {"Chrome", "Android", "Mobile"},
+            {"Chrome", "Android", "Tablet"},
+            {"Firefox", "Ubuntu", "Desktop"},
+            {"Chrome", "Windows", "Desktop"},
+            {"Firefox", "Ubuntu", "Desktop"},
+            {"Safari", "Mac OS X", "Desktop"},
+            {"Firefox", "Ubuntu", "Desktop"},
+            {"Firefox", "Ubuntu", "Desktop"},
+            {"Chrome", "Windows", "Desktop"}
+    };
+
     static final String[] LANGUAGES = {
             "en", "si", "fr", "en", "en", "ja", "en", "en", "ru", "fr", "ar"
     };
 
+    // median and spread of the log-normal distribution of the response times
+    private static final double MEDIAN_RESPONSE_TIME = 40;
+    private static final double RESPONSE_TIME_SIGMA = 0.9;
+    private static final long MAX_RESPONSE_TIME = 30000;
+    private static final int MAX_RESPONSE_SIZE = 20000;
+
     static {
         populateApplications();
     }
 
+    private final Random random;
+    private final String[] applicationNames;
+    private final String[] requestURIs;
+    private final double[] requestURIDistribution;
+    private final long[] addressRangeStarts;
+    private final int[] addressRangeSizes;
+    private final Object[] metaData;
+
     /**
-     * Generate a random IP within the given IP range.
+     * Creates a generator of Events.
      *
-     * @param startIP start of the IP range
-     * @param endIP   end of the IP range
-     * @return random IP within the given range
+     * @param seed               the seed of the random data
+     * @param requestURIExponent the exponent of the Zipf distribution of the request URIs, 0 for a uniform
+     *                           distribution
      */
-    private static String generateRandomIPFromRange(String startIP, String endIP) {
-        String[] start = startIP.split("\\.");
-        String[] end = endIP.split("\\.");
-        String[] newIp = new String[4];
-        Random random = new Random();
-        boolean sectionChanged = false;
-        int diff;
-        for (int i = 0; i < 4; i++) {
-            if (sectionChanged) {
-                newIp[i] = String.valueOf(random.nextInt(256));
-                continue;
-            }
+    public EventGenerator(long seed, double requestURIExponent) {
+        random = new Random(seed);
 
-            diff = Integer.parseInt(end[i]) - Integer.parseInt(start[i]);
-            if (diff <= 0) {
-                newIp[i] = String.valueOf(Integer.parseInt(start[i]));
-                continue;
-            }
-
-            newIp[i] = String.valueOf((random.nextInt(diff) + Integer.parseInt(start[i])));
-            sectionChanged = true;
+        //  the popularity of the URIs does not follow the order in which they are listed
+        List<String[]> uris = new ArrayList<>();
+        applications.forEach((application, applicationURIs) -> applicationURIs
+                .forEach(uri -> uris.add(new String[]{application, uri})));
+        Collections.shuffle(uris, random);
+        applicationNames = new String[uris.size()];
+        requestURIs = new String[uris.size()];
+        requestURIDistribution = new double[uris.size()];
+        double total = 0;
+        for (int rank = 0; rank < uris.size(); rank++) {
+            applicationNames[rank] = uris.get(rank)[0];
+            requestURIs[rank] = uris.get(rank)[1];
+            total += 1 / Math.pow(rank + 1, requestURIExponent);
+            requestURIDistribution[rank] = total;
+        }
+        for (int rank = 0; rank < requestURIDistribution.length; rank++) {
+            requestURIDistribution[rank] /= total;
         }
 
-        return String.join(".", newIp);
+        addressRangeStarts = new long[CLIENT_ADDRESSES.length];
+        addressRangeSizes = new int[CLIENT_ADDRESSES.length];
+        for (int index = 0; index < CLIENT_ADDRESSES.length; index++) {
+            String[] range = CLIENT_ADDRESSES[index].split("-");
+            addressRangeStarts[index] = parseAddress(range[0]);
+            addressRangeSizes[index] = (int) (parseAddress(range[1]) - addressRangeStarts[index] + 1);
+        }
+        metaData = new Object[]{Quickstart.hostname, Quickstart.hostname};
     }
 
     /**
-     * Returns a random value from a given array.
+     * Generates an Event to be published.
      *
-     * @param array input array
-     * @return random value from the array
+     * @param streamId  stream id
+     * @param timestamp timestamp
+     * @return event populated with random data
      */
-    private static String getRandomValueFromArray(String[] array) {
-        return array[new Random().nextInt(array.length)];
+    public Event generateEvent(String streamId, long timestamp) {
+        return new Event(streamId, timestamp, metaData, null, generatePayload(timestamp));
     }
 
     /**
-     * Generates and Event to be published.
+     * Creates an Event to be published from a payload generated beforehand. The payload is copied, so that it can
+     * be published several times.
      *
      * @param streamId  stream id
+     * @param payload   the payload generated beforehand
      * @param timestamp timestamp
-     * @return event populated with random data
+     * @return event with a copy of the payload
+     */
+    public Event createEvent(String streamId, Object[] payload, long timestamp) {
+        Object[] payloadData = payload.clone();
+        payloadData[TIMESTAMP_INDEX] = timestamp;
+        return new Event(streamId, timestamp, metaData, null, payloadData);
+    }
+
+    /**
+     * Generates the specified number of payloads, to be published by {@link #createEvent(String, Object[], long)}.
+     *
+     * @param count the number of payloads
+     * @return the payloads populated with random data
      */
-    public static Event generateEvent(String streamId, long timestamp) {
-        return new Event(streamId, timestamp, new Object[]{Quickstart.hostname, Quickstart.hostname}, null,
-                getPayloadData(timestamp));
+    public Object[][] generatePayloads(int count) {
+        Object[][] payloads = new Object[count][];
+        long timestamp = System.currentTimeMillis();
+        for (int index = 0; index < count; index++) {
+            payloads[index] = generatePayload(timestamp);
+        }
+        return payloads;
     }
 
     /**
@@ -152,44 +226,114 @@ public class EventGenerator {
      * @param timestamp timestamp
      * @return payload object
      */
-    private static Object[] getPayloadData(long timestamp) {
-        List<Object> payload = new ArrayList<>();
-
-        String applicationName = getRandomValueFromArray(applications.keySet().toArray(
-                new String[applications.size()]));
-
-        payload.add(applicationName);
-        payload.add("1.0.0");
-        payload.add("admin");
-
-        payload.add(getRandomValueFromArray(applications.get(applicationName).toArray(
-                new String[applications.size()])));
-        payload.add(timestamp);
-        payload.add("");
-        payload.add("webapp");
-        payload.add(applicationName);
-        payload.add("-");
-        payload.add("GET");
-        payload.add("");
-        payload.add("text/html;charset=UTF-8");
-        payload.add(Long.parseLong(getRandomValueFromArray(HTTP_RESPONSE_CODES)));
-
-        String[] ipRange = getRandomValueFromArray(CLIENT_ADDRESSES).split("-");
-        payload.add(generateRandomIPFromRange(ipRange[0], ipRange[1]));
-
-        payload.add(getRandomValueFromArray(REFERERS));
-        payload.add(getRandomValueFromArray(USERAGENTS));
-        payload.add(Quickstart.hostname + ":8080");
-        payload.add("");
-        payload.add("");
-        payload.add((long) (new Random().nextInt(300)));
-        payload.add((long) -1);
-        payload.add((long) -1);
-        payload.add("");
-        payload.add("");
-        payload.add(getRandomValueFromArray(LANGUAGES));
-
-        return payload.toArray();
+    private Object[] generatePayload(long timestamp) {
+        int rank = Arrays.binarySearch(requestURIDistribution, random.nextDouble());
+        rank = Math.min((rank >= 0) ? rank : -rank - 1, requestURIs.length - 1);
+        String applicationName = applicationNames[rank];
+        long responseTime = Math.min((long) Math.exp(Math.log(MEDIAN_RESPONSE_TIME) +
+                RESPONSE_TIME_SIGMA * random.nextGaussian()), MAX_RESPONSE_TIME);
+        int clientRange = random.nextInt(CLIENT_ADDRESSES.length);
+        int userAgent = random.nextInt(USERAGENTS.length);
+
+        //  the phases of the response time, in microseconds: queue, pipeline, servlet and commit
+        long responseTimeMicros = responseTime * 1000 + random.nextInt(1000);
+        long queueTime = random.nextInt((int) Math.min(responseTimeMicros / 10, 1000) + 1);
+        long pipelineTime = random.nextInt((int) Math.min(responseTimeMicros / 10, 500) + 1);
+        long commitTime = random.nextInt((int) Math.min(responseTimeMicros / 10, 2000) + 1);
+        long servletTime = responseTimeMicros - queueTime - pipelineTime - commitTime;
+
+        return new Object[]{
+                applicationName,
+                "1.0.0",
+                "admin",
+                requestURIs[rank],
+                timestamp,
+                "",
+                "webapp",
+                applicationName,
+                "-",
+                "GET",
+                "",
+                "text/html;charset=UTF-8",
+                Long.parseLong(getRandomValueFromArray(HTTP_RESPONSE_CODES)),
+                generateRandomAddress(clientRange),
+                getRandomValueFromArray(REFERERS),
+                USERAGENTS[userAgent],
+                Quickstart.hostname + ":8080",
+                "",
+                "",
+                responseTime,
+                (long) 0,
+                (long) random.nextInt(MAX_RESPONSE_SIZE),
+                "",
+                "",
+                getRandomValueFromArray(LANGUAGES),
+                1.0,
+                responseTimeMicros,
+                queueTime,
+                pipelineTime,
+                servletTime,
+                commitTime,
+                USERAGENT_CLASSES[userAgent][0],
+                USERAGENT_CLASSES[userAgent][1],
+                USERAGENT_CLASSES[userAgent][2],
+                CLIENT_LOCATIONS[clientRange][0],
+                CLIENT_LOCATIONS[clientRange][1],
+                toUriTemplate(requestURIs[rank])
+        };
+    }
+
+    /**
+     * Generates a random IP within the IP range of an ISP.
+     *
+     * @param range the index of the IP range of the ISP
+     * @return random IP
+     */
+    private String generateRandomAddress(int range) {
+        long address = addressRangeStarts[range] + random.nextInt(addressRangeSizes[range]);
+        return ((address >>> 24) & 0xff) + "." + ((address >>> 16) & 0xff) + "." + ((address >>> 8) & 0xff) + "." +
+                (address & 0xff);
+    }
+
+    /**
+     * Returns a random value from a given array.
+     *
+     * @param array input array
+     * @return random value from the array
+     */
+    private String getRandomValueFromArray(String[] array) {
+        return array[random.nextInt(array.length)];
+    }
+
+    /**
+     * Returns the URI template of a request URI, as normalized by the HTTP statistics publisher of the server, whose
+     * numeric path segments are replaced by {id}.
+     *
+     * @param requestURI the request URI
+     * @return the URI template
+     */
+    private static String toUriTemplate(String requestURI) {
+        String[] segments = requestURI.split("/", -1);
+        for (int index = 0; index < segments.length; index++) {
+            if (!segments[index].isEmpty() && segments[index].chars().allMatch(Character::isDigit)) {
+                segments[index] = "{id}";
+            }
+        }
+        return String.join("/", segments);
+    }
+
+    /**
+     * Parses an IPv4 address.
+     *
+     * @param address the dotted IPv4 address
+     * @return the address as an unsigned number
+     */
+    private static long parseAddress(String address) {
+        long value = 0;
+        for (String part : address.split("\\.")) {
+            value = (value << 8) | Integer.parseInt(part);
+        }
+        return value;
     }
 
     /**
@@ -210,19 +354,6 @@ public class EventGenerator {
                 "albums",
                 "albums/2016"
         ));
-        applications.put("examples", Arrays.asList(
-                "servlets/servlet/HelloWorldExample",
-                "servlets/servlet/RequestInfoExample",
-                "servlets/servlet/RequestHeaderExample"
-        ));
-        applications.put("bookstore-app", Arrays.asList(
-                "authors",
-                "top/2016",
-                "top/2015"
-        ));
-        applications.put("examples", Arrays.asList(
-                "servlets/servlet/HelloWorldExample"
-        ));
         applications.put("bookstore-app", Arrays.asList(
                 "authors",
                 "top/2016",
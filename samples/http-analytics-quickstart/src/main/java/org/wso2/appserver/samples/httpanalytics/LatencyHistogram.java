@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.appserver.samples.httpanalytics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class counts latencies in log-linear buckets, which keep the percentiles within about 3% of their value with
+ * a fixed memory footprint. An instance is not thread safe, each publishing thread records into its own one and
+ * they are merged to report the percentiles.
+ */
+class LatencyHistogram {
+    // each power of 2 is split into 2^SUB_BUCKET_BITS buckets
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[(Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT];
+    private long totalCount;
+    private long maxValue;
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts[getIndex(value)]++;
+        totalCount++;
+        maxValue = Math.max(maxValue, value);
+    }
+
+    /**
+     * Adds the latencies recorded in another histogram to this one.
+     *
+     * @param histogram the other histogram
+     */
+    void add(LatencyHistogram histogram) {
+        for (int index = 0; index < counts.length; index++) {
+            counts[index] += histogram.counts[index];
+        }
+        totalCount += histogram.totalCount;
+        maxValue = Math.max(maxValue, histogram.maxValue);
+    }
+
+    long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the latency below which the specified percentage of the latencies are.
+     *
+     * @param percentile the percentage, between 0 and 100
+     * @return the latency in nanoseconds, the upper bound of its bucket
+     */
+    long getPercentile(double percentile) {
+        long rank = (long) Math.ceil(totalCount * percentile / 100);
+        long count = 0;
+        for (int index = 0; index < counts.length; index++) {
+            count += counts[index];
+            if (count >= Math.max(rank, 1)) {
+                return Math.min(getUpperBound(index), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    long getMaxValue() {
+        return maxValue;
+    }
+
+    /**
+     * Formats the percentiles of the latencies in milliseconds.
+     *
+     * @return the formatted percentiles
+     */
+    String format() {
+        return String.format("p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms",
+                toMillis(getPercentile(50)), toMillis(getPercentile(90)), toMillis(getPercentile(99)),
+                toMillis(getPercentile(99.9)), toMillis(maxValue));
+    }
+
+    private static int getIndex(long value) {
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    private static long getUpperBound(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index - shift * SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
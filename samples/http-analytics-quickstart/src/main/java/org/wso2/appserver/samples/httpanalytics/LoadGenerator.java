@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.appserver.samples.httpanalytics;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.wso2.carbon.databridge.agent.DataPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class publishes Events at a target rate from several threads, to find out the load a WSO2 HTTP Analytics
+ * setup can take.
+ * <p>
+ * The payloads are generated into a pool before publishing, so that generating them does not limit the rate. Each
+ * thread publishes its share of the rate on a fixed schedule, which follows the {@link DiurnalPattern} compressed
+ * into the configured period, if any. The latency of an Event is measured from the time it was scheduled to be
+ * published, so that the time spent waiting for the publisher to accept the previous Events is included. The achieved
+ * throughput is reported periodically, and the latency percentiles at the end.
+ */
+public class LoadGenerator {
+    private static final Log log = LogFactory.getLog(LoadGenerator.class);
+    private static final long REPORT_INTERVAL_SECONDS = 10;
+
+    private final DataPublisher dataPublisher;
+    private final String streamId;
+    private final Settings settings;
+    private final EventGenerator eventGenerator;
+    private final DiurnalPattern diurnalPattern;
+    private final LongAdder publishedCount = new LongAdder();
+
+    /**
+     * Creates a load generator.
+     *
+     * @param dataPublisher data publisher to be used
+     * @param streamId      stream id
+     * @param settings      the settings of the load
+     */
+    public LoadGenerator(DataPublisher dataPublisher, String streamId, Settings settings) {
+        this.dataPublisher = dataPublisher;
+        this.streamId = streamId;
+        this.settings = settings;
+        this.eventGenerator = settings.createEventGenerator();
+        this.diurnalPattern = settings.getDiurnalPattern();
+    }
+
+    /**
+     * Publishes the Events for the configured duration and reports the achieved throughput and latencies.
+     *
+     * @throws InterruptedException if the thread is interrupted while the Events are published
+     */
+    public void run() throws InterruptedException {
+        log.info("Generating " + settings.poolSize + " events to be published");
+        Object[][] payloads = eventGenerator.generatePayloads(settings.poolSize);
+
+        log.info(String.format("Publishing %d events/s from %d threads for %d s", settings.eventsPerSecond,
+                settings.threadCount, settings.durationSeconds));
+        ExecutorService executor = Executors.newFixedThreadPool(settings.threadCount);
+        long startTime = System.nanoTime();
+        List<Future<LatencyHistogram>> results = new ArrayList<>();
+        for (int thread = 0; thread < settings.threadCount; thread++) {
+            int threadIndex = thread;
+            results.add(executor.submit(() -> publishEvents(threadIndex, payloads, startTime)));
+        }
+        executor.shutdown();
+
+        long reportedCount = 0;
+        long reportTime = startTime;
+        try {
+            while (!executor.awaitTermination(REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS)) {
+                long count = publishedCount.sum();
+                long now = System.nanoTime();
+                log.info(String.format("Published %d events, %.0f events/s", count,
+                        (count - reportedCount) * 1e9 / (now - reportTime)));
+                reportedCount = count;
+                reportTime = now;
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            throw e;
+        }
+        double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+
+        LatencyHistogram latencies = new LatencyHistogram();
+        for (Future<LatencyHistogram> result : results) {
+            try {
+                latencies.add(result.get());
+            } catch (ExecutionException e) {
+                log.error("Error in publishing events", e.getCause());
+            }
+        }
+        log.info(String.format("Published %d events in %.1f s: %.0f events/s achieved, %d events/s targeted",
+                latencies.getTotalCount(), elapsedSeconds, latencies.getTotalCount() / elapsedSeconds,
+                settings.eventsPerSecond));
+        log.info("Publish latency: " + latencies.format());
+    }
+
+    /**
+     * Publishes the share of the Events of a thread, until the end of the run.
+     *
+     * @param threadIndex the index of the thread
+     * @param payloads    the pool of payloads
+     * @param startTime   the start time of the run, in nanoseconds
+     * @return the latencies of the Events published by the thread
+     */
+    private LatencyHistogram publishEvents(int threadIndex, Object[][] payloads, long startTime) {
+        LatencyHistogram latencies = new LatencyHistogram();
+        double interval = (double) TimeUnit.SECONDS.toNanos(1) * settings.threadCount / settings.eventsPerSecond;
+        long endTime = startTime + TimeUnit.SECONDS.toNanos(settings.durationSeconds);
+        //  the threads are staggered over the interval, so that they do not publish in bursts
+        double scheduledTime = startTime + interval * threadIndex / settings.threadCount;
+        int payloadIndex = threadIndex % payloads.length;
+
+        while (scheduledTime < endTime && !Thread.currentThread().isInterrupted()) {
+            long delay = (long) scheduledTime - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+                continue;
+            }
+            dataPublisher.publish(eventGenerator.createEvent(streamId, payloads[payloadIndex],
+                    System.currentTimeMillis()));
+            latencies.record(System.nanoTime() - (long) scheduledTime);
+            publishedCount.increment();
+
+            payloadIndex = (payloadIndex + settings.threadCount) % payloads.length;
+            scheduledTime += interval / getLoadFactor((long) scheduledTime - startTime);
+        }
+        return latencies;
+    }
+
+    /**
+     * Returns the load factor of the diurnal pattern at the specified time of the run.
+     *
+     * @param elapsedTime the time since the start of the run, in nanoseconds
+     * @return the load factor, 1 if the diurnal pattern is not followed
+     */
+    private double getLoadFactor(long elapsedTime) {
+        if (settings.diurnalPeriodSeconds <= 0) {
+            return 1;
+        }
+        double periodNanos = TimeUnit.SECONDS.toNanos(settings.diurnalPeriodSeconds);
+        return diurnalPattern.getFactor((elapsedTime % periodNanos) / periodNanos);
+    }
+
+    /**
+     * The settings of the generated data and load, read from the system properties.
+     */
+    public static class Settings {
+        static final String RATE_PROPERTY = "load.rate";
+        static final String THREADS_PROPERTY = "load.threads";
+        static final String DURATION_PROPERTY = "load.duration";
+        static final String POOL_SIZE_PROPERTY = "load.poolSize";
+        static final String URI_EXPONENT_PROPERTY = "load.uriExponent";
+        static final String DIURNAL_AMPLITUDE_PROPERTY = "load.diurnalAmplitude";
+        static final String DIURNAL_PERIOD_PROPERTY = "load.diurnalPeriod";
+        static final String SEED_PROPERTY = "load.seed";
+
+        private final int eventsPerSecond;
+        private final int threadCount;
+        private final long durationSeconds;
+        private final int poolSize;
+        private final double requestURIExponent;
+        private final DiurnalPattern diurnalPattern;
+        private final long diurnalPeriodSeconds;
+        private final long seed;
+
+        private Settings() {
+            eventsPerSecond = Integer.parseInt(System.getProperty(RATE_PROPERTY, "0"));
+            threadCount = Integer.parseInt(System.getProperty(THREADS_PROPERTY, "4"));
+            durationSeconds = Long.parseLong(System.getProperty(DURATION_PROPERTY, "60"));
+            poolSize = Integer.parseInt(System.getProperty(POOL_SIZE_PROPERTY, "10000"));
+            requestURIExponent = Double.parseDouble(System.getProperty(URI_EXPONENT_PROPERTY, "1.0"));
+            diurnalPattern = new DiurnalPattern(Double.parseDouble(System.getProperty(DIURNAL_AMPLITUDE_PROPERTY,
+                    "0.6")));
+            diurnalPeriodSeconds = Long.parseLong(System.getProperty(DIURNAL_PERIOD_PROPERTY, "0"));
+            String seedValue = System.getProperty(SEED_PROPERTY);
+            seed = (seedValue != null) ? Long.parseLong(seedValue) : System.nanoTime();
+
+            if (threadCount <= 0 || durationSeconds <= 0 || poolSize <= 0) {
+                throw new IllegalArgumentException("The " + THREADS_PROPERTY + ", " + DURATION_PROPERTY + " and " +
+                        POOL_SIZE_PROPERTY + " must be positive.");
+            }
+            if (eventsPerSecond < 0 || requestURIExponent < 0 || diurnalPeriodSeconds < 0) {
+                throw new IllegalArgumentException("The " + RATE_PROPERTY + ", " + URI_EXPONENT_PROPERTY + " and " +
+                        DIURNAL_PERIOD_PROPERTY + " must not be negative.");
+            }
+        }
+
+        /**
+         * Reads the settings from the system properties.
+         *
+         * @return the settings
+         * @throws IllegalArgumentException if a setting is not a valid number or out of its range
+         */
+        public static Settings fromSystemProperties() {
+            return new Settings();
+        }
+
+        /**
+         * Returns whether a load is to be generated, in addition to the sample data of the past days.
+         *
+         * @return true if a target rate is set, false otherwise
+         */
+        public boolean isLoadEnabled() {
+            return eventsPerSecond > 0;
+        }
+
+        /**
+         * Creates a generator of the Events with the distributions of these settings.
+         *
+         * @return the event generator
+         */
+        public EventGenerator createEventGenerator() {
+            return new EventGenerator(seed, requestURIExponent);
+        }
+
+        DiurnalPattern getDiurnalPattern() {
+            return diurnalPattern;
+        }
+    }
+}
@@ -59,7 +59,7 @@ public class Quickstart {
     private static final Log log;
 
     private static final String STREAM_NAME = "org.wso2.http.analytics.stream";
-    private static final String STREAM_VERSION = "1.0.0";
+    private static final String STREAM_VERSION = "1.5.0";
     private static final int THRIFT_PORT = 7611;
     private static final String USERNAME = "admin";
     private static final String PASSWORD = "admin";
@@ -78,6 +78,7 @@ public class Quickstart {
 
     private String operatingSystem = System.getProperty("os.name");
     private Process wso2HttpAnalyticsProcess;
+    private LoadGenerator.Settings settings;
 
     public static void main(String[] args) throws IOException, URISyntaxException {
         hostname = InetAddress.getLocalHost().getHostName();
@@ -86,6 +87,13 @@ public class Quickstart {
 
     private void runSample() throws IOException, URISyntaxException {
 
+        // Read the settings of the generated data and load
+        try {
+            settings = LoadGenerator.Settings.fromSystemProperties();
+        } catch (IllegalArgumentException e) {
+            logErrorAndExit("Invalid load generator settings", e);
+        }
+
         // Check for WSO2 HTTP Analytics distribution
         Path httpAnalyticsZipPath = getHttpAnalyticsDistributionFromSystemParameter();
         if (httpAnalyticsZipPath == null) {
@@ -287,6 +295,15 @@ public class Quickstart {
         log.info("Starting data publishing");
         publishEvents(dataPublisher, streamId);
 
+        if (settings.isLoadEnabled()) {
+            log.info("Starting load generation");
+            try {
+                new LoadGenerator(dataPublisher, streamId, settings).run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
         log.info("Stopping data publishing");
         try {
             Thread.sleep(5000);
@@ -314,8 +331,8 @@ public class Quickstart {
 
     /**
      * Iterates from 30 days back from now to current time with random intervals (subjected to a maximum interval
-     * defined by MAX_INTERVAL_BETWEEN_EVENTS in seconds) and for each iteration, publishes an event with sample HTTP
-     * data to WSO2 HTTP Analytics.
+     * defined by MAX_INTERVAL_BETWEEN_EVENTS in seconds, shortened at the busy hours of the day) and for each
+     * iteration, publishes an event with sample HTTP data to WSO2 HTTP Analytics.
      *
      * @param dataPublisher data publisher to be used
      * @param streamId      stream id
@@ -327,12 +344,15 @@ public class Quickstart {
         long timeFrom = calendar.getTimeInMillis();
 
         Random random = new Random();
+        EventGenerator eventGenerator = settings.createEventGenerator();
+        DiurnalPattern diurnalPattern = settings.getDiurnalPattern();
 
-        LongStream.iterate(timeFrom, time -> time + random.nextInt(MAX_INTERVAL_BETWEEN_EVENTS) * 1000)
+        LongStream.iterate(timeFrom, time -> time + (long) (random.nextInt(MAX_INTERVAL_BETWEEN_EVENTS) * 1000 /
+                diurnalPattern.getFactor(time)))
                 .distinct()
                 .limit(100000)
                 .filter(e -> e < currentTime)
-                .forEach(e -> dataPublisher.publish(EventGenerator.generateEvent(streamId, e)));
+                .forEach(e -> dataPublisher.publish(eventGenerator.generateEvent(streamId, e)));
     }
 
 